@@ -0,0 +1,49 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.Operator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link KnownOperators#findOperator(String)}: by symbol, by name in various case, and unknown operator; and
+ * {@link KnownOperators#findOperatorsByPrefix(String)} of the same names.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KnownOperatorsBenchmark {
+
+    @Param({"+", "x!", "plus", "NEGATE", "Fact", "unknown"})
+    public String name;
+
+    private final KnownOperators knownOperators = new KnownOperators();
+
+    @Benchmark
+    public Operator findOperator() {
+        try {
+            return knownOperators.findOperator(name);
+        } catch (KnownOperators.InvalidOperatorException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public List<Operator> findOperatorsByPrefix() {
+        return knownOperators.findOperatorsByPrefix(name);
+    }
+
+}
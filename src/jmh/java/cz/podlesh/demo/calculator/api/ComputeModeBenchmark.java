@@ -0,0 +1,91 @@
+package cz.podlesh.demo.calculator.api;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the execution modes of the computations (<code>calculator.compute.mode</code>) under mixed load: cheap
+ * requests are sent together with heavy ones. The interesting numbers are the throughput and the tail latency
+ * (p0.99 and above) of the cheap requests, which suffer when the heavy computations block the event loop.
+ * <p/>
+ * The <code>virtual</code> mode needs Java 21: run it with <code>./gradlew jmh -PjmhInclude=ComputeMode</code> on
+ * such JVM, otherwise the setup fails.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ComputeModeBenchmark {
+
+    private static final String PLUS = "{\"operator\":\"+\",\"arguments\":[\"10\",\"12\",\"15\",\"23\"]}";
+    private static final String HEAVY_FACTORIAL = "{\"operator\":\"x!\",\"arguments\":\"5000\"}";
+
+    @Param({"event-loop", "pool", "virtual"})
+    public String mode;
+
+    private EmbeddedServer server;
+    private HttpClient client;
+    private BlockingHttpClient blockingClient;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("calculator.compute.mode", mode);
+        //each request must be computed
+        properties.put("calculator.cache.operators", Collections.emptyList());
+        properties.put("calculator.cache.factorization", false);
+        server = ApplicationContext.run(EmbeddedServer.class, properties);
+        client = server.getApplicationContext().createBean(HttpClient.class, server.getURL());
+        blockingClient = client.toBlocking();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.getApplicationContext().close();
+    }
+
+    private String post(String uri, String body) {
+        return blockingClient.retrieve(HttpRequest.POST(uri, body).contentType(MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public String cheap() {
+        return post("/calculator/basic", PLUS);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public String heavy() {
+        return post("/calculator/scientific", HEAVY_FACTORIAL);
+    }
+
+}
@@ -0,0 +1,99 @@
+package cz.podlesh.demo.calculator.api;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark: the whole application runs in the embedded Netty server, requests are sent by the HTTP
+ * client over the loopback interface. This measures mostly the overhead of HTTP and JSON processing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class HttpBenchmark {
+
+    private static final String PLUS = "{\"operator\":\"+\",\"arguments\":[\"10\",\"12\",\"15\",\"23\"]}";
+    private static final String DIVIDE = "{\"operator\":\"/\",\"arguments\":[\"10000000000000000000000000000000000000000001\",\"3\"]}";
+    private static final String FACTORIAL = "{\"operator\":\"x!\",\"arguments\":\"450\"}";
+    private static final String PRIME = "{\"arguments\":\"4611686014132420609\"}";
+    private static final String BATCH = "[" + PLUS + "," + DIVIDE + "," + PLUS + "," + DIVIDE + "]";
+
+    private EmbeddedServer server;
+    private HttpClient client;
+    private BlockingHttpClient blockingClient;
+
+    @Setup
+    public void setup() {
+        server = ApplicationContext.run(EmbeddedServer.class);
+        client = server.getApplicationContext().createBean(HttpClient.class, server.getURL());
+        blockingClient = client.toBlocking();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.getApplicationContext().close();
+    }
+
+    private String post(String uri, String body) {
+        return blockingClient.retrieve(HttpRequest.POST(uri, body).contentType(MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    @Benchmark
+    public String operators() {
+        return blockingClient.retrieve("/calculator/scientific");
+    }
+
+    @Benchmark
+    public String plus() {
+        return post("/calculator/basic", PLUS);
+    }
+
+    @Benchmark
+    public String divide() {
+        return post("/calculator/basic", DIVIDE);
+    }
+
+    @Benchmark
+    public String dividePrecision() {
+        return post("/calculator/basic?precision=20", DIVIDE);
+    }
+
+    @Benchmark
+    public String factorial() {
+        return post("/calculator/scientific", FACTORIAL);
+    }
+
+    @Benchmark
+    public String prime() {
+        return post("/calculator/scientific/prime", PRIME);
+    }
+
+    @Benchmark
+    public String batch() {
+        return post("/calculator/basic/batch", BATCH);
+    }
+
+}
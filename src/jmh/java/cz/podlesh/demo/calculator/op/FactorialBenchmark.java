@@ -0,0 +1,43 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Factorial}: with warm cache of checkpoints (the usual case of the shared instance) and from scratch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FactorialBenchmark {
+
+    @Param({"20", "100", "450", "1000", "5000", "20000"})
+    public int n;
+
+    private final Factorial cached = new Factorial(Factorial.DEFAULT.getMaxN());
+
+    @Benchmark
+    public BigInteger cached() {
+        return cached.apply(n);
+    }
+
+    @Benchmark
+    public BigInteger uncached() {
+        return new Factorial(n).apply(n);
+    }
+
+}
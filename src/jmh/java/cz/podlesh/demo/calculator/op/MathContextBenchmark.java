@@ -0,0 +1,60 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Math context of a request with precision: created for each request, or taken from {@link MathContexts}; followed
+ * by a cheap operation, as in a typical request. Run with <code>-prof gc</code> to see the allocation per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MathContextBenchmark {
+
+    @Param({"PLUS", "DIV"})
+    public BinaryOperator operator;
+
+    @Param({"20"})
+    public int precision;
+
+    private List<BigDecimal> arguments;
+
+    @Setup
+    public void setup() {
+        arguments = Arrays.asList(new BigDecimal("10000000000000000000000000000000000000000001"), new BigDecimal("3"));
+    }
+
+    @Benchmark
+    public BigDecimal created() {
+        return operator.apply(arguments, new MathContext(precision));
+    }
+
+    @Benchmark
+    public BigDecimal interned() {
+        return operator.apply(arguments, MathContexts.of(precision));
+    }
+
+    @Benchmark
+    public MathContext mathContextOnly() {
+        return MathContexts.of(precision);
+    }
+}
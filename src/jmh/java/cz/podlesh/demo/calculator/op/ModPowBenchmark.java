@@ -0,0 +1,80 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modular power with odd modulus of given size (and exponent of the same size): the operator, the plain
+ * <code>BigInteger.modPow</code> baseline and the {@link MontgomeryBig} kernel. Plus single modular product, which
+ * is what the factorization does in its loops.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModPowBenchmark {
+
+    @Param({"63", "256", "2048"})
+    public int bits;
+
+    private BigInteger base;
+    private BigInteger exponent;
+    private BigInteger modulus;
+    private List<BigDecimal> arguments;
+    private MontgomeryBig mont;
+    private long[] montBase;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(bits);
+        modulus = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+        base = new BigInteger(bits - 1, random);
+        exponent = new BigInteger(bits, random);
+        arguments = Arrays.asList(new BigDecimal(base), new BigDecimal(exponent), new BigDecimal(modulus));
+        mont = new MontgomeryBig(modulus);
+        montBase = mont.toMontgomery(base);
+    }
+
+    @Benchmark
+    public BigDecimal operator() {
+        return NumberTheoryOperator.MODPOW.apply(arguments, null);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerModPow() {
+        return base.modPow(exponent, modulus);
+    }
+
+    @Benchmark
+    public BigInteger montgomeryPow() {
+        return mont.fromMontgomery(mont.pow(mont.toMontgomery(base), exponent));
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerMulMod() {
+        return base.multiply(base).mod(modulus);
+    }
+
+    @Benchmark
+    public long[] montgomeryMul() {
+        return mont.mul(montBase, montBase);
+    }
+}
@@ -0,0 +1,27 @@
+package cz.podlesh.demo.calculator.op;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Random operands for the benchmarks.
+ */
+final class Operands {
+
+    private Operands() {
+    }
+
+    /**
+     * Random positive integer with exactly given number of digits.
+     */
+    static BigDecimal randomInteger(Random random, int digits) {
+        StringBuilder sb = new StringBuilder(digits);
+        sb.append((char) ('1' + random.nextInt(9)));
+        for (int i = 1; i < digits; i++) {
+            sb.append((char) ('0' + random.nextInt(10)));
+        }
+        return new BigDecimal(new BigInteger(sb.toString()));
+    }
+
+}
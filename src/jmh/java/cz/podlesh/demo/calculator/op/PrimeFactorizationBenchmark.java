@@ -0,0 +1,72 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PrimeFactorization} of numbers of various size and structure: primes (primality test only), semiprimes
+ * with two factors of the same size (the hardest case) and smooth numbers (trial division only).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimeFactorizationBenchmark {
+
+    public enum Kind {
+        PRIME, SEMIPRIME, SMOOTH
+    }
+
+    @Param({"PRIME", "SEMIPRIME", "SMOOTH"})
+    public Kind kind;
+
+    /**
+     * Approximate size of the number, in bits.
+     */
+    @Param({"20", "40", "62"})
+    public int bits;
+
+    private long n;
+
+    @Setup
+    public void setup() {
+        switch (kind) {
+            case PRIME:
+                n = BigInteger.ONE.shiftLeft(bits - 1).nextProbablePrime().longValueExact();
+                break;
+            case SEMIPRIME:
+                BigInteger p = BigInteger.ONE.shiftLeft(bits / 2 - 1).nextProbablePrime();
+                n = p.multiply(p.add(p.shiftRight(2)).nextProbablePrime()).longValueExact();
+                break;
+            default:
+                int[] smallPrimes = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+                Random random = new Random(bits);
+                n = 1;
+                while (64 - Long.numberOfLeadingZeros(n) < bits - 5) {
+                    n *= smallPrimes[random.nextInt(smallPrimes.length)];
+                }
+        }
+    }
+
+    @Benchmark
+    public List<Long> apply() {
+        return PrimeFactorization.DEFAULT.apply(n);
+    }
+
+}
@@ -0,0 +1,53 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scientific functions by the precision. The memoized constants are computed in the warmup, so this is the cost of
+ * a request with already known precision.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScientificOperatorBenchmark {
+
+    @Param({"SQRT", "EXP", "LN", "SIN", "ATAN", "PI"})
+    public ScientificOperator operator;
+
+    @Param({"16", "100", "1000"})
+    public int precision;
+
+    private List<BigDecimal> arguments;
+    private MathContext mathContext;
+
+    @Setup
+    public void setup() {
+        arguments = operator.getMaxArgumentsCount() == 0 ? Collections.emptyList()
+                : Collections.singletonList(new BigDecimal("2.718"));
+        mathContext = MathContexts.of(precision);
+    }
+
+    @Benchmark
+    public BigDecimal apply() {
+        return operator.apply(arguments, mathContext);
+    }
+}
@@ -0,0 +1,84 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long argument lists of <code>+</code> and <code>*</code>, exact: the sequential fold versus {@link TreeReduction},
+ * on one thread and in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeReductionBenchmark {
+
+    @Param({"PLUS", "MUL"})
+    public BinaryOperator operator;
+
+    @Param({"200", "1000"})
+    public int count;
+
+    /**
+     * Number of digits of the operands.
+     */
+    @Param({"20", "200"})
+    public int digits;
+
+    private List<BigDecimal> arguments;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(count + digits);
+        arguments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            arguments.add(Operands.randomInteger(random, digits));
+        }
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public BigDecimal fold() {
+        BigDecimal result = arguments.get(0);
+        for (int i = 1; i < arguments.size(); i++) {
+            result = operator.apply(result, arguments.get(i), MathContext.UNLIMITED);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BigDecimal tree() {
+        return TreeReduction.reduce(operator, arguments, MathContext.UNLIMITED, ComputationContext.NONE, null);
+    }
+
+    @Benchmark
+    public BigDecimal treeParallel() {
+        return TreeReduction.reduce(operator, arguments, MathContext.UNLIMITED, ComputationContext.NONE, pool);
+    }
+}
@@ -0,0 +1,69 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The unary operators, with operands of various sizes and with various precision. See also
+ * {@link FactorialBenchmark}, for factorial of more values and without the {@link BigDecimal} overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnaryOperatorBenchmark {
+
+    @Param({"NEGATE", "ABS", "SQUARE", "FACT"})
+    public UnaryOperator operator;
+
+    /**
+     * Number of digits of the operand; factorial gets this number itself as the operand.
+     */
+    @Param({"2", "18", "100", "1000"})
+    public int digits;
+
+    /**
+     * Precision of the math context, 0 = unlimited.
+     */
+    @Param({"0", "16", "100"})
+    public int precision;
+
+    private List<BigDecimal> arguments;
+    private MathContext mathContext;
+
+    @Setup
+    public void setup() {
+        BigDecimal value;
+        if (operator == UnaryOperator.FACT) {
+            value = BigDecimal.valueOf(digits);
+        } else {
+            value = Operands.randomInteger(new Random(digits), digits).negate();
+        }
+        arguments = Collections.singletonList(value);
+        mathContext = new MathContext(precision);
+    }
+
+    @Benchmark
+    public BigDecimal apply() {
+        return operator.apply(arguments, mathContext);
+    }
+
+}
@@ -0,0 +1,116 @@
+package cz.podlesh.demo.calculator.tcp;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.BlockingHttpClient;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.runtime.server.EmbeddedServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiny operations (<code>+</code> and <code>*</code> of small numbers) over the TCP listener versus the REST API,
+ * both served by the same embedded application over the loopback interface. The score is the number of
+ * operations (not requests) per second: pipelined TCP requests and REST batches count each operation.
+ * <p/>
+ * Ops/sec per core of the server alone is measured by {@link TcpLoadTest} (<code>./gradlew tcpLoadTest</code>).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TcpBenchmark {
+
+    private static final int PIPELINE = 64;
+    private static final BigDecimal[] OPERANDS = {new BigDecimal(10), new BigDecimal(12)};
+    private static final String PLUS = "{\"operator\":\"+\",\"arguments\":[\"10\",\"12\"]}";
+    private static final String MUL = "{\"operator\":\"*\",\"arguments\":[\"10\",\"12\"]}";
+    private static final String BATCH = "[" + String.join(",", Collections.nCopies(PIPELINE / 2, PLUS + "," + MUL))
+            + "]";
+
+    private EmbeddedServer server;
+    private HttpClient httpClient;
+    private BlockingHttpClient blockingClient;
+    private TcpCalculatorClient tcpClient;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        server = ApplicationContext.run(EmbeddedServer.class, Collections.singletonMap("calculator.tcp.port", 0));
+        httpClient = server.getApplicationContext().createBean(HttpClient.class, server.getURL());
+        blockingClient = httpClient.toBlocking();
+        int port = server.getApplicationContext().getBean(TcpCalculatorServer.class).getPort();
+        tcpClient = new TcpCalculatorClient("localhost", port);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tcpClient.close();
+        httpClient.close();
+        server.getApplicationContext().close();
+    }
+
+    private String post(String uri, String body) {
+        return blockingClient.retrieve(HttpRequest.POST(uri, body).contentType(MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    @Benchmark
+    public String httpPlus() {
+        return post("/calculator/basic", PLUS);
+    }
+
+    @Benchmark
+    public String httpMul() {
+        return post("/calculator/basic", MUL);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public String httpBatch() {
+        return post("/calculator/basic/batch", BATCH);
+    }
+
+    @Benchmark
+    public BigDecimal tcpPlus() throws Exception {
+        return tcpClient.apply("+", OPERANDS).get();
+    }
+
+    @Benchmark
+    public BigDecimal tcpMul() throws Exception {
+        return tcpClient.apply("*", OPERANDS).get();
+    }
+
+    /**
+     * Pipelined: all the requests are sent before waiting for the first response.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE)
+    public BigDecimal tcpPipelined() throws Exception {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<BigDecimal>[] results = new CompletableFuture[PIPELINE];
+        for (int i = 0; i < PIPELINE; i++) {
+            results[i] = tcpClient.apply(i % 2 == 0 ? "+" : "*", OPERANDS);
+        }
+        CompletableFuture.allOf(results).get();
+        return results[PIPELINE - 1].get();
+    }
+}
@@ -0,0 +1,206 @@
+package cz.podlesh.demo.calculator.tcp;
+
+import cz.podlesh.demo.calculator.Application;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of tiny operations (<code>+</code> and <code>*</code>): TCP listener versus the REST API, reported as
+ * operations per second and operations per second per core of the server.
+ * <p/>
+ * The application runs in a separate JVM started by the test (with the same classpath), so that its CPU time is
+ * measured alone, without the load generator. Usage: <code>TcpLoadTest [seconds] [connections] [depth]</code>
+ * (<code>./gradlew tcpLoadTest -PloadTestArgs="10 4 64"</code>):
+ * <ul>
+ * <li><code>tcp</code>: <code>connections</code> connections, each with <code>depth</code> pipelined requests in
+ * flight</li>
+ * <li><code>http</code>: <code>connections</code> threads sending one operation per request</li>
+ * <li><code>http-batch</code>: <code>connections</code> threads sending <code>depth</code> operations per request
+ * (<code>/batch</code>)</li>
+ * </ul>
+ */
+public final class TcpLoadTest {
+
+    private static final BigDecimal[] OPERANDS = {new BigDecimal(10), new BigDecimal(12)};
+    private static final String PLUS = "{\"operator\":\"+\",\"arguments\":[\"10\",\"12\"]}";
+    private static final String MUL = "{\"operator\":\"*\",\"arguments\":[\"10\",\"12\"]}";
+
+    private final int seconds;
+    private final int connections;
+    private final int depth;
+    private final int httpPort;
+    private final int tcpPort;
+    private Process server;
+
+    private TcpLoadTest(int seconds, int connections, int depth) throws IOException {
+        this.seconds = seconds;
+        this.connections = connections;
+        this.depth = depth;
+        this.httpPort = freePort();
+        this.tcpPort = freePort();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        TcpLoadTest test = new TcpLoadTest(seconds, connections, depth);
+        test.startServer();
+        try {
+            System.out.printf("%d s, %d connections, depth %d, server has %d processors%n", seconds, connections,
+                    depth, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%-12s %14s %18s%n", "", "ops/s", "ops/s per core");
+            test.run("tcp", test::tcp);
+            test.run("http", test::http);
+            test.run("http-batch", test::httpBatch);
+        } finally {
+            test.server.destroy();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void startServer() throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        server = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "-Dmicronaut.server.port=" + httpPort, "-Dcalculator.tcp.enabled=true",
+                "-Dcalculator.tcp.port=" + tcpPort, Application.class.getName())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        for (int port : new int[]{httpPort, tcpPort}) {
+            while (true) {
+                try (Socket ignored = new Socket("localhost", port)) {
+                    break;
+                } catch (IOException e) {
+                    if (!server.isAlive() || System.nanoTime() > deadline) {
+                        throw new IllegalStateException("server did not start", e);
+                    }
+                    Thread.sleep(100);
+                }
+            }
+        }
+    }
+
+    private Duration serverCpu() {
+        return server.info().totalCpuDuration().orElse(Duration.ZERO);
+    }
+
+    /**
+     * Load generator: runs until the flag is cleared, counting the operations.
+     */
+    private interface Load {
+        void run(AtomicBoolean running, LongAdder operations) throws Exception;
+    }
+
+    private void run(String name, Load load) throws Exception {
+        //warm-up, then measurement
+        measure(load, Math.max(1, seconds / 2));
+        Duration cpuBefore = serverCpu();
+        long start = System.nanoTime();
+        long operations = measure(load, seconds);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        double cpu = (serverCpu().toNanos() - cpuBefore.toNanos()) / 1e9;
+        System.out.printf("%-12s %14.0f %18.0f%n", name, operations / elapsed, cpu > 0 ? operations / cpu : 0);
+    }
+
+    private long measure(Load load, int seconds) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < connections; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    load.run(running, operations);
+                } catch (Exception e) {
+                    errors.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!errors.isEmpty()) {
+            throw errors.get(0);
+        }
+        return operations.sum();
+    }
+
+    private void tcp(AtomicBoolean running, LongAdder operations) throws Exception {
+        try (TcpCalculatorClient client = new TcpCalculatorClient("localhost", tcpPort)) {
+            Semaphore inFlight = new Semaphore(depth);
+            boolean plus = false;
+            while (running.get()) {
+                inFlight.acquire();
+                plus = !plus;
+                client.apply(plus ? "+" : "*", OPERANDS).whenComplete((result, error) -> {
+                    inFlight.release();
+                    if (error == null) {
+                        operations.increment();
+                    }
+                });
+            }
+            inFlight.acquire(depth);
+        }
+    }
+
+    private void http(AtomicBoolean running, LongAdder operations) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + httpPort + "/calculator/basic");
+        boolean plus = false;
+        while (running.get()) {
+            plus = !plus;
+            post(client, uri, plus ? PLUS : MUL);
+            operations.increment();
+        }
+    }
+
+    private void httpBatch(AtomicBoolean running, LongAdder operations) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + httpPort + "/calculator/basic/batch");
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            batch.add(i % 2 == 0 ? PLUS : MUL);
+        }
+        String body = "[" + String.join(",", batch) + "]";
+        while (running.get()) {
+            post(client, uri, body);
+            operations.add(depth);
+        }
+    }
+
+    private static void post(HttpClient client, URI uri, String body) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cz.podlesh.demo.calculator;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the accumulator sessions (<code>calculator.accumulator</code>), see {@link AccumulatorSessions}.
+ */
+@ConfigurationProperties("calculator.accumulator")
+public class AccumulatorConfiguration {
+
+    /**
+     * Maximum number of open sessions; new ones are refused when there are too many.
+     */
+    private int maxSessions = 1000;
+    /**
+     * Session is closed when it's not used for this long.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    /**
+     * Maximum number of digits of the running result of one session.
+     */
+    private int maxResultDigits = 100_000;
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getMaxResultDigits() {
+        return maxResultDigits;
+    }
+
+    public void setMaxResultDigits(int maxResultDigits) {
+        this.maxResultDigits = maxResultDigits;
+    }
+}
@@ -0,0 +1,146 @@
+package cz.podlesh.demo.calculator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import cz.podlesh.demo.calculator.op.Accumulator;
+import cz.podlesh.demo.calculator.op.BinaryOperator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import java.math.MathContext;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Micronaut bean that holds open accumulator sessions: running results of operators with unlimited number of
+ * arguments (see {@link Accumulator}), whose arguments arrive over several requests.
+ * <p/>
+ * Each session keeps only the running result, so its memory is bounded by the maximum number of digits of the
+ * result, not by the number of arguments. The number of sessions is limited, and idle sessions expire (see
+ * {@link AccumulatorConfiguration}). Session IDs are random UUIDs.
+ */
+@Singleton
+public class AccumulatorSessions {
+
+    private final AccumulatorConfiguration configuration;
+    private final Cache<String, Session> sessions;
+
+    public AccumulatorSessions(AccumulatorConfiguration configuration) {
+        this.configuration = configuration;
+        this.sessions = Caffeine.newBuilder()
+                .expireAfterAccess(configuration.getIdleTimeout())
+                //maintenance is cheap, run it by the calling thread: the limits hold immediately
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Open new session.
+     *
+     * @param operator    the operator, it must accept unlimited number of arguments
+     * @param mathContext math context of the operation; <code>null</code> = the default one
+     * @return the new session, without any arguments
+     * @throws IllegalArgumentException  the operator does not accept unlimited number of arguments
+     * @throws TooManySessionsException there are too many open sessions
+     */
+    @Nonnull
+    public Session open(BinaryOperator operator, @Nullable MathContext mathContext)
+            throws IllegalArgumentException, TooManySessionsException {
+        final Accumulator accumulator = operator.accumulator(mathContext, configuration.getMaxResultDigits());
+        if (sessions.estimatedSize() >= configuration.getMaxSessions()) {
+            //the estimate includes expired sessions
+            sessions.cleanUp();
+            if (sessions.estimatedSize() >= configuration.getMaxSessions()) {
+                throw new TooManySessionsException();
+            }
+        }
+        final Session session = new Session(UUID.randomUUID().toString(), accumulator);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Get open session; this counts as use of the session (it's not idle).
+     *
+     * @throws UnknownSessionException no such session, or it's already closed or expired
+     */
+    @Nonnull
+    public Session get(String id) throws UnknownSessionException {
+        final Session session = sessions.getIfPresent(id);
+        if (session == null) {
+            throw new UnknownSessionException(id);
+        }
+        return session;
+    }
+
+    /**
+     * Close the session.
+     *
+     * @return the closed session, with the final result
+     * @throws UnknownSessionException no such session, or it's already closed or expired
+     */
+    @Nonnull
+    public Session close(String id) throws UnknownSessionException {
+        final Session session = sessions.asMap().remove(id);
+        if (session == null) {
+            throw new UnknownSessionException(id);
+        }
+        return session;
+    }
+
+    /**
+     * Remove the session, if it's still registered: for a session that was never handed out to the client (its
+     * first chunk failed).
+     */
+    public void discard(Session session) {
+        sessions.asMap().remove(session.getId(), session);
+    }
+
+    /**
+     * Approximate number of open sessions.
+     */
+    public long getSessionCount() {
+        return sessions.estimatedSize();
+    }
+
+    /**
+     * Open session: ID and the accumulator.
+     */
+    public static class Session {
+        private final String id;
+        private final Accumulator accumulator;
+
+        Session(String id, Accumulator accumulator) {
+            this.id = id;
+            this.accumulator = accumulator;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Accumulator getAccumulator() {
+            return accumulator;
+        }
+    }
+
+    public static class UnknownSessionException extends NoSuchElementException {
+        private final String id;
+
+        public UnknownSessionException(String id) {
+            super("unknown accumulator session: " + id);
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+    }
+
+    public static class TooManySessionsException extends RuntimeException {
+        public TooManySessionsException() {
+            super("server is busy, too many accumulator sessions open");
+        }
+    }
+}
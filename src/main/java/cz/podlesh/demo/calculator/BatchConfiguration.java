@@ -0,0 +1,59 @@
+package cz.podlesh.demo.calculator;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+/**
+ * Configuration of the batch evaluation (<code>calculator.batch</code>).
+ */
+@ConfigurationProperties("calculator.batch")
+public class BatchConfiguration {
+
+    /**
+     * Maximum number of operations in one batch.
+     */
+    private int maxSize = 1000;
+    /**
+     * Maximum number of arguments of all the operations in one batch, together.
+     */
+    private int maxArguments = 10000;
+    /**
+     * Batches of at least this size are evaluated in parallel.
+     */
+    private int parallelThreshold = 64;
+    /**
+     * Maximum number of values (rows times columns) of one column operation.
+     */
+    private int maxColumnValues = 1_000_000;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxArguments() {
+        return maxArguments;
+    }
+
+    public void setMaxArguments(int maxArguments) {
+        this.maxArguments = maxArguments;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public int getMaxColumnValues() {
+        return maxColumnValues;
+    }
+
+    public void setMaxColumnValues(int maxColumnValues) {
+        this.maxColumnValues = maxColumnValues;
+    }
+}
@@ -0,0 +1,177 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.CalculatorType;
+import cz.podlesh.demo.calculator.op.Operator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Context;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micronaut bean with all the metrics of the calculator: for each operator and calculator type, there is latency
+ * timer (with percentile histogram), counter of arithmetic errors and distribution of operand and result size (in
+ * digits). Bad requests are counted for each calculator type.
+ * <p/>
+ * The meters are registered in advance for all the known operators, so that the hot path does just a lookup in
+ * a map (no meter builders, no tags). The bean is created eagerly, so that all the meters are visible from the start.
+ */
+@Context
+public class CalculatorMetrics {
+
+    public static final String OPERATION_TIMER = "calculator.operation";
+    public static final String ARITHMETIC_ERRORS = "calculator.errors";
+    public static final String BAD_REQUESTS = "calculator.bad.requests";
+    public static final String OPERAND_DIGITS = "calculator.operand.digits";
+    public static final String RESULT_DIGITS = "calculator.result.digits";
+    /**
+     * Name of the prime factorization, used as the <code>operator</code> tag.
+     */
+    public static final String FACTORIZATION = "prime";
+
+    private final MeterRegistry registry;
+    private final Map<CalculatorType, Map<Operator, OperatorMetrics>> operatorMetrics = new EnumMap<>(CalculatorType.class);
+    private final Map<CalculatorType, Counter> badRequests = new EnumMap<>(CalculatorType.class);
+    private final OperatorMetrics factorization;
+
+    public CalculatorMetrics(MeterRegistry registry, KnownOperators operators) {
+        this.registry = registry;
+        for (CalculatorType type : CalculatorType.values()) {
+            Map<Operator, OperatorMetrics> metrics = new ConcurrentHashMap<>();
+            for (Operator operator : operators.getOperators()) {
+                if (operator.isAvailableIn(type)) {
+                    metrics.put(operator, new OperatorMetrics(registry, type, operator.getName()));
+                }
+            }
+            operatorMetrics.put(type, metrics);
+            badRequests.put(type, Counter.builder(BAD_REQUESTS)
+                    .description("requests refused as invalid")
+                    .tags(calculatorTag(type))
+                    .register(registry));
+        }
+        factorization = new OperatorMetrics(registry, CalculatorType.SCIENTIFIC, FACTORIZATION);
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Get metrics of the operator.
+     *
+     * @param type     calculator type
+     * @param operator the operator
+     * @return metrics, never <code>null</code>
+     */
+    @Nonnull
+    public OperatorMetrics get(CalculatorType type, Operator operator) {
+        Map<Operator, OperatorMetrics> metrics = operatorMetrics.get(type);
+        OperatorMetrics result = metrics.get(operator);
+        if (result == null) {
+            //not a known operator: register on demand
+            result = metrics.computeIfAbsent(operator, op -> new OperatorMetrics(registry, type, op.getName()));
+        }
+        return result;
+    }
+
+    /**
+     * Metrics of the prime factorization (scientific calculator only).
+     */
+    @Nonnull
+    public OperatorMetrics getFactorization() {
+        return factorization;
+    }
+
+    public void badRequest(CalculatorType type) {
+        badRequests.get(type).increment();
+    }
+
+    private static Tags calculatorTag(CalculatorType type) {
+        return Tags.of("calculator", type.name().toLowerCase());
+    }
+
+    /**
+     * Metrics of one operator in one calculator type.
+     */
+    public static final class OperatorMetrics {
+
+        private final Timer timer;
+        private final Counter errors;
+        private final DistributionSummary operandDigits;
+        private final DistributionSummary resultDigits;
+
+        OperatorMetrics(MeterRegistry registry, CalculatorType type, String operatorName) {
+            Tags tags = calculatorTag(type).and("operator", operatorName.toLowerCase());
+            timer = Timer.builder(OPERATION_TIMER)
+                    .description("evaluation of the operations, including the failed ones")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry);
+            errors = Counter.builder(ARITHMETIC_ERRORS)
+                    .description("operations failed for arithmetic reasons (reported in the result)")
+                    .tags(tags)
+                    .register(registry);
+            operandDigits = digitsSummary(registry, OPERAND_DIGITS, "number of digits of the operands", tags);
+            resultDigits = digitsSummary(registry, RESULT_DIGITS, "number of digits of the results", tags);
+        }
+
+        private static DistributionSummary digitsSummary(MeterRegistry registry, String name, String description, Tags tags) {
+            return DistributionSummary.builder(name)
+                    .description(description)
+                    .baseUnit("digits")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1L)
+                    .maximumExpectedValue(1_000_000L)
+                    .register(registry);
+        }
+
+        /**
+         * Record successful operation.
+         *
+         * @param startNanos start of the operation, from {@link System#nanoTime()}
+         * @param arguments  the operands
+         * @param result     the result; <code>null</code> if it's not a single number
+         */
+        public void success(long startNanos, List<BigDecimal> arguments, @Nullable BigDecimal result) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            recordOperands(arguments);
+            if (result != null) {
+                resultDigits.record(result.precision());
+            }
+        }
+
+        /**
+         * Record operation that failed for arithmetic reasons.
+         *
+         * @param startNanos start of the operation, from {@link System#nanoTime()}
+         * @param arguments  the operands
+         */
+        public void arithmeticError(long startNanos, List<BigDecimal> arguments) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            errors.increment();
+            recordOperands(arguments);
+        }
+
+        private void recordOperands(List<BigDecimal> arguments) {
+            //no iterator
+            for (int i = 0; i < arguments.size(); i++) {
+                operandDigits.record(arguments.get(i).precision());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.MathContexts;
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import javax.annotation.Nullable;
+import java.math.MathContext;
+import java.time.Duration;
+
+/**
+ * Configuration of the computation limits (<code>calculator.computation</code>): timeout of one request and the
+ * maximum precision. The client can request shorter or longer timeout (by <code>timeout</code> query parameter or
+ * <code>X-Request-Timeout</code> header), but not longer than the maximum; higher precision than the maximum is
+ * refused.
+ */
+@ConfigurationProperties("calculator.computation")
+public class ComputationConfiguration {
+
+    /**
+     * Timeout used when the client does not request any.
+     */
+    private Duration defaultTimeout = Duration.ofSeconds(30);
+    /**
+     * Maximum timeout; longer requested timeout is silently shortened.
+     */
+    private Duration maxTimeout = Duration.ofSeconds(60);
+    /**
+     * Maximum requested precision (number of digits); higher precision is refused.
+     */
+    private int maxPrecision = 100_000;
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public void setDefaultTimeout(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    public Duration getMaxTimeout() {
+        return maxTimeout;
+    }
+
+    public void setMaxTimeout(Duration maxTimeout) {
+        this.maxTimeout = maxTimeout;
+    }
+
+    public int getMaxPrecision() {
+        return maxPrecision;
+    }
+
+    public void setMaxPrecision(int maxPrecision) {
+        this.maxPrecision = maxPrecision;
+    }
+
+    /**
+     * Math context of the requested precision.
+     *
+     * @param precision requested number of digits; <code>null</code> or 0 if none
+     * @return the math context, <code>null</code> if no precision is requested
+     * @throws IllegalArgumentException negative precision, or more than the maximum
+     */
+    @Nullable
+    public MathContext getMathContext(@Nullable Integer precision) throws IllegalArgumentException {
+        if (precision == null || precision == 0) {
+            return null;
+        }
+        if (precision < 0) {
+            throw new IllegalArgumentException("negative precision");
+        }
+        if (precision > maxPrecision) {
+            throw new IllegalArgumentException("too high precision: " + precision + ", maximum is " + maxPrecision);
+        }
+        return MathContexts.of(precision);
+    }
+
+    /**
+     * Effective timeout of a request.
+     *
+     * @param requested timeout requested by the client; <code>null</code> if none
+     * @return the requested timeout, limited by the maximum, or the default timeout
+     */
+    public Duration getTimeout(Duration requested) {
+        if (requested == null) {
+            return defaultTimeout.compareTo(maxTimeout) > 0 ? maxTimeout : defaultTimeout;
+        }
+        return requested.compareTo(maxTimeout) > 0 ? maxTimeout : requested;
+    }
+}
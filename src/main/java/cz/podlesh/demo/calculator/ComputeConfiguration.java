@@ -0,0 +1,110 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.ReductionPolicy;
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+/**
+ * Configuration of the executor of heavy computations (<code>calculator.compute</code>), see {@link ComputeExecutor}.
+ */
+@ConfigurationProperties("calculator.compute")
+public class ComputeConfiguration {
+
+    /**
+     * How the computations are executed.
+     */
+    public enum Mode {
+        /**
+         * Heavy computations on a fixed thread pool, cheap ones directly on the event loop.
+         */
+        POOL,
+        /**
+         * Each computation on its own virtual thread; number of heavy computations running at once is limited by
+         * <code>threads</code>, number of waiting ones by <code>queue-size</code>. Needs Java 21 or newer.
+         * <p/>
+         * Virtual threads run on the carrier threads of the virtual thread scheduler: their number is the
+         * parallelism of the scheduler, system property <code>jdk.virtualThreadScheduler.parallelism</code> (number
+         * of available processors by default). CPU bound computation holds its carrier until it finishes, so there
+         * must be fewer heavy computations running than carriers, otherwise the cheap ones wait; see
+         * {@link #getEffectiveThreads()}.
+         */
+        VIRTUAL,
+        /**
+         * Everything directly on the event loop (just for comparison: heavy computation blocks all the connections
+         * of its event loop thread).
+         */
+        EVENT_LOOP,
+    }
+
+    private Mode mode = Mode.POOL;
+    /**
+     * Number of threads (or heavy computations running at once, in {@link Mode#VIRTUAL} mode); 0 means the default,
+     * see {@link #getEffectiveThreads()}.
+     */
+    private int threads = 0;
+    /**
+     * Maximum number of computations waiting for a thread; more are rejected. Can be 0: then the computation is
+     * rejected when all the threads are busy.
+     */
+    private int queueSize = 100;
+    /**
+     * Argument lists of <code>+</code> and <code>*</code> of at least this length are reduced as a balanced tree, in
+     * parallel (in the reduction pool of {@link ComputeExecutor}) when the operation is heavy; see
+     * {@link ReductionPolicy#getThreshold()}.
+     */
+    private int reductionThreshold = ReductionPolicy.DEFAULT_THRESHOLD;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Effective number of threads: the configured one, or by default the number of available processors. In
+     * {@link Mode#VIRTUAL} mode, the default is one less than the parallelism of the virtual thread scheduler (but at
+     * least one), so that one carrier thread is always left to the cheap computations.
+     */
+    public int getEffectiveThreads() {
+        if (threads > 0) {
+            return threads;
+        }
+        if (mode == Mode.VIRTUAL) {
+            return Math.max(1, getVirtualThreadParallelism() - 1);
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Number of carrier threads of virtual threads: <code>jdk.virtualThreadScheduler.parallelism</code>, the number
+     * of available processors by default.
+     */
+    public static int getVirtualThreadParallelism() {
+        return Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getReductionThreshold() {
+        return reductionThreshold;
+    }
+
+    public void setReductionThreshold(int reductionThreshold) {
+        this.reductionThreshold = reductionThreshold;
+    }
+}
@@ -0,0 +1,391 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.ReductionPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.reactivex.Single;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Micronaut bean: bounded executor of heavy computations (see
+ * {@link cz.podlesh.demo.calculator.op.Operator#isHeavy(java.util.List, java.math.MathContext)}), so that they do
+ * not block the threads that serve the connections. Both the number of threads and the queue are limited (see
+ * {@link ComputeConfiguration}); when the executor is full, the computation is rejected immediately.
+ * <p/>
+ * How the computations are executed depends on {@link ComputeConfiguration#getMode()}:
+ * <ul>
+ * <li>{@link ComputeConfiguration.Mode#POOL POOL}: heavy computations on a fixed thread pool with a bounded queue,
+ * cheap ones directly on the calling (event loop) thread</li>
+ * <li>{@link ComputeConfiguration.Mode#VIRTUAL VIRTUAL}: every computation on its own virtual thread; heavy ones must
+ * also acquire one of the <code>threads</code> permits, so that CPU bound computations cannot starve the carrier
+ * threads. By default, there is one permit less than carrier threads
+ * (<code>jdk.virtualThreadScheduler.parallelism</code>, see {@link ComputeConfiguration#getEffectiveThreads()});
+ * configured <code>threads</code> should be lower than the parallelism too, otherwise the heavy computations can
+ * hold all the carriers and the cheap ones wait for them. Virtual threads are used through reflection, so that the
+ * code still runs on Java 11; on older Java the bean cannot be created.</li>
+ * <li>{@link ComputeConfiguration.Mode#EVENT_LOOP EVENT_LOOP}: everything on the calling thread, nothing is ever
+ * rejected</li>
+ * </ul>
+ * <p/>
+ * The executor is monitored: <code>executor.*</code> metrics with tag <code>name=calculator.compute</code> (including
+ * queue length and remaining capacity), plus the count of rejected computations. In the virtual mode, only
+ * <code>executor.active</code> and <code>executor.queued</code> (heavy computations waiting for a permit) are
+ * available. The bean is created eagerly, so that the metrics are visible from the start.
+ * <p/>
+ * Long argument lists of <code>+</code> and <code>*</code> are reduced in parallel, within the heavy computation, by a
+ * separate fork-join pool of <code>threads</code> threads (not the common one, which is shared by the whole JVM); see
+ * {@link #getReduction()}, which is passed to the operators by the computation contexts. Big batches are split
+ * across the same pool, see {@link #parallelFor(int, IntConsumer)}.
+ */
+@Context
+public class ComputeExecutor {
+
+    public static final String NAME = "calculator.compute";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ComputeExecutor.class);
+
+    private final ComputeConfiguration.Mode mode;
+    @Nullable
+    private final ExecutorService executor;
+    @Nullable
+    private final HeavyLimiter limiter;
+    private final Counter rejected;
+    private final ForkJoinPool reductionPool;
+    private final ReductionPolicy reduction;
+
+    public ComputeExecutor(ComputeConfiguration configuration, MeterRegistry registry) {
+        mode = configuration.getMode();
+        final int threads = configuration.getEffectiveThreads();
+        switch (mode) {
+            case POOL:
+                final BlockingQueue<Runnable> queue = configuration.getQueueSize() > 0
+                        ? new ArrayBlockingQueue<>(configuration.getQueueSize())
+                        : new SynchronousQueue<>();
+                executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue,
+                        new ComputeThreadFactory());
+                new ExecutorServiceMetrics(executor, NAME, Tags.empty()).bindTo(registry);
+                limiter = null;
+                break;
+            case VIRTUAL:
+                executor = newVirtualThreadExecutor();
+                final int parallelism = ComputeConfiguration.getVirtualThreadParallelism();
+                if (threads >= parallelism) {
+                    LOG.warn("{} heavy computations can run at once on {} carrier threads: cheap computations will "
+                            + "wait while all of them run", threads, parallelism);
+                }
+                limiter = new HeavyLimiter(threads, configuration.getQueueSize());
+                Gauge.builder("executor.active", limiter, HeavyLimiter::getActive)
+                        .tag("name", NAME)
+                        .description("The approximate number of threads that are actively executing tasks")
+                        .baseUnit(BaseUnits.THREADS)
+                        .register(registry);
+                Gauge.builder("executor.queued", limiter, HeavyLimiter::getQueued)
+                        .tag("name", NAME)
+                        .description("The approximate number of tasks that are queued for execution")
+                        .baseUnit(BaseUnits.TASKS)
+                        .register(registry);
+                break;
+            default:
+                executor = null;
+                limiter = null;
+        }
+        reductionPool = newReductionPool(threads);
+        reduction = new ReductionPolicy(configuration.getReductionThreshold(), reductionPool);
+        rejected = Counter.builder(NAME + ".rejected")
+                .description("computations rejected because the executor was full")
+                .register(registry);
+    }
+
+    /**
+     * Run the body for each index <code>0 .. count - 1</code> in parallel, by the bounded pool of the parallel
+     * reduction (never by the common fork-join pool), and wait until all are done. Called from within a heavy
+     * computation, so the whole loop is subject to the limits of this executor.
+     *
+     * @param count number of indexes
+     * @param body  the body; its exceptions are propagated (the first one)
+     */
+    public void parallelFor(int count, @Nonnull IntConsumer body) {
+        final ParallelFor task = new ParallelFor(0, count, body);
+        if (ForkJoinTask.getPool() == reductionPool) {
+            task.invoke();
+        } else {
+            reductionPool.invoke(task);
+        }
+    }
+
+    /**
+     * Create the pool of the parallel reduction: at most <code>threads</code> threads, no compensation threads (a
+     * blocked join just waits), so it cannot grow beyond the limit.
+     */
+    private static ForkJoinPool newReductionPool(int threads) {
+        final AtomicInteger counter = new AtomicInteger();
+        final ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("reduce-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ForkJoinPool(threads, factory, null, false, 0, threads, 1, pool -> true,
+                60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Create executor which starts a new virtual thread for each task; needs Java 21.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new ConfigurationException("virtual threads need Java 21 or newer, running on " + Runtime.version());
+        } catch (InvocationTargetException e) {
+            //Java 19 and 20: preview feature, not enabled
+            throw new ConfigurationException("virtual threads not available: " + e.getCause().getMessage(), e);
+        } catch (IllegalAccessException e) {
+            throw new ConfigurationException("virtual threads not available: " + e.getMessage(), e);
+        }
+    }
+
+    public ComputeConfiguration.Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * How long argument lists are reduced: the configured threshold, in parallel by the pool of this executor.
+     * Computation contexts of the requests are created with it.
+     */
+    @Nonnull
+    public ReductionPolicy getReduction() {
+        return reduction;
+    }
+
+    /**
+     * Evaluate the computation, in the way given by the configured mode (see the class description). If the
+     * computation is heavy and the capacity is exceeded, the error is {@link CapacityExceededException} (emitted
+     * immediately).
+     *
+     * @param heavy       whether the computation is heavy
+     * @param computation the computation
+     * @return the result
+     */
+    @Nonnull
+    public <T> Single<T> compute(boolean heavy, @Nonnull Callable<T> computation) {
+        switch (mode) {
+            case POOL:
+                return heavy ? submit(computation) : Single.fromCallable(computation);
+            case VIRTUAL:
+                return heavy ? submitLimited(computation) : submit(computation);
+            default:
+                return Single.fromCallable(computation);
+        }
+    }
+
+    /**
+     * Submit the computation to the executor. The result is emitted by the compute thread; if the executor is full,
+     * the error is {@link CapacityExceededException} (emitted immediately). Disposing the subscription removes the
+     * computation from the queue, if it has not started yet.
+     *
+     * @param computation the computation
+     * @return the result
+     */
+    @Nonnull
+    private <T> Single<T> submit(@Nonnull Callable<T> computation) {
+        assert executor != null;
+        return Single.create(emitter -> {
+            final Future<?> future;
+            try {
+                future = executor.submit(() -> {
+                    try {
+                        emitter.onSuccess(computation.call());
+                    } catch (Throwable e) {
+                        emitter.tryOnError(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                emitter.onError(new CapacityExceededException());
+                return;
+            }
+            emitter.setCancellable(() -> {
+                future.cancel(false);
+                //the cancelled task would stay in the bounded queue until a thread takes it
+                if (executor instanceof ThreadPoolExecutor) {
+                    ((ThreadPoolExecutor) executor).remove((Runnable) future);
+                }
+            });
+        });
+    }
+
+    /**
+     * Submit heavy computation in the virtual mode: the virtual thread waits for a permit. Disposing the subscription
+     * interrupts the waiting.
+     *
+     * @param computation the computation
+     * @return the result
+     */
+    @Nonnull
+    private <T> Single<T> submitLimited(@Nonnull Callable<T> computation) {
+        assert executor != null && limiter != null;
+        return Single.create(emitter -> {
+            if (!limiter.enter()) {
+                rejected.increment();
+                emitter.onError(new CapacityExceededException());
+                return;
+            }
+            final Future<?> future;
+            try {
+                future = executor.submit(() -> {
+                    try {
+                        limiter.acquire();
+                        try {
+                            emitter.onSuccess(computation.call());
+                        } finally {
+                            limiter.release();
+                        }
+                    } catch (Throwable e) {
+                        emitter.tryOnError(e);
+                    } finally {
+                        limiter.exit();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                //shut down
+                limiter.exit();
+                emitter.onError(e);
+                return;
+            }
+            emitter.setCancellable(() -> future.cancel(true));
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        reductionPool.shutdownNow();
+    }
+
+    /**
+     * The computation was rejected, because all the threads are busy and the queue is full.
+     */
+    public static class CapacityExceededException extends RuntimeException {
+        public CapacityExceededException() {
+            super("server is busy, too many heavy computations in progress");
+        }
+    }
+
+    /**
+     * Limit of heavy computations in the virtual mode: at most <code>threads</code> running, at most
+     * <code>queueSize</code> waiting.
+     */
+    private static class HeavyLimiter {
+        private final int threads;
+        private final int capacity;
+        private final Semaphore permits;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        HeavyLimiter(int threads, int queueSize) {
+            this.threads = threads;
+            this.capacity = threads + queueSize;
+            this.permits = new Semaphore(threads, true);
+        }
+
+        /**
+         * Register new computation; false if the capacity is exceeded.
+         */
+        boolean enter() {
+            if (pending.incrementAndGet() > capacity) {
+                pending.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        void exit() {
+            pending.decrementAndGet();
+        }
+
+        void acquire() throws InterruptedException {
+            permits.acquire();
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        double getActive() {
+            return threads - permits.availablePermits();
+        }
+
+        double getQueued() {
+            return Math.max(0, pending.get() - getActive());
+        }
+    }
+
+    /**
+     * Loop of {@link #parallelFor(int, IntConsumer)}: ranges are split in halves down to single indexes.
+     */
+    private static class ParallelFor extends RecursiveAction {
+        private final int from, to;
+        private final IntConsumer body;
+
+        ParallelFor(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    body.accept(from);
+                }
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new ParallelFor(from, middle, body), new ParallelFor(middle, to, body));
+        }
+    }
+
+    private static class ComputeThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@Nonnull Runnable r) {
+            Thread thread = new Thread(r, "compute-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
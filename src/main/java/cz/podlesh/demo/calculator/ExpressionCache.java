@@ -0,0 +1,79 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.expr.CompiledExpression;
+import cz.podlesh.demo.calculator.expr.ExpressionParseException;
+import cz.podlesh.demo.calculator.expr.ExpressionParser;
+import cz.podlesh.demo.calculator.op.CalculatorType;
+
+import javax.annotation.Nonnull;
+import javax.inject.Singleton;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Micronaut bean that parses and compiles expressions (with operators of the scientific calculator), and keeps the
+ * compiled ones in a bounded LRU cache keyed by the expression text, so that repeated expressions skip parsing.
+ */
+@Singleton
+public class ExpressionCache {
+
+    private final ExpressionParser parser;
+    private final int maxLength;
+    private final int maxResultDigits;
+    /**
+     * Access-ordered, guarded by itself.
+     */
+    private final Map<String, CompiledExpression> cache;
+
+    public ExpressionCache(KnownOperators operators, ExpressionConfiguration configuration) {
+        this.parser = new ExpressionParser(operators, CalculatorType.SCIENTIFIC);
+        this.maxLength = configuration.getMaxLength();
+        this.maxResultDigits = configuration.getMaxResultDigits();
+        final int cacheSize = configuration.getCacheSize();
+        this.cache = new LinkedHashMap<String, CompiledExpression>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Get compiled expression: from the cache, or parse and compile it.
+     *
+     * @param text expression text
+     * @return compiled expression, never <code>null</code>
+     * @throws ExpressionParseException invalid expression (such expressions are not cached)
+     */
+    @Nonnull
+    public CompiledExpression get(String text) throws ExpressionParseException {
+        if (text == null || text.trim().isEmpty()) {
+            throw new ExpressionParseException("expression is missing", 0);
+        }
+        if (text.length() > maxLength) {
+            throw new ExpressionParseException("expression is too long (maximum is " + maxLength + " characters)", maxLength);
+        }
+        CompiledExpression compiled;
+        synchronized (cache) {
+            compiled = cache.get(text);
+        }
+        if (compiled == null) {
+            //parsed outside of the lock; if two threads parse the same text at once, both results are the same
+            compiled = CompiledExpression.compile(parser.parse(text), maxResultDigits);
+            synchronized (cache) {
+                cache.put(text, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Number of expressions in the cache.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+}
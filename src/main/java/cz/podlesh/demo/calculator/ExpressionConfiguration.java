@@ -0,0 +1,48 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.expr.CompiledExpression;
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+/**
+ * Configuration of the expression evaluation (<code>calculator.expression</code>).
+ */
+@ConfigurationProperties("calculator.expression")
+public class ExpressionConfiguration {
+
+    /**
+     * Maximum length of the expression text.
+     */
+    private int maxLength = 4096;
+    /**
+     * Maximum number of compiled expressions kept in the cache.
+     */
+    private int cacheSize = 1000;
+    /**
+     * Maximum number of digits of the result of each operator in the expression.
+     */
+    private int maxResultDigits = CompiledExpression.DEFAULT_MAX_DIGITS;
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public void setMaxLength(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public int getMaxResultDigits() {
+        return maxResultDigits;
+    }
+
+    public void setMaxResultDigits(int maxResultDigits) {
+        this.maxResultDigits = maxResultDigits;
+    }
+}
@@ -0,0 +1,50 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.PrimeFactorization;
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the prime factorization (<code>calculator.factorization</code>).
+ */
+@ConfigurationProperties("calculator.factorization")
+public class FactorizationConfiguration {
+
+    /**
+     * Maximum time spent on factorization of one number; when exceeded, only partial result is returned.
+     */
+    private Duration timeBudget = Duration.ofSeconds(2);
+    /**
+     * Maximum number in the shared table of primes; see {@link cz.podlesh.demo.calculator.op.PrimeTable}.
+     */
+    private int primeTableLimit = 1 << 20;
+    /**
+     * Trial division is used for factors up to this value; must not exceed {@link #primeTableLimit}.
+     */
+    private int trialDivisionLimit = PrimeFactorization.DEFAULT_TRIAL_DIVISION_LIMIT;
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public int getPrimeTableLimit() {
+        return primeTableLimit;
+    }
+
+    public void setPrimeTableLimit(int primeTableLimit) {
+        this.primeTableLimit = primeTableLimit;
+    }
+
+    public int getTrialDivisionLimit() {
+        return trialDivisionLimit;
+    }
+
+    public void setTrialDivisionLimit(int trialDivisionLimit) {
+        this.trialDivisionLimit = trialDivisionLimit;
+    }
+}
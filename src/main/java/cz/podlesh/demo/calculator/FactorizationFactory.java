@@ -0,0 +1,42 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.BigFactorization;
+import cz.podlesh.demo.calculator.op.PrimeFactorization;
+import cz.podlesh.demo.calculator.op.PrimeTable;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Factory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+
+/**
+ * Micronaut factory of the (configurable) prime factorization beans.
+ */
+@Factory
+public class FactorizationFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FactorizationFactory.class);
+
+    /**
+     * Shared table of primes; created eagerly to report its size, but the table itself is built lazily.
+     */
+    @Context
+    public PrimeTable primeTable(FactorizationConfiguration configuration) {
+        PrimeTable table = new PrimeTable(configuration.getPrimeTableLimit());
+        LOG.info("prime table up to {}: {} KiB when fully built (built lazily, {} KiB now)",
+                table.getLimit(), table.getMaxMemoryFootprint() / 1024, table.getMemoryFootprint() / 1024);
+        return table;
+    }
+
+    @Singleton
+    public PrimeFactorization primeFactorization(FactorizationConfiguration configuration, PrimeTable primeTable) {
+        return new PrimeFactorization(Long.MAX_VALUE, primeTable, configuration.getTrialDivisionLimit());
+    }
+
+    @Singleton
+    public BigFactorization bigFactorization(PrimeFactorization primeFactorization) {
+        return new BigFactorization(primeFactorization, BigFactorization.DEFAULT.getMaxBits());
+    }
+
+}
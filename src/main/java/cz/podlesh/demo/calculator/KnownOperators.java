@@ -1,7 +1,9 @@
 package cz.podlesh.demo.calculator;
 
 import cz.podlesh.demo.calculator.op.BinaryOperator;
+import cz.podlesh.demo.calculator.op.NumberTheoryOperator;
 import cz.podlesh.demo.calculator.op.Operator;
+import cz.podlesh.demo.calculator.op.ScientificOperator;
 import cz.podlesh.demo.calculator.op.UnaryOperator;
 
 import javax.annotation.Nonnull;
@@ -13,22 +15,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * Micronaut bean that provides map of all know operators.
+ * <p/>
+ * Operators are resolved by a case-insensitive trie of their names (see {@link OperatorTrie}), without allocation;
+ * the same trie is used for the prefix search.
  */
 @Singleton
 public class KnownOperators {
 
     private final List<Operator> operators;
     private final Map<String, Operator> operatorsByName;
+    private final OperatorTrie trie = new OperatorTrie();
 
     public KnownOperators() {
         operatorsByName = new TreeMap<>();
         operators = new ArrayList<>();
         for (Operator[] values : Arrays.asList(
                 BinaryOperator.values(),
-                UnaryOperator.values()
+                UnaryOperator.values(),
+                ScientificOperator.values(),
+                NumberTheoryOperator.values()
         )) {
             for (Operator op : values) {
                 add(op);
@@ -40,6 +49,8 @@ public class KnownOperators {
         operators.add(op);
         operatorsByName.put(op.getName().toLowerCase(), op);
         operatorsByName.put(op.getSymbolicName().toLowerCase(), op);
+        trie.put(op.getName(), op);
+        trie.put(op.getSymbolicName(), op);
     }
 
     public List<Operator> getOperators() {
@@ -52,7 +63,6 @@ public class KnownOperators {
 
     /**
      * Find operator by name; both symbolic and full names are accepted, case is ignored.
-     * TODO: implement some prefix search for shorter/longer variants?
      * <p/>
      * This method always either succeeds and returns the operator, or throws an exception.
      *
@@ -64,13 +74,32 @@ public class KnownOperators {
     public Operator findOperator(String name) throws InvalidOperatorException {
         if (name == null)
             throw new InvalidOperatorException("operator is missing", name);
-        Operator operator = operatorsByName.get(name.toLowerCase());
+        Operator operator = trie.get(name);
         if (operator == null) {
-            throw new InvalidOperatorException(name);
+            //unknown name: suggest the longer variants, if there are any
+            List<Operator> candidates = name.isEmpty() ? Collections.emptyList() : trie.findByPrefix(name);
+            if (candidates.isEmpty()) {
+                throw new InvalidOperatorException(name);
+            }
+            throw new InvalidOperatorException("unsupported operator: " + name + " (did you mean "
+                    + candidates.stream().map(op -> op.getName().toLowerCase()).collect(Collectors.joining(", "))
+                    + "?)", name);
         }
         return operator;
     }
 
+    /**
+     * Find all operators with name starting by the prefix; both symbolic and full names are searched, case is
+     * ignored.
+     *
+     * @param prefix start of the operator name; empty prefix matches all operators
+     * @return matching operators, each one once, in order of their names; empty list if there are none
+     */
+    @Nonnull
+    public List<Operator> findOperatorsByPrefix(@Nonnull String prefix) {
+        return trie.findByPrefix(prefix);
+    }
+
     public static class InvalidOperatorException extends NoSuchElementException {
         private final String name;
 
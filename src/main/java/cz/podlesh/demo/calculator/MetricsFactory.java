@@ -0,0 +1,20 @@
+package cz.podlesh.demo.calculator;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.micronaut.context.annotation.Factory;
+
+import javax.inject.Singleton;
+
+/**
+ * Micronaut factory of the meter registry: Prometheus, scraped at <code>/prometheus</code>.
+ */
+@Factory
+public class MetricsFactory {
+
+    @Singleton
+    public PrometheusMeterRegistry prometheusMeterRegistry() {
+        return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    }
+
+}
@@ -0,0 +1,127 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.Operator;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Case-insensitive trie of operator names, used by {@link KnownOperators}. The lookup only walks the characters of
+ * the name (folded by {@link Character#toLowerCase(char)}), it does not allocate anything.
+ * <p/>
+ * The trie is filled when the operators are registered; it's not thread-safe for modifications, lookups are safe
+ * once it's published.
+ */
+final class OperatorTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    private static final class Node {
+        /**
+         * Folded characters of the children, sorted.
+         */
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        /**
+         * Operator of the name that ends here.
+         */
+        Operator operator;
+
+        @Nullable
+        Node child(char key) {
+            final char[] keys = this.keys;
+            //there are only few children: linear search is faster than binary one
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            final Node child = new Node();
+            final char[] newKeys = new char[keys.length + 1];
+            final Node[] newChildren = new Node[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newKeys[index] = key;
+            newChildren[index] = child;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, keys.length - index);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+
+    private static char fold(char c) {
+        return c < 0x80 ? (c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c) : Character.toLowerCase(c);
+    }
+
+    /**
+     * Register the operator under the name; replaces the operator previously registered under the same name.
+     */
+    void put(String name, Operator operator) {
+        Node node = root;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.addChild(fold(name.charAt(i)));
+        }
+        node.operator = operator;
+    }
+
+    @Nullable
+    private Node find(CharSequence name) {
+        Node node = root;
+        for (int i = 0; i < name.length() && node != null; i++) {
+            node = node.child(fold(name.charAt(i)));
+        }
+        return node;
+    }
+
+    /**
+     * Find operator by the whole name.
+     *
+     * @return the operator, or <code>null</code> if there is none of this name
+     */
+    @Nullable
+    Operator get(CharSequence name) {
+        final Node node = find(name);
+        return node == null ? null : node.operator;
+    }
+
+    /**
+     * Find all the operators with a name starting by the prefix; each operator is listed once, in order of their
+     * names.
+     */
+    List<Operator> findByPrefix(CharSequence prefix) {
+        final Node node = find(prefix);
+        if (node == null) {
+            return new ArrayList<>();
+        }
+        final Set<Operator> found = new LinkedHashSet<>();
+        collect(node, found);
+        return new ArrayList<>(found);
+    }
+
+    private static void collect(Node node, Set<Operator> found) {
+        if (node.operator != null) {
+            found.add(node.operator);
+        }
+        for (Node child : node.children) {
+            collect(child, found);
+        }
+    }
+}
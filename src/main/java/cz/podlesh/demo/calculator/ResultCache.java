@@ -0,0 +1,205 @@
+package cz.podlesh.demo.calculator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import cz.podlesh.demo.calculator.op.BigFactorization;
+import cz.podlesh.demo.calculator.op.ComputationContext;
+import cz.podlesh.demo.calculator.op.Operator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Micronaut bean that caches results of expensive deterministic operations: selected operators (see
+ * {@link ResultCacheConfiguration#getOperators()}) and prime factorization.
+ * <p/>
+ * There is separate cache for each operator, bounded by weight: number of digits of the operands and the result.
+ * The caches use Caffeine (W-TinyLFU eviction); their statistics are exported as metrics (<code>cache.*</code>,
+ * tagged by <code>cache</code>).
+ * <p/>
+ * Values are computed outside of the cache: two concurrent requests for the same missing value compute it both,
+ * but computation of one value never blocks requests for other values.
+ */
+@Singleton
+public class ResultCache {
+
+    /**
+     * Prefix of cache names (in metrics).
+     */
+    public static final String CACHE_NAME_PREFIX = "calculator.";
+
+    private final Map<Operator, Cache<OperationKey, BigDecimal>> operatorCaches = new IdentityHashMap<>();
+    private final BigFactorization factorization;
+    @Nullable
+    private final Cache<BigInteger, BigFactorization.Result> factorizationCache;
+
+    public ResultCache(ResultCacheConfiguration configuration, KnownOperators operators,
+                       BigFactorization factorization, MeterRegistry registry) {
+        this.factorization = factorization;
+        for (String name : configuration.getOperators()) {
+            Operator operator = operators.findOperator(name);
+            Weigher<OperationKey, BigDecimal> weigher = (key, result) -> key.digits + result.precision();
+            operatorCaches.put(operator, createCache(configuration, weigher, operator.getName().toLowerCase(), registry));
+        }
+        if (configuration.isFactorization()) {
+            Weigher<BigInteger, BigFactorization.Result> weigher = (n, result) -> {
+                int digits = digits(n);
+                for (BigInteger factor : result.getFactors()) {
+                    digits += digits(factor);
+                }
+                return digits;
+            };
+            factorizationCache = createCache(configuration, weigher, "prime", registry);
+        } else {
+            factorizationCache = null;
+        }
+    }
+
+    private static <K, V> Cache<K, V> createCache(ResultCacheConfiguration configuration, Weigher<K, V> weigher,
+                                                  String name, MeterRegistry registry) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumWeight(configuration.getMaxWeight())
+                .weigher(weigher)
+                .recordStats()
+                //maintenance is cheap, run it by the calling thread: the limits hold immediately
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME_PREFIX + name, Tags.empty());
+        return cache;
+    }
+
+    /**
+     * Approximate number of decimal digits, from the number of bits.
+     */
+    private static int digits(BigInteger value) {
+        return (int) (value.bitLength() * 0.30103) + 1;
+    }
+
+    /**
+     * Check if results of the operator are cached.
+     */
+    public boolean isCached(Operator operator) {
+        return operatorCaches.containsKey(operator);
+    }
+
+    /**
+     * Apply the operator: get the result from the cache, or compute it (and cache it) if it's not there. Errors are
+     * not cached.
+     *
+     * @see Operator#apply(List, MathContext)
+     */
+    @Nonnull
+    public BigDecimal apply(Operator operator, List<BigDecimal> arguments, @Nullable MathContext mathContext)
+            throws ArithmeticException, IllegalArgumentException {
+        return apply(operator, arguments, mathContext, ComputationContext.NONE);
+    }
+
+    /**
+     * Apply the operator within the work budget: get the result from the cache, or compute it. Cached result is
+     * returned even if the context is already expired.
+     *
+     * @see Operator#apply(List, MathContext, ComputationContext)
+     */
+    @Nonnull
+    public BigDecimal apply(Operator operator, List<BigDecimal> arguments, @Nullable MathContext mathContext,
+                            @Nonnull ComputationContext context)
+            throws ArithmeticException, IllegalArgumentException {
+        Cache<OperationKey, BigDecimal> cache = operatorCaches.get(operator);
+        if (cache == null) {
+            return operator.apply(arguments, mathContext, context);
+        }
+        //null and unlimited math context are the same
+        OperationKey key = new OperationKey(arguments, operator.fixMathContext(mathContext));
+        BigDecimal result = cache.getIfPresent(key);
+        if (result == null) {
+            result = operator.apply(arguments, mathContext, context);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Prime factorization of n: from the cache, or computed. Only complete results are cached.
+     *
+     * @see BigFactorization#apply(BigInteger, Duration)
+     */
+    @Nonnull
+    public BigFactorization.Result factorize(@Nonnull BigInteger n, @Nonnull Duration timeBudget)
+            throws IllegalArgumentException, ArithmeticException {
+        return factorize(n, timeBudget, ComputationContext.NONE);
+    }
+
+    /**
+     * Prime factorization of n within the work budget: from the cache, or computed.
+     *
+     * @see BigFactorization#apply(BigInteger, Duration, ComputationContext)
+     */
+    @Nonnull
+    public BigFactorization.Result factorize(@Nonnull BigInteger n, @Nonnull Duration timeBudget,
+                                             @Nonnull ComputationContext context)
+            throws IllegalArgumentException, ArithmeticException {
+        if (factorizationCache == null) {
+            return factorization.apply(n, timeBudget, context);
+        }
+        BigFactorization.Result result = factorizationCache.getIfPresent(n);
+        if (result == null) {
+            result = factorization.apply(n, timeBudget, context);
+            if (result.isComplete()) {
+                factorizationCache.put(n, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cache key: the operands and math context. Operands are compared including their scale (just like
+     * {@link BigDecimal#equals(Object)}), because the scale of the result depends on it.
+     */
+    private static final class OperationKey {
+        private final BigDecimal[] operands;
+        private final MathContext mathContext;
+        private final int hashCode;
+        /**
+         * Total number of digits of the operands.
+         */
+        private final int digits;
+
+        OperationKey(List<BigDecimal> arguments, MathContext mathContext) {
+            this.operands = arguments.toArray(new BigDecimal[0]);
+            this.mathContext = mathContext;
+            this.hashCode = Arrays.hashCode(operands) * 31 + mathContext.hashCode();
+            int digits = 0;
+            for (BigDecimal operand : operands) {
+                digits += operand.precision();
+            }
+            this.digits = digits;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof OperationKey)) return false;
+            OperationKey that = (OperationKey) o;
+            return hashCode == that.hashCode && mathContext.equals(that.mathContext) && Arrays.equals(operands, that.operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+}
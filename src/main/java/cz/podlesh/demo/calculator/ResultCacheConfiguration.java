@@ -0,0 +1,51 @@
+package cz.podlesh.demo.calculator;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration of the cache of results (<code>calculator.cache</code>), see {@link ResultCache}.
+ */
+@ConfigurationProperties("calculator.cache")
+public class ResultCacheConfiguration {
+
+    /**
+     * Operators (names or symbols) whose results are cached; only deterministic and expensive operators make sense.
+     */
+    private List<String> operators = Arrays.asList("fact", "div");
+    /**
+     * Cache results of the prime factorization too.
+     */
+    private boolean factorization = true;
+    /**
+     * Maximum weight of each cache (there is one cache for each operator and one for factorization): total number of
+     * digits of the cached operands and results.
+     */
+    private long maxWeight = 10_000_000;
+
+    public List<String> getOperators() {
+        return operators;
+    }
+
+    public void setOperators(List<String> operators) {
+        this.operators = operators;
+    }
+
+    public boolean isFactorization() {
+        return factorization;
+    }
+
+    public void setFactorization(boolean factorization) {
+        this.factorization = factorization;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+}
@@ -1,38 +1,153 @@
 package cz.podlesh.demo.calculator.api;
 
+import cz.podlesh.demo.calculator.AccumulatorSessions;
+import cz.podlesh.demo.calculator.BatchConfiguration;
+import cz.podlesh.demo.calculator.CalculatorMetrics;
+import cz.podlesh.demo.calculator.ComputationConfiguration;
+import cz.podlesh.demo.calculator.ComputeExecutor;
 import cz.podlesh.demo.calculator.KnownOperators;
+import cz.podlesh.demo.calculator.ResultCache;
+import cz.podlesh.demo.calculator.op.Accumulator;
+import cz.podlesh.demo.calculator.op.BinaryOperator;
 import cz.podlesh.demo.calculator.op.CalculatorType;
+import cz.podlesh.demo.calculator.op.ColumnResult;
+import cz.podlesh.demo.calculator.op.ComputationContext;
 import cz.podlesh.demo.calculator.op.Operator;
+import io.micronaut.core.convert.ConversionService;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.annotation.Delete;
 import io.micronaut.http.annotation.Error;
 import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.Produces;
 import io.micronaut.http.annotation.QueryValue;
 import io.micronaut.http.hateoas.JsonError;
 import io.micronaut.http.hateoas.Link;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 /**
  * Base superclass for both basic and scientific calculator.
+ * <p/>
+ * All the computations are limited by timeout (see {@link ComputationConfiguration}), which can be requested by the
+ * <code>timeout</code> query parameter or <code>X-Request-Timeout</code> header: milliseconds, or a duration like
+ * <code>500ms</code>, <code>2s</code>. Computation is also cancelled when the client disconnects.
+ * <p/>
+ * Cheap operations are evaluated directly on the event loop; heavy ones (see
+ * {@link Operator#isHeavy(List, MathContext)}) and bulk operations are evaluated by {@link ComputeExecutor}, and
+ * rejected (<code>503 Service Unavailable</code>) when it's full. Precision is limited (see
+ * {@link ComputationConfiguration#getMaxPrecision()}), higher one is a bad request.
+ * <p/>
+ * Requests and responses are JSON by default, or CBOR (see {@link CborMediaTypeCodec}) when requested by
+ * <code>Content-Type</code> and <code>Accept</code>.
  */
+@Consumes({MediaType.APPLICATION_JSON, CborMediaTypeCodec.APPLICATION_CBOR})
+@Produces({MediaType.APPLICATION_JSON, CborMediaTypeCodec.APPLICATION_CBOR})
 public abstract class AbstractCalculator {
 
+    public static final String TIMEOUT_PARAMETER = "timeout";
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
     @Inject
     protected KnownOperators operators;
+    @Inject
+    protected BatchConfiguration batchConfiguration;
+    @Inject
+    protected CalculatorMetrics metrics;
+    @Inject
+    protected ResultCache resultCache;
+    @Inject
+    protected ComputationConfiguration computationConfiguration;
+    @Inject
+    protected ComputeExecutor computeExecutor;
+    @Inject
+    protected OperatorListResponses operatorListResponses;
+    @Inject
+    protected AccumulatorSessions accumulatorSessions;
 
-    protected MathContext getMathContext(Integer precision) {
-        if (precision == null || precision.intValue() == 0)
+    /**
+     * Math context of the requested precision, see {@link ComputationConfiguration#getMathContext(Integer)}.
+     *
+     * @throws IllegalArgumentException negative precision, or more than the maximum
+     */
+    protected MathContext getMathContext(Integer precision) throws IllegalArgumentException {
+        return computationConfiguration.getMathContext(precision);
+    }
+
+    /**
+     * Timeout requested by the client.
+     *
+     * @return the timeout, or <code>null</code> if not requested
+     * @throws IllegalArgumentException invalid value
+     */
+    @Nullable
+    protected Duration getRequestedTimeout(HttpRequest<?> request) throws IllegalArgumentException {
+        String value = request.getParameters().get(TIMEOUT_PARAMETER);
+        if (value == null) {
+            value = request.getHeaders().get(TIMEOUT_HEADER);
+        }
+        if (value == null) {
             return null;
-        if (precision < 0) {
-            throw new IllegalArgumentException("negative precision");
         }
-        return new MathContext(precision);
+        final String timeoutValue = value.trim();
+        Duration timeout;
+        if (!timeoutValue.isEmpty() && timeoutValue.length() < 19 && timeoutValue.chars().allMatch(Character::isDigit)) {
+            timeout = Duration.ofMillis(Long.parseLong(timeoutValue));
+        } else {
+            timeout = ConversionService.SHARED.convert(timeoutValue, Duration.class)
+                    .orElseThrow(() -> new IllegalArgumentException("invalid timeout: " + timeoutValue));
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        return timeout;
+    }
+
+    /**
+     * Start computation of the request: with the requested (or default) timeout, cancelled on disconnect.
+     *
+     * @throws IllegalArgumentException invalid timeout requested
+     */
+    ComputationScope startComputation(HttpRequest<?> request) throws IllegalArgumentException {
+        return new ComputationScope(request, computationConfiguration.getTimeout(getRequestedTimeout(request)),
+                computeExecutor.getReduction());
+    }
+
+    /**
+     * Context of a computation which is not bound to the request (one item of a stream).
+     */
+    private ComputationContext newContext(@Nullable Duration timeout) {
+        return ComputationContext.withTimeout(timeout, computeExecutor.getReduction());
+    }
+
+    /**
+     * Run the computation by the {@link ComputeExecutor}: with the default configuration, directly (when subscribed)
+     * if it's cheap, or by the executor if it's heavy.
+     *
+     * @param heavy       the computation is heavy
+     * @param computation the computation
+     * @return the result; {@link ComputeExecutor.CapacityExceededException} if the executor is full
+     */
+    protected <T> Single<T> compute(boolean heavy, Callable<T> computation) {
+        return computeExecutor.compute(heavy, computation);
     }
 
     /**
@@ -42,19 +157,18 @@ public abstract class AbstractCalculator {
      */
     protected abstract CalculatorType getCalculatorType();
 
+    /**
+     * List of the supported operators ({@link OperatorList}), serialized in advance, with <code>ETag</code>.
+     */
     @Get
-    public OperatorList listSupportedOperations() {
-        return new OperatorList(
-                operators.getOperators().stream()
-                        .filter(op -> op.isAvailableIn(getCalculatorType()))
-                        .map(op -> new OperatorList.JsonOperator(op.getSymbolicName(), op.getName().toLowerCase()))
-                        .toArray(OperatorList.JsonOperator[]::new)
-        );
+    public HttpResponse<byte[]> listSupportedOperations(HttpRequest<?> request) {
+        return operatorListResponses.respond(getCalculatorType(), request);
     }
 
     @Post("/{opName}")
-    public FullOperationResult request(@PathVariable String opName, FullOperation operation,
-                                       @QueryValue("precision") @Nullable Integer precision) {
+    public Single<FullOperationResult> request(HttpRequest<?> request, @PathVariable String opName,
+                                               FullOperation operation,
+                                               @QueryValue("precision") @Nullable Integer precision) {
         Operator operator;
         try {
             operator = operators.findOperator(opName);
@@ -65,28 +179,387 @@ public abstract class AbstractCalculator {
             throw new InvalidOperatorInPathException("operator " + operation.operator + " is not available at this endpoint");
         }
         operation.operator = opName;
-        return doRequest(operation, operator, precision);
+        return evaluate(request, operation, operator, getMathContext(precision));
     }
 
     @Post("/")
-    public FullOperationResult request(FullOperation operation, @QueryValue("precision") @Nullable Integer precision) {
-        Operator operator = operators.findOperator(operation.operator);
+    public Single<FullOperationResult> request(HttpRequest<?> request, FullOperation operation,
+                                               @QueryValue("precision") @Nullable Integer precision) {
+        Operator operator = findAvailableOperator(operation.operator);
+        return evaluate(request, operation, operator, getMathContext(precision));
+    }
+
+    private Single<FullOperationResult> evaluate(HttpRequest<?> request, FullOperation operation, Operator operator,
+                                                 @Nullable MathContext mathContext) {
+        return compute(operator.isHeavy(operation.getArguments(), mathContext), () -> {
+            try (ComputationScope computation = startComputation(request)) {
+                return evaluate(operation, operator, mathContext, computation.getContext());
+            }
+        });
+    }
+
+    /**
+     * Evaluate many operations at once; results are in the same order as the operations. Errors are reported for each
+     * operation separately, in the result (just like arithmetic errors of single operation): this includes unknown
+     * operators and invalid arguments. Only the batch as a whole is validated: size and total number of arguments
+     * are limited (see {@link BatchConfiguration}).
+     * <p/>
+     * Big batches are evaluated in parallel, by the bounded pool of {@link ComputeExecutor#parallelFor(int, IntConsumer)}
+     * (within one heavy computation, so the limits of the executor apply). The timeout applies to the whole batch: when it's exceeded, all the
+     * remaining operations fail.
+     */
+    @Post("/batch")
+    public Single<FullOperationResult[]> batch(HttpRequest<?> request, @Body FullOperation[] operations,
+                                               @QueryValue("precision") @Nullable Integer precision) {
+        if (operations == null) {
+            throw new IllegalArgumentException("no operations given");
+        }
+        if (operations.length > batchConfiguration.getMaxSize()) {
+            throw new IllegalArgumentException("too many operations in batch: " + operations.length
+                    + ", maximum is " + batchConfiguration.getMaxSize());
+        }
+        long argumentsCount = 0;
+        for (FullOperation operation : operations) {
+            if (operation != null && operation.arguments != null) {
+                argumentsCount += operation.arguments.length;
+            }
+        }
+        if (argumentsCount > batchConfiguration.getMaxArguments()) {
+            throw new IllegalArgumentException("too many arguments in batch: " + argumentsCount
+                    + ", maximum is " + batchConfiguration.getMaxArguments());
+        }
+        MathContext mathContext = getMathContext(precision);
+        final boolean parallel = operations.length >= batchConfiguration.getParallelThreshold();
+        boolean heavy = parallel;
+        for (int i = 0; i < operations.length && !heavy; i++) {
+            heavy = isHeavy(operations[i], mathContext);
+        }
+        return compute(heavy, () -> {
+            FullOperationResult[] results = new FullOperationResult[operations.length];
+            try (ComputationScope computation = startComputation(request)) {
+                ComputationContext context = computation.getContext();
+                IntConsumer evaluate = i -> results[i] = evaluateReportingErrors(operations[i], mathContext, context);
+                if (parallel) {
+                    computeExecutor.parallelFor(operations.length, evaluate);
+                } else {
+                    for (int i = 0; i < operations.length; i++) {
+                        evaluate.accept(i);
+                    }
+                }
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Apply one operator on columns of operands: results are computed for each row, errors are reported for each
+     * row separately. Total number of values is limited (see {@link BatchConfiguration}).
+     */
+    @Post("/columns")
+    public Single<ColumnOperationResult> columns(HttpRequest<?> request, ColumnOperation operation,
+                                                 @QueryValue("precision") @Nullable Integer precision) {
+        Operator operator = findAvailableOperator(operation.operator);
+        if (operation.columns == null) {
+            throw new IllegalArgumentException("no columns given");
+        }
+        long values = 0;
+        for (BigDecimal[] column : operation.columns) {
+            values += column == null ? 0 : column.length;
+        }
+        if (values > batchConfiguration.getMaxColumnValues()) {
+            throw new IllegalArgumentException("too many values: " + values
+                    + ", maximum is " + batchConfiguration.getMaxColumnValues());
+        }
+        MathContext mathContext = getMathContext(precision);
+        List<BigDecimal[]> columns = Arrays.asList(operation.columns);
+        boolean heavy = values >= batchConfiguration.getParallelThreshold() || isHeavy(operator, columns, mathContext);
+        return compute(heavy, () -> {
+            ColumnResult result;
+            try (ComputationScope computation = startComputation(request)) {
+                result = operator.applyColumns(columns, mathContext, computation.getContext());
+            }
+            return new ColumnOperationResult(operation.operator, result.getResults(), result.getErrors());
+        });
+    }
+
+    /**
+     * Evaluate unbounded stream of operations: newline-delimited JSON objects in, newline-delimited JSON results out,
+     * in the same order. Operations are read only as fast as the results are consumed (backpressure), so the memory
+     * used does not depend on the length of the stream. Errors are reported in the results, just like in
+     * {@link #batch(HttpRequest, FullOperation[], Integer)}.
+     * <p/>
+     * The timeout applies to each operation separately, because the stream is unbounded. There is no need to detect
+     * disconnect: the stream is cancelled then. Heavy operations are evaluated by the {@link ComputeExecutor}, one
+     * at a time; if it's full, the error is reported in the result of the operation.
+     * <p/>
+     * Note: the <code>precision</code> query parameter is read from the request directly; an optional
+     * {@link QueryValue} argument would make Micronaut subscribe to the streamed body twice.
+     */
+    @Post("/stream")
+    @Consumes(MediaType.APPLICATION_JSON_STREAM)
+    @Produces(MediaType.APPLICATION_JSON_STREAM)
+    public Flowable<FullOperationResult> stream(HttpRequest<?> request, @Body Flowable<FullOperation> operations) {
+        MathContext mathContext = getMathContext(request.getParameters().get("precision", Integer.class).orElse(null));
+        Duration timeout = computationConfiguration.getTimeout(getRequestedTimeout(request));
+        return operations.concatMapSingle(operation -> {
+            Callable<FullOperationResult> computation = () ->
+                    evaluateReportingErrors(operation, mathContext, newContext(timeout));
+            return compute(isHeavy(operation, mathContext), computation)
+                    .onErrorResumeNext(e -> e instanceof ComputeExecutor.CapacityExceededException
+                            ? Single.just(new FullOperationResult(operation, e.getMessage(), null))
+                            : Single.error(e));
+        });
+    }
+
+    /**
+     * Open accumulator session of an operator with unlimited number of arguments (<code>+</code>, <code>*</code>):
+     * the arguments are then appended in chunks, over several requests or a stream, and only the running result is
+     * kept (see {@link AccumulatorSessions}). The arguments of the request, if any, are the first chunk; when it fails
+     * (except of arithmetic errors, which are reported in the result), the session is discarded.
+     *
+     * @return <code>201 Created</code> with the new session, its URI is in <code>Location</code>
+     */
+    @Post("/accumulators")
+    public Single<HttpResponse<AccumulatorResult>> openAccumulator(HttpRequest<?> request, FullOperation operation,
+                                                                   @QueryValue("precision") @Nullable Integer precision) {
+        Operator operator = findAvailableOperator(operation.operator);
+        if (!(operator instanceof BinaryOperator) || !((BinaryOperator) operator).isAnyLength()) {
+            throw new IllegalArgumentException(operator + " does not accept unlimited number of arguments");
+        }
+        AccumulatorSessions.Session session = accumulatorSessions.open((BinaryOperator) operator,
+                getMathContext(precision));
+        //the client gets the ID only with the response: without it, the session would be left to expire
+        return append(request, session, operation.getArguments())
+                .doOnError(e -> accumulatorSessions.discard(session))
+                .doOnDispose(() -> accumulatorSessions.discard(session))
+                .map(result -> HttpResponse.created(result,
+                        URI.create(request.getPath() + "/" + session.getId())));
+    }
+
+    /**
+     * Append next chunk of arguments to the accumulator session: the body is the same as of the operation, the
+     * operator can be omitted. Arithmetic errors are reported in the result, the chunk is not appended then.
+     */
+    @Post("/accumulators/{id}")
+    public Single<AccumulatorResult> appendToAccumulator(HttpRequest<?> request, @PathVariable String id,
+                                                         FullOperation chunk) {
+        AccumulatorSessions.Session session = accumulatorSessions.get(id);
+        checkChunk(session, chunk);
+        return append(request, session, chunk.getArguments());
+    }
+
+    /**
+     * Append unbounded stream of argument chunks (newline-delimited JSON objects, just like in
+     * {@link #appendToAccumulator(HttpRequest, String, FullOperation)}) to the accumulator session; the running
+     * result after each chunk is streamed back. Errors are reported in the results, the timeout applies to each
+     * chunk separately (see {@link #stream(HttpRequest, Flowable)}).
+     */
+    @Post("/accumulators/{id}/stream")
+    @Consumes(MediaType.APPLICATION_JSON_STREAM)
+    @Produces(MediaType.APPLICATION_JSON_STREAM)
+    public Flowable<AccumulatorResult> streamToAccumulator(HttpRequest<?> request, @PathVariable String id,
+                                                           @Body Flowable<FullOperation> chunks) {
+        AccumulatorSessions.Session session = accumulatorSessions.get(id);
+        Duration timeout = computationConfiguration.getTimeout(getRequestedTimeout(request));
+        return chunks.concatMapSingle(chunk -> {
+            try {
+                checkChunk(session, chunk);
+            } catch (IllegalArgumentException e) {
+                metrics.badRequest(getCalculatorType());
+                return Single.just(new AccumulatorResult(session, e.getMessage()));
+            }
+            List<BigDecimal> arguments = chunk.getArguments();
+            return append(session, arguments,
+                    wait -> () -> append(session, arguments, newContext(timeout), wait))
+                    .onErrorResumeNext(e -> e instanceof ComputeExecutor.CapacityExceededException
+                            || e instanceof IllegalArgumentException
+                            ? Single.just(new AccumulatorResult(session, e.getMessage()))
+                            : Single.error(e));
+        });
+    }
+
+    /**
+     * The running result of the accumulator session.
+     */
+    @Get("/accumulators/{id}")
+    public AccumulatorResult getAccumulator(@PathVariable String id) {
+        return new AccumulatorResult(accumulatorSessions.get(id), null);
+    }
+
+    /**
+     * Close the accumulator session.
+     *
+     * @return the final result
+     */
+    @Delete("/accumulators/{id}")
+    public AccumulatorResult closeAccumulator(@PathVariable String id) {
+        return new AccumulatorResult(accumulatorSessions.close(id), null);
+    }
+
+    private static void checkChunk(AccumulatorSessions.Session session, @Nullable FullOperation chunk)
+            throws IllegalArgumentException {
+        if (chunk == null) {
+            throw new IllegalArgumentException("arguments are missing");
+        }
+        BinaryOperator operator = session.getAccumulator().getOperator();
+        if (chunk.operator != null && !operator.getSymbolicName().equals(chunk.operator)
+                && !operator.getName().equalsIgnoreCase(chunk.operator)) {
+            throw new IllegalArgumentException("operator of the session is " + operator.getSymbolicName()
+                    + ", not " + chunk.operator);
+        }
+    }
+
+    private Single<AccumulatorResult> append(HttpRequest<?> request, AccumulatorSessions.Session session,
+                                             List<BigDecimal> arguments) {
+        return append(session, arguments, wait -> () -> {
+            try (ComputationScope computation = startComputation(request)) {
+                return append(session, arguments, computation.getContext(), wait);
+            }
+        });
+    }
+
+    /**
+     * Run the append by the {@link ComputeExecutor}: as heavy computation when it's heavy or when other chunk of
+     * the session is being appended. Cheap chunk does not wait for the other chunks at all: if the accumulator
+     * gets busy in the meantime, the chunk is run as heavy computation instead. So the thread that serves the
+     * connection is never blocked by a heavy chunk of the same session.
+     *
+     * @param computation the append; the argument says whether it may wait for the other chunks
+     */
+    private Single<AccumulatorResult> append(AccumulatorSessions.Session session, List<BigDecimal> arguments,
+                                             Function<Boolean, Callable<AccumulatorResult>> computation) {
+        if (isHeavy(session, arguments)) {
+            return compute(true, computation.apply(true));
+        }
+        return compute(false, computation.apply(false))
+                .onErrorResumeNext(e -> e instanceof Accumulator.BusyException
+                        ? compute(true, computation.apply(true))
+                        : Single.error(e));
+    }
+
+    /**
+     * Append the arguments to the session; arithmetic errors are reported in the result. Both are recorded in the
+     * metrics.
+     *
+     * @param wait wait for the other chunks; if not, {@link Accumulator.BusyException} is thrown when the
+     *             accumulator is busy
+     * @throws IllegalArgumentException invalid arguments
+     */
+    private AccumulatorResult append(AccumulatorSessions.Session session, List<BigDecimal> arguments,
+                                     ComputationContext context, boolean wait) throws IllegalArgumentException {
+        Accumulator accumulator = session.getAccumulator();
+        CalculatorMetrics.OperatorMetrics operatorMetrics = metrics.get(getCalculatorType(), accumulator.getOperator());
+        long start = System.nanoTime();
+        try {
+            BigDecimal result = wait ? accumulator.append(arguments, context)
+                    : accumulator.tryAppend(arguments, context);
+            operatorMetrics.success(start, arguments, result);
+            return new AccumulatorResult(session, null);
+        } catch (ArithmeticException e) {
+            operatorMetrics.arithmeticError(start, arguments);
+            return new AccumulatorResult(session, e.getMessage());
+        }
+    }
+
+    /**
+     * Appending the arguments is heavy when they are big, or when the running result is; or when other chunk is
+     * being appended, because the append has to wait for it.
+     */
+    private static boolean isHeavy(AccumulatorSessions.Session session, List<BigDecimal> arguments) {
+        Accumulator accumulator = session.getAccumulator();
+        BigDecimal result = accumulator.getResult();
+        return accumulator.isBusy()
+                || accumulator.getOperator().isHeavy(arguments, accumulator.getMathContext())
+                || result != null && result.precision() > Operator.HEAVY_OPERAND_DIGITS;
+    }
+
+    /**
+     * Check if the operation is heavy; unknown operators are not.
+     */
+    private boolean isHeavy(@Nullable FullOperation operation, @Nullable MathContext mathContext) {
+        if (operation == null) {
+            return false;
+        }
+        try {
+            return operators.findOperator(operation.operator).isHeavy(operation.getArguments(), mathContext);
+        } catch (KnownOperators.InvalidOperatorException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check if any row of the column operation is heavy.
+     */
+    private static boolean isHeavy(Operator operator, List<BigDecimal[]> columns, @Nullable MathContext mathContext) {
+        if (columns.isEmpty() || columns.get(0) == null) {
+            return false;
+        }
+        BigDecimal[] row = new BigDecimal[columns.size()];
+        for (int i = 0; i < columns.get(0).length; i++) {
+            for (int c = 0; c < row.length; c++) {
+                BigDecimal[] column = columns.get(c);
+                row[c] = column != null && i < column.length ? column[i] : null;
+            }
+            if (operator.isHeavy(Arrays.asList(row), mathContext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find operator by name and check that it's available at this endpoint.
+     *
+     * @throws KnownOperators.InvalidOperatorException unknown or unavailable operator
+     */
+    protected Operator findAvailableOperator(String name) throws KnownOperators.InvalidOperatorException {
+        Operator operator = operators.findOperator(name);
         if (!operator.isAvailableIn(getCalculatorType())) {
-            throw new KnownOperators.InvalidOperatorException("operator " + operation.operator + " is not available at this endpoint");
+            throw new KnownOperators.InvalidOperatorException("operator " + name + " is not available at this endpoint", name);
         }
-        return doRequest(operation, operator, precision);
+        return operator;
     }
 
-    private FullOperationResult doRequest(FullOperation operation, Operator operator, @Nullable Integer precision) {
+    /**
+     * Evaluate single operation (using the {@link ResultCache}); arithmetic errors are reported in the result.
+     * Both are recorded in the metrics.
+     *
+     * @throws IllegalArgumentException invalid arguments
+     */
+    protected FullOperationResult evaluate(FullOperation operation, Operator operator, @Nullable MathContext mathContext,
+                                           ComputationContext context)
+            throws IllegalArgumentException {
+        List<BigDecimal> arguments = operation.getArguments();
+        CalculatorMetrics.OperatorMetrics operatorMetrics = metrics.get(getCalculatorType(), operator);
+        long start = System.nanoTime();
         try {
-            BigDecimal result = operator.apply(operation.getArguments(), getMathContext(precision));
+            BigDecimal result = resultCache.apply(operator, arguments, mathContext, context);
+            operatorMetrics.success(start, arguments, result);
             return new FullOperationResult(operation, null, result);
         } catch (ArithmeticException e) {
+            operatorMetrics.arithmeticError(start, arguments);
             //note: this is HTTP success!
             return new FullOperationResult(operation, e.getMessage(), null);
         }
     }
 
+    /**
+     * Evaluate one operation of a batch or stream: all the errors are reported in the result.
+     */
+    private FullOperationResult evaluateReportingErrors(@Nullable FullOperation operation, @Nullable MathContext mathContext,
+                                                        ComputationContext context) {
+        if (operation == null) {
+            metrics.badRequest(getCalculatorType());
+            return new FullOperationResult(new FullOperation(), "operation is missing", null);
+        }
+        try {
+            return evaluate(operation, findAvailableOperator(operation.operator), mathContext, context);
+        } catch (KnownOperators.InvalidOperatorException | IllegalArgumentException e) {
+            metrics.badRequest(getCalculatorType());
+            return new FullOperationResult(operation, e.getMessage(), null);
+        }
+    }
+
     //--------------------------------------------------------------------------------------------------------------
 
     private static class InvalidOperatorInPathException extends KnownOperators.InvalidOperatorException {
@@ -108,6 +581,7 @@ public abstract class AbstractCalculator {
      */
     @Error
     public HttpResponse<JsonError> jsonError(HttpRequest request, KnownOperators.InvalidOperatorException e) {
+        metrics.badRequest(getCalculatorType());
         JsonError error = new JsonError(e.getMessage());
         error.link(Link.SELF, Link.of(request.getUri()));
         if (e instanceof InvalidOperatorInPathException) {
@@ -116,6 +590,48 @@ public abstract class AbstractCalculator {
         return HttpResponse.badRequest(error);
     }
 
+    /**
+     * Heavy computation rejected, because the {@link ComputeExecutor} is full.
+     *
+     * @param request http request
+     * @param e       exception from {@link ComputeExecutor}
+     * @return error response
+     */
+    @Error
+    public HttpResponse<JsonError> jsonError(HttpRequest request, ComputeExecutor.CapacityExceededException e) {
+        JsonError error = new JsonError(e.getMessage());
+        error.link(Link.SELF, Link.of(request.getUri()));
+        return HttpResponse.<JsonError>status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    /**
+     * Unknown accumulator session: it was never opened, or it's closed or expired.
+     *
+     * @param request http request
+     * @param e       exception from {@link AccumulatorSessions}
+     * @return error response
+     */
+    @Error
+    public HttpResponse<JsonError> jsonError(HttpRequest request, AccumulatorSessions.UnknownSessionException e) {
+        JsonError error = new JsonError(e.getMessage());
+        error.link(Link.SELF, Link.of(request.getUri()));
+        return HttpResponse.notFound(error);
+    }
+
+    /**
+     * New accumulator session refused, because there are too many of them.
+     *
+     * @param request http request
+     * @param e       exception from {@link AccumulatorSessions}
+     * @return error response
+     */
+    @Error
+    public HttpResponse<JsonError> jsonError(HttpRequest request, AccumulatorSessions.TooManySessionsException e) {
+        JsonError error = new JsonError(e.getMessage());
+        error.link(Link.SELF, Link.of(request.getUri()));
+        return HttpResponse.<JsonError>status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
     /**
      * Invalid arguments to the operator.
      *
@@ -125,6 +641,7 @@ public abstract class AbstractCalculator {
      */
     @Error
     public HttpResponse<JsonError> jsonError(HttpRequest request, IllegalArgumentException e) {
+        metrics.badRequest(getCalculatorType());
         JsonError error = new JsonError(e.getMessage());
         error.link(Link.SELF, Link.of(request.getUri()));
         return HttpResponse.badRequest(error);
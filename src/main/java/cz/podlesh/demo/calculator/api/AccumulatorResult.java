@@ -0,0 +1,52 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import cz.podlesh.demo.calculator.AccumulatorSessions;
+import cz.podlesh.demo.calculator.op.Accumulator;
+
+import java.math.BigDecimal;
+
+/**
+ * State of an accumulator session: the running result of all the arguments appended so far.
+ */
+public class AccumulatorResult {
+
+    /**
+     * ID of the session.
+     */
+    public String id;
+    public String operator;
+    /**
+     * Number of the arguments appended so far.
+     */
+    public long count;
+    /**
+     * The running result; <code>null</code> if there are no arguments yet. Always serialized as string.
+     */
+    @JsonSerialize(using = ToStringSerializer.class)
+    public BigDecimal result;
+    /**
+     * Error of the last chunk of arguments; such chunk is not appended at all.
+     */
+    public String error;
+
+    public AccumulatorResult() {
+    }
+
+    public AccumulatorResult(AccumulatorSessions.Session session, String error) {
+        Accumulator accumulator = session.getAccumulator();
+        this.id = session.getId();
+        this.operator = accumulator.getOperator().getSymbolicName();
+        Accumulator.State state = accumulator.getState();
+        this.count = state.getCount();
+        this.result = state.getResult();
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ":" + id + ":" + operator + "/" + count + " -> "
+                + (error != null ? error : result);
+    }
+}
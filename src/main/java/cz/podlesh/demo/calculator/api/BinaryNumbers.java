@@ -0,0 +1,154 @@
+package cz.podlesh.demo.calculator.api;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoding of the numbers in binary content types (byte strings of CBOR):
+ * <ul>
+ * <li>{@link BigDecimal}: scale as zig-zag varint, followed by the unscaled value as big-endian two's-complement
+ * bytes (as {@link BigInteger#toByteArray()})</li>
+ * <li>{@link BigInteger}: big-endian two's-complement bytes</li>
+ * <li>array of non-negative {@link BigInteger}s (prime factors): packed unsigned varints (7 bits per byte, least
+ * significant group first, highest bit set on all the bytes except of the last one of each number);
+ * <code>null</code> is encoded as 0</li>
+ * </ul>
+ * Used also by the binary TCP protocol (see {@link cz.podlesh.demo.calculator.tcp.TcpProtocol}).
+ */
+public final class BinaryNumbers {
+
+    private BinaryNumbers() {
+    }
+
+    public static byte[] encodeDecimal(BigDecimal value) {
+        final byte[] unscaled = value.unscaledValue().toByteArray();
+        final int scale = value.scale();
+        final int zigzag = (scale << 1) ^ (scale >> 31);
+        final byte[] result = new byte[varintLength(zigzag) + unscaled.length];
+        final int offset = writeVarint(result, 0, zigzag);
+        System.arraycopy(unscaled, 0, result, offset, unscaled.length);
+        return result;
+    }
+
+    /**
+     * @throws NumberFormatException malformed value
+     */
+    public static BigDecimal decodeDecimal(byte[] data) throws NumberFormatException {
+        int zigzag = 0;
+        int offset = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (offset >= data.length || shift > 28) {
+                throw new NumberFormatException("malformed scale of binary decimal");
+            }
+            final int b = data[offset++];
+            zigzag |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (offset == data.length) {
+            throw new NumberFormatException("missing unscaled value of binary decimal");
+        }
+        final int scale = (zigzag >>> 1) ^ -(zigzag & 1);
+        return new BigDecimal(new BigInteger(data, offset, data.length - offset), scale);
+    }
+
+    public static byte[] encodeInteger(BigInteger value) {
+        return value.toByteArray();
+    }
+
+    /**
+     * @throws NumberFormatException empty array
+     */
+    public static BigInteger decodeInteger(byte[] data) throws NumberFormatException {
+        return new BigInteger(data);
+    }
+
+    public static byte[] encodeVarints(BigInteger[] values) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(values.length * 4);
+        for (BigInteger value : values) {
+            if (value == null) {
+                out.write(0);
+            } else if (value.signum() < 0) {
+                throw new IllegalArgumentException("negative number cannot be encoded as unsigned varint: " + value);
+            } else if (value.bitLength() < 64) {
+                long v = value.longValue();
+                while ((v & ~0x7fL) != 0) {
+                    out.write((int) (v & 0x7f) | 0x80);
+                    v >>>= 7;
+                }
+                out.write((int) v);
+            } else {
+                //big value: 7 bits at a time from the two's-complement bytes (little-endian iteration)
+                final byte[] bytes = value.toByteArray();
+                final int bits = value.bitLength();
+                for (int bit = 0; bit < bits; bit += 7) {
+                    int group = 0;
+                    for (int i = 0; i < 7 && bit + i < bits; i++) {
+                        final int b = bit + i;
+                        if ((bytes[bytes.length - 1 - (b >> 3)] & (1 << (b & 7))) != 0) {
+                            group |= 1 << i;
+                        }
+                    }
+                    out.write(bit + 7 < bits ? group | 0x80 : group);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws NumberFormatException the last number is not complete
+     */
+    public static BigInteger[] decodeVarints(byte[] data) throws NumberFormatException {
+        final List<BigInteger> values = new ArrayList<>();
+        int offset = 0;
+        while (offset < data.length) {
+            int end = offset;
+            while (end < data.length && data[end] < 0) {
+                end++;
+            }
+            if (end == data.length) {
+                throw new NumberFormatException("incomplete varint");
+            }
+            end++;
+            final int length = end - offset;
+            if (length <= 9) {
+                long v = 0;
+                for (int i = length - 1; i >= 0; i--) {
+                    v = (v << 7) | (data[offset + i] & 0x7f);
+                }
+                values.add(v == 0 ? null : BigInteger.valueOf(v));
+            } else {
+                BigInteger v = BigInteger.ZERO;
+                for (int i = length - 1; i >= 0; i--) {
+                    v = v.shiftLeft(7).or(BigInteger.valueOf(data[offset + i] & 0x7f));
+                }
+                values.add(v.signum() == 0 ? null : v);
+            }
+            offset = end;
+        }
+        return values.toArray(new BigInteger[0]);
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] target, int offset, int value) {
+        while ((value & ~0x7f) != 0) {
+            target[offset++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+}
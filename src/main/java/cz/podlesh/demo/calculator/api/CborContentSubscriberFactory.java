@@ -0,0 +1,171 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.core.async.processor.SingleSubscriberProcessor;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.exceptions.ContentLengthExceededException;
+import io.micronaut.http.netty.stream.StreamedHttpMessage;
+import io.micronaut.http.server.HttpServerConfiguration;
+import io.micronaut.http.server.netty.HttpContentProcessor;
+import io.micronaut.http.server.netty.HttpContentSubscriberFactory;
+import io.micronaut.http.server.netty.NettyHttpRequest;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+
+/**
+ * Micronaut bean: processor of request bodies of the binary content type <code>application/cbor</code>.
+ * <p/>
+ * Micronaut 1.2 decodes only JSON bodies by Jackson (other content types are converted through {@link String}),
+ * so the whole CBOR body is buffered and parsed into a {@link JsonNode} tree, exactly what the JSON processor
+ * produces; binding to the arguments of the endpoints is then the same for both content types. Streaming
+ * (<code>/stream</code>) is JSON only.
+ * <p/>
+ * Only the public processor API is used (not the internal base class of the Micronaut processors), so the limit of
+ * the request size is checked here.
+ */
+@Singleton
+@Consumes(CborMediaTypeCodec.APPLICATION_CBOR)
+public class CborContentSubscriberFactory implements HttpContentSubscriberFactory {
+
+    private final HttpServerConfiguration serverConfiguration;
+    private final ObjectMapper mapper;
+
+    public CborContentSubscriberFactory(HttpServerConfiguration serverConfiguration, CborMediaTypeCodec codec) {
+        this.serverConfiguration = serverConfiguration;
+        this.mapper = codec.getObjectMapper();
+    }
+
+    //raw types: the signature of the interface
+    @SuppressWarnings("rawtypes")
+    @Override
+    public HttpContentProcessor build(NettyHttpRequest request) {
+        return new CborContentProcessor((StreamedHttpMessage) request.getNativeRequest(), request.getContentLength(),
+                serverConfiguration.getMaxRequestSize(), request.getChannelHandlerContext().alloc(), mapper);
+    }
+
+    /**
+     * Buffers the content and emits it parsed, as one {@link JsonNode}. The buffer is released in all cases: parsed,
+     * error, or cancelled by the subscriber.
+     */
+    static class CborContentProcessor extends SingleSubscriberProcessor<ByteBufHolder, JsonNode>
+            implements HttpContentProcessor<JsonNode> {
+
+        private final Publisher<? extends ByteBufHolder> source;
+        private final long advertisedLength;
+        private final long maxLength;
+        private final ObjectMapper mapper;
+        /**
+         * Guarded by itself; <code>null</code> when released (or passed to the parser).
+         */
+        private CompositeByteBuf content;
+        private long receivedLength;
+
+        /**
+         * @param source           the content of the request
+         * @param advertisedLength content length from the header; negative if not known
+         * @param maxLength        maximum size of the request body
+         * @param alloc            allocator of the buffer
+         * @param mapper           CBOR mapper
+         */
+        CborContentProcessor(Publisher<? extends ByteBufHolder> source, long advertisedLength, long maxLength,
+                             ByteBufAllocator alloc, ObjectMapper mapper) {
+            this.source = source;
+            this.advertisedLength = advertisedLength;
+            this.maxLength = maxLength;
+            this.mapper = mapper;
+            this.content = alloc.compositeBuffer();
+        }
+
+        @Override
+        protected void doSubscribe(Subscriber<? super JsonNode> subscriber) {
+            source.subscribe(this);
+        }
+
+        @Override
+        protected void doOnSubscribe(Subscription subscription, Subscriber<? super JsonNode> subscriber) {
+            //the body is emitted as a whole: request all of it at once
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    release();
+                }
+            });
+        }
+
+        @Override
+        protected void doOnNext(ByteBufHolder message) {
+            receivedLength += message.content().readableBytes();
+            final long length = Math.max(advertisedLength, receivedLength);
+            if (length > maxLength) {
+                ReferenceCountUtil.release(message);
+                try {
+                    onError(new ContentLengthExceededException(maxLength, length));
+                } finally {
+                    parentSubscription.cancel();
+                }
+                return;
+            }
+            synchronized (this) {
+                if (content != null) {
+                    content.addComponent(true, message.content().retain());
+                }
+            }
+            ReferenceCountUtil.release(message);
+        }
+
+        @Override
+        protected void doAfterOnError(Throwable throwable) {
+            release();
+        }
+
+        @Override
+        protected void doOnComplete() {
+            final CompositeByteBuf buffer;
+            synchronized (this) {
+                buffer = content;
+                content = null;
+            }
+            if (buffer == null) {
+                //cancelled
+                return;
+            }
+            final JsonNode node;
+            try (ByteBufInputStream input = new ByteBufInputStream(buffer, true)) {
+                node = mapper.readTree(input);
+            } catch (IOException e) {
+                getSubscriber().onError(e);
+                return;
+            }
+            if (node != null) {
+                getSubscriber().onNext(node);
+            }
+            super.doOnComplete();
+        }
+
+        /**
+         * Release the buffer, unless it's already released or passed to the parser.
+         */
+        private synchronized void release() {
+            if (content != null) {
+                content.release();
+                content = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.io.buffer.ByteBufferFactory;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.codec.CodecException;
+import io.micronaut.http.codec.MediaTypeCodec;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Micronaut bean: codec of the binary content type <code>application/cbor</code>. Uses the same configuration as
+ * the JSON object mapper, and the same {@link JsonCodecs}; the numbers are encoded in binary form then (see
+ * {@link BinaryNumbers}).
+ */
+@Singleton
+public class CborMediaTypeCodec implements MediaTypeCodec {
+
+    public static final String APPLICATION_CBOR = "application/cbor";
+    public static final MediaType APPLICATION_CBOR_TYPE = new MediaType(APPLICATION_CBOR);
+
+    private final ObjectMapper mapper;
+
+    public CborMediaTypeCodec(ObjectMapper jsonMapper) {
+        mapper = new ObjectMapper(new CBORFactory());
+        mapper.setConfig(jsonMapper.getSerializationConfig());
+        mapper.setConfig(jsonMapper.getDeserializationConfig());
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return mapper;
+    }
+
+    @Override
+    public Collection<MediaType> getMediaTypes() {
+        return Collections.singletonList(APPLICATION_CBOR_TYPE);
+    }
+
+    @Override
+    public <T> T decode(Argument<T> type, InputStream inputStream) throws CodecException {
+        try {
+            return mapper.readValue(inputStream, mapper.constructType(type.getType()));
+        } catch (IOException e) {
+            throw new CodecException("Error decoding CBOR stream for type [" + type.getName() + "]: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(Argument<T> type, ByteBuffer<?> buffer) throws CodecException {
+        return decode(type, buffer.toInputStream());
+    }
+
+    @Override
+    public <T> void encode(T object, OutputStream outputStream) throws CodecException {
+        try {
+            mapper.writeValue(outputStream, object);
+        } catch (IOException e) {
+            throw new CodecException("Error encoding object [" + object + "] to CBOR: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> byte[] encode(T object) throws CodecException {
+        try {
+            return mapper.writeValueAsBytes(object);
+        } catch (IOException e) {
+            throw new CodecException("Error encoding object [" + object + "] to CBOR: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> ByteBuffer encode(T object, ByteBufferFactory allocator) throws CodecException {
+        return allocator.copiedBuffer(encode(object));
+    }
+}
@@ -0,0 +1,45 @@
+package cz.podlesh.demo.calculator.api;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.OncePerRequestHttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+/**
+ * Content negotiation of the calculator responses: Micronaut always uses the first {@link
+ * io.micronaut.http.annotation.Produces} type (JSON), so the response is switched to CBOR when the client prefers
+ * it by the <code>Accept</code> header (the most preferred of JSON and CBOR, in order of quality). Error responses
+ * produced by Micronaut itself stay JSON.
+ */
+@Filter("/calculator/**")
+public class CborNegotiationFilter extends OncePerRequestHttpServerFilter {
+
+    @Override
+    protected Publisher<MutableHttpResponse<?>> doFilterOnce(HttpRequest<?> request, ServerFilterChain chain) {
+        if (!prefersCbor(request)) {
+            return chain.proceed(request);
+        }
+        return Flowable.fromPublisher(chain.proceed(request)).map(response -> {
+            if (response.getContentType().map(MediaType.APPLICATION_JSON_TYPE::equals).orElse(true)) {
+                response.contentType(CborMediaTypeCodec.APPLICATION_CBOR_TYPE);
+            }
+            return response;
+        });
+    }
+
+    static boolean prefersCbor(HttpRequest<?> request) {
+        MediaType preferred = null;
+        for (MediaType type : request.getHeaders().accept()) {
+            if (type.equals(CborMediaTypeCodec.APPLICATION_CBOR_TYPE) || type.equals(MediaType.APPLICATION_JSON_TYPE)) {
+                if (preferred == null || type.getQualityAsNumber().compareTo(preferred.getQualityAsNumber()) > 0) {
+                    preferred = type;
+                }
+            }
+        }
+        return preferred != null && preferred.equals(CborMediaTypeCodec.APPLICATION_CBOR_TYPE);
+    }
+}
@@ -0,0 +1,40 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Request for column operation: one operator applied on each row of operand columns.
+ */
+public class ColumnOperation {
+
+    /**
+     * Operand; must be one of the supported operands.
+     */
+    @JsonAlias({"op"})
+    public String operator;
+
+    /**
+     * Operand columns: first column contains the first arguments, etc. All must have the same length.
+     */
+    @JsonSerialize(contentUsing = ToStringSerializer.class)
+    public BigDecimal[][] columns;
+
+    public ColumnOperation() {
+    }
+
+    public ColumnOperation(String operator, BigDecimal[]... columns) {
+        this.operator = operator;
+        this.columns = columns;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ":" + operator + "/" + (columns == null ? 0 : columns.length) + " columns x "
+                + (columns == null || columns.length == 0 || columns[0] == null ? 0 : columns[0].length) + " rows";
+    }
+}
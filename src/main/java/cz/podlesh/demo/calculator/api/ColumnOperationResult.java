@@ -0,0 +1,38 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of column operation: result column, and optionally error column.
+ */
+public class ColumnOperationResult {
+
+    public String operator;
+    /**
+     * Result of each row; <code>null</code> for rows with error. Always serialized as strings.
+     */
+    @JsonSerialize(contentUsing = ToStringSerializer.class)
+    public BigDecimal[] result;
+    /**
+     * Error of each row (<code>null</code> for rows with result); present only when some row has an error.
+     */
+    public String[] errors;
+
+    public ColumnOperationResult() {
+    }
+
+    public ColumnOperationResult(String operator, BigDecimal[] result, String[] errors) {
+        this.operator = operator;
+        this.result = result;
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ":" + operator + " -> " + (result == null ? 0 : result.length) + " rows"
+                + (errors == null ? "" : " with errors");
+    }
+}
@@ -0,0 +1,54 @@
+package cz.podlesh.demo.calculator.api;
+
+import cz.podlesh.demo.calculator.op.ComputationContext;
+import cz.podlesh.demo.calculator.op.ReductionPolicy;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.server.netty.NettyHttpRequest;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * Computation of one HTTP request: {@link ComputationContext} with the request timeout, which is cancelled when the
+ * client disconnects. Must be closed when the computation is done, to unregister from the connection (which might
+ * be reused by many requests).
+ * <p/>
+ * Note that the disconnect is detected by Netty event loop, so the cancellation applies only to computations
+ * offloaded to other threads by {@link cz.podlesh.demo.calculator.ComputeExecutor}: heavy ones in the
+ * <code>pool</code> mode, all of them in the <code>virtual</code> mode. Cheap computations run directly on the event
+ * loop (as does everything in the <code>event-loop</code> mode), so the disconnect is noticed only after they finish;
+ * they are still limited by the timeout.
+ */
+final class ComputationScope implements AutoCloseable {
+
+    private final ComputationContext context;
+    @Nullable
+    private final ChannelFuture closeFuture;
+    private final GenericFutureListener<Future<? super Void>> cancelOnClose;
+
+    ComputationScope(HttpRequest<?> request, @Nullable Duration timeout, ReductionPolicy reduction) {
+        context = ComputationContext.withTimeout(timeout, reduction);
+        cancelOnClose = future -> context.cancel();
+        if (request instanceof NettyHttpRequest) {
+            closeFuture = ((NettyHttpRequest<?>) request).getChannelHandlerContext().channel().closeFuture();
+            //called immediately if already closed
+            closeFuture.addListener(cancelOnClose);
+        } else {
+            closeFuture = null;
+        }
+    }
+
+    ComputationContext getContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        if (closeFuture != null) {
+            closeFuture.removeListener(cancelOnClose);
+        }
+    }
+}
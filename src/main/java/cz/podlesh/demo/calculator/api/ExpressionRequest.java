@@ -0,0 +1,45 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Request for expression evaluation: expression text and values of its variables.
+ */
+public class ExpressionRequest {
+
+    /**
+     * The expression, in infix notation.
+     */
+    @JsonAlias({"expr"})
+    public String expression;
+
+    /**
+     * Values of the variables.
+     */
+    @JsonAlias({"vars"})
+    @JsonSerialize(contentUsing = ToStringSerializer.class)
+    public Map<String, BigDecimal> variables;
+
+    /**
+     * Optional: multiple sets of variable values; the expression is evaluated for each of them.
+     */
+    public Map<String, BigDecimal>[] bindings;
+
+    public ExpressionRequest() {
+    }
+
+    public ExpressionRequest(String expression, Map<String, BigDecimal> variables) {
+        this.expression = expression;
+        this.variables = variables;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ":" + expression + (variables == null ? "" : " " + variables);
+    }
+}
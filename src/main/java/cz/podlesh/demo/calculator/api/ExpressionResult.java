@@ -0,0 +1,48 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Result of expression evaluation: contains the request, too.
+ */
+public class ExpressionResult {
+
+    public String expression;
+    @JsonSerialize(contentUsing = ToStringSerializer.class)
+    public Map<String, BigDecimal> variables;
+    /**
+     * Error: present if the result is an arithmetic error (for example, division by zero).
+     */
+    public String error;
+    /**
+     * Result: only when the result is not an error; always serialized as string.
+     */
+    @JsonSerialize(using = ToStringSerializer.class)
+    public BigDecimal result;
+    /**
+     * Results for all {@link ExpressionRequest#bindings}, in the same order; present only when the bindings were
+     * requested.
+     */
+    public ExpressionResult[] results;
+
+    public ExpressionResult() {
+    }
+
+    public ExpressionResult(String expression, Map<String, BigDecimal> variables, String error, BigDecimal result) {
+        this.expression = expression;
+        this.variables = variables;
+        this.error = error;
+        this.result = result;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ":" + expression + (variables == null ? "" : " " + variables)
+                + " -> " + (results == null ? result : Arrays.toString(results)) + (error == null ? "" : " / " + error);
+    }
+}
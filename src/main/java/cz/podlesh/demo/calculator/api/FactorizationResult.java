@@ -1,14 +1,16 @@
 package cz.podlesh.demo.calculator.api;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 
 /**
  * Result of full operation: contains whole request, too.
  */
+@JsonSerialize(using = JsonCodecs.FactorizationResultSerializer.class)
+@JsonDeserialize(using = JsonCodecs.FactorizationResultDeserializer.class)
 public class FactorizationResult extends FullOperation {
 
     /**
@@ -19,26 +21,40 @@ public class FactorizationResult extends FullOperation {
      * Result: only when the result is not an error.
      * Note that is is <b>always</b> serialized as string; JSON numbers are very, very limited.
      */
-    @JsonSerialize(contentUsing = ToStringSerializer.class)
-    public long[] result;
+    public BigInteger[] result;
+    /**
+     * Cofactor: the part of the number that was not factored within the time budget (composite number).
+     * Present only when the factorization is not complete; the {@link #result} then contains only the prime factors
+     * found so far.
+     */
+    public BigInteger cofactor;
 
-    @JsonProperty()
+    /**
+     * Serialized as <code>prime</code>.
+     */
     public Boolean isPrime() {
-        return result != null && result.length == 1;
+        return result != null && result.length == 1 && cofactor == null;
     }
 
     public FactorizationResult() {
     }
 
-    public FactorizationResult(FullOperation copyFrom, String error, long[] result) {
+    public FactorizationResult(FullOperation copyFrom, String error, BigInteger[] result) {
+        this(copyFrom, error, result, null);
+    }
+
+    public FactorizationResult(FullOperation copyFrom, String error, BigInteger[] result, BigInteger cofactor) {
         super(copyFrom);
         this.error = error;
         this.result = result;
+        this.cofactor = cofactor;
     }
 
     @Override
     public String toString() {
-        return super.toString() + " -> " + Arrays.toString(result) + (error == null ? "" : " / " + error);
+        return super.toString() + " -> " + Arrays.toString(result)
+                + (cofactor == null ? "" : " * " + cofactor + "?")
+                + (error == null ? "" : " / " + error);
     }
 
 }
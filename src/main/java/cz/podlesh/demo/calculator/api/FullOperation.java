@@ -1,10 +1,7 @@
 package cz.podlesh.demo.calculator.api;
 
-import com.fasterxml.jackson.annotation.JsonAlias;
-import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 
 import javax.annotation.Nonnull;
 import java.math.BigDecimal;
@@ -14,18 +11,22 @@ import java.util.List;
 
 /**
  * Request for full operation: operator and all arguments.
+ * <p/>
+ * JSON is written and read by {@link JsonCodecs}.
  */
+@JsonSerialize(using = JsonCodecs.FullOperationSerializer.class)
+@JsonDeserialize(using = JsonCodecs.FullOperationDeserializer.class)
 public class FullOperation {
 
     /**
-     * Operand; must be one of the supported operands.
+     * Operand; must be one of the supported operands. Alias in JSON: <code>op</code>.
      */
-    @JsonAlias({"op"})
     public String operator;
 
-    @JsonProperty
-    @JsonAlias({"args", "arg", "argument"})
-    @JsonSerialize(contentUsing = ToStringSerializer.class)
+    /**
+     * Arguments; always serialized as strings. Aliases in JSON: <code>args</code>, <code>arg</code>,
+     * <code>argument</code>.
+     */
     public BigDecimal[] arguments;
 
     /**
@@ -38,7 +39,6 @@ public class FullOperation {
     /**
      * Get all the arguments as a list. <code>null</code> is replaced by empty list.
      */
-    @JsonIgnore
     @Nonnull
     public List<BigDecimal> getArguments() {
         if (arguments == null)
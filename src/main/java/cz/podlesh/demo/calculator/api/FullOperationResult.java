@@ -1,13 +1,15 @@
 package cz.podlesh.demo.calculator.api;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 
 import java.math.BigDecimal;
 
 /**
  * Result of full operation: contains whole request, too.
  */
+@JsonSerialize(using = JsonCodecs.FullOperationResultSerializer.class)
+@JsonDeserialize(using = JsonCodecs.FullOperationResultDeserializer.class)
 public class FullOperationResult extends FullOperation {
 
     /**
@@ -18,7 +20,6 @@ public class FullOperationResult extends FullOperation {
      * Result: only when the result is not an error.
      * Note that is is <b>always</b> serialized as string; JSON numbers are very, very limited.
      */
-    @JsonSerialize(using = ToStringSerializer.class)
     public BigDecimal result;
 
     public FullOperationResult() {
@@ -0,0 +1,488 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written JSON codecs of the API objects, working directly on the Jackson streaming API: no bean introspection,
+ * no intermediate strings for the numbers. The classes are bound to them by {@link
+ * com.fasterxml.jackson.databind.annotation.JsonSerialize} and {@link
+ * com.fasterxml.jackson.databind.annotation.JsonDeserialize}.
+ * <p/>
+ * Output is the same as produced by Jackson databind with the default Micronaut configuration: empty properties
+ * (<code>null</code>, empty strings and arrays) are omitted, all the numbers are strings. Input accepts the same as
+ * databind: aliases of the properties, single value instead of array, numbers as strings or JSON numbers; unknown
+ * properties are skipped (or refused, if {@link DeserializationFeature#FAIL_ON_UNKNOWN_PROPERTIES} is enabled).
+ * <p/>
+ * In binary formats (CBOR, see {@link CborMediaTypeCodec}), the numbers are written as byte strings encoded by
+ * {@link BinaryNumbers}; both forms are accepted on input.
+ */
+public final class JsonCodecs {
+
+    private JsonCodecs() {
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // serializers
+
+    public static class FullOperationSerializer extends StdSerializer<FullOperation> {
+        public FullOperationSerializer() {
+            super(FullOperation.class);
+        }
+
+        @Override
+        public void serialize(FullOperation value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            writeOperation(value, gen);
+            gen.writeEndObject();
+        }
+    }
+
+    public static class FullOperationResultSerializer extends StdSerializer<FullOperationResult> {
+        public FullOperationResultSerializer() {
+            super(FullOperationResult.class);
+        }
+
+        @Override
+        public void serialize(FullOperationResult value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(value);
+            writeOperation(value, gen);
+            writeString(gen, "error", value.error);
+            if (value.result != null) {
+                gen.writeFieldName("result");
+                writeDecimal(gen, value.result);
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    public static class FactorizationResultSerializer extends StdSerializer<FactorizationResult> {
+        public FactorizationResultSerializer() {
+            super(FactorizationResult.class);
+        }
+
+        @Override
+        public void serialize(FactorizationResult value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(value);
+            writeOperation(value, gen);
+            writeString(gen, "error", value.error);
+            if (value.result != null && value.result.length > 0) {
+                gen.writeFieldName("result");
+                if (gen.canWriteBinaryNatively()) {
+                    gen.writeBinary(BinaryNumbers.encodeVarints(value.result));
+                } else {
+                    gen.writeStartArray(value.result.length);
+                    for (BigInteger factor : value.result) {
+                        writeInteger(gen, factor);
+                    }
+                    gen.writeEndArray();
+                }
+            }
+            if (value.cofactor != null) {
+                gen.writeFieldName("cofactor");
+                writeInteger(gen, value.cofactor);
+            }
+            gen.writeBooleanField("prime", value.isPrime());
+            gen.writeEndObject();
+        }
+    }
+
+    public static class OperatorListSerializer extends StdSerializer<OperatorList> {
+        public OperatorListSerializer() {
+            super(OperatorList.class);
+        }
+
+        @Override
+        public void serialize(OperatorList value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            OperatorList.JsonOperator[] operators = value.getOperators();
+            if (operators != null && operators.length > 0) {
+                gen.writeFieldName("operators");
+                gen.writeStartArray(operators.length);
+                for (OperatorList.JsonOperator operator : operators) {
+                    if (operator == null) {
+                        gen.writeNull();
+                        continue;
+                    }
+                    gen.writeStartObject(operator);
+                    writeString(gen, "symbol", operator.getSymbol());
+                    writeString(gen, "name", operator.getName());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeOperation(FullOperation value, JsonGenerator gen) throws IOException {
+        writeString(gen, "operator", value.operator);
+        final BigDecimal[] arguments = value.arguments;
+        if (arguments != null && arguments.length > 0) {
+            gen.writeFieldName("arguments");
+            gen.writeStartArray(arguments.length);
+            for (BigDecimal argument : arguments) {
+                writeDecimal(gen, argument);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static void writeDecimal(JsonGenerator gen, BigDecimal value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (gen.canWriteBinaryNatively()) {
+            gen.writeBinary(BinaryNumbers.encodeDecimal(value));
+        } else {
+            gen.writeString(value.toString());
+        }
+    }
+
+    private static void writeInteger(JsonGenerator gen, BigInteger value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (gen.canWriteBinaryNatively()) {
+            gen.writeBinary(BinaryNumbers.encodeInteger(value));
+        } else {
+            gen.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Write string property, unless it's empty.
+     */
+    private static void writeString(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    //-------------------------------------------------------------------------------------------------------------
+    // deserializers
+
+    /**
+     * Common part of the deserializers: reads the object field by field.
+     */
+    private abstract static class ObjectDeserializer<T> extends StdDeserializer<T> {
+
+        ObjectDeserializer(Class<T> type) {
+            super(type);
+        }
+
+        protected abstract T create();
+
+        /**
+         * Read value of the field; the parser is at the first token of the value.
+         *
+         * @return false if the field is not known
+         */
+        protected abstract boolean readField(JsonParser p, DeserializationContext ctxt, String name, T value)
+                throws IOException;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.START_ARRAY && ctxt.isEnabled(DeserializationFeature.UNWRAP_SINGLE_VALUE_ARRAYS)) {
+                p.nextToken();
+                final T value = deserialize(p, ctxt);
+                if (p.nextToken() != JsonToken.END_ARRAY) {
+                    handleMissingEndArrayForSingle(p, ctxt);
+                }
+                return value;
+            }
+            if (token == JsonToken.START_OBJECT) {
+                token = p.nextToken();
+            } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+                return (T) ctxt.handleUnexpectedToken(handledType(), p);
+            }
+            final T value = create();
+            for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+                final String name = p.getCurrentName();
+                p.nextToken();
+                if (!readField(p, ctxt, name, value)) {
+                    ctxt.handleUnknownProperty(p, this, value, name);
+                }
+            }
+            return value;
+        }
+    }
+
+    public static class FullOperationDeserializer extends ObjectDeserializer<FullOperation> {
+        public FullOperationDeserializer() {
+            super(FullOperation.class);
+        }
+
+        @Override
+        protected FullOperation create() {
+            return new FullOperation();
+        }
+
+        @Override
+        protected boolean readField(JsonParser p, DeserializationContext ctxt, String name, FullOperation value)
+                throws IOException {
+            return readOperationField(p, ctxt, name, value);
+        }
+    }
+
+    public static class FullOperationResultDeserializer extends ObjectDeserializer<FullOperationResult> {
+        public FullOperationResultDeserializer() {
+            super(FullOperationResult.class);
+        }
+
+        @Override
+        protected FullOperationResult create() {
+            return new FullOperationResult();
+        }
+
+        @Override
+        protected boolean readField(JsonParser p, DeserializationContext ctxt, String name, FullOperationResult value)
+                throws IOException {
+            switch (name) {
+                case "error":
+                    value.error = readString(p, ctxt);
+                    return true;
+                case "result":
+                    value.result = readDecimal(p, ctxt);
+                    return true;
+                default:
+                    return readOperationField(p, ctxt, name, value);
+            }
+        }
+    }
+
+    public static class FactorizationResultDeserializer extends ObjectDeserializer<FactorizationResult> {
+        public FactorizationResultDeserializer() {
+            super(FactorizationResult.class);
+        }
+
+        @Override
+        protected FactorizationResult create() {
+            return new FactorizationResult();
+        }
+
+        @Override
+        protected boolean readField(JsonParser p, DeserializationContext ctxt, String name, FactorizationResult value)
+                throws IOException {
+            switch (name) {
+                case "error":
+                    value.error = readString(p, ctxt);
+                    return true;
+                case "result":
+                    value.result = readIntegers(p, ctxt);
+                    return true;
+                case "cofactor":
+                    value.cofactor = readInteger(p, ctxt);
+                    return true;
+                case "prime":
+                    //computed
+                    p.skipChildren();
+                    return true;
+                default:
+                    return readOperationField(p, ctxt, name, value);
+            }
+        }
+    }
+
+    private static boolean readOperationField(JsonParser p, DeserializationContext ctxt, String name,
+                                              FullOperation value) throws IOException {
+        switch (name) {
+            case "operator":
+            case "op":
+                value.operator = readString(p, ctxt);
+                return true;
+            case "arguments":
+            case "args":
+            case "arg":
+            case "argument":
+                value.arguments = readDecimals(p, ctxt);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Read string value: scalars (numbers, booleans) are accepted, too.
+     */
+    private static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        final JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.START_ARRAY) {
+            return unwrapSingle(p, ctxt, String.class, JsonCodecs::readString);
+        }
+        if (token.isScalarValue()) {
+            return p.getValueAsString();
+        }
+        return (String) ctxt.handleUnexpectedToken(String.class, p);
+    }
+
+    /**
+     * Read number, either JSON number or string. Empty string is <code>null</code>.
+     */
+    private static BigDecimal readDecimal(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return p.getDecimalValue();
+            case VALUE_STRING:
+                //parse directly from the buffer of the parser
+                final char[] chars = p.getTextCharacters();
+                int start = p.getTextOffset();
+                int end = start + p.getTextLength();
+                while (start < end && chars[start] <= ' ') {
+                    start++;
+                }
+                while (end > start && chars[end - 1] <= ' ') {
+                    end--;
+                }
+                if (isEmptyOrNull(chars, start, end)) {
+                    return null;
+                }
+                try {
+                    return new BigDecimal(chars, start, end - start);
+                } catch (NumberFormatException e) {
+                    return (BigDecimal) ctxt.handleWeirdStringValue(BigDecimal.class,
+                            new String(chars, start, end - start), "not a valid representation");
+                }
+            case VALUE_EMBEDDED_OBJECT:
+                final byte[] data = p.getBinaryValue();
+                try {
+                    return BinaryNumbers.decodeDecimal(data);
+                } catch (NumberFormatException e) {
+                    return (BigDecimal) ctxt.handleWeirdNativeValue(ctxt.constructType(BigDecimal.class), data, p);
+                }
+            case VALUE_NULL:
+                return null;
+            case START_ARRAY:
+                return unwrapSingle(p, ctxt, BigDecimal.class, JsonCodecs::readDecimal);
+            default:
+                return (BigDecimal) ctxt.handleUnexpectedToken(BigDecimal.class, p);
+        }
+    }
+
+    private static BigDecimal[] readDecimals(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NULL:
+                return null;
+            case START_ARRAY:
+                final List<BigDecimal> values = new ArrayList<>();
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(readDecimal(p, ctxt));
+                }
+                return values.toArray(new BigDecimal[0]);
+            default:
+                if (!ctxt.isEnabled(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)) {
+                    return (BigDecimal[]) ctxt.handleUnexpectedToken(BigDecimal[].class, p);
+                }
+                return new BigDecimal[]{readDecimal(p, ctxt)};
+        }
+    }
+
+    private static BigInteger readInteger(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NUMBER_INT:
+                return p.getBigIntegerValue();
+            case VALUE_NUMBER_FLOAT:
+                return p.getDecimalValue().toBigInteger();
+            case VALUE_STRING:
+                final String text = p.getText().trim();
+                if (text.isEmpty() || "null".equals(text)) {
+                    return null;
+                }
+                try {
+                    return new BigInteger(text);
+                } catch (NumberFormatException e) {
+                    return (BigInteger) ctxt.handleWeirdStringValue(BigInteger.class, text,
+                            "not a valid representation");
+                }
+            case VALUE_EMBEDDED_OBJECT:
+                final byte[] data = p.getBinaryValue();
+                try {
+                    return BinaryNumbers.decodeInteger(data);
+                } catch (NumberFormatException e) {
+                    return (BigInteger) ctxt.handleWeirdNativeValue(ctxt.constructType(BigInteger.class), data, p);
+                }
+            case VALUE_NULL:
+                return null;
+            case START_ARRAY:
+                return unwrapSingle(p, ctxt, BigInteger.class, JsonCodecs::readInteger);
+            default:
+                return (BigInteger) ctxt.handleUnexpectedToken(BigInteger.class, p);
+        }
+    }
+
+    private static BigInteger[] readIntegers(JsonParser p, DeserializationContext ctxt) throws IOException {
+        switch (p.currentToken()) {
+            case VALUE_NULL:
+                return null;
+            case START_ARRAY:
+                final List<BigInteger> values = new ArrayList<>();
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(readInteger(p, ctxt));
+                }
+                return values.toArray(new BigInteger[0]);
+            case VALUE_EMBEDDED_OBJECT:
+                //packed varints
+                final byte[] data = p.getBinaryValue();
+                try {
+                    return BinaryNumbers.decodeVarints(data);
+                } catch (NumberFormatException e) {
+                    return (BigInteger[]) ctxt.handleWeirdNativeValue(ctxt.constructType(BigInteger[].class), data, p);
+                }
+            default:
+                if (!ctxt.isEnabled(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)) {
+                    return (BigInteger[]) ctxt.handleUnexpectedToken(BigInteger[].class, p);
+                }
+                return new BigInteger[]{readInteger(p, ctxt)};
+        }
+    }
+
+    private static boolean isEmptyOrNull(char[] chars, int start, int end) {
+        return start == end || (end - start == 4 && chars[start] == 'n'
+                && chars[start + 1] == 'u' && chars[start + 2] == 'l' && chars[start + 3] == 'l');
+    }
+
+    @FunctionalInterface
+    private interface ValueReader<T> {
+        T read(JsonParser p, DeserializationContext ctxt) throws IOException;
+    }
+
+    /**
+     * Single value wrapped in array: accepted if {@link DeserializationFeature#UNWRAP_SINGLE_VALUE_ARRAYS} is
+     * enabled.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T unwrapSingle(JsonParser p, DeserializationContext ctxt, Class<T> type, ValueReader<T> reader)
+            throws IOException {
+        if (!ctxt.isEnabled(DeserializationFeature.UNWRAP_SINGLE_VALUE_ARRAYS)) {
+            return (T) ctxt.handleUnexpectedToken(type, p);
+        }
+        p.nextToken();
+        final T value = reader.read(p, ctxt);
+        if (p.nextToken() != JsonToken.END_ARRAY) {
+            ctxt.reportWrongTokenException(type, JsonToken.END_ARRAY,
+                    "Attempted to unwrap single '%s' value from an array with more values", type.getName());
+        }
+        return value;
+    }
+}
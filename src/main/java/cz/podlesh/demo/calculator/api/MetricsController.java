@@ -0,0 +1,27 @@
+package cz.podlesh.demo.calculator.api;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+
+import javax.inject.Inject;
+
+/**
+ * Metrics of the application, in Prometheus text format.
+ */
+@Controller("/prometheus")
+public class MetricsController {
+
+    @Inject
+    protected PrometheusMeterRegistry registry;
+
+    /**
+     * Scrape all the metrics; plain text is the Prometheus text format 0.0.4.
+     */
+    @Get(produces = MediaType.TEXT_PLAIN)
+    public String scrape() {
+        return registry.scrape();
+    }
+
+}
@@ -1,8 +1,11 @@
 package cz.podlesh.demo.calculator.api;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 /**
- * JSON representation of all known operators.
+ * JSON representation of all known operators; written by {@link JsonCodecs}.
  */
+@JsonSerialize(using = JsonCodecs.OperatorListSerializer.class)
 public class OperatorList {
 
     protected final JsonOperator[] operators;
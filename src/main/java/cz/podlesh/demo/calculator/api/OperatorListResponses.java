@@ -0,0 +1,117 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.podlesh.demo.calculator.KnownOperators;
+import cz.podlesh.demo.calculator.op.CalculatorType;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
+
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Micronaut bean: responses with {@link OperatorList} of each {@link CalculatorType}. The operators do not change
+ * at runtime, so each list is serialized just once (both to JSON and CBOR), and served with a strong
+ * <code>ETag</code>; a request with matching <code>If-None-Match</code> is answered by <code>304 Not
+ * Modified</code>.
+ */
+@Singleton
+public class OperatorListResponses {
+
+    private final Map<CalculatorType, Representation> json = new EnumMap<>(CalculatorType.class);
+    private final Map<CalculatorType, Representation> cbor = new EnumMap<>(CalculatorType.class);
+
+    public OperatorListResponses(KnownOperators operators, ObjectMapper jsonMapper, CborMediaTypeCodec cborCodec)
+            throws JsonProcessingException {
+        for (CalculatorType type : CalculatorType.values()) {
+            final OperatorList list = new OperatorList(
+                    operators.getOperators().stream()
+                            .filter(op -> op.isAvailableIn(type))
+                            .map(op -> new OperatorList.JsonOperator(op.getSymbolicName(),
+                                    op.getName().toLowerCase()))
+                            .toArray(OperatorList.JsonOperator[]::new)
+            );
+            json.put(type, new Representation(MediaType.APPLICATION_JSON_TYPE, jsonMapper.writeValueAsBytes(list)));
+            cbor.put(type, new Representation(CborMediaTypeCodec.APPLICATION_CBOR_TYPE,
+                    cborCodec.getObjectMapper().writeValueAsBytes(list)));
+        }
+    }
+
+    /**
+     * The serialized list: CBOR when the client prefers it (see {@link CborNegotiationFilter}), JSON otherwise.
+     */
+    Representation get(CalculatorType type, HttpRequest<?> request) {
+        return (CborNegotiationFilter.prefersCbor(request) ? cbor : json).get(type);
+    }
+
+    /**
+     * Response with the list of the operators, or <code>304 Not Modified</code> if the client already has it.
+     */
+    public MutableHttpResponse<byte[]> respond(CalculatorType type, HttpRequest<?> request) {
+        final Representation representation = get(type, request);
+        final MutableHttpResponse<byte[]> response;
+        if (representation.matches(request.getHeaders().get(HttpHeaders.IF_NONE_MATCH))) {
+            response = HttpResponse.status(HttpStatus.NOT_MODIFIED);
+        } else {
+            response = HttpResponse.ok(representation.body).contentType(representation.mediaType);
+        }
+        return response
+                .header(HttpHeaders.ETAG, representation.etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    static final class Representation {
+        final MediaType mediaType;
+        final byte[] body;
+        final String etag;
+
+        Representation(MediaType mediaType, byte[] body) {
+            this.mediaType = mediaType;
+            this.body = body;
+            this.etag = etag(body);
+        }
+
+        private static String etag(byte[] body) {
+            final byte[] digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256").digest(body);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            final StringBuilder etag = new StringBuilder("\"");
+            for (int i = 0; i < 12; i++) {
+                etag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16))
+                        .append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return etag.append('"').toString();
+        }
+
+        /**
+         * Value of <code>If-None-Match</code> matches the entity tag: weak comparison, as required by RFC 7232.
+         */
+        boolean matches(@Nullable String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
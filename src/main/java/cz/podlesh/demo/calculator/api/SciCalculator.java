@@ -1,12 +1,26 @@
 package cz.podlesh.demo.calculator.api;
 
+import cz.podlesh.demo.calculator.CalculatorMetrics;
+import cz.podlesh.demo.calculator.ExpressionCache;
+import cz.podlesh.demo.calculator.FactorizationConfiguration;
+import cz.podlesh.demo.calculator.expr.CompiledExpression;
+import cz.podlesh.demo.calculator.op.BigFactorization;
 import cz.podlesh.demo.calculator.op.CalculatorType;
-import cz.podlesh.demo.calculator.op.PrimeFactorization;
+import cz.podlesh.demo.calculator.op.ComputationContext;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.QueryValue;
+import io.reactivex.Single;
 
+import javax.annotation.Nullable;
+import javax.inject.Inject;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Calculator: REST-like API that provides basic arithmetic operations.
@@ -14,13 +28,26 @@ import java.util.List;
 @Controller("/calculator/scientific")
 public class SciCalculator  extends AbstractCalculator {
 
+    @Inject
+    protected FactorizationConfiguration factorizationConfiguration;
+    @Inject
+    protected BigFactorization factorization;
+    @Inject
+    protected ExpressionCache expressionCache;
+
     @Override
     protected CalculatorType getCalculatorType() {
         return CalculatorType.SCIENTIFIC;
     }
 
+    /**
+     * Prime factorization of bigger numbers is heavy (see {@link #compute(boolean, java.util.concurrent.Callable)});
+     * numbers up to this bit length are factored in microseconds.
+     */
+    private static final int HEAVY_FACTORIZATION_BITS = 32;
+
     @Post("/prime")
-    public FactorizationResult factorization(FullOperation request) {
+    public Single<FactorizationResult> factorization(HttpRequest<?> httpRequest, FullOperation request) {
         List<BigDecimal> arguments = request.getArguments();
         if (arguments.isEmpty()) {
             throw new IllegalArgumentException("no argument to factorize given");
@@ -29,20 +56,87 @@ public class SciCalculator  extends AbstractCalculator {
             throw new IllegalArgumentException("only one number can be factorized");
         }
         request.operator = "prime";
-        long n;
+        CalculatorMetrics.OperatorMetrics factorizationMetrics = metrics.getFactorization();
+        long start = System.nanoTime();
+        BigDecimal value = arguments.get(0);
+        //do not even try to convert really huge values
+        if (value.precision() - value.scale() > factorization.getMaxBits() / 3) {
+            factorizationMetrics.arithmeticError(start, arguments);
+            return Single.just(new FactorizationResult(request, "prime factorization refused, too big value", null));
+        }
+        final BigInteger n;
         try {
-            n = arguments.get(0).longValueExact();
+            n = value.toBigIntegerExact();
         } catch (ArithmeticException e) {
-            return new FactorizationResult(request, "only integer number can be factorized to primes", null);
+            factorizationMetrics.arithmeticError(start, arguments);
+            return Single.just(new FactorizationResult(request, "only integer number can be factorized to primes", null));
+        }
+        if (n.signum() < 1) {
+            factorizationMetrics.arithmeticError(start, arguments);
+            return Single.just(new FactorizationResult(request, "only positive number can be factorized to primes", null));
+        }
+        return compute(n.bitLength() > HEAVY_FACTORIZATION_BITS, () -> {
+            //time spent in the queue is not measured
+            long computationStart = System.nanoTime();
+            try (ComputationScope computation = startComputation(httpRequest)) {
+                BigFactorization.Result primes = resultCache.factorize(n, factorizationConfiguration.getTimeBudget(),
+                        computation.getContext());
+                factorizationMetrics.success(computationStart, arguments, null);
+                return new FactorizationResult(request, null,
+                        primes.getFactors().toArray(new BigInteger[0]), primes.getCofactor());
+            } catch (ArithmeticException e) {
+                factorizationMetrics.arithmeticError(computationStart, arguments);
+                return new FactorizationResult(request, e.getMessage(), null);
+            }
+        });
+    }
+
+    /**
+     * Evaluate an expression; invalid expression or missing variable value is a bad request, arithmetic errors are
+     * reported in the result.
+     * <p/>
+     * Expressions are always evaluated as heavy computation: the cost depends on the intermediate results, which
+     * are not known in advance.
+     */
+    @Post("/expr")
+    public Single<ExpressionResult> expression(HttpRequest<?> httpRequest, ExpressionRequest request,
+                                               @QueryValue("precision") @Nullable Integer precision) {
+        CompiledExpression compiled = expressionCache.get(request.expression);
+        MathContext mathContext = getMathContext(precision);
+        if (request.bindings != null && request.bindings.length > batchConfiguration.getMaxSize()) {
+            throw new IllegalArgumentException("too many bindings: " + request.bindings.length
+                    + ", maximum is " + batchConfiguration.getMaxSize());
+        }
+        return compute(true, () -> {
+            try (ComputationScope computation = startComputation(httpRequest)) {
+                return evaluate(request, compiled, mathContext, computation.getContext());
+            }
+        });
+    }
+
+    private ExpressionResult evaluate(ExpressionRequest request, CompiledExpression compiled,
+                                      @Nullable MathContext mathContext, ComputationContext context) {
+        if (request.bindings == null) {
+            return evaluate(request.expression, compiled, request.variables, mathContext, context);
         }
-        if (n < 1) {
-            return new FactorizationResult(request, "only positive number can be factorized to primes", null);
+        ExpressionResult result = new ExpressionResult(request.expression, request.variables, null, null);
+        result.results = new ExpressionResult[request.bindings.length];
+        for (int i = 0; i < request.bindings.length; i++) {
+            result.results[i] = evaluate(null, compiled, request.bindings[i], mathContext, context);
         }
+        return result;
+    }
+
+    private ExpressionResult evaluate(String expression, CompiledExpression compiled,
+                                      @Nullable Map<String, BigDecimal> variables, @Nullable MathContext mathContext,
+                                      ComputationContext context) {
         try {
-            List<Long> primes = PrimeFactorization.DEFAULT.apply(n);
-            return new FactorizationResult(request, null, primes.stream().mapToLong(Long::longValue).toArray());
+            BigDecimal result = compiled.evaluate(variables == null ? Collections.emptyMap() : variables, mathContext,
+                    context);
+            return new ExpressionResult(expression, variables, null, result);
         } catch (ArithmeticException e) {
-            return new FactorizationResult(request, e.getMessage(), null);
+            //note: this is HTTP success!
+            return new ExpressionResult(expression, variables, e.getMessage(), null);
         }
     }
 
@@ -0,0 +1,123 @@
+package cz.podlesh.demo.calculator.expr;
+
+import cz.podlesh.demo.calculator.op.ComputationContext;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expression compiled to a tree of lambdas: variables are resolved to array indexes, operators are bound directly,
+ * so the evaluation does no lookup at all. Immutable and thread-safe, so it can be cached and shared.
+ * <p/>
+ * Short expressions can still produce huge numbers (<code>9^2^2^2...</code> doubles the digits at each level), so
+ * the result of every operator is limited to a maximum number of digits, and the work budget is checked before each
+ * operator is applied.
+ */
+public final class CompiledExpression {
+
+    /**
+     * Default maximum number of digits of the result of each operator, see {@link #compile(Expression, int)}.
+     */
+    public static final int DEFAULT_MAX_DIGITS = 100_000;
+
+    private final Expression expression;
+    private final List<String> variableNames;
+    private final Expression.Evaluator evaluator;
+
+    private CompiledExpression(Expression expression, List<String> variableNames, Expression.Evaluator evaluator) {
+        this.expression = expression;
+        this.variableNames = variableNames;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Compile the expression, with the default limit of digits ({@link #DEFAULT_MAX_DIGITS}).
+     *
+     * @param expression parsed expression
+     * @return compiled form
+     */
+    public static CompiledExpression compile(@Nonnull Expression expression) {
+        return compile(expression, DEFAULT_MAX_DIGITS);
+    }
+
+    /**
+     * Compile the expression.
+     *
+     * @param expression parsed expression
+     * @param maxDigits  maximum number of digits of the result of each operator (the intermediate results as well
+     *                   as the final one); evaluation of a bigger one fails by {@link ArithmeticException}
+     * @return compiled form
+     * @throws IllegalArgumentException the limit is not positive
+     */
+    public static CompiledExpression compile(@Nonnull Expression expression, int maxDigits)
+            throws IllegalArgumentException {
+        if (maxDigits <= 0) {
+            throw new IllegalArgumentException("invalid maximum number of digits: " + maxDigits);
+        }
+        Map<String, Integer> slots = new LinkedHashMap<>();
+        Expression.Evaluator evaluator = expression.compile(slots, maxDigits);
+        //slots are numbered in the order of insertion
+        List<String> names = Collections.unmodifiableList(Arrays.asList(slots.keySet().toArray(new String[0])));
+        return new CompiledExpression(expression, names, evaluator);
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Names of all variables used in the expression, in the order of first occurrence.
+     */
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * Evaluate the expression.
+     *
+     * @param variables   values of the variables; values of other (unused) names are ignored
+     * @param mathContext math context passed to all operators; <code>null</code> means the operator's default
+     * @return the result
+     * @throws ArithmeticException      undefined result (for example, division by zero), or too many digits
+     * @throws IllegalArgumentException missing value of some variable
+     */
+    @Nonnull
+    public BigDecimal evaluate(@Nonnull Map<String, BigDecimal> variables, @Nullable MathContext mathContext)
+            throws ArithmeticException, IllegalArgumentException {
+        return evaluate(variables, mathContext, ComputationContext.NONE);
+    }
+
+    /**
+     * Evaluate the expression, within the work budget.
+     *
+     * @param context work budget, passed to all operators and checked before each of them
+     * @throws cz.podlesh.demo.calculator.op.ComputationCancelledException the computation is cancelled or the
+     *                                                                     deadline has passed
+     * @see #evaluate(Map, MathContext)
+     */
+    @Nonnull
+    public BigDecimal evaluate(@Nonnull Map<String, BigDecimal> variables, @Nullable MathContext mathContext,
+                               @Nonnull ComputationContext context)
+            throws ArithmeticException, IllegalArgumentException {
+        BigDecimal[] values = new BigDecimal[variableNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = variables.get(variableNames.get(i));
+            if (values[i] == null) {
+                throw new IllegalArgumentException("missing value of variable " + variableNames.get(i));
+            }
+        }
+        return evaluator.evaluate(values, mathContext, context);
+    }
+
+    @Override
+    public String toString() {
+        return expression.toString();
+    }
+}
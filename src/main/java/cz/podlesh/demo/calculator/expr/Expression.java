@@ -0,0 +1,264 @@
+package cz.podlesh.demo.calculator.expr;
+
+import cz.podlesh.demo.calculator.op.ComputationContext;
+import cz.podlesh.demo.calculator.op.Operator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Node of parsed expression (abstract syntax tree): constant, variable or application of an {@link Operator}.
+ * <p/>
+ * The tree is immutable; use {@link CompiledExpression#compile(Expression)} to evaluate it.
+ */
+public abstract class Expression {
+
+    private Expression() {
+    }
+
+    /**
+     * Depth of the tree: 1 for constants and variables. Compilation, evaluation, {@link #equals(Object)},
+     * {@link #hashCode()} and {@link #toString()} recurse over the tree, so the parser limits this, see
+     * {@link ExpressionParser#MAX_DEPTH}.
+     */
+    public int getDepth() {
+        return 1;
+    }
+
+    /**
+     * Append {@link #toString()} to the buffer: one call per node of the tree, without intermediate strings.
+     */
+    abstract void appendTo(StringBuilder sb);
+
+    /**
+     * Compile this node into an evaluator.
+     *
+     * @param slots     index of variables in the array of values; new variables are added
+     * @param maxDigits maximum number of digits of the result of each operator (see {@link CompiledExpression})
+     */
+    abstract Evaluator compile(Map<String, Integer> slots, int maxDigits);
+
+    /**
+     * Compiled form of the node: all variables are resolved to indexes of the value array.
+     */
+    @FunctionalInterface
+    interface Evaluator {
+        BigDecimal evaluate(BigDecimal[] variables, @Nullable MathContext mathContext, ComputationContext context)
+                throws ArithmeticException, IllegalArgumentException;
+    }
+
+    //--------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Numeric literal.
+     */
+    public static final class Constant extends Expression {
+        private final BigDecimal value;
+
+        public Constant(@Nonnull BigDecimal value) {
+            this.value = Objects.requireNonNull(value);
+        }
+
+        public BigDecimal getValue() {
+            return value;
+        }
+
+        @Override
+        Evaluator compile(Map<String, Integer> slots, int maxDigits) {
+            final BigDecimal v = value;
+            return (variables, mathContext, context) -> v;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Constant && value.equals(((Constant) o).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        void appendTo(StringBuilder sb) {
+            sb.append(value);
+        }
+
+        @Override
+        public String toString() {
+            return value.toString();
+        }
+    }
+
+    /**
+     * Named variable; the value is supplied for each evaluation.
+     */
+    public static final class Variable extends Expression {
+        private final String name;
+
+        public Variable(@Nonnull String name) {
+            this.name = Objects.requireNonNull(name);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        Evaluator compile(Map<String, Integer> slots, int maxDigits) {
+            final int index = slots.computeIfAbsent(name, n -> slots.size());
+            return (variables, mathContext, context) -> variables[index];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Variable && name.equals(((Variable) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        void appendTo(StringBuilder sb) {
+            sb.append(name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Operator applied on arguments.
+     */
+    public static final class Application extends Expression {
+        private final Operator operator;
+        private final List<Expression> arguments;
+        private final int depth;
+
+        public Application(@Nonnull Operator operator, @Nonnull List<Expression> arguments) {
+            if (arguments.size() < operator.getMinArgumentsCount() || arguments.size() > operator.getMaxArgumentsCount()) {
+                throw new IllegalArgumentException("invalid number of arguments for " + operator.getSymbolicName()
+                        + ": " + arguments.size());
+            }
+            this.operator = operator;
+            this.arguments = Collections.unmodifiableList(new ArrayList<>(arguments));
+            int maxDepth = 0;
+            for (Expression argument : arguments) {
+                maxDepth = Math.max(maxDepth, argument.getDepth());
+            }
+            this.depth = maxDepth + 1;
+        }
+
+        public Application(@Nonnull Operator operator, Expression... arguments) {
+            this(operator, Arrays.asList(arguments));
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public List<Expression> getArguments() {
+            return arguments;
+        }
+
+        @Override
+        public int getDepth() {
+            return depth;
+        }
+
+        @Override
+        Evaluator compile(Map<String, Integer> slots, int maxDigits) {
+            final Operator op = operator;
+            final Evaluator[] args = new Evaluator[arguments.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = arguments.get(i).compile(slots, maxDigits);
+            }
+            //specialized for the most common arities, to avoid the loop
+            switch (args.length) {
+                case 1: {
+                    final Evaluator a = args[0];
+                    return (variables, mathContext, context) -> apply(op,
+                            Collections.singletonList(a.evaluate(variables, mathContext, context)),
+                            mathContext, context, maxDigits);
+                }
+                case 2: {
+                    final Evaluator a = args[0];
+                    final Evaluator b = args[1];
+                    return (variables, mathContext, context) -> apply(op,
+                            Arrays.asList(a.evaluate(variables, mathContext, context),
+                                    b.evaluate(variables, mathContext, context)),
+                            mathContext, context, maxDigits);
+                }
+                default:
+                    return (variables, mathContext, context) -> {
+                        BigDecimal[] values = new BigDecimal[args.length];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = args[i].evaluate(variables, mathContext, context);
+                        }
+                        return apply(op, Arrays.asList(values), mathContext, context, maxDigits);
+                    };
+            }
+        }
+
+        /**
+         * Apply the operator at one node: a cancellation point before it, and the limit of digits after it, so that
+         * the next node never gets an operand above the limit (repeated squaring doubles the digits at each node).
+         */
+        private static BigDecimal apply(Operator op, List<BigDecimal> values, @Nullable MathContext mathContext,
+                                        ComputationContext context, int maxDigits) {
+            context.check();
+            final BigDecimal result = op.apply(values, mathContext, context);
+            if (result.precision() > maxDigits) {
+                throw new ArithmeticException("intermediate result of " + op.getSymbolicName() + " is too big: "
+                        + result.precision() + " digits, maximum is " + maxDigits);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Application && operator == ((Application) o).operator
+                    && arguments.equals(((Application) o).arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return operator.hashCode() * 31 + arguments.hashCode();
+        }
+
+        /**
+         * Function-call notation, with the operator name; this can be parsed back.
+         */
+        @Override
+        void appendTo(StringBuilder sb) {
+            sb.append(operator.getName().toLowerCase()).append('(');
+            for (int i = 0; i < arguments.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                arguments.get(i).appendTo(sb);
+            }
+            sb.append(')');
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            appendTo(sb);
+            return sb.toString();
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package cz.podlesh.demo.calculator.expr;
+
+/**
+ * Expression cannot be parsed: syntax error, unknown operator, etc.
+ */
+public class ExpressionParseException extends IllegalArgumentException {
+
+    private final int position;
+
+    public ExpressionParseException(String message, int position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    /**
+     * Position (index of character) in the expression text, where the error was detected.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
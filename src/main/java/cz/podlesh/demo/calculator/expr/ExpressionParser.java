@@ -0,0 +1,283 @@
+package cz.podlesh.demo.calculator.expr;
+
+import cz.podlesh.demo.calculator.KnownOperators;
+import cz.podlesh.demo.calculator.op.CalculatorType;
+import cz.podlesh.demo.calculator.op.Operator;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser of infix expressions. All the operators are taken from {@link KnownOperators}, by their
+ * symbols or names.
+ * <p/>
+ * Grammar, from the lowest priority:
+ * <pre>
+ * expression := term (('+' | '-') term)*
+ * term       := unary (('*' | '/') unary)*
+ * unary      := '-' unary | '+' unary | postfix
+ * postfix    := primary ('!' | '^2')*
+ * primary    := number | variable | name '(' [expression (',' expression)*] ')' | '(' expression ')' | '|' expression '|'
+ * </pre>
+ * The function-call syntax accepts any operator name or symbol, for example <code>fact(x)</code>,
+ * <code>plus(a, b, c)</code> or <code>pi()</code>. Note that the postfix operators bind stronger than unary minus:
+ * <code>-x!</code> is <code>-(x!)</code>.
+ */
+public class ExpressionParser {
+
+    /**
+     * Maximum nesting depth of the expression: both the nesting of the parentheses (recursion of the parser) and
+     * the depth of the parsed tree ({@link Expression#getDepth()}, recursion of the compilation and evaluation).
+     * Note that chains of binary and postfix operators are nested too: <code>1-1-1</code> and <code>3!!</code> are
+     * of depth 3.
+     */
+    public static final int MAX_DEPTH = 200;
+
+    private final KnownOperators operators;
+    private final CalculatorType calculatorType;
+
+    private final Operator plus;
+    private final Operator minus;
+    private final Operator mul;
+    private final Operator div;
+    private final Operator negate;
+    private final Operator abs;
+    private final Operator factorial;
+    private final Operator square;
+
+    /**
+     * @param operators      all known operators
+     * @param calculatorType only operators available in this calculator are accepted
+     */
+    public ExpressionParser(@Nonnull KnownOperators operators, @Nonnull CalculatorType calculatorType) {
+        this.operators = operators;
+        this.calculatorType = calculatorType;
+        this.plus = operators.findOperator("+");
+        this.minus = operators.findOperator("-");
+        this.mul = operators.findOperator("*");
+        this.div = operators.findOperator("/");
+        this.negate = operators.findOperator("+/-");
+        this.abs = operators.findOperator("|x|");
+        this.factorial = operators.findOperator("x!");
+        this.square = operators.findOperator("x^2");
+    }
+
+    /**
+     * Parse the expression.
+     *
+     * @param text expression text
+     * @return parsed expression, never <code>null</code>
+     * @throws ExpressionParseException invalid expression
+     */
+    @Nonnull
+    public Expression parse(@Nonnull String text) throws ExpressionParseException {
+        Parsing parsing = new Parsing(text);
+        Expression expression = parsing.expression();
+        parsing.skipWhitespace();
+        if (parsing.position < text.length()) {
+            throw new ExpressionParseException("unexpected character '" + text.charAt(parsing.position) + "'", parsing.position);
+        }
+        return expression;
+    }
+
+    /**
+     * State of one parsing.
+     */
+    private class Parsing {
+        private final String text;
+        private int position;
+        private int depth;
+
+        Parsing(String text) {
+            this.text = text;
+        }
+
+        Expression expression() {
+            if (++depth > MAX_DEPTH) {
+                throw new ExpressionParseException("expression is nested too deep", position);
+            }
+            Expression left = term();
+            for (char c = peek(); c == '+' || c == '-'; c = peek()) {
+                position++;
+                left = node(new Expression.Application(c == '+' ? plus : minus, left, term()));
+            }
+            depth--;
+            return left;
+        }
+
+        private Expression term() {
+            Expression left = unary();
+            for (char c = peek(); c == '*' || c == '/'; c = peek()) {
+                position++;
+                left = node(new Expression.Application(c == '*' ? mul : div, left, unary()));
+            }
+            return left;
+        }
+
+        private Expression unary() {
+            char c = peek();
+            if (c == '-' || c == '+') {
+                if (++depth > MAX_DEPTH) {
+                    throw new ExpressionParseException("expression is nested too deep", position);
+                }
+                position++;
+                Expression operand = unary();
+                depth--;
+                return c == '-' ? node(new Expression.Application(negate, operand)) : operand;
+            }
+            return postfix();
+        }
+
+        private Expression postfix() {
+            Expression operand = primary();
+            for (char c = peek(); c == '!' || c == '^'; c = peek()) {
+                int start = position++;
+                if (c == '!') {
+                    operand = node(new Expression.Application(factorial, operand));
+                } else {
+                    skipWhitespace();
+                    if (!lookingAt("2") || (position + 1 < text.length() && isNumberChar(text.charAt(position + 1)))) {
+                        throw new ExpressionParseException("only ^2 is supported", start);
+                    }
+                    position++;
+                    operand = node(new Expression.Application(square, operand));
+                }
+            }
+            return operand;
+        }
+
+        private Expression primary() {
+            char c = peek();
+            int start = position;
+            if (c == '(') {
+                position++;
+                Expression inner = expression();
+                expect(')');
+                return inner;
+            }
+            if (c == '|') {
+                position++;
+                Expression inner = expression();
+                expect('|');
+                return node(new Expression.Application(abs, inner));
+            }
+            if (isDigit(c) || c == '.') {
+                return new Expression.Constant(number());
+            }
+            if (Character.isLetter(c) || c == '_') {
+                while (position < text.length()
+                        && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) {
+                    position++;
+                }
+                String name = text.substring(start, position);
+                if (peek() == '(') {
+                    return call(name, start);
+                }
+                return new Expression.Variable(name);
+            }
+            if (c == 0) {
+                throw new ExpressionParseException("unexpected end of expression", position);
+            }
+            throw new ExpressionParseException("unexpected character '" + c + "'", position);
+        }
+
+        private Expression call(String name, int start) {
+            Operator operator;
+            try {
+                operator = operators.findOperator(name);
+            } catch (KnownOperators.InvalidOperatorException e) {
+                throw new ExpressionParseException("unknown operator " + name, start);
+            }
+            if (!operator.isAvailableIn(calculatorType)) {
+                throw new ExpressionParseException("operator " + name + " is not available", start);
+            }
+            expect('(');
+            List<Expression> arguments = new ArrayList<>();
+            //empty list only for the operators without arguments: otherwise it's missing expression
+            if (operator.getMaxArgumentsCount() != 0 || peek() != ')') {
+                arguments.add(expression());
+                while (peek() == ',') {
+                    position++;
+                    arguments.add(expression());
+                }
+            }
+            expect(')');
+            try {
+                return node(new Expression.Application(operator, arguments));
+            } catch (IllegalArgumentException e) {
+                throw new ExpressionParseException(e.getMessage(), start);
+            }
+        }
+
+        /**
+         * Check the depth of the new node.
+         */
+        private Expression node(Expression expression) {
+            if (expression.getDepth() > MAX_DEPTH) {
+                throw new ExpressionParseException("expression is nested too deep", position);
+            }
+            return expression;
+        }
+
+        private BigDecimal number() {
+            int start = position;
+            while (position < text.length() && (isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                position++;
+            }
+            //exponent: only if followed by digits, otherwise it's not part of the number
+            if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+                int exponent = position + 1;
+                if (exponent < text.length() && (text.charAt(exponent) == '+' || text.charAt(exponent) == '-')) {
+                    exponent++;
+                }
+                if (exponent < text.length() && isDigit(text.charAt(exponent))) {
+                    position = exponent;
+                    while (position < text.length() && isDigit(text.charAt(position))) {
+                        position++;
+                    }
+                }
+            }
+            try {
+                return new BigDecimal(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw new ExpressionParseException("invalid number " + text.substring(start, position), start);
+            }
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw new ExpressionParseException("expected '" + c + "'", position);
+            }
+            position++;
+        }
+
+        /**
+         * Skip whitespace and return the next character, without consuming it; 0 at the end.
+         */
+        private char peek() {
+            skipWhitespace();
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        private boolean lookingAt(String s) {
+            return text.startsWith(s, position);
+        }
+
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNumberChar(char c) {
+        return isDigit(c) || c == '.';
+    }
+
+}
@@ -0,0 +1,209 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running result of an operator that accepts unlimited number of arguments (see
+ * {@link BinaryOperator#accumulator(MathContext, int)}): the arguments are appended in chunks, and only the result
+ * is kept, so the memory does not depend on the number of arguments. The result is the same as of the sequential
+ * fold of {@link BinaryOperator#apply(List, MathContext)} of all the arguments appended so far, in the same order;
+ * the chunk boundaries do not matter. With unlimited precision, long chunks are reduced as a tree first (see
+ * {@link TreeReduction}), which gives exactly the same result; with limited precision, the chunks are always folded
+ * sequentially (so the result may differ in the last digits from <code>apply</code> of a list long enough to be
+ * reduced as a tree).
+ * <p/>
+ * Each chunk is appended atomically: when it fails (invalid argument, cancelled computation, too big result), the
+ * accumulator is not changed at all. The accumulator is thread-safe, concurrent chunks are appended one by one. The
+ * result and count are never waited for: they are read from an immutable {@link State}, replaced after each chunk.
+ * Appending waits for the other chunks, unless {@link #tryAppend(List, ComputationContext)} is used.
+ */
+public final class Accumulator {
+
+    /**
+     * Context is checked every this number of arguments.
+     */
+    private static final int CHECK_INTERVAL = 256;
+
+    private final BinaryOperator operator;
+    @Nullable
+    private final MathContext requestedMathContext;
+    private final MathContext mathContext;
+    private final int maxPrecision;
+
+    /**
+     * Appending chunks, one by one.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile State state = new State(null, 0);
+
+    Accumulator(BinaryOperator operator, @Nullable MathContext mathContext, int maxPrecision) {
+        this.operator = operator;
+        this.requestedMathContext = mathContext;
+        this.mathContext = operator.fixMathContext(mathContext);
+        this.maxPrecision = maxPrecision;
+    }
+
+    public BinaryOperator getOperator() {
+        return operator;
+    }
+
+    /**
+     * The math context of the operator, as requested when the accumulator was created.
+     *
+     * @return <code>null</code> for the default one
+     */
+    @Nullable
+    public MathContext getMathContext() {
+        return requestedMathContext;
+    }
+
+    /**
+     * Append the arguments; wait until the other chunks are appended.
+     *
+     * @param arguments next arguments; may be empty
+     * @param context   the work budget
+     * @return the running result, after the arguments are applied; <code>null</code> if there are no arguments yet
+     * @throws IllegalArgumentException some argument is <code>null</code>
+     * @throws ArithmeticException      the result is not defined, or it has more digits than the maximum precision,
+     *                                  or the computation was cancelled
+     */
+    @Nullable
+    public BigDecimal append(@Nonnull List<BigDecimal> arguments, @Nonnull ComputationContext context)
+            throws IllegalArgumentException, ArithmeticException {
+        lock.lock();
+        try {
+            return appendLocked(arguments, context);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append the arguments, but only if no other chunk is being appended right now: never waits.
+     *
+     * @return see {@link #append(List, ComputationContext)}
+     * @throws BusyException            other chunk is being appended; this one is not appended at all
+     * @throws IllegalArgumentException see {@link #append(List, ComputationContext)}
+     * @throws ArithmeticException      see {@link #append(List, ComputationContext)}
+     */
+    @Nullable
+    public BigDecimal tryAppend(@Nonnull List<BigDecimal> arguments, @Nonnull ComputationContext context)
+            throws BusyException, IllegalArgumentException, ArithmeticException {
+        if (!lock.tryLock()) {
+            throw new BusyException();
+        }
+        try {
+            return appendLocked(arguments, context);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Is some chunk being appended right now?
+     */
+    public boolean isBusy() {
+        return lock.isLocked();
+    }
+
+    @Nullable
+    private BigDecimal appendLocked(List<BigDecimal> arguments, ComputationContext context)
+            throws IllegalArgumentException, ArithmeticException {
+        for (BigDecimal argument : arguments) {
+            if (argument == null) {
+                throw new IllegalArgumentException("invalid argument list: null argument");
+            }
+        }
+        context.check();
+        final State current = state;
+        BigDecimal value = current.result;
+        final ReductionPolicy reduction = context.getReduction();
+        if (mathContext.getPrecision() == 0 && arguments.size() >= reduction.getThreshold()) {
+            final BigDecimal reduced = TreeReduction.reduce(operator, arguments, mathContext, context,
+                    operator.isHeavy(arguments) ? reduction.getPool() : null);
+            value = value == null ? reduced : operator.apply(value, reduced, mathContext);
+        } else {
+            int i = 0;
+            for (BigDecimal argument : arguments) {
+                if (++i % CHECK_INTERVAL == 0) {
+                    context.check();
+                }
+                value = value == null ? argument : operator.apply(value, argument, mathContext);
+            }
+        }
+        if (value != null && value.precision() > maxPrecision) {
+            throw new ArithmeticException("accumulated result is too big: " + value.precision()
+                    + " digits, maximum is " + maxPrecision);
+        }
+        state = new State(value, current.count + arguments.size());
+        return value;
+    }
+
+    /**
+     * The running result: of all the arguments appended so far.
+     *
+     * @return the result, <code>null</code> if there are no arguments yet
+     */
+    @Nullable
+    public BigDecimal getResult() {
+        return state.result;
+    }
+
+    /**
+     * Number of the arguments appended so far.
+     */
+    public long getCount() {
+        return state.count;
+    }
+
+    /**
+     * The running result together with the number of arguments, consistent with each other.
+     */
+    @Nonnull
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Immutable state of the accumulator, after some chunk.
+     */
+    public static final class State {
+        @Nullable
+        private final BigDecimal result;
+        private final long count;
+
+        State(@Nullable BigDecimal result, long count) {
+            this.result = result;
+            this.count = count;
+        }
+
+        /**
+         * @see Accumulator#getResult()
+         */
+        @Nullable
+        public BigDecimal getResult() {
+            return result;
+        }
+
+        /**
+         * @see Accumulator#getCount()
+         */
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Other chunk is being appended, see {@link #tryAppend(List, ComputationContext)}.
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("accumulator is busy, another chunk is being appended");
+        }
+    }
+}
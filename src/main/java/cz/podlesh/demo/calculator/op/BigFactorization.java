@@ -0,0 +1,589 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Prime factorization of arbitrary-size integers.
+ * <p/>
+ * Numbers that fit into <code>long</code> are delegated to {@link PrimeFactorization}. Bigger ones go through trial
+ * division, Pollard-rho (Brent's variant, limited number of iterations) and finally Lenstra's elliptic curve method
+ * (ECM) with growing bounds. Every piece is checked by BPSW probable prime test.
+ * <p/>
+ * The computation is limited by time budget: when it's exhausted, the factors found so far are returned together
+ * with the remaining unfactored part ({@link Result#getCofactor()}). The computation can also be stopped by
+ * {@link ComputationContext}: unlike the time budget, that is an error, not a partial result.
+ */
+public class BigFactorization {
+
+    private static final BigInteger LONG_LIMIT = BigInteger.valueOf(Long.MAX_VALUE);
+    private static final BigInteger TWO = BigInteger.valueOf(2);
+
+    /**
+     * Trial division by primes up to this value.
+     */
+    private static final int TRIAL_DIVISION_LIMIT = 1000;
+    /**
+     * Pollard-rho is good for small factors only; after this number of iterations ECM takes over.
+     */
+    private static final int RHO_MAX_ITERATIONS = 1 << 12;
+    /**
+     * ECM levels: stage 1 bound and number of curves, roughly tuned for factors of 15, 20, 25 and 30 digits.
+     * Stage 2 bound is always {@link #ECM_B2_MULTIPLIER} times stage 1 bound.
+     */
+    private static final int[][] ECM_LEVELS = {{2_000, 25}, {11_000, 90}, {50_000, 300}, {250_000, 700}};
+    private static final int ECM_B2_MULTIPLIER = 50;
+    /**
+     * Giant step of ECM stage 2.
+     */
+    private static final int ECM_D = 210;
+
+    /**
+     * Some arbitrary limit: 4096 bits (about 1233 decimal digits); there is no chance to factor such numbers anyway.
+     */
+    //note: must be initialized after the ECM constants
+    public static final BigFactorization DEFAULT = new BigFactorization(PrimeFactorization.DEFAULT, 4096);
+
+    private final PrimeFactorization longFactorization;
+    private final int maxBits;
+
+    /**
+     * @param longFactorization factorization used for numbers that fit into <code>long</code>; its prime table is
+     *                          used for trial division and ECM, so it must contain primes up to 250000 at least
+     * @param maxBits           maximum bit length of accepted number
+     */
+    public BigFactorization(PrimeFactorization longFactorization, int maxBits) {
+        int maxB1 = ECM_LEVELS[ECM_LEVELS.length - 1][0];
+        if (longFactorization.getPrimeTable().getLimit() < maxB1) {
+            throw new IllegalArgumentException("prime table is too small for ECM, at least " + maxB1 + " is needed");
+        }
+        this.longFactorization = longFactorization;
+        this.maxBits = maxBits;
+    }
+
+    /**
+     * Maximum bit length of accepted number.
+     */
+    public int getMaxBits() {
+        return maxBits;
+    }
+
+    /**
+     * Compute all prime factors of given number n.
+     *
+     * @param n          number to factor
+     * @param timeBudget maximum time spent on the factorization; might be exceeded a bit
+     * @return prime factors and (when the time budget is exhausted) the unfactored rest
+     * @throws IllegalArgumentException negative number or zero
+     * @throws ArithmeticException      too big parameter
+     */
+    @Nonnull
+    public Result apply(@Nonnull BigInteger n, @Nonnull Duration timeBudget) throws IllegalArgumentException, ArithmeticException {
+        return apply(n, timeBudget, ComputationContext.NONE);
+    }
+
+    /**
+     * Compute all prime factors of given number n, within the work budget. Numbers that fit into <code>long</code>
+     * are always factored completely (it takes milliseconds at most), so the context is checked only for bigger
+     * numbers.
+     *
+     * @param n          number to factor
+     * @param timeBudget maximum time spent on the factorization; might be exceeded a bit
+     * @param context    work budget of the whole computation
+     * @return prime factors and (when the time budget is exhausted) the unfactored rest
+     * @throws IllegalArgumentException      negative number or zero
+     * @throws ComputationCancelledException the computation is cancelled or out of time (of the context, not of the
+     *                                       time budget)
+     * @throws ArithmeticException           too big parameter
+     */
+    @Nonnull
+    public Result apply(@Nonnull BigInteger n, @Nonnull Duration timeBudget, @Nonnull ComputationContext context)
+            throws IllegalArgumentException, ArithmeticException {
+        if (n.signum() < 1) {
+            throw new IllegalArgumentException("only positive numbers can be prime-factored");
+        }
+        if (n.compareTo(LONG_LIMIT) <= 0) {
+            return new Result(toBigIntegers(longFactorization.factorize(n.longValue())), null);
+        }
+        if (n.bitLength() > maxBits) {
+            throw new ArithmeticException("prime factorization of " + n + " refused, too big value");
+        }
+        context.check();
+        final long deadline = context.earlierDeadline(System.nanoTime() + timeBudget.toNanos());
+        List<BigInteger> factors = new ArrayList<>();
+        BigInteger cofactor = null;
+
+        Deque<BigInteger> pending = new ArrayDeque<>();
+        BigInteger remains = trialDivision(n, longFactorization.getPrimeTable(), factors);
+        if (!remains.equals(BigInteger.ONE)) {
+            pending.push(remains);
+        }
+        while (!pending.isEmpty()) {
+            BigInteger m = pending.pop();
+            if (m.compareTo(LONG_LIMIT) <= 0) {
+                for (long factor : longFactorization.factorize(m.longValue())) {
+                    factors.add(BigInteger.valueOf(factor));
+                }
+                continue;
+            }
+            if (isProbablePrime(m)) {
+                factors.add(m);
+                continue;
+            }
+            BigInteger[] sqrt = m.sqrtAndRemainder();
+            BigInteger d = sqrt[1].signum() == 0 ? sqrt[0] : findFactor(m, longFactorization.getPrimeTable(), deadline, context);
+            if (d == null) {
+                //out of time: keep it as it is
+                cofactor = cofactor == null ? m : cofactor.multiply(m);
+            } else {
+                pending.push(d);
+                pending.push(m.divide(d));
+            }
+        }
+        if (cofactor != null) {
+            //stopped by the context, not by the time budget?
+            context.check();
+        }
+        Collections.sort(factors);
+        return new Result(factors, cofactor);
+    }
+
+    private static List<BigInteger> toBigIntegers(long[] values) {
+        List<BigInteger> result = new ArrayList<>(values.length);
+        for (long v : values) {
+            result.add(BigInteger.valueOf(v));
+        }
+        return result;
+    }
+
+    /**
+     * Remove all small factors.
+     *
+     * @return the rest
+     */
+    private static BigInteger trialDivision(BigInteger n, PrimeTable primeTable, List<BigInteger> factors) {
+        int twos = n.getLowestSetBit();
+        for (int i = 0; i < twos; i++) {
+            factors.add(TWO);
+        }
+        n = n.shiftRight(twos);
+        final int[] primes = primeTable.primesUpTo(TRIAL_DIVISION_LIMIT);
+        for (int i = 1; i < primes.length && primes[i] <= TRIAL_DIVISION_LIMIT; i++) {
+            BigInteger f = BigInteger.valueOf(primes[i]);
+            BigInteger[] qr = n.divideAndRemainder(f);
+            while (qr[1].signum() == 0) {
+                factors.add(f);
+                n = qr[0];
+                qr = n.divideAndRemainder(f);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Find some non-trivial factor of a composite number without small factors.
+     *
+     * @return factor or <code>null</code> if the time budget is exhausted
+     */
+    @Nullable
+    private static BigInteger findFactor(BigInteger n, PrimeTable primeTable, long deadline, ComputationContext context) {
+        BigInteger d = pollardBrent(n, deadline, context);
+        if (d != null || isExpired(deadline, context)) {
+            return d;
+        }
+        return ecm(n, primeTable, deadline, context);
+    }
+
+    /**
+     * Check if the time budget is exhausted or the computation is cancelled.
+     */
+    private static boolean isExpired(long deadline, ComputationContext context) {
+        return System.nanoTime() - deadline > 0 || context.isCancelled();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    // BPSW
+
+    /**
+     * Baillie-PSW probable prime test: strong Fermat test to base 2 plus strong Lucas test with Selfridge parameters.
+     * There is no known counterexample.
+     *
+     * @param n number to check
+     * @return <code>true</code> if the number is (probably) prime
+     */
+    public static boolean isProbablePrime(@Nonnull BigInteger n) {
+        if (n.compareTo(LONG_LIMIT) <= 0) {
+            return PrimeFactorization.isPrime(n.longValue());
+        }
+        if (!n.testBit(0)) {
+            return false;
+        }
+        if (!strongFermat2(n)) {
+            return false;
+        }
+        //the Jacobi symbol search never ends for squares
+        BigInteger[] sqrt = n.sqrtAndRemainder();
+        if (sqrt[1].signum() == 0) {
+            return false;
+        }
+        long d = 5;
+        while (true) {
+            int j = NumberTheory.jacobi(BigInteger.valueOf(d), n);
+            if (j == -1) {
+                break;
+            }
+            if (j == 0) {
+                //n is bigger than any D tried, so this means a real factor
+                return false;
+            }
+            d = d > 0 ? -(d + 2) : -d + 2;
+        }
+        return strongLucas(n, d);
+    }
+
+    private static boolean strongFermat2(BigInteger n) {
+        BigInteger nm1 = n.subtract(BigInteger.ONE);
+        int s = nm1.getLowestSetBit();
+        BigInteger x = TWO.modPow(nm1.shiftRight(s), n);
+        if (x.equals(BigInteger.ONE) || x.equals(nm1)) {
+            return true;
+        }
+        for (int r = 1; r < s; r++) {
+            x = x.multiply(x).mod(n);
+            if (x.equals(nm1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Strong Lucas probable prime test with P = 1, Q = (1 - D) / 4.
+     */
+    private static boolean strongLucas(BigInteger n, long dLong) {
+        final BigInteger bigD = BigInteger.valueOf(dLong);
+        final BigInteger q = BigInteger.valueOf((1 - dLong) / 4).mod(n);
+        BigInteger k = n.add(BigInteger.ONE);
+        int s = k.getLowestSetBit();
+        k = k.shiftRight(s);
+        //U_1 = 1, V_1 = P = 1, Q^1
+        BigInteger u = BigInteger.ONE;
+        BigInteger v = BigInteger.ONE;
+        BigInteger qk = q;
+        for (int i = k.bitLength() - 2; i >= 0; i--) {
+            //doubling: U_2k = U_k * V_k, V_2k = V_k^2 - 2 Q^k
+            u = u.multiply(v).mod(n);
+            v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+            qk = qk.multiply(qk).mod(n);
+            if (k.testBit(i)) {
+                //increment: U_k+1 = (P U_k + V_k) / 2, V_k+1 = (D U_k + P V_k) / 2
+                BigInteger u1 = half(u.add(v), n);
+                v = half(bigD.multiply(u).add(v).mod(n), n);
+                u = u1;
+                qk = qk.multiply(q).mod(n);
+            }
+        }
+        if (u.signum() == 0 || v.signum() == 0) {
+            return true;
+        }
+        for (int r = 1; r < s; r++) {
+            v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+            if (v.signum() == 0) {
+                return true;
+            }
+            qk = qk.multiply(qk).mod(n);
+        }
+        return false;
+    }
+
+    /**
+     * x / 2 mod n (n is odd).
+     */
+    private static BigInteger half(BigInteger x, BigInteger n) {
+        x = x.mod(n);
+        if (x.testBit(0)) {
+            x = x.add(n);
+        }
+        return x.shiftRight(1);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    // Pollard-rho
+
+    /**
+     * Pollard-rho with Brent's cycle detection, limited to {@link #RHO_MAX_ITERATIONS}. The values are kept in the
+     * Montgomery form, so each step is just one {@link MontgomeryBig} product, without division.
+     *
+     * @return factor or <code>null</code> if none was found
+     */
+    @Nullable
+    private static BigInteger pollardBrent(BigInteger n, long deadline, ComputationContext context) {
+        final MontgomeryBig mont = new MontgomeryBig(n);
+        final int m = 128;
+        final long[] c = mont.one();
+        long[] y = mont.toMontgomery(TWO), x = y, ys = y, q = mont.one();
+        BigInteger g = BigInteger.ONE;
+        int iterations = 0;
+        for (int r = 1; g.equals(BigInteger.ONE); r <<= 1) {
+            if (iterations > RHO_MAX_ITERATIONS || isExpired(deadline, context)) {
+                return null;
+            }
+            x = y;
+            for (int i = 0; i < r; i++) {
+                y = mont.addMod(mont.square(y), c);
+            }
+            iterations += r;
+            for (int k = 0; k < r && g.equals(BigInteger.ONE); k += m) {
+                ys = y;
+                int steps = Math.min(m, r - k);
+                for (int i = 0; i < steps; i++) {
+                    y = mont.addMod(mont.square(y), c);
+                    q = mont.mul(q, mont.subMod(x, y));
+                }
+                g = mont.fromMontgomery(q).gcd(n);
+                iterations += steps;
+            }
+        }
+        if (g.equals(n)) {
+            do {
+                ys = mont.addMod(mont.square(ys), c);
+                g = mont.fromMontgomery(mont.subMod(x, ys)).gcd(n);
+            } while (g.equals(BigInteger.ONE));
+        }
+        return g.equals(n) ? null : g;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+    // ECM
+
+    /**
+     * Lenstra's elliptic curve method: Montgomery curves with Suyama's parametrization, projective XZ coordinates,
+     * standard stage 2 with baby steps / giant steps.
+     *
+     * @return factor or <code>null</code> if the time budget is exhausted
+     */
+    @Nullable
+    private static BigInteger ecm(BigInteger n, PrimeTable primeTable, long deadline, ComputationContext context) {
+        //deterministic sequence of curves, so that the results are reproducible
+        SplittableRandom random = new SplittableRandom(n.hashCode());
+        for (int[] level : ECM_LEVELS) {
+            final int b1 = level[0];
+            final int[] primes = primeTable.primesUpTo(b1);
+            for (int curve = 0; curve < level[1]; curve++) {
+                if (isExpired(deadline, context)) {
+                    return null;
+                }
+                BigInteger d = new EcmCurve(n, BigInteger.valueOf(random.nextLong(6, Long.MAX_VALUE)))
+                        .run(primes, b1, (long) b1 * ECM_B2_MULTIPLIER, deadline, context);
+                if (d != null) {
+                    return d;
+                }
+            }
+        }
+        //the last level is repeated until the time budget is exhausted
+        final int b1 = ECM_LEVELS[ECM_LEVELS.length - 1][0];
+        final int[] primes = primeTable.primesUpTo(b1);
+        while (!isExpired(deadline, context)) {
+            BigInteger d = new EcmCurve(n, BigInteger.valueOf(random.nextLong(6, Long.MAX_VALUE)))
+                    .run(primes, b1, (long) b1 * ECM_B2_MULTIPLIER, deadline, context);
+            if (d != null) {
+                return d;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One curve of ECM. Points are represented by projective coordinates (X : Z), without Y.
+     */
+    private static class EcmCurve {
+        private final BigInteger n;
+        private final BigInteger sigma;
+        /**
+         * (A + 2) / 4
+         */
+        private BigInteger a24;
+        private BigInteger x, z;
+        /**
+         * Factor found already during curve construction.
+         */
+        private BigInteger factor;
+
+        EcmCurve(BigInteger n, BigInteger sigma) {
+            this.n = n;
+            this.sigma = sigma.mod(n);
+            init();
+        }
+
+        private void init() {
+            BigInteger u = sigma.multiply(sigma).subtract(BigInteger.valueOf(5)).mod(n);
+            BigInteger v = sigma.shiftLeft(2).mod(n);
+            BigInteger u3 = u.pow(3).mod(n);
+            x = u3;
+            z = v.pow(3).mod(n);
+            BigInteger vmu = v.subtract(u);
+            BigInteger numerator = vmu.pow(3).multiply(u.multiply(BigInteger.valueOf(3)).add(v)).mod(n);
+            BigInteger denominator = u3.multiply(v).shiftLeft(4).mod(n);
+            BigInteger g = denominator.gcd(n);
+            if (!g.equals(BigInteger.ONE)) {
+                factor = g;
+                return;
+            }
+            a24 = numerator.multiply(denominator.modInverse(n)).mod(n);
+        }
+
+        private BigInteger mul(BigInteger a, BigInteger b) {
+            return a.multiply(b).mod(n);
+        }
+
+        /**
+         * Point doubling; returns X and Z in an array.
+         */
+        private BigInteger[] dbl(BigInteger px, BigInteger pz) {
+            BigInteger s = px.add(pz);
+            BigInteger d = px.subtract(pz);
+            BigInteger ss = mul(s, s);
+            BigInteger dd = mul(d, d);
+            BigInteger t = ss.subtract(dd);
+            return new BigInteger[]{mul(ss, dd), mul(t, dd.add(mul(a24, t)))};
+        }
+
+        /**
+         * Differential addition P + Q, knowing P - Q.
+         */
+        private BigInteger[] add(BigInteger px, BigInteger pz, BigInteger qx, BigInteger qz, BigInteger dx, BigInteger dz) {
+            BigInteger u = mul(px.subtract(pz), qx.add(qz));
+            BigInteger v = mul(px.add(pz), qx.subtract(qz));
+            BigInteger sum = u.add(v);
+            BigInteger diff = u.subtract(v);
+            return new BigInteger[]{mul(dz, mul(sum, sum)), mul(dx, mul(diff, diff))};
+        }
+
+        /**
+         * Montgomery ladder: k * P.
+         */
+        private BigInteger[] multiply(BigInteger px, BigInteger pz, long k) {
+            BigInteger[] r0 = {px, pz};
+            BigInteger[] r1 = dbl(px, pz);
+            for (int i = 62 - Long.numberOfLeadingZeros(k); i >= 0; i--) {
+                if (((k >>> i) & 1) != 0) {
+                    r0 = add(r1[0], r1[1], r0[0], r0[1], px, pz);
+                    r1 = dbl(r1[0], r1[1]);
+                } else {
+                    r1 = add(r0[0], r0[1], r1[0], r1[1], px, pz);
+                    r0 = dbl(r0[0], r0[1]);
+                }
+            }
+            return r0;
+        }
+
+        /**
+         * Run both stages.
+         *
+         * @return factor or <code>null</code> when this curve did not succeed
+         */
+        @Nullable
+        BigInteger run(int[] primes, int b1, long b2, long deadline, ComputationContext context) {
+            if (factor != null) {
+                return factor.equals(n) ? null : factor;
+            }
+            //stage 1: multiply the point by all prime powers up to B1
+            for (int i = 0; i < primes.length && primes[i] <= b1; i++) {
+                long q = primes[i];
+                while (q * primes[i] <= b1) {
+                    q *= primes[i];
+                }
+                BigInteger[] p = multiply(x, z, q);
+                x = p[0];
+                z = p[1];
+                if ((i & 63) == 0 && isExpired(deadline, context)) {
+                    return null;
+                }
+            }
+            BigInteger g = z.gcd(n);
+            if (!g.equals(BigInteger.ONE)) {
+                return g.equals(n) ? null : g;
+            }
+            //stage 2: one more prime q in (B1, B2>; q = mD +- j, check X([mD]Q) / Z = X([j]Q) / Z
+            int half = ECM_D / 2;
+            BigInteger[][] baby = new BigInteger[half][];
+            BigInteger[] q2 = dbl(x, z);
+            baby[1] = new BigInteger[]{x, z};
+            baby[3] = add(q2[0], q2[1], x, z, x, z);
+            for (int j = 5; j < half; j += 2) {
+                baby[j] = add(baby[j - 2][0], baby[j - 2][1], q2[0], q2[1], baby[j - 4][0], baby[j - 4][1]);
+            }
+            BigInteger[] giant = multiply(x, z, ECM_D);
+            long m = b1 / ECM_D;
+            BigInteger[] prev = multiply(x, z, (m - 1) * ECM_D);
+            BigInteger[] current = multiply(x, z, m * ECM_D);
+            BigInteger acc = BigInteger.ONE;
+            for (; m * ECM_D - half <= b2; m++) {
+                for (int j = 1; j < half; j += 2) {
+                    if (j % 3 == 0 || j % 5 == 0 || j % 7 == 0) {
+                        continue;
+                    }
+                    acc = mul(acc, mul(current[0], baby[j][1]).subtract(mul(baby[j][0], current[1])));
+                }
+                BigInteger[] next = add(current[0], current[1], giant[0], giant[1], prev[0], prev[1]);
+                prev = current;
+                current = next;
+                if ((m & 15) == 0 && isExpired(deadline, context)) {
+                    break;
+                }
+            }
+            g = acc.gcd(n);
+            return g.equals(BigInteger.ONE) || g.equals(n) ? null : g;
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Result of the factorization.
+     */
+    public static class Result {
+        private final List<BigInteger> factors;
+        private final BigInteger cofactor;
+
+        public Result(List<BigInteger> factors, BigInteger cofactor) {
+            this.factors = factors;
+            this.cofactor = cofactor;
+        }
+
+        /**
+         * Prime factors found, in ascending order.
+         */
+        @Nonnull
+        public List<BigInteger> getFactors() {
+            return factors;
+        }
+
+        /**
+         * The part of the number that was not factored in time (composite number); <code>null</code> if the
+         * factorization is complete.
+         */
+        @Nullable
+        public BigInteger getCofactor() {
+            return cofactor;
+        }
+
+        public boolean isComplete() {
+            return cofactor == null;
+        }
+
+        @Override
+        public String toString() {
+            return factors + (cofactor == null ? "" : " * " + cofactor + "?");
+        }
+    }
+
+}
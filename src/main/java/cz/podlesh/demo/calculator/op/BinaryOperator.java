@@ -6,26 +6,24 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.BiFunction;
 
 /**
  * All supported basic operators.
  */
 public enum BinaryOperator implements Operator {
 
-    PLUS("+", true, BigDecimal::add),
-    MINUS("-", false, BigDecimal::subtract),
-    MUL("*", true, BigDecimal::multiply),
-    DIV("/", false, (a1, a2, mathContext) -> {
-        BigDecimal[] dr = a1.divideAndRemainder(a2, mathContext);
-        if (dr[1].signum() == 0) {
-            //fully divisible
-            return dr[0];
-        }
-        MathContext limitedContext = mathContext.getPrecision() == 0 ? MathContext.DECIMAL64 : mathContext;
-        return dr[0].add(dr[1].divide(a2, limitedContext), mathContext);
-    }),
+    PLUS("+", true, BigDecimal::add, LongArithmetic::add),
+    MINUS("-", false, BigDecimal::subtract, LongArithmetic::subtract),
+    MUL("*", true, BigDecimal::multiply, LongArithmetic::multiply),
+    DIV("/", false, Division::divide, null),
     ;
 
+    /**
+     * Context is checked every this number of arguments (or rows).
+     */
+    private static final int CHECK_INTERVAL = 256;
+
     private final String symbolicName;
     /**
      * When <code>true</code>, the operator is commutative and associative --> it can be applied on unlimited number of arguments.
@@ -35,12 +33,20 @@ public enum BinaryOperator implements Operator {
      * The operator itself.
      */
     private final BigDecimalBinaryOp op;
+    /**
+     * Fast path of the operator, in <code>long</code> arithmetic; returns <code>null</code> when not applicable.
+     * The result is used only when the math context does not round it
+     * (see {@link LongArithmetic#isExact(BigDecimal, MathContext)}).
+     */
+    private final BiFunction<BigDecimal, BigDecimal, BigDecimal> longOp;
 
 
-    BinaryOperator(String symbolicName, boolean anyLength, BigDecimalBinaryOp op) {
+    BinaryOperator(String symbolicName, boolean anyLength, BigDecimalBinaryOp op,
+                   BiFunction<BigDecimal, BigDecimal, BigDecimal> longOp) {
         this.symbolicName = symbolicName;
         this.anyLength = anyLength;
         this.op = op;
+        this.longOp = longOp;
     }
 
     @Override
@@ -65,12 +71,19 @@ public enum BinaryOperator implements Operator {
 
     @Override
     public int getMaxArgumentsCount() {
-        return anyLength ? 2 : Integer.MAX_VALUE;
+        return anyLength ? Integer.MAX_VALUE : 2;
     }
 
     @Nonnull
     @Override
     public BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext) throws ArithmeticException, IllegalArgumentException {
+        return apply(arguments, mathContext, ComputationContext.NONE);
+    }
+
+    @Nonnull
+    @Override
+    public BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext,
+                            @Nonnull ComputationContext context) throws ArithmeticException, IllegalArgumentException {
         if (arguments.size() < 2) {
             throw new IllegalArgumentException("invalid argument list: " + this + " needs at least 2 arguments");
         }
@@ -80,10 +93,89 @@ public enum BinaryOperator implements Operator {
         //ensure that we have precision specified
         mathContext = fixMathContext(mathContext);
 
+        context.check();
+        final ReductionPolicy reduction = context.getReduction();
+        if (arguments.size() >= reduction.getThreshold()) {
+            //long lists: balanced tree, in parallel if it's heavy enough to be worth it
+            return TreeReduction.reduce(this, arguments, mathContext, context,
+                    isHeavy(arguments) ? reduction.getPool() : null);
+        }
         final Iterator<BigDecimal> it = arguments.iterator();
         BigDecimal result = it.next();
-        while (it.hasNext()) {
-            result = op.apply(result, it.next(), mathContext);
+        for (int i = 1; it.hasNext(); i++) {
+            if (i % CHECK_INTERVAL == 0) {
+                context.check();
+            }
+            result = apply(result, it.next(), mathContext);
+        }
+        return result;
+    }
+
+    /**
+     * Check if the operator can be applied on unlimited number of arguments: it's commutative and associative.
+     */
+    public boolean isAnyLength() {
+        return anyLength;
+    }
+
+    /**
+     * Create accumulator of the arguments: running result of this operator, see {@link Accumulator}.
+     *
+     * @param mathContext  math context of the operation; <code>null</code> = the default one
+     * @param maxPrecision maximum number of digits of the result
+     * @throws IllegalArgumentException the operator does not accept unlimited number of arguments
+     */
+    public Accumulator accumulator(@Nullable MathContext mathContext, int maxPrecision)
+            throws IllegalArgumentException {
+        if (!anyLength) {
+            throw new IllegalArgumentException(this + " does not accept unlimited number of arguments");
+        }
+        return new Accumulator(this, mathContext, maxPrecision);
+    }
+
+    /**
+     * Apply the operator on two arguments: by the <code>long</code> fast path, if possible; the result is always the
+     * same as of the {@link BigDecimal} operation.
+     */
+    BigDecimal apply(BigDecimal a1, BigDecimal a2, MathContext mathContext) {
+        if (longOp != null) {
+            BigDecimal result = longOp.apply(a1, a2);
+            if (result != null && LongArithmetic.isExact(result, mathContext)) {
+                return result;
+            }
+        }
+        return op.apply(a1, a2, mathContext);
+    }
+
+    /**
+     * Column evaluation with the <code>long</code> fast path: each row is computed in <code>long</code> arithmetic
+     * if possible, and by {@link BigDecimal} only if not.
+     */
+    @Nonnull
+    @Override
+    public ColumnResult applyColumns(@Nonnull List<BigDecimal[]> columns, @Nullable MathContext mathContext,
+                                     @Nonnull ComputationContext context)
+            throws IllegalArgumentException {
+        final int rows = ColumnResult.checkColumns(this, columns);
+        mathContext = fixMathContext(mathContext);
+        final BigDecimal[] first = columns.get(0);
+        ColumnResult result = new ColumnResult(rows);
+        for (int row = 0; row < rows; row++) {
+            try {
+                if (row % CHECK_INTERVAL == 0) {
+                    context.check();
+                }
+                BigDecimal value = first[row];
+                for (int i = 1; i < columns.size(); i++) {
+                    value = apply(value, columns.get(i)[row], mathContext);
+                }
+                result.setResult(row, value);
+            } catch (ComputationCancelledException e) {
+                result.setErrors(row, rows, e.getMessage());
+                break;
+            } catch (ArithmeticException e) {
+                result.setError(row, e.getMessage());
+            }
         }
         return result;
     }
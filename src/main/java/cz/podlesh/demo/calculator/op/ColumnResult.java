@@ -0,0 +1,122 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Result of an operator applied on columns of operands (see {@link Operator#applyColumns(List, java.math.MathContext)}):
+ * one result per row. Rows with arithmetic error (for example, division by zero) have no result, but an error message.
+ */
+public class ColumnResult {
+
+    private final BigDecimal[] results;
+    /**
+     * Created only when there is some error.
+     */
+    private String[] errors;
+
+    public ColumnResult(int size) {
+        this.results = new BigDecimal[size];
+    }
+
+    public int size() {
+        return results.length;
+    }
+
+    /**
+     * Result of given row; <code>null</code> if there is an error.
+     */
+    @Nullable
+    public BigDecimal getResult(int row) {
+        return results[row];
+    }
+
+    /**
+     * Error of given row; <code>null</code> if there is a result.
+     */
+    @Nullable
+    public String getError(int row) {
+        return errors == null ? null : errors[row];
+    }
+
+    public boolean hasErrors() {
+        return errors != null;
+    }
+
+    /**
+     * All results; note that this is the internal array, not a copy.
+     */
+    public BigDecimal[] getResults() {
+        return results;
+    }
+
+    /**
+     * All errors; note that this is the internal array, not a copy.
+     *
+     * @return errors, or <code>null</code> if there is no error at all
+     */
+    @Nullable
+    public String[] getErrors() {
+        return errors;
+    }
+
+    public void setResult(int row, BigDecimal result) {
+        results[row] = result;
+    }
+
+    public void setError(int row, String error) {
+        if (errors == null) {
+            errors = new String[results.length];
+        }
+        errors[row] = error;
+        results[row] = null;
+    }
+
+    /**
+     * Set the same error to a range of rows.
+     *
+     * @param fromRow first row, inclusive
+     * @param toRow   last row, exclusive
+     */
+    public void setErrors(int fromRow, int toRow, String error) {
+        for (int row = fromRow; row < toRow; row++) {
+            setError(row, error);
+        }
+    }
+
+    /**
+     * Validate the columns: the count must be acceptable for the operator, all the columns must have the same length
+     * and no value can be <code>null</code>.
+     *
+     * @return number of rows
+     * @throws IllegalArgumentException invalid columns
+     */
+    static int checkColumns(Operator operator, List<BigDecimal[]> columns) throws IllegalArgumentException {
+        if (columns.size() < operator.getMinArgumentsCount()) {
+            throw new IllegalArgumentException("invalid column list: " + operator + " needs at least "
+                    + operator.getMinArgumentsCount() + " columns");
+        }
+        if (columns.size() > operator.getMaxArgumentsCount()) {
+            throw new IllegalArgumentException("invalid column list: " + operator + " accepts at most "
+                    + operator.getMaxArgumentsCount() + " columns");
+        }
+        int rows = -1;
+        for (BigDecimal[] column : columns) {
+            if (column == null) {
+                throw new IllegalArgumentException("invalid column list: missing column");
+            }
+            if (rows >= 0 && column.length != rows) {
+                throw new IllegalArgumentException("invalid column list: columns must have the same length");
+            }
+            rows = column.length;
+            for (BigDecimal value : column) {
+                if (value == null) {
+                    throw new IllegalArgumentException("invalid column list: missing value");
+                }
+            }
+        }
+        return rows;
+    }
+
+}
@@ -0,0 +1,21 @@
+package cz.podlesh.demo.calculator.op;
+
+/**
+ * The computation was stopped by its {@link ComputationContext}: cancelled, or out of time. This is the
+ * "cannot be completed in reasonable time" case of {@link Operator#apply(java.util.List, java.math.MathContext)},
+ * so it's reported just like other arithmetic errors.
+ * <p/>
+ * There is no stack trace: the exception is expected and it might be thrown for many operations at once (all the
+ * remaining operations of a batch).
+ */
+public class ComputationCancelledException extends ArithmeticException {
+
+    public ComputationCancelledException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,122 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Work budget of a computation, passed alongside {@link java.math.MathContext}: deadline and cancellation flag.
+ * Long-running loops check it cooperatively (see {@link #check()}), so that one pathological request does not
+ * occupy a thread for unlimited time. It also carries the {@link ReductionPolicy} of the computation.
+ * <p/>
+ * The context is thread-safe: it can be cancelled from another thread (for example when the client disconnects),
+ * and it can be shared by operations evaluated in parallel.
+ */
+public final class ComputationContext {
+
+    /**
+     * No deadline and cannot be cancelled.
+     */
+    public static final ComputationContext NONE = new ComputationContext(false, 0, ReductionPolicy.SEQUENTIAL);
+
+    private final boolean hasDeadline;
+    /**
+     * Deadline, as {@link System#nanoTime()}; valid only when {@link #hasDeadline} is set.
+     */
+    private final long deadline;
+    private final ReductionPolicy reduction;
+    private volatile boolean cancelled;
+
+    private ComputationContext(boolean hasDeadline, long deadline, ReductionPolicy reduction) {
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+        this.reduction = reduction;
+    }
+
+    /**
+     * Create context without any deadline, which can be cancelled only explicitly.
+     */
+    @Nonnull
+    public static ComputationContext cancellable() {
+        return new ComputationContext(false, 0, ReductionPolicy.SEQUENTIAL);
+    }
+
+    /**
+     * Create context with deadline: now plus the timeout; long argument lists are reduced sequentially.
+     *
+     * @param timeout time budget of the computation; <code>null</code> means no deadline
+     */
+    @Nonnull
+    public static ComputationContext withTimeout(Duration timeout) {
+        return withTimeout(timeout, ReductionPolicy.SEQUENTIAL);
+    }
+
+    /**
+     * Create context with deadline: now plus the timeout.
+     *
+     * @param timeout   time budget of the computation; <code>null</code> means no deadline
+     * @param reduction how long argument lists are reduced
+     */
+    @Nonnull
+    public static ComputationContext withTimeout(Duration timeout, @Nonnull ReductionPolicy reduction) {
+        if (timeout == null) {
+            return new ComputationContext(false, 0, reduction);
+        }
+        return new ComputationContext(true, System.nanoTime() + timeout.toNanos(), reduction);
+    }
+
+    /**
+     * Cancel the computation: all following checks fail.
+     *
+     * @throws IllegalStateException this is {@link #NONE}
+     */
+    public void cancel() throws IllegalStateException {
+        if (this == NONE) {
+            throw new IllegalStateException("the default context cannot be cancelled");
+        }
+        cancelled = true;
+    }
+
+    /**
+     * How long argument lists are reduced in this computation.
+     */
+    @Nonnull
+    public ReductionPolicy getReduction() {
+        return reduction;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Check if the computation should stop: it's cancelled or the deadline has passed.
+     */
+    public boolean isExpired() {
+        return cancelled || hasDeadline && System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * The earlier of the deadline of this context and the other deadline.
+     *
+     * @param otherDeadline some deadline, as {@link System#nanoTime()}
+     * @return deadline, as {@link System#nanoTime()}
+     */
+    public long earlierDeadline(long otherDeadline) {
+        return hasDeadline && deadline - otherDeadline < 0 ? deadline : otherDeadline;
+    }
+
+    /**
+     * Cooperative check: call it regularly during long computations.
+     *
+     * @throws ComputationCancelledException the computation is cancelled or the deadline has passed
+     */
+    public void check() throws ComputationCancelledException {
+        if (cancelled) {
+            throw new ComputationCancelledException("computation cancelled");
+        }
+        if (hasDeadline && System.nanoTime() - deadline > 0) {
+            throw new ComputationCancelledException("computation cannot be completed in time");
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package cz.podlesh.demo.calculator.op;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoized constants of the operators: powers of ten, reciprocals rounded to the requested precision, and the
+ * mathematical constants of {@link ScientificOperator} (&pi;, <code>ln(2)</code>, <code>ln(10)</code>). They are
+ * computed once and shared, all the values are immutable.
+ * <p/>
+ * The mathematical constants are kept with the highest precision requested so far; lower precisions are rounded
+ * from it, higher precision is computed again (and kept instead).
+ */
+public final class Constants {
+
+    /**
+     * Powers of ten up to this exponent are cached.
+     */
+    private static final int CACHED_POWERS_OF_TEN = 256;
+    /**
+     * Maximum number of cached reciprocals; the whole cache is dropped when it's full (it's cheap to refill).
+     */
+    private static final int MAX_RECIPROCALS = 4096;
+
+    private static final BigInteger[] POWERS_OF_TEN = new BigInteger[CACHED_POWERS_OF_TEN];
+    private static final BigDecimal[] DECIMAL_POWERS_OF_TEN = new BigDecimal[CACHED_POWERS_OF_TEN];
+
+    static {
+        POWERS_OF_TEN[0] = BigInteger.ONE;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1].multiply(BigInteger.TEN);
+        }
+        for (int i = 0; i < DECIMAL_POWERS_OF_TEN.length; i++) {
+            DECIMAL_POWERS_OF_TEN[i] = new BigDecimal(POWERS_OF_TEN[i]);
+        }
+    }
+
+    private static final Map<ReciprocalKey, BigDecimal> RECIPROCALS = new ConcurrentHashMap<>();
+
+    private static final Memo PI = new Memo(ScientificFunctions::computePi);
+    private static final Memo LN2 = new Memo(ScientificFunctions::computeLn2);
+    private static final Memo LN10 = new Memo(ScientificFunctions::computeLn10);
+
+    private Constants() {
+    }
+
+    /**
+     * 10<sup>exponent</sup>, as integer.
+     *
+     * @param exponent not negative
+     */
+    public static BigInteger powerOfTen(int exponent) {
+        return exponent < CACHED_POWERS_OF_TEN ? POWERS_OF_TEN[exponent] : BigInteger.TEN.pow(exponent);
+    }
+
+    /**
+     * 10<sup>exponent</sup>, as decimal with scale 0.
+     *
+     * @param exponent not negative
+     */
+    public static BigDecimal decimalPowerOfTen(int exponent) {
+        return exponent < CACHED_POWERS_OF_TEN ? DECIMAL_POWERS_OF_TEN[exponent] : new BigDecimal(powerOfTen(exponent));
+    }
+
+    /**
+     * 1 / n, rounded by the math context (exactly like {@link BigDecimal#divide(BigDecimal, MathContext)}).
+     *
+     * @param n           not zero
+     * @param mathContext limited precision
+     * @throws ArithmeticException n is zero, or the precision is unlimited and the reciprocal has infinite expansion
+     */
+    public static BigDecimal reciprocal(long n, MathContext mathContext) throws ArithmeticException {
+        final ReciprocalKey key = new ReciprocalKey(n, mathContext);
+        BigDecimal value = RECIPROCALS.get(key);
+        if (value == null) {
+            value = BigDecimal.ONE.divide(BigDecimal.valueOf(n), mathContext);
+            if (RECIPROCALS.size() >= MAX_RECIPROCALS) {
+                RECIPROCALS.clear();
+            }
+            RECIPROCALS.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * &pi;, rounded to the precision ({@link RoundingMode#HALF_EVEN}); the error is below one unit in the last place.
+     *
+     * @param precision number of digits, positive
+     */
+    public static BigDecimal pi(int precision) {
+        return pi(precision, ComputationContext.NONE);
+    }
+
+    static BigDecimal pi(int precision, ComputationContext context) {
+        return PI.get(precision, context);
+    }
+
+    /**
+     * <code>ln(2)</code>, rounded to the precision, see {@link #pi(int)}.
+     */
+    public static BigDecimal ln2(int precision) {
+        return ln2(precision, ComputationContext.NONE);
+    }
+
+    static BigDecimal ln2(int precision, ComputationContext context) {
+        return LN2.get(precision, context);
+    }
+
+    /**
+     * <code>ln(10)</code>, rounded to the precision, see {@link #pi(int)}.
+     */
+    public static BigDecimal ln10(int precision) {
+        return ln10(precision, ComputationContext.NONE);
+    }
+
+    static BigDecimal ln10(int precision, ComputationContext context) {
+        return LN10.get(precision, context);
+    }
+
+    /**
+     * Constant with the highest precision computed so far.
+     */
+    private static final class Memo {
+        private final Computation computation;
+        private volatile Value best;
+
+        Memo(Computation computation) {
+            this.computation = computation;
+        }
+
+        BigDecimal get(int precision, ComputationContext context) {
+            if (precision <= 0) {
+                throw new IllegalArgumentException("invalid precision: " + precision);
+            }
+            final MathContext mathContext = MathContexts.of(precision, RoundingMode.HALF_EVEN);
+            Value value = best;
+            if (value == null || value.precision < precision) {
+                value = new Value(computation.compute(mathContext, context), precision);
+                synchronized (this) {
+                    if (best == null || best.precision < precision) {
+                        best = value;
+                    }
+                }
+            }
+            return value.precision == precision ? value.value : value.value.round(mathContext);
+        }
+    }
+
+    private static final class Value {
+        final BigDecimal value;
+        final int precision;
+
+        Value(BigDecimal value, int precision) {
+            this.value = value;
+            this.precision = precision;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Computation {
+        BigDecimal compute(MathContext mathContext, ComputationContext context);
+    }
+
+    private static final class ReciprocalKey {
+        private final long n;
+        private final MathContext mathContext;
+
+        ReciprocalKey(long n, MathContext mathContext) {
+            this.n = n;
+            this.mathContext = mathContext;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ReciprocalKey)) {
+                return false;
+            }
+            ReciprocalKey other = (ReciprocalKey) o;
+            return n == other.n && mathContext.equals(other.mathContext);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(n, mathContext);
+        }
+    }
+}
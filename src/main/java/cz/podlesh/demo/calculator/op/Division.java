@@ -0,0 +1,181 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * Division engine of {@link BinaryOperator#DIV}.
+ * <p/>
+ * With limited precision, the result is simply the quotient, correctly rounded by the math context.
+ * <p/>
+ * With unlimited precision, the quotient is not representable in general (infinite expansion). The result is then
+ * the integer part of the quotient, which is always exact, plus the fractional part rounded to 16 digits (as by
+ * {@link MathContext#DECIMAL64}). Value and scale of the result are exactly the same as of the original
+ * implementation, which was
+ * <pre>
+ *     q, r = dividend.divideAndRemainder(divisor)
+ *     q + r.divide(divisor, DECIMAL64)
+ * </pre>
+ * but only one long division is done here: the integer division of the unscaled values. Its remainder is then
+ * divided further only to get 17 or 18 digits of the fractional part, which fit into <code>long</code>; the rounding
+ * and the detection of exact quotient are done in <code>long</code> arithmetic.
+ * <p/>
+ * Note that {@link BigInteger} already switches to Burnikel-Ziegler division for big operands, so there is no
+ * special algorithm for them here.
+ */
+final class Division {
+
+    /**
+     * Number of digits of the fractional part, for unlimited precision.
+     */
+    private static final int FRACTION_DIGITS = 16;
+    private static final long FRACTION_OVERFLOW = 10_000_000_000_000_000L;
+    /**
+     * 10<sup>17</sup>: the lowest number with 18 digits.
+     */
+    private static final long EIGHTEEN_DIGITS = 100_000_000_000_000_000L;
+    private static final double LOG10_2 = Math.log10(2);
+
+    private Division() {
+    }
+
+    @Nonnull
+    static BigDecimal divide(BigDecimal dividend, BigDecimal divisor, MathContext mathContext) throws ArithmeticException {
+        if (mathContext.getPrecision() > 0) {
+            return dividend.divide(divisor, mathContext);
+        }
+        if (divisor.signum() == 0) {
+            throw new ArithmeticException(dividend.signum() == 0 ? "Division undefined" : "Division by zero");
+        }
+        final int preferredScale = checkScale((long) dividend.scale() - divisor.scale());
+        if (dividend.signum() == 0) {
+            return BigDecimal.valueOf(0, preferredScale);
+        }
+        if (compareMagnitude(dividend, divisor) < 0) {
+            //no integer part: the whole quotient is the fraction
+            BigDecimal zero = BigDecimal.valueOf(0, preferredScale);
+            return zero.add(fraction(dividend.unscaledValue(), divisor.unscaledValue(),
+                    (long) divisor.scale() - dividend.scale(), preferredScale));
+        }
+        //both operands scaled to the same scale; the magnitudes are comparable, so the power of ten is small,
+        //unless the quotient is big anyway
+        BigInteger numerator = dividend.unscaledValue();
+        BigInteger denominator = divisor.unscaledValue();
+        if (preferredScale < 0) {
+            numerator = numerator.multiply(powerOfTen(-preferredScale));
+        } else {
+            denominator = denominator.multiply(powerOfTen(preferredScale));
+        }
+        BigInteger[] qr = numerator.divideAndRemainder(denominator);
+        BigDecimal integerPart = integerPart(qr[0], preferredScale);
+        if (qr[1].signum() == 0) {
+            //fully divisible
+            return integerPart;
+        }
+        return integerPart.add(fraction(qr[1], denominator, 0, integerPart.scale()));
+    }
+
+    /**
+     * Integer part of the quotient, with the scale given by {@link BigDecimal#divideToIntegralValue(BigDecimal)}:
+     * as close to the preferred scale as possible, but not positive unless the preferred scale is.
+     */
+    private static BigDecimal integerPart(BigInteger value, int preferredScale) {
+        if (preferredScale >= 0) {
+            return new BigDecimal(value).setScale(preferredScale);
+        }
+        //each trailing decimal zero needs one trailing binary zero too
+        final int maxZeros = Math.min(-preferredScale, value.getLowestSetBit());
+        int scale = 0;
+        while (-scale < maxZeros) {
+            BigInteger[] qr = value.divideAndRemainder(BigInteger.TEN);
+            if (qr[1].signum() != 0) {
+                break;
+            }
+            value = qr[0];
+            scale--;
+        }
+        return new BigDecimal(value, scale);
+    }
+
+    /**
+     * Fractional part of the quotient, <code>numerator / denominator * 10^exponent</code>, rounded to 16 digits
+     * ({@link java.math.RoundingMode#HALF_EVEN}). The absolute value of the fraction must be less than 1.
+     * <p/>
+     * The scale is the same as of {@link BigDecimal#divide(BigDecimal, MathContext)}: 16 digits if rounded,
+     * but trailing zeros are stripped (up to the preferred scale) when the fraction is exact.
+     */
+    private static BigDecimal fraction(BigInteger numerator, BigInteger denominator, long exponent, int preferredScale) {
+        final int signum = numerator.signum() * denominator.signum();
+        numerator = numerator.abs();
+        denominator = denominator.abs();
+        //with this shift, the quotient has 17 or 18 digits
+        final long shift = (long) digits(denominator) - digits(numerator) + FRACTION_DIGITS + 1;
+        if (shift >= 0) {
+            numerator = numerator.multiply(powerOfTen((int) shift));
+        } else {
+            denominator = denominator.multiply(powerOfTen(checkScale(-shift)));
+        }
+        BigInteger[] qr = numerator.divideAndRemainder(denominator);
+        final long digits = qr[0].longValueExact();
+        final boolean sticky = qr[1].signum() != 0;
+
+        final long dropDivisor = digits >= EIGHTEEN_DIGITS ? 100 : 10;
+        //position of the first digit of the fraction
+        final long magnitude = (digits >= EIGHTEEN_DIGITS ? 17 : 16) - shift + exponent;
+        long scale = FRACTION_DIGITS - 1 - magnitude;
+        long result = digits / dropDivisor;
+        final long dropped = digits % dropDivisor;
+        final long half = dropDivisor / 2;
+        if (dropped > half || dropped == half && (sticky || (result & 1) != 0)) {
+            result++;
+            if (result == FRACTION_OVERFLOW) {
+                //rounded up to the next power of ten
+                result /= 10;
+                scale--;
+            }
+        } else if (dropped == 0 && !sticky) {
+            //exact quotient
+            while (scale > preferredScale && result % 10 == 0) {
+                result /= 10;
+                scale--;
+            }
+        }
+        return BigDecimal.valueOf(signum * result, checkScale(scale));
+    }
+
+    private static int compareMagnitude(BigDecimal a1, BigDecimal a2) {
+        //position of the first digit
+        long magnitude1 = (long) a1.precision() - a1.scale();
+        long magnitude2 = (long) a2.precision() - a2.scale();
+        if (magnitude1 != magnitude2) {
+            return magnitude1 < magnitude2 ? -1 : 1;
+        }
+        return a1.abs().compareTo(a2.abs());
+    }
+
+    private static BigInteger powerOfTen(int exponent) {
+        return Constants.powerOfTen(exponent);
+    }
+
+    /**
+     * Number of decimal digits of a positive number.
+     */
+    private static int digits(BigInteger value) {
+        //estimate from the number of bits is either exact, or one less
+        int digits = (int) ((value.bitLength() - 1) * LOG10_2) + 1;
+        return value.compareTo(powerOfTen(digits)) >= 0 ? digits + 1 : digits;
+    }
+
+    private static int checkScale(long scale) throws ArithmeticException {
+        if (scale > Integer.MAX_VALUE) {
+            throw new ArithmeticException("Underflow");
+        }
+        if (scale < Integer.MIN_VALUE) {
+            throw new ArithmeticException("Overflow");
+        }
+        return (int) scale;
+    }
+
+}
@@ -1,21 +1,74 @@
 package cz.podlesh.demo.calculator.op;
 
 import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.IntFunction;
 
 /**
  * Utility class: implement factorial computation, with some error checking.
+ * <p/>
+ * The factorial is computed by Luschny's split-recursive algorithm: the odd part is a product of odd numbers
+ * multiplied as balanced product trees, and the power of two is applied as a single shift at the end.
+ * Factorials of multiples of {@link #CHECKPOINT_INTERVAL} are cached (bounded LRU cache), so that requests for nearby
+ * numbers only multiply the checkpoint by few more numbers.
+ * <p/>
+ * Long computation can be stopped by {@link ComputationContext}: it's checked in the product trees.
  */
 public class Factorial implements IntFunction<BigInteger> {
 
     /**
-     * Some arbitrary limit: 1001 digits maximum -> 450!.
+     * Some arbitrary limit: 20000! has 77338 digits.
      */
-    public static final Factorial DEFAULT = new Factorial(450); //maxDigits(1000);
+    public static final Factorial DEFAULT = new Factorial(20_000);
 
+    /**
+     * Distance of the cached checkpoints.
+     */
+    public static final int CHECKPOINT_INTERVAL = 64;
+    /**
+     * Maximum number of checkpoints cached.
+     */
+    private static final int MAX_CHECKPOINTS = 64;
+    /**
+     * Maximum distance (in checkpoints) from which the factorial is computed incrementally; further ones are
+     * computed from scratch.
+     */
+    private static final int MAX_INCREMENTAL_CHECKPOINTS = 4;
+    /**
+     * Product of up to this count of numbers is computed in <code>long</code> (as long as it fits).
+     */
+    private static final int LEAF_PRODUCT_SIZE = 16;
+    /**
+     * Computation context is checked in product trees of at least this count of numbers, so that the check is
+     * negligible compared to the multiplication.
+     */
+    private static final int CHECK_PRODUCT_SIZE = 256;
+
+    /**
+     * Factorials that fit into <code>long</code>: 0! to 20!.
+     */
+    private static final long[] SMALL_FACTORIALS = new long[21];
+
+    static {
+        SMALL_FACTORIALS[0] = 1;
+        for (int i = 1; i < SMALL_FACTORIALS.length; i++) {
+            SMALL_FACTORIALS[i] = SMALL_FACTORIALS[i - 1] * i;
+        }
+    }
 
     private final int maxN;
 
+    /**
+     * Cached checkpoints: index is n / {@link #CHECKPOINT_INTERVAL}; access-ordered, guarded by itself.
+     */
+    private final Map<Integer, BigInteger> checkpoints = new LinkedHashMap<Integer, BigInteger>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, BigInteger> eldest) {
+            return size() > MAX_CHECKPOINTS;
+        }
+    };
+
     public Factorial(int maxN) {
         this.maxN = maxN;
     }
@@ -34,25 +87,147 @@ public class Factorial implements IntFunction<BigInteger> {
      */
     @Override
     public BigInteger apply(int n) throws IllegalArgumentException, ArithmeticException {
+        return apply(n, ComputationContext.NONE);
+    }
+
+    /**
+     * Compute factorial for given n, within the work budget.
+     *
+     * @param n       the value; must be positive integer
+     * @param context work budget of the computation
+     * @return factorial
+     * @throws IllegalArgumentException      value lower than 1
+     * @throws ComputationCancelledException the computation is cancelled or out of time
+     * @throws ArithmeticException           value bigger than maximum supported n
+     */
+    public BigInteger apply(int n, ComputationContext context) throws IllegalArgumentException, ArithmeticException {
         if (n < 1) {
             throw new IllegalArgumentException("factorial is not defined for " + n);
         }
         if (n > getMaxN()) {
             throw new ArithmeticException("cannot compute factorial of " + n + ", too big value");
         }
-        switch (n) {
-            case 1:
-                return BigInteger.ONE;
-            case 2:
-                return new BigInteger("2");
+        if (n < SMALL_FACTORIALS.length) {
+            return BigInteger.valueOf(SMALL_FACTORIALS[n]);
+        }
+        int checkpoint = n / CHECKPOINT_INTERVAL;
+        BigInteger base = checkpoint(checkpoint, context);
+        int from = checkpoint * CHECKPOINT_INTERVAL;
+        return from == n ? base : base.multiply(product(from + 1, n, context));
+    }
+
+    /**
+     * Get factorial of checkpoint: cached, computed incrementally from lower cached checkpoint or from scratch.
+     *
+     * @param checkpoint checkpoint index, i.e. n / {@link #CHECKPOINT_INTERVAL}
+     */
+    private BigInteger checkpoint(int checkpoint, ComputationContext context) {
+        if (checkpoint == 0) {
+            return BigInteger.ONE;
         }
-        BigInteger val = new BigInteger("2");
-        BigInteger cnt = new BigInteger("3");
-        for (int i = 3; i <= n; i++) {
-            val = val.multiply(cnt);
-            cnt = cnt.add(BigInteger.ONE);
+        BigInteger lower = null;
+        int lowerCheckpoint = checkpoint;
+        synchronized (checkpoints) {
+            for (; lowerCheckpoint > 0 && checkpoint - lowerCheckpoint <= MAX_INCREMENTAL_CHECKPOINTS; lowerCheckpoint--) {
+                lower = checkpoints.get(lowerCheckpoint);
+                if (lower != null) {
+                    break;
+                }
+            }
+        }
+        if (lower != null && lowerCheckpoint == checkpoint) {
+            return lower;
+        }
+        final int n = checkpoint * CHECKPOINT_INTERVAL;
+        BigInteger value;
+        if (lower != null) {
+            value = lower.multiply(product(lowerCheckpoint * CHECKPOINT_INTERVAL + 1, n, context));
+        } else {
+            value = splitFactorial(n, context);
+        }
+        synchronized (checkpoints) {
+            checkpoints.put(checkpoint, value);
+        }
+        return value;
+    }
+
+    /**
+     * Split-recursive factorial: n! = 2<sup>shift</sup> * (product of odd parts), where the odd parts are built
+     * from ranges of odd numbers between n / 2<sup>k+1</sup> and n / 2<sup>k</sup>.
+     */
+    static BigInteger splitFactorial(int n) {
+        return splitFactorial(n, ComputationContext.NONE);
+    }
+
+    private static BigInteger splitFactorial(int n, ComputationContext context) {
+        if (n < 2) {
+            return BigInteger.ONE;
+        }
+        BigInteger p = BigInteger.ONE;
+        BigInteger r = BigInteger.ONE;
+        int log2n = 31 - Integer.numberOfLeadingZeros(n);
+        int h = 0;
+        int shift = 0;
+        int high = 1;
+        while (h != n) {
+            shift += h;
+            h = n >>> log2n--;
+            int low = high;
+            high = (h - 1) | 1;
+            if (high > low) {
+                //odd numbers low + 2 .. high
+                p = p.multiply(oddProduct(low + 2, high, context));
+                r = r.multiply(p);
+            }
+        }
+        return r.shiftLeft(shift);
+    }
+
+    /**
+     * Product of odd numbers from..to (both odd, inclusive).
+     */
+    private static BigInteger oddProduct(int from, int to, ComputationContext context) {
+        return rangeProduct(from, to, 2, context);
+    }
+
+    /**
+     * Product of all numbers from..to (inclusive).
+     */
+    static BigInteger product(int from, int to, ComputationContext context) {
+        return from > to ? BigInteger.ONE : rangeProduct(from, to, 1, context);
+    }
+
+    /**
+     * Product of numbers from, from + step, ..., to, as a balanced product tree: the multiplied numbers have
+     * similar sizes, which is much faster than sequential multiplication for big results.
+     */
+    private static BigInteger rangeProduct(int from, int to, int step, ComputationContext context) {
+        int count = (to - from) / step + 1;
+        if (count <= LEAF_PRODUCT_SIZE) {
+            return leafProduct(from, to, step);
+        }
+        if (count >= CHECK_PRODUCT_SIZE) {
+            context.check();
+        }
+        int middle = from + step * (count / 2);
+        return rangeProduct(from, middle - step, step, context).multiply(rangeProduct(middle, to, step, context));
+    }
+
+    /**
+     * Product of numbers from, from + step, ..., to; computed in <code>long</code> as long as it fits.
+     */
+    private static BigInteger leafProduct(int from, int to, int step) {
+        long product = 1;
+        BigInteger result = null;
+        for (long i = from; i <= to; i += step) {
+            if (Math.multiplyHigh(product, i) != 0 || product * i < 0) {
+                result = result == null ? BigInteger.valueOf(product) : result.multiply(BigInteger.valueOf(product));
+                product = i;
+            } else {
+                product *= i;
+            }
         }
-        return val;
+        return result == null ? BigInteger.valueOf(product) : result.multiply(BigInteger.valueOf(product));
     }
 
 
@@ -0,0 +1,84 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Fast path of the basic operations on integers: when both operands are integers (scale 0) that fit into
+ * <code>long</code>, the operation is done in <code>long</code> arithmetic, with the same result (value and scale)
+ * as the {@link BigDecimal} operation would have.
+ * <p/>
+ * Only integers are handled: their <code>long</code> value is available without any allocation. For values with
+ * other scale there is no such way, and {@link BigDecimal} already uses <code>long</code> arithmetic internally
+ * for small values, so the fast path would be slower.
+ * <p/>
+ * All the methods return <code>null</code> when the fast path is not possible (not integers, too big values,
+ * overflow); the caller must then fall back to the {@link BigDecimal} operation. The same applies when the result
+ * would be rounded by the math context, see {@link #isExact(BigDecimal, MathContext)}.
+ */
+final class LongArithmetic {
+
+    /**
+     * Maximum precision of values accepted by the fast path: 10<sup>18</sup> still fits into <code>long</code>.
+     */
+    private static final int MAX_PRECISION = 18;
+
+    private LongArithmetic() {
+    }
+
+    /**
+     * Check if the result of the fast path is valid in the math context, i.e. it's not rounded by the context. The
+     * {@link BigDecimal} operation then returns exactly the same value, including scale.
+     *
+     * @param result      exact result, computed by the fast path
+     * @param mathContext the math context of the operation
+     */
+    static boolean isExact(BigDecimal result, @Nullable MathContext mathContext) {
+        //long has at most 19 digits
+        return mathContext == null || mathContext.getPrecision() == 0 || mathContext.getPrecision() >= 19
+                || result.precision() <= mathContext.getPrecision();
+    }
+
+    /**
+     * Check if the value is an integer that fits into <code>long</code>, so that {@link BigDecimal#longValue()}
+     * is exact (and cheap).
+     */
+    static boolean isLong(BigDecimal value) {
+        return value.scale() == 0 && value.precision() <= MAX_PRECISION;
+    }
+
+    @Nullable
+    static BigDecimal add(BigDecimal a1, BigDecimal a2) {
+        if (!isLong(a1) || !isLong(a2)) {
+            return null;
+        }
+        //both values are below 10^18, so the sum cannot overflow
+        return BigDecimal.valueOf(a1.longValue() + a2.longValue());
+    }
+
+    @Nullable
+    static BigDecimal subtract(BigDecimal a1, BigDecimal a2) {
+        if (!isLong(a1) || !isLong(a2)) {
+            return null;
+        }
+        return BigDecimal.valueOf(a1.longValue() - a2.longValue());
+    }
+
+    @Nullable
+    static BigDecimal multiply(BigDecimal a1, BigDecimal a2) {
+        if (!isLong(a1) || !isLong(a2)) {
+            return null;
+        }
+        long u1 = a1.longValue();
+        long u2 = a2.longValue();
+        long high = Math.multiplyHigh(u1, u2);
+        long low = u1 * u2;
+        if ((high != 0 || low < 0) && (high != -1 || low >= 0)) {
+            //overflow
+            return null;
+        }
+        return BigDecimal.valueOf(low);
+    }
+
+}
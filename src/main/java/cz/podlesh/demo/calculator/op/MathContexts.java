@@ -0,0 +1,75 @@
+package cz.podlesh.demo.calculator.op;
+
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Registry of interned {@link MathContext} instances: requests with precision get the same instance every time,
+ * instead of a new one per request. The standard instances of {@link MathContext} are used for their precision and
+ * rounding mode.
+ */
+public final class MathContexts {
+
+    /**
+     * Math contexts with precision up to this are interned; higher ones are created for each call (they are rare,
+     * and the computation takes much longer than the allocation then).
+     */
+    public static final int MAX_INTERNED_PRECISION = 1024;
+
+    /**
+     * Interned instances: by rounding mode, then by precision; created lazily. The race is benign:
+     * {@link MathContext} is immutable (final fields), so at worst two equal instances are created.
+     */
+    private static final MathContext[][] INTERNED = new MathContext[RoundingMode.values().length][];
+
+    static {
+        for (int i = 0; i < INTERNED.length; i++) {
+            INTERNED[i] = new MathContext[MAX_INTERNED_PRECISION + 1];
+        }
+        for (MathContext standard : new MathContext[]{MathContext.UNLIMITED, MathContext.DECIMAL32,
+                MathContext.DECIMAL64, MathContext.DECIMAL128}) {
+            INTERNED[standard.getRoundingMode().ordinal()][standard.getPrecision()] = standard;
+        }
+    }
+
+    private MathContexts() {
+    }
+
+    /**
+     * Math context with the precision, rounding {@link RoundingMode#HALF_UP} (just like
+     * {@link MathContext#MathContext(int)}).
+     *
+     * @param precision number of digits; 0 means unlimited ({@link MathContext#UNLIMITED})
+     * @throws IllegalArgumentException negative precision
+     */
+    public static MathContext of(int precision) throws IllegalArgumentException {
+        return of(precision, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Math context with the precision and rounding mode.
+     *
+     * @param precision number of digits; 0 means unlimited
+     * @throws IllegalArgumentException negative precision
+     */
+    public static MathContext of(int precision, RoundingMode roundingMode) throws IllegalArgumentException {
+        if (precision < 0 || precision > MAX_INTERNED_PRECISION) {
+            //note: negative precision is refused by the constructor
+            return new MathContext(precision, roundingMode);
+        }
+        final MathContext[] interned = INTERNED[roundingMode.ordinal()];
+        MathContext mathContext = interned[precision];
+        if (mathContext == null) {
+            mathContext = new MathContext(precision, roundingMode);
+            interned[precision] = mathContext;
+        }
+        return mathContext;
+    }
+
+    /**
+     * Interned instance equal to the math context.
+     */
+    public static MathContext intern(MathContext mathContext) {
+        return of(mathContext.getPrecision(), mathContext.getRoundingMode());
+    }
+}
@@ -0,0 +1,310 @@
+package cz.podlesh.demo.calculator.op;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Montgomery modular arithmetic for one odd modulus of any size: the multi-word counterpart of
+ * {@link MontgomeryLong}.
+ * <p/>
+ * The values are arrays of 64-bit words (least significant first), always of the length of the modulus, and all
+ * the values passed to {@link #mul(long[], long[])} must be in the Montgomery form (see
+ * {@link #toMontgomery(BigInteger)}). The multiplication interleaves the product with the reduction (CIOS), so it
+ * needs no division and no intermediate value twice the size of the modulus.
+ * This is the kernel of Pollard-rho in {@link BigFactorization}: single modular products are several times faster
+ * than <code>multiply().mod()</code>. Whole exponentiation is not faster than <code>BigInteger.modPow</code>, see
+ * {@link NumberTheory}.
+ * <p/>
+ * Instances are immutable and thread-safe; the values are never modified in place.
+ */
+public final class MontgomeryBig {
+
+    private final BigInteger modulus;
+    private final long[] n;
+    private final int size;
+    /**
+     * -n<sup>-1</sup> mod 2<sup>64</sup>
+     */
+    private final long nInv;
+    /**
+     * R<sup>2</sup> mod n, R = 2<sup>64 size</sup>; used for conversion to Montgomery form.
+     */
+    private final long[] r2;
+    /**
+     * R mod n: value one in the Montgomery form.
+     */
+    private final long[] one;
+
+    /**
+     * @param modulus must be odd and bigger than 1
+     * @throws IllegalArgumentException even modulus, or not bigger than 1
+     */
+    public MontgomeryBig(BigInteger modulus) {
+        if (modulus.compareTo(BigInteger.ONE) <= 0 || !modulus.testBit(0)) {
+            throw new IllegalArgumentException("Montgomery modulus must be odd number bigger than 1: " + modulus);
+        }
+        this.modulus = modulus;
+        this.size = (modulus.bitLength() + 63) / 64;
+        this.n = toWords(modulus, size);
+        //Newton iteration: each step doubles number of valid bits (n itself is valid inverse for 3 lowest bits)
+        long inv = n[0];
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - n[0] * inv;
+        }
+        this.nInv = -inv;
+        this.one = toWords(BigInteger.ONE.shiftLeft(64 * size).mod(modulus), size);
+        this.r2 = toWords(BigInteger.ONE.shiftLeft(128 * size).mod(modulus), size);
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    /**
+     * Value one in the Montgomery form.
+     */
+    public long[] one() {
+        return one.clone();
+    }
+
+    /**
+     * Convert value into the Montgomery form.
+     *
+     * @param a any value, reduced by the modulus first
+     */
+    public long[] toMontgomery(BigInteger a) {
+        return mul(toWords(a.mod(modulus), size), r2);
+    }
+
+    /**
+     * Convert value from the Montgomery form back to the ordinary one.
+     */
+    public BigInteger fromMontgomery(long[] a) {
+        final long[] unit = new long[size];
+        unit[0] = 1;
+        return toBigInteger(mul(a, unit));
+    }
+
+    /**
+     * Montgomery product a*b*R<sup>-1</sup> mod n.
+     */
+    public long[] mul(long[] a, long[] b) {
+        final long[] result = new long[size];
+        mul(a, b, result, new long[size + 2]);
+        return result;
+    }
+
+    public long[] square(long[] a) {
+        return mul(a, a);
+    }
+
+    /**
+     * Modular addition; both values must be lower than the modulus (Montgomery form does not matter).
+     */
+    public long[] addMod(long[] a, long[] b) {
+        final long[] result = new long[size];
+        long carry = 0;
+        for (int j = 0; j < size; j++) {
+            final long s = a[j] + b[j];
+            final long c = Long.compareUnsigned(s, a[j]) < 0 ? 1 : 0;
+            result[j] = s + carry;
+            carry = c | (result[j] == 0 && carry != 0 ? 1 : 0);
+        }
+        if (carry != 0 || compare(result, n, size) >= 0) {
+            subtract(result, n, result);
+        }
+        return result;
+    }
+
+    /**
+     * Modular subtraction; both values must be lower than the modulus (Montgomery form does not matter).
+     */
+    public long[] subMod(long[] a, long[] b) {
+        final long[] result = new long[size];
+        if (subtract(a, b, result) != 0) {
+            //wrapped around 2^(64 size): adding n wraps it back
+            long carry = 0;
+            for (int j = 0; j < size; j++) {
+                final long s = result[j] + n[j];
+                final long c = Long.compareUnsigned(s, n[j]) < 0 ? 1 : 0;
+                result[j] = s + carry;
+                carry = c | (result[j] == 0 && carry != 0 ? 1 : 0);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Modular exponentiation, by sliding window over the odd powers of the base.
+     *
+     * @param base     base in Montgomery form
+     * @param exponent non-negative exponent (ordinary number)
+     * @return base<sup>exponent</sup> in Montgomery form
+     */
+    public long[] pow(long[] base, BigInteger exponent) {
+        if (exponent.signum() < 0) {
+            throw new IllegalArgumentException("negative exponent: " + exponent);
+        }
+        final int bits = exponent.bitLength();
+        if (bits == 0) {
+            return one();
+        }
+        final int window = bits <= 24 ? 1 : bits <= 80 ? 3 : bits <= 240 ? 4 : bits <= 672 ? 5 : 6;
+        final long[] scratch = new long[size + 2];
+        //odd powers: table[i] = base^(2i + 1)
+        final long[][] table = new long[1 << (window - 1)][];
+        table[0] = base;
+        if (table.length > 1) {
+            final long[] base2 = new long[size];
+            mul(base, base, base2, scratch);
+            for (int i = 1; i < table.length; i++) {
+                table[i] = new long[size];
+                mul(table[i - 1], base2, table[i], scratch);
+            }
+        }
+        //the highest bit is always the top of the first window
+        long[] result = null;
+        long[] next = new long[size];
+        int i = bits - 1;
+        while (i >= 0) {
+            if (!exponent.testBit(i)) {
+                mul(result, result, next, scratch);
+                final long[] t = result;
+                result = next;
+                next = t;
+                i--;
+                continue;
+            }
+            //the longest window ending with 1 bit
+            int low = Math.max(0, i - window + 1);
+            while (!exponent.testBit(low)) {
+                low++;
+            }
+            int value = 0;
+            for (int j = i; j >= low; j--) {
+                value = (value << 1) | (exponent.testBit(j) ? 1 : 0);
+            }
+            if (result == null) {
+                result = table[value >>> 1].clone();
+            } else {
+                for (int j = i; j >= low; j--) {
+                    mul(result, result, next, scratch);
+                    final long[] t = result;
+                    result = next;
+                    next = t;
+                }
+                mul(result, table[value >>> 1], next, scratch);
+                final long[] t = result;
+                result = next;
+                next = t;
+            }
+            i = low - 1;
+        }
+        return result;
+    }
+
+    /**
+     * The product into <code>result</code>, which must not be any of the operands; <code>t</code> is the work
+     * array of size + 2 words.
+     */
+    private void mul(long[] a, long[] b, long[] result, long[] t) {
+        final int s = size;
+        Arrays.fill(t, 0);
+        for (int i = 0; i < s; i++) {
+            //t += a * b[i]
+            final long bi = b[i];
+            long carry = 0;
+            for (int j = 0; j < s; j++) {
+                final long aj = a[j];
+                long lo = aj * bi;
+                long hi = MontgomeryLong.multiplyHighUnsigned(aj, bi);
+                lo += t[j];
+                if (Long.compareUnsigned(lo, t[j]) < 0) {
+                    hi++;
+                }
+                lo += carry;
+                if (Long.compareUnsigned(lo, carry) < 0) {
+                    hi++;
+                }
+                t[j] = lo;
+                carry = hi;
+            }
+            long sum = t[s] + carry;
+            t[s + 1] = Long.compareUnsigned(sum, carry) < 0 ? 1 : 0;
+            t[s] = sum;
+            //t = (t + m * n) / 2^64, the lowest word is zero
+            final long m = t[0] * nInv;
+            long lo = m * n[0];
+            carry = MontgomeryLong.multiplyHighUnsigned(m, n[0]);
+            lo += t[0];
+            if (Long.compareUnsigned(lo, t[0]) < 0) {
+                carry++;
+            }
+            for (int j = 1; j < s; j++) {
+                final long nj = n[j];
+                lo = m * nj;
+                long hi = MontgomeryLong.multiplyHighUnsigned(m, nj);
+                lo += t[j];
+                if (Long.compareUnsigned(lo, t[j]) < 0) {
+                    hi++;
+                }
+                lo += carry;
+                if (Long.compareUnsigned(lo, carry) < 0) {
+                    hi++;
+                }
+                t[j - 1] = lo;
+                carry = hi;
+            }
+            sum = t[s] + carry;
+            t[s - 1] = sum;
+            t[s] = t[s + 1] + (Long.compareUnsigned(sum, carry) < 0 ? 1 : 0);
+        }
+        //t < 2n: subtract n once if needed
+        if (t[s] != 0 || compare(t, n, s) >= 0) {
+            subtract(t, n, result);
+        } else {
+            System.arraycopy(t, 0, result, 0, s);
+        }
+    }
+
+    /**
+     * result = a - b over the length of b (result may be the same array as a).
+     *
+     * @return the borrow: 1 when b &gt; a
+     */
+    private static long subtract(long[] a, long[] b, long[] result) {
+        long borrow = 0;
+        for (int j = 0; j < b.length; j++) {
+            final long d = a[j] - b[j] - borrow;
+            borrow = Long.compareUnsigned(a[j], b[j]) < 0 || (borrow != 0 && a[j] == b[j]) ? 1 : 0;
+            result[j] = d;
+        }
+        return borrow;
+    }
+
+    private static int compare(long[] a, long[] b, int size) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (a[i] != b[i]) {
+                return Long.compareUnsigned(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+
+    private static long[] toWords(BigInteger value, int size) {
+        final long[] words = new long[size];
+        final byte[] bytes = value.toByteArray();
+        for (int i = 0; i < bytes.length && i < 8 * size; i++) {
+            words[i / 8] |= (bytes[bytes.length - 1 - i] & 0xFFL) << (8 * (i % 8));
+        }
+        return words;
+    }
+
+    private static BigInteger toBigInteger(long[] words) {
+        final byte[] bytes = new byte[8 * words.length + 1];
+        for (int i = 0; i < 8 * words.length; i++) {
+            bytes[bytes.length - 1 - i] = (byte) (words[i / 8] >>> (8 * (i % 8)));
+        }
+        return new BigInteger(bytes);
+    }
+}
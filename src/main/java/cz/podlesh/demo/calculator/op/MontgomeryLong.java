@@ -0,0 +1,151 @@
+package cz.podlesh.demo.calculator.op;
+
+/**
+ * Montgomery modular arithmetic for one odd 63-bit modulus.
+ * <p/>
+ * All the values passed to {@link #mul(long, long)} and {@link #square(long)} must be in the Montgomery form
+ * (see {@link #toMontgomery(long)}); the multiplication then needs no division at all, just three 64x64 bit products.
+ * This is the kernel of the primality test and Pollard-rho in {@link PrimeFactorization}.
+ */
+public final class MontgomeryLong {
+
+    private final long n;
+    /**
+     * n<sup>-1</sup> mod 2<sup>64</sup>
+     */
+    private final long nInv;
+    /**
+     * R<sup>2</sup> mod n, R = 2<sup>64</sup>; used for conversion to Montgomery form.
+     */
+    private final long r2;
+    /**
+     * R mod n: value one in the Montgomery form.
+     */
+    private final long one;
+
+    /**
+     * @param n modulus; must be odd and positive
+     * @throws IllegalArgumentException even or non-positive modulus
+     */
+    public MontgomeryLong(long n) {
+        if (n <= 0 || (n & 1) == 0) {
+            throw new IllegalArgumentException("Montgomery modulus must be odd positive number: " + n);
+        }
+        this.n = n;
+        //Newton iteration: each step doubles number of valid bits (n itself is valid inverse for 3 lowest bits)
+        long inv = n;
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - n * inv;
+        }
+        this.nInv = inv;
+        //2^64 mod n = ((2^64 - 1) mod n + 1) mod n
+        long r = Long.remainderUnsigned(-1L, n) + 1;
+        if (r == n) {
+            r = 0;
+        }
+        this.one = r;
+        //R^2 mod n by doubling R 64 times (value is always < 2^63, so the doubling cannot overflow unsigned range)
+        for (int i = 0; i < 64; i++) {
+            r = addMod(r, r);
+        }
+        this.r2 = r;
+    }
+
+    public long getModulus() {
+        return n;
+    }
+
+    /**
+     * Value one in the Montgomery form.
+     */
+    public long one() {
+        return one;
+    }
+
+    /**
+     * Convert value into the Montgomery form.
+     *
+     * @param a value in range 0..n-1
+     */
+    public long toMontgomery(long a) {
+        return mul(a, r2);
+    }
+
+    /**
+     * Convert value from the Montgomery form back to the ordinary one.
+     */
+    public long fromMontgomery(long a) {
+        return reduce(0, a);
+    }
+
+    /**
+     * Montgomery product a*b*R<sup>-1</sup> mod n.
+     */
+    public long mul(long a, long b) {
+        return reduce(multiplyHighUnsigned(a, b), a * b);
+    }
+
+    public long square(long a) {
+        return mul(a, a);
+    }
+
+    /**
+     * Modular addition; both values must be lower than the modulus (Montgomery form does not matter).
+     */
+    public long addMod(long a, long b) {
+        long s = a + b;
+        //the sum fits into unsigned 64 bits
+        if (s < 0 || s >= n) {
+            s -= n;
+        }
+        return s;
+    }
+
+    /**
+     * Modular subtraction; both values must be lower than the modulus (Montgomery form does not matter).
+     */
+    public long subMod(long a, long b) {
+        long d = a - b;
+        return d < 0 ? d + n : d;
+    }
+
+    /**
+     * Modular exponentiation.
+     *
+     * @param base     base in Montgomery form
+     * @param exponent non-negative exponent (ordinary number)
+     * @return base<sup>exponent</sup> in Montgomery form
+     */
+    public long pow(long base, long exponent) {
+        long result = one;
+        while (exponent != 0) {
+            if ((exponent & 1) != 0) {
+                result = mul(result, base);
+            }
+            exponent >>>= 1;
+            if (exponent != 0) {
+                base = square(base);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Montgomery reduction (REDC) of 128-bit value hi:lo, hi &lt; n.
+     */
+    private long reduce(long hi, long lo) {
+        long m = lo * nInv;
+        //lo - low(m*n) is always zero, so there is no borrow from the low half
+        long mnHi = multiplyHighUnsigned(m, n);
+        long t = hi - mnHi;
+        return t < 0 ? t + n : t;
+    }
+
+    /**
+     * Upper 64 bits of unsigned 128-bit product.
+     */
+    static long multiplyHighUnsigned(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+}
@@ -0,0 +1,192 @@
+package cz.podlesh.demo.calculator.op;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Utility class: the algorithms of {@link NumberTheoryOperator}, shared with the factorization.
+ * <p/>
+ * Modular exponentiation with odd modulus that fits into <code>long</code> runs on {@link MontgomeryLong}, the same
+ * kernel as the primality test of {@link PrimeFactorization}. Bigger moduli are left to
+ * {@link BigInteger#modPow(BigInteger, BigInteger)}: it's Montgomery multiplication as well, but the JIT replaces
+ * its inner loop by an intrinsic, and the plain Java {@link MontgomeryBig} is about three times slower at 2048 bits
+ * (it only pays off for single modular products, which avoid the division of <code>multiply().mod()</code>).
+ * Even moduli are split by <code>BigInteger</code> itself (odd part and power of two, joined by CRT).
+ */
+final class NumberTheory {
+
+    /**
+     * Maximum number of digits of any argument (and of the result of lcm).
+     */
+    static final int MAX_DIGITS = 100_000;
+    /**
+     * Maximum size of the modulus of {@link #modPow(BigInteger, BigInteger, BigInteger)}: the cost grows with the
+     * cube of the size, and the computation cannot be interrupted.
+     */
+    static final int MAX_MODULUS_BITS = 8192;
+
+    private static final BigInteger LONG_LIMIT = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private NumberTheory() {
+    }
+
+    /**
+     * Convert the argument to integer.
+     *
+     * @param value    argument
+     * @param function name of the function, for the error message
+     * @throws ArithmeticException not an integer, or more than {@link #MAX_DIGITS} digits
+     */
+    static BigInteger integer(BigDecimal value, String function) throws ArithmeticException {
+        //checked before the conversion: 1E+1000000000 is an integer, but too big to be expanded
+        if (value.precision() - value.scale() > MAX_DIGITS) {
+            throw new ArithmeticException(function + " is defined only for integers up to " + MAX_DIGITS + " digits");
+        }
+        try {
+            return value.toBigIntegerExact();
+        } catch (ArithmeticException ignored) {
+            throw new ArithmeticException(function + " is defined only for integers");
+        }
+    }
+
+    /**
+     * base<sup>exponent</sup> mod modulus; negative exponent means power of the modular inverse.
+     *
+     * @param modulus positive, up to {@link #MAX_MODULUS_BITS} bits
+     * @return result in range 0..modulus-1
+     * @throws ArithmeticException invalid modulus, or negative exponent and base not invertible
+     */
+    static BigInteger modPow(BigInteger base, BigInteger exponent, BigInteger modulus) throws ArithmeticException {
+        checkModulus(modulus);
+        if (modulus.bitLength() > MAX_MODULUS_BITS) {
+            throw new ArithmeticException("modulus is too big, the limit is " + MAX_MODULUS_BITS + " bits");
+        }
+        if (exponent.signum() < 0) {
+            base = modInverse(base, modulus);
+            exponent = exponent.negate();
+        }
+        if (modulus.equals(BigInteger.ONE)) {
+            return BigInteger.ZERO;
+        }
+        if (modulus.testBit(0) && modulus.compareTo(LONG_LIMIT) <= 0 && exponent.bitLength() < 64) {
+            final MontgomeryLong mont = new MontgomeryLong(modulus.longValue());
+            final long b = mont.toMontgomery(base.mod(modulus).longValue());
+            return BigInteger.valueOf(mont.fromMontgomery(mont.pow(b, exponent.longValue())));
+        }
+        return base.modPow(exponent, modulus);
+    }
+
+    /**
+     * a<sup>-1</sup> mod modulus.
+     *
+     * @param modulus positive
+     * @return result in range 0..modulus-1
+     * @throws ArithmeticException invalid modulus, or a is not coprime to the modulus
+     */
+    static BigInteger modInverse(BigInteger a, BigInteger modulus) throws ArithmeticException {
+        checkModulus(modulus);
+        try {
+            return a.modInverse(modulus);
+        } catch (ArithmeticException ignored) {
+            throw new ArithmeticException(a + " is not invertible modulo " + modulus);
+        }
+    }
+
+    private static void checkModulus(BigInteger modulus) throws ArithmeticException {
+        if (modulus.signum() <= 0) {
+            throw new ArithmeticException("modulus must be positive");
+        }
+    }
+
+    /**
+     * Greatest common divisor of all the values; non-negative, zero only if all the values are zero.
+     */
+    static BigInteger gcd(List<BigInteger> values, ComputationContext context) {
+        BigInteger result = BigInteger.ZERO;
+        for (BigInteger value : values) {
+            context.check();
+            result = result.gcd(value);
+            if (result.equals(BigInteger.ONE)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Least common multiple of all the values; non-negative, zero if any of the values is zero.
+     *
+     * @throws ArithmeticException the result has more than {@link #MAX_DIGITS} digits
+     */
+    static BigInteger lcm(List<BigInteger> values, ComputationContext context) throws ArithmeticException {
+        //log10(2): conservative estimate of the number of digits
+        final long maxBits = (long) Math.ceil(MAX_DIGITS / 0.30103) + 1;
+        BigInteger result = BigInteger.ONE;
+        for (BigInteger value : values) {
+            context.check();
+            if (value.signum() == 0) {
+                return BigInteger.ZERO;
+            }
+            result = result.divide(result.gcd(value)).multiply(value.abs());
+            if (result.bitLength() > maxBits) {
+                throw new ArithmeticException("least common multiple is too big, the limit is " + MAX_DIGITS
+                        + " digits");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Binary GCD of non-negative numbers.
+     */
+    static long gcd(long a, long b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        while (b != 0) {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        }
+        return a << shift;
+    }
+
+    /**
+     * Jacobi symbol (a/n).
+     *
+     * @param a any integer
+     * @param n odd positive integer
+     * @return -1, 0 or 1
+     * @throws ArithmeticException n is not odd positive number
+     */
+    static int jacobi(BigInteger a, BigInteger n) throws ArithmeticException {
+        if (n.signum() <= 0 || !n.testBit(0)) {
+            throw new ArithmeticException("Jacobi symbol is defined only for odd positive n");
+        }
+        a = a.mod(n);
+        int result = 1;
+        while (a.signum() != 0) {
+            int twos = a.getLowestSetBit();
+            a = a.shiftRight(twos);
+            int nMod8 = n.intValue() & 7;
+            if ((twos & 1) != 0 && (nMod8 == 3 || nMod8 == 5)) {
+                result = -result;
+            }
+            //quadratic reciprocity
+            if ((a.intValue() & 3) == 3 && (nMod8 & 3) == 3) {
+                result = -result;
+            }
+            BigInteger t = a;
+            a = n.mod(t);
+            n = t;
+        }
+        return n.equals(BigInteger.ONE) ? result : 0;
+    }
+
+}
@@ -0,0 +1,139 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Number theory on integers of any size: modular power and inverse, greatest common divisor, least common multiple
+ * and Jacobi symbol. Available only in the scientific calculator.
+ * <p/>
+ * The arguments must be integers and the results are always exact integers, so the math context is not used.
+ * See {@link NumberTheory} for the algorithms.
+ */
+public enum NumberTheoryOperator implements Operator {
+
+    /**
+     * <code>modpow(base, exponent, modulus)</code>; negative exponent is allowed if the base is invertible.
+     */
+    MODPOW("modpow", 3, 3, (args, context) -> NumberTheory.modPow(args.get(0), args.get(1), args.get(2))),
+    /**
+     * <code>modinverse(a, modulus)</code>
+     */
+    MODINVERSE("modinv", 2, 2, (args, context) -> NumberTheory.modInverse(args.get(0), args.get(1))),
+    GCD("gcd", 2, Integer.MAX_VALUE, NumberTheory::gcd),
+    LCM("lcm", 2, Integer.MAX_VALUE, NumberTheory::lcm),
+    /**
+     * <code>jacobi(a, n)</code>, n must be odd and positive.
+     */
+    JACOBI("jacobi", 2, 2, (args, context) -> BigInteger.valueOf(NumberTheory.jacobi(args.get(0), args.get(1)))),
+    ;
+
+    /**
+     * Modular power is heavy when the operands have more digits than this (in total): 2048-bit modulus takes
+     * some milliseconds.
+     */
+    static final int HEAVY_MODPOW_DIGITS = 300;
+
+    private final String symbolicName;
+    private final int minArgumentsCount;
+    private final int maxArgumentsCount;
+    /**
+     * The function itself.
+     */
+    private final IntegerOp op;
+
+    NumberTheoryOperator(String symbolicName, int minArgumentsCount, int maxArgumentsCount, IntegerOp op) {
+        this.symbolicName = symbolicName;
+        this.minArgumentsCount = minArgumentsCount;
+        this.maxArgumentsCount = maxArgumentsCount;
+        this.op = op;
+    }
+
+    @Override
+    public String getSymbolicName() {
+        return symbolicName;
+    }
+
+    @Override
+    public String getName() {
+        return name();
+    }
+
+    @Override
+    public boolean isAvailableIn(CalculatorType type) {
+        return type == CalculatorType.SCIENTIFIC;
+    }
+
+    @Override
+    public int getMinArgumentsCount() {
+        return minArgumentsCount;
+    }
+
+    @Override
+    public int getMaxArgumentsCount() {
+        return maxArgumentsCount;
+    }
+
+    @Override
+    public boolean isHeavy(@Nonnull List<BigDecimal> arguments) {
+        if (this == MODPOW) {
+            long digits = 0;
+            for (BigDecimal argument : arguments) {
+                if (argument != null) {
+                    digits += argument.precision();
+                }
+            }
+            return digits > HEAVY_MODPOW_DIGITS;
+        }
+        return Operator.super.isHeavy(arguments);
+    }
+
+    /**
+     * The results are exact, the precision does not change the cost.
+     */
+    @Override
+    public boolean isHeavy(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext) {
+        return isHeavy(arguments);
+    }
+
+    @Nonnull
+    @Override
+    public BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext)
+            throws ArithmeticException, IllegalArgumentException {
+        return apply(arguments, mathContext, ComputationContext.NONE);
+    }
+
+    @Nonnull
+    @Override
+    public BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext,
+                            @Nonnull ComputationContext context) throws ArithmeticException, IllegalArgumentException {
+        if (arguments.size() < minArgumentsCount || arguments.size() > maxArgumentsCount) {
+            throw new IllegalArgumentException("invalid argument list: " + this + (minArgumentsCount == maxArgumentsCount
+                    ? " needs exactly " + minArgumentsCount : " needs at least " + minArgumentsCount) + " arguments");
+        }
+        for (BigDecimal argument : arguments) {
+            if (argument == null) {
+                throw new IllegalArgumentException("invalid argument list: null argument");
+            }
+        }
+        context.check();
+        List<BigInteger> integers = new ArrayList<>(arguments.size());
+        for (BigDecimal argument : arguments) {
+            integers.add(NumberTheory.integer(argument, symbolicName));
+        }
+        return new BigDecimal(op.apply(integers, context));
+    }
+
+    /**
+     * The function: arguments are already validated and converted to integers.
+     */
+    @FunctionalInterface
+    private interface IntegerOp {
+        BigInteger apply(List<BigInteger> arguments, ComputationContext context) throws ArithmeticException;
+    }
+}
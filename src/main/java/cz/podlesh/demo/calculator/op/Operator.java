@@ -4,6 +4,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,6 +17,17 @@ public interface Operator {
      */
     MathContext DEFAULT_DIV_PRECISION = MathContext.DECIMAL64;
 
+    /**
+     * Operands with more digits than this (in total) make the operation heavy, see {@link #isHeavy(List)}.
+     */
+    int HEAVY_OPERAND_DIGITS = 10_000;
+
+    /**
+     * Requested precision of more than this number of digits makes the operation heavy, see
+     * {@link #isHeavy(List, MathContext)}.
+     */
+    int HEAVY_PRECISION = 10_000;
+
     /**
      * Canonical symbolic name: this is the one used in JSON responses and logs.
      * Note that this is usually symbol and therefore <b>NOT</b> used as enum name!
@@ -45,6 +57,40 @@ public interface Operator {
      */
     int getMaxArgumentsCount();
 
+    /**
+     * Cost hint: can the operation take long time (more than some microseconds)? Heavy operations are evaluated
+     * on a separate executor, cheap ones directly.
+     * <p/>
+     * By default, the operation is heavy when the operands have more than {@link #HEAVY_OPERAND_DIGITS} digits.
+     *
+     * @param arguments operands, not validated yet (might contain <code>null</code>)
+     * @return <code>true</code> if the operation is heavy
+     */
+    default boolean isHeavy(@Nonnull List<BigDecimal> arguments) {
+        long digits = 0;
+        for (BigDecimal argument : arguments) {
+            if (argument != null) {
+                digits += argument.precision();
+            }
+        }
+        return digits > HEAVY_OPERAND_DIGITS;
+    }
+
+    /**
+     * Cost hint of the operation with the requested precision: the cost of many operations depends on the number of
+     * digits of the result rather than on the operands.
+     * <p/>
+     * By default, the operation is heavy when the operands are (see {@link #isHeavy(List)}), or when the requested
+     * precision is more than {@link #HEAVY_PRECISION} digits.
+     *
+     * @param arguments   operands, not validated yet (might contain <code>null</code>)
+     * @param mathContext requested math context, <code>null</code> for the default one
+     * @return <code>true</code> if the operation is heavy
+     */
+    default boolean isHeavy(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext) {
+        return isHeavy(arguments) || mathContext != null && mathContext.getPrecision() > HEAVY_PRECISION;
+    }
+
     /**
      * Apply the operator on given arguments (operands).
      *
@@ -53,12 +99,85 @@ public interface Operator {
      *                    <code>null</code> = use default one (depends on the operand); see {@link #fixMathContext(MathContext)}
      * @return result of the operation
      * @throws ArithmeticException      operation does not have defined result (division by zero) or it's infinite or it cannot be completed in reasonable time
+     *                                  (see {@link #apply(List, MathContext, ComputationContext)})
      * @throws IllegalArgumentException invalid arguments: list is too small, to big or it contains nulls
      */
     @Nonnull
     BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext)
             throws ArithmeticException, IllegalArgumentException;
 
+    /**
+     * Apply the operator on given arguments, within the work budget: long computations check the computation
+     * context regularly and stop when it's cancelled or out of time.
+     * <p/>
+     * The default implementation checks the context only once, before {@link #apply(List, MathContext)}; operators
+     * with potentially long computation must override it.
+     *
+     * @param arguments   operands, see {@link #apply(List, MathContext)}
+     * @param mathContext math context, see {@link #apply(List, MathContext)}
+     * @param context     work budget of the computation
+     * @return result of the operation
+     * @throws ComputationCancelledException the computation is cancelled or out of time
+     * @throws ArithmeticException           see {@link #apply(List, MathContext)}
+     * @throws IllegalArgumentException      invalid arguments
+     */
+    @Nonnull
+    default BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext,
+                             @Nonnull ComputationContext context)
+            throws ArithmeticException, IllegalArgumentException {
+        context.check();
+        return apply(arguments, mathContext);
+    }
+
+    /**
+     * Apply the operator on columns of operands: row <i>i</i> of the result is the operator applied on row <i>i</i>
+     * of all the columns. Arithmetic errors are reported for each row separately, in the result.
+     * <p/>
+     * The default implementation just calls {@link #apply(List, MathContext)} for each row; operators might
+     * provide faster implementation, but the results must be the same.
+     *
+     * @param columns     operand columns, all of the same length; number of columns must be in the
+     *                    {@link #getMinArgumentsCount()} - {@link #getMaxArgumentsCount()} range
+     * @param mathContext math context used for computation, see {@link #apply(List, MathContext)}
+     * @return result column
+     * @throws IllegalArgumentException invalid columns: too few or too many, different lengths, <code>null</code> values
+     */
+    @Nonnull
+    default ColumnResult applyColumns(@Nonnull List<BigDecimal[]> columns, @Nullable MathContext mathContext)
+            throws IllegalArgumentException {
+        return applyColumns(columns, mathContext, ComputationContext.NONE);
+    }
+
+    /**
+     * Apply the operator on columns of operands, within the work budget. When the computation is cancelled or out
+     * of time, the current row and all the following ones get the error of {@link ComputationCancelledException}.
+     *
+     * @see #applyColumns(List, MathContext)
+     */
+    @Nonnull
+    default ColumnResult applyColumns(@Nonnull List<BigDecimal[]> columns, @Nullable MathContext mathContext,
+                                      @Nonnull ComputationContext context)
+            throws IllegalArgumentException {
+        final int rows = ColumnResult.checkColumns(this, columns);
+        ColumnResult result = new ColumnResult(rows);
+        List<BigDecimal> arguments = new ArrayList<>(columns.size());
+        for (int row = 0; row < rows; row++) {
+            arguments.clear();
+            for (BigDecimal[] column : columns) {
+                arguments.add(column[row]);
+            }
+            try {
+                result.setResult(row, apply(arguments, mathContext, context));
+            } catch (ComputationCancelledException e) {
+                result.setErrors(row, rows, e.getMessage());
+                break;
+            } catch (ArithmeticException e) {
+                result.setError(row, e.getMessage());
+            }
+        }
+        return result;
+    }
+
     /**
      * Fix match context: use the supplied one, or provide default one.
      * By default, {@link MathContext#UNLIMITED} is provided as a default; this is, however, not acceptable for division.
@@ -1,36 +1,92 @@
 package cz.podlesh.demo.calculator.op;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.LongFunction;
 
 /**
- * Prime factorization; limited to avoid too long duration.
+ * Prime factorization of 64-bit numbers.
+ * <p/>
+ * Small factors are removed by trial division (by primes from {@link PrimeTable}); the rest is split by Pollard-rho (Brent's variant) and the pieces are
+ * verified by deterministic Miller-Rabin test. Both use Montgomery multiplication ({@link MontgomeryLong}), so the
+ * whole positive <code>long</code> range is handled in microseconds.
  */
 public class PrimeFactorization implements LongFunction<List<Long>> {
 
-    public static final PrimeFactorization DEFAULT = new PrimeFactorization(1000L * Integer.MAX_VALUE);
+    public static final PrimeFactorization DEFAULT = new PrimeFactorization(Long.MAX_VALUE);
+
+    /**
+     * Default limit for trial division: factors up to this value are found by trial division, bigger ones are left
+     * to Pollard-rho.
+     */
+    public static final int DEFAULT_TRIAL_DIVISION_LIMIT = 1000;
+
+    /**
+     * Miller-Rabin bases that give deterministic result for all 64-bit numbers (found by Jim Sinclair).
+     */
+    private static final long[] MILLER_RABIN_BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
 
     private final long maxN;
+    private final PrimeTable primeTable;
+    private final int trialDivisionLimit;
 
     public PrimeFactorization(long maxN) {
+        this(maxN, PrimeTable.DEFAULT, DEFAULT_TRIAL_DIVISION_LIMIT);
+    }
+
+    /**
+     * @param maxN               maximum number accepted
+     * @param primeTable         table of primes used for trial division
+     * @param trialDivisionLimit maximum factor found by trial division; must be within the prime table
+     */
+    public PrimeFactorization(long maxN, PrimeTable primeTable, int trialDivisionLimit) {
+        if (trialDivisionLimit < 3 || trialDivisionLimit > primeTable.getLimit()) {
+            throw new IllegalArgumentException("invalid trial division limit: " + trialDivisionLimit);
+        }
         this.maxN = maxN;
+        this.primeTable = primeTable;
+        this.trialDivisionLimit = trialDivisionLimit;
     }
 
     public long getMaxN() {
         return maxN;
     }
 
+    public PrimeTable getPrimeTable() {
+        return primeTable;
+    }
+
+    public int getTrialDivisionLimit() {
+        return trialDivisionLimit;
+    }
+
     /**
      * Compute all prime factors of given number n.
      *
      * @param n number to factor
-     * @return all prime factors; list of size 1 means that the argument is prime number
+     * @return all prime factors in ascending order; list of size 1 means that the argument is prime number
      * @throws IllegalArgumentException negative number or zero
      * @throws ArithmeticException      too big parameter
      */
     public List<Long> apply(long n) throws IllegalArgumentException, ArithmeticException {
+        long[] factors = factorize(n);
+        List<Long> result = new ArrayList<>(factors.length);
+        for (long factor : factors) {
+            result.add(factor);
+        }
+        return result;
+    }
+
+    /**
+     * Compute all prime factors of given number n; this is the same as {@link #apply(long)}, without boxing.
+     *
+     * @param n number to factor
+     * @return all prime factors in ascending order; array of length 1 means that the argument is prime number
+     * @throws IllegalArgumentException negative number or zero
+     * @throws ArithmeticException      too big parameter
+     */
+    public long[] factorize(long n) throws IllegalArgumentException, ArithmeticException {
         if (n < 1) {
             throw new IllegalArgumentException("only positive numbers can be prime-factored");
         }
@@ -38,30 +94,155 @@ public class PrimeFactorization implements LongFunction<List<Long>> {
             throw new ArithmeticException("prime factorization of " + n + " refused, too big value");
         }
         if (n < 4) {
-            return Collections.singletonList(n);
+            return new long[]{n};
         }
-        //TODO: use better algorithm!
-        long maxPossibleFactor = (long) Math.ceil(Math.sqrt(n));
-        List<Long> factors = new ArrayList<>();
+        //there cannot be more than 63 factors
+        long[] factors = new long[Long.SIZE - 1];
+        int count = 0;
         long remains = n;
         //first consume all "2" - they are more effectively implemented
-        while ((remains % 2) == 0) {
-            factors.add(2L);
-            remains /= 2;
-        }
-        long factor = 3;
-        while (factor <= maxPossibleFactor && remains > 1) {
-            if ((remains % factor) == 0) {
-                factors.add(factor);
-                remains = remains / factor;
-            } else {
-                factor += 2;
+        int twos = Long.numberOfTrailingZeros(remains);
+        for (int i = 0; i < twos; i++) {
+            factors[count++] = 2;
+        }
+        remains >>= twos;
+        //trial division by odd primes only
+        final long limit = trialDivisionLimit;
+        final int[] primes = primeTable.primesUpTo(trialDivisionLimit);
+        for (int i = 1; i < primes.length; i++) {
+            long factor = primes[i];
+            if (factor > limit || factor * factor > remains) {
+                break;
+            }
+            while ((remains % factor) == 0) {
+                factors[count++] = factor;
+                remains /= factor;
             }
         }
         if (remains > 1) {
-            factors.add(remains);
+            if (remains < limit * limit) {
+                //no factor below sqrt(remains) -> it's a prime
+                factors[count++] = remains;
+            } else {
+                count = splitOddComposite(remains, factors, count);
+            }
+        }
+        long[] result = Arrays.copyOf(factors, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Recursively split odd number that has no small factors.
+     *
+     * @return new count of factors in the array
+     */
+    private static int splitOddComposite(long n, long[] factors, int count) {
+        if (isPrime(n)) {
+            factors[count++] = n;
+            return count;
+        }
+        long d = pollardBrent(n);
+        count = splitOddComposite(d, factors, count);
+        return splitOddComposite(n / d, factors, count);
+    }
+
+    /**
+     * Deterministic primality test for any <code>long</code> value.
+     *
+     * @param n the number to check
+     * @return <code>true</code> if the number is prime
+     */
+    public static boolean isPrime(long n) {
+        if (n < 2) {
+            return false;
+        }
+        if (n < 4) {
+            return true;
+        }
+        if ((n & 1) == 0) {
+            return false;
+        }
+        for (long p = 3; p <= 37; p += 2) {
+            if (n % p == 0) {
+                return n == p;
+            }
+        }
+        if (n < 41 * 41) {
+            return true;
+        }
+        MontgomeryLong mont = new MontgomeryLong(n);
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+        long one = mont.one();
+        long minusOne = n - one;
+        for (long base : MILLER_RABIN_BASES) {
+            long a = base % n;
+            if (a == 0) {
+                continue;
+            }
+            long x = mont.pow(mont.toMontgomery(a), d);
+            if (x == one || x == minusOne) {
+                continue;
+            }
+            boolean composite = true;
+            for (int r = 1; r < s; r++) {
+                x = mont.square(x);
+                if (x == minusOne) {
+                    composite = false;
+                    break;
+                }
+            }
+            if (composite) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find some non-trivial factor of an odd composite number (Pollard-rho, Brent's cycle detection).
+     * All values are kept in the Montgomery form; gcd is not affected by that, because R is coprime to n.
+     *
+     * @param n odd composite number
+     * @return factor d, 1 &lt; d &lt; n
+     */
+    private static long pollardBrent(long n) {
+        final MontgomeryLong mont = new MontgomeryLong(n);
+        final int m = 128;
+        for (long c = 1; ; c++) {
+            final long cm = mont.toMontgomery(c % n);
+            long y = mont.toMontgomery(2), x = y, ys = y;
+            long q = mont.one();
+            long g = 1;
+            for (long r = 1; g == 1; r <<= 1) {
+                x = y;
+                for (long i = 0; i < r; i++) {
+                    y = mont.addMod(mont.square(y), cm);
+                }
+                for (long k = 0; k < r && g == 1; k += m) {
+                    ys = y;
+                    long steps = Math.min(m, r - k);
+                    for (long i = 0; i < steps; i++) {
+                        y = mont.addMod(mont.square(y), cm);
+                        q = mont.mul(q, x > y ? x - y : y - x);
+                    }
+                    g = NumberTheory.gcd(q, n);
+                }
+            }
+            if (g == n) {
+                //the batch overshot: repeat it step by step
+                do {
+                    ys = mont.addMod(mont.square(ys), cm);
+                    g = NumberTheory.gcd(x > ys ? x - ys : ys - x, n);
+                } while (g == 1);
+            }
+            if (g != n) {
+                return g;
+            }
+            //failure (cycle closed for all factors at once): try another polynomial
         }
-        return factors;
     }
 
 }
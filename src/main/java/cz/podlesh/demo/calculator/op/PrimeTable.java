@@ -0,0 +1,220 @@
+package cz.podlesh.demo.calculator.op;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Table of small primes: segmented sieve of Eratosthenes, bit-packed, odd numbers only.
+ * <p/>
+ * The table is built lazily, one segment at a time, on the first access; segments are never rebuilt.
+ * It's safe to use from multiple threads: a segment is published atomically and when two threads happen to build
+ * the same segment at once, only one of the (identical) results is kept.
+ */
+public class PrimeTable {
+
+    /**
+     * Default table: all primes up to 2<sup>20</sup>, about 64 KiB when fully built.
+     */
+    public static final PrimeTable DEFAULT = new PrimeTable(1 << 20);
+
+    /**
+     * Number of odd numbers in one segment: 2<sup>15</sup> bits = 4 KiB.
+     */
+    private static final int SEGMENT_SIZE = 1 << 15;
+    private static final int WORDS_PER_SEGMENT = SEGMENT_SIZE / Long.SIZE;
+
+    private final int limit;
+    /**
+     * Odd primes up to sqrt(limit): used to sieve the segments.
+     */
+    private final int[] basePrimes;
+    /**
+     * Bit i of segment s is set if number <code>2 * (s * SEGMENT_SIZE + i) + 1</code> is a prime.
+     */
+    private final AtomicReferenceArray<long[]> segments;
+    /**
+     * Cache for {@link #primesUpTo(int)}.
+     */
+    private volatile int[] primeList = {2};
+
+    /**
+     * @param limit maximum number covered by the table
+     */
+    public PrimeTable(int limit) {
+        if (limit < 2 || limit == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid prime table limit: " + limit);
+        }
+        this.limit = limit;
+        int sqrt = (int) Math.sqrt(limit);
+        boolean[] composite = new boolean[sqrt + 1];
+        int[] primes = new int[sqrt / 2 + 1];
+        int count = 0;
+        for (int i = 3; i <= sqrt; i += 2) {
+            if (!composite[i]) {
+                primes[count++] = i;
+                for (int j = i * i; j <= sqrt; j += 2 * i) {
+                    composite[j] = true;
+                }
+            }
+        }
+        this.basePrimes = Arrays.copyOf(primes, count);
+        this.segments = new AtomicReferenceArray<>(segmentOf(limit) + 1);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Memory used by the table when fully built (all segments), in bytes.
+     */
+    public long getMaxMemoryFootprint() {
+        return (long) segments.length() * WORDS_PER_SEGMENT * Long.BYTES + (long) basePrimes.length * Integer.BYTES;
+    }
+
+    /**
+     * Memory used by the table now, in bytes.
+     */
+    public long getMemoryFootprint() {
+        long size = (long) basePrimes.length * Integer.BYTES + (long) primeList.length * Integer.BYTES;
+        for (int i = 0; i < segments.length(); i++) {
+            if (segments.get(i) != null) {
+                size += WORDS_PER_SEGMENT * Long.BYTES;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Check if the number is prime.
+     *
+     * @param n number in the range of the table
+     * @throws IllegalArgumentException number bigger than the limit
+     */
+    public boolean isPrime(int n) throws IllegalArgumentException {
+        checkLimit(n);
+        if ((n & 1) == 0) {
+            return n == 2;
+        }
+        int index = n >>> 1;
+        long[] segment = segment(index / SEGMENT_SIZE);
+        int bit = index % SEGMENT_SIZE;
+        return (segment[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Find the smallest prime bigger or equal to n.
+     *
+     * @param n the starting number
+     * @return next prime, or -1 if there is no such prime within the table limit
+     */
+    public int nextPrime(int n) {
+        if (n <= 2) {
+            return 2;
+        }
+        if (n > limit) {
+            return -1;
+        }
+        int index = n >>> 1;
+        for (int s = index / SEGMENT_SIZE; s < segments.length(); s++) {
+            long[] segment = segment(s);
+            int bit = s == index / SEGMENT_SIZE ? index % SEGMENT_SIZE : 0;
+            for (int word = bit >>> 6; word < WORDS_PER_SEGMENT; word++) {
+                long bits = segment[word];
+                if (word == bit >>> 6) {
+                    bits &= -1L << bit;
+                }
+                if (bits != 0) {
+                    long p = 2L * ((long) s * SEGMENT_SIZE + word * Long.SIZE + Long.numberOfTrailingZeros(bits)) + 1;
+                    return p <= limit ? (int) p : -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * All primes up to given bound, in ascending order. The array is shared, so it must not be modified; it might
+     * be longer and contain also primes bigger than the bound.
+     *
+     * @param bound maximum prime needed
+     * @return array that contains at least all primes up to <code>bound</code>
+     * @throws IllegalArgumentException bound bigger than the limit
+     */
+    public int[] primesUpTo(int bound) throws IllegalArgumentException {
+        int[] primes = primeList;
+        if (primes[primes.length - 1] >= bound || bound < 2) {
+            return primes;
+        }
+        checkLimit(bound);
+        synchronized (this) {
+            primes = primeList;
+            if (primes[primes.length - 1] < bound) {
+                //approximate count of primes + some reserve
+                int[] result = new int[(int) (1.3 * bound / Math.log(bound)) + 16];
+                int count = 0;
+                for (int p = 2; p >= 0 && p <= bound; p = nextPrime(p + 1)) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count * 2);
+                    }
+                    result[count++] = p;
+                }
+                primes = Arrays.copyOf(result, count);
+                primeList = primes;
+            }
+            return primes;
+        }
+    }
+
+    private void checkLimit(int n) {
+        if (n > limit) {
+            throw new IllegalArgumentException("number " + n + " is out of prime table range (" + limit + ")");
+        }
+    }
+
+    private static int segmentOf(int n) {
+        return (n >>> 1) / SEGMENT_SIZE;
+    }
+
+    /**
+     * Get segment of the table; build it if necessary.
+     */
+    private long[] segment(int s) {
+        long[] segment = segments.get(s);
+        if (segment == null) {
+            segment = sieveSegment(s);
+            if (!segments.compareAndSet(s, null, segment)) {
+                segment = segments.get(s);
+            }
+        }
+        return segment;
+    }
+
+    private long[] sieveSegment(int s) {
+        long[] bits = new long[WORDS_PER_SEGMENT];
+        Arrays.fill(bits, -1L);
+        long firstIndex = (long) s * SEGMENT_SIZE;
+        long lastIndex = firstIndex + SEGMENT_SIZE - 1;
+        if (s == 0) {
+            //1 is not a prime
+            bits[0] &= ~1L;
+        }
+        for (int p : basePrimes) {
+            long pp = (long) p * p;
+            if (pp >>> 1 > lastIndex) {
+                break;
+            }
+            //index of the first odd multiple of p (at least p^2) in this segment; odd multiples are p apart
+            long start = Math.max(pp >>> 1, firstIndex);
+            long offset = ((pp >>> 1) - start) % p;
+            if (offset < 0) {
+                offset += p;
+            }
+            for (long i = start + offset - firstIndex; i < SEGMENT_SIZE; i += p) {
+                bits[(int) (i >>> 6)] &= ~(1L << i);
+            }
+        }
+        return bits;
+    }
+
+}
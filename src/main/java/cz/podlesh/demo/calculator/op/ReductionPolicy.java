@@ -0,0 +1,61 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How long argument lists of <code>+</code> and <code>*</code> are reduced (see {@link TreeReduction}): the minimum
+ * length reduced as a balanced tree, and the pool which reduces the subtrees of heavy lists in parallel. It's passed
+ * with the {@link ComputationContext} of each computation, so that nothing is configured globally.
+ * <p/>
+ * Instances are immutable; the pool is owned by whoever created the policy.
+ */
+public final class ReductionPolicy {
+
+    /**
+     * Default of {@link #getThreshold()}.
+     */
+    public static final int DEFAULT_THRESHOLD = 128;
+
+    /**
+     * Default threshold, without any pool: the trees are always reduced sequentially.
+     */
+    public static final ReductionPolicy SEQUENTIAL = new ReductionPolicy(DEFAULT_THRESHOLD, null);
+
+    private final int threshold;
+    @Nullable
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threshold minimum length of the argument list reduced as a tree; at least 2
+     * @param pool      pool of the parallel reduction; <code>null</code> = always sequential
+     * @throws IllegalArgumentException invalid threshold
+     */
+    public ReductionPolicy(int threshold, @Nullable ForkJoinPool pool) throws IllegalArgumentException {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("invalid reduction threshold: " + threshold);
+        }
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    /**
+     * Argument lists of at least this length are reduced as a balanced tree instead of the sequential fold (in
+     * parallel, if the operation is heavy): with unlimited precision, the result is exactly the same; with limited
+     * precision, the partial results of the tree are rounded instead of the steps of the fold, so the last digits
+     * may differ (see {@link TreeReduction}).
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Pool of the parallel reduction.
+     *
+     * @return <code>null</code> if the reduction is always sequential
+     */
+    @Nullable
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+}
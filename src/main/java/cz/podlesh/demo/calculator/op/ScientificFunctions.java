@@ -0,0 +1,680 @@
+package cz.podlesh.demo.calculator.op;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Utility class: the algorithms of {@link ScientificOperator}. All of them work with limited precision only.
+ * <p/>
+ * Roots are computed by integer Newton iteration on the unscaled value, with enough digits; the result is rounded
+ * correctly (with a sticky digit when the root is not exact), and exact roots are exact.
+ * <p/>
+ * The other functions are computed with {@link #GUARD_DIGITS} more digits than requested and rounded at the end, so
+ * the error is below one unit in the last place (but the rounding is not always correct). The arguments are reduced
+ * first, so that the series converge fast:
+ * <ul>
+ * <li>exp: <code>x = m ln(10) + r</code>, then <code>exp(r) = exp(r / 2<sup>h</sup>)<sup>2<sup>h</sup></sup></code></li>
+ * <li>ln: <code>x = y 2<sup>j</sup> 10<sup>e</sup></code> with <code>y</code> close to 1; <code>ln(y)</code> by the
+ * series of <code>atanh</code> of <code>y<sup>1/2<sup>h</sup></sup></code>, or by the arithmetic-geometric mean (AGM)
+ * for high precision</li>
+ * <li>sin, cos: <code>x = q &pi;/2 + r</code>, then the series of <code>1 - cos(r / 2<sup>h</sup>)</code> and the
+ * doubling formula</li>
+ * <li>atan: <code>atan(x) = &pi;/2 - atan(1/x)</code>, then the halving formula</li>
+ * </ul>
+ * The series and iterations work in binary fixed point: the value is <code>BigInteger</code> scaled by
+ * <code>2<sup>bits</sup></code>, so each step is an integer multiplication and a shift (or division by a small
+ * number), without the decimal rounding of <code>BigDecimal</code>, which is expensive for thousands of digits.
+ * <p/>
+ * The constants (&pi;, <code>ln(2)</code>, <code>ln(10)</code>) are memoized by {@link Constants}, so the calls at
+ * the same precision share them.
+ * <p/>
+ * Long computation can be stopped by {@link ComputationContext}: it's checked in the iterations and series.
+ */
+final class ScientificFunctions {
+
+    /**
+     * Number of extra digits of the intermediate results.
+     */
+    static final int GUARD_DIGITS = 10;
+    /**
+     * Maximum degree of {@link #root(BigDecimal, int, MathContext, ComputationContext)}: the integer root works
+     * with <code>degree * precision</code> digits.
+     */
+    static final int MAX_ROOT_DEGREE = 1000;
+    /**
+     * Maximum magnitude of the argument of exp: the result has about 434 million digits of integer part (or zeros
+     * after the decimal point), which is still representable.
+     */
+    static final BigDecimal MAX_EXP_ARGUMENT = BigDecimal.valueOf(1_000_000_000);
+    /**
+     * Maximum number of the digits of the integer part of the argument of sin and cos: the reduction needs the same
+     * number of extra digits of &pi;.
+     */
+    static final int MAX_TRIG_INTEGER_DIGITS = 10_000;
+    /**
+     * Logarithm is computed by AGM when the series would need more terms than this.
+     */
+    private static final int MAX_SERIES_TERMS = 200;
+    /**
+     * Context is checked every this number of terms of a series.
+     */
+    private static final int CHECK_INTERVAL = 64;
+    /**
+     * Extra bits of the fixed point values: each step of a series or iteration may be off by one unit.
+     */
+    private static final int GUARD_BITS = 32;
+    /**
+     * Integer roots with at most this number of bits are iterated from an estimate; bigger ones from the root of
+     * their leading bits.
+     */
+    private static final int ROOT_BASE_BITS = 64;
+
+    private static final double LOG2_10 = Math.log(10) / Math.log(2);
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+
+    private ScientificFunctions() {
+    }
+
+    /**
+     * Math context of the intermediate results.
+     */
+    static MathContext working(int precision) {
+        return MathContexts.of(precision, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Decimal exponent of the leading digit: <code>floor(log10(|x|))</code>.
+     *
+     * @param x not zero
+     */
+    static long exponent(BigDecimal x) {
+        return (long) x.precision() - x.scale() - 1;
+    }
+
+    /**
+     * Approximate <code>log10(x)</code>, for any magnitude.
+     *
+     * @param x positive
+     */
+    private static double log10(BigDecimal x) {
+        final long exponent = exponent(x);
+        return exponent + Math.log10(x.round(MathContext.DECIMAL64).scaleByPowerOfTen((int) -exponent).doubleValue());
+    }
+
+    private static int digits(long n) {
+        return n == 0 ? 0 : (int) Math.log10(Math.abs((double) n)) + 1;
+    }
+
+    /**
+     * Number of halvings of the argument, for the precision: more digits need more terms of the series, so the
+     * smaller argument is worth more squarings.
+     */
+    private static int halvings(int precision) {
+        return (int) Math.sqrt(precision) / 2;
+    }
+
+    /**
+     * Number of leading zeros after the decimal point: <code>|x|</code> is below <code>10<sup>-n</sup></code>.
+     */
+    private static int leadingZeros(BigDecimal x) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, -exponent(x) - 1));
+    }
+
+    /**
+     * The series <code>x + c x<sup>3</sup> + ...</code> is just <code>x</code> at the precision: the relative size
+     * of the second term is below <code>x<sup>2</sup></code>.
+     */
+    private static boolean isLinear(BigDecimal x, MathContext mc) {
+        return leadingZeros(x) > mc.getPrecision() / 2 + 1;
+    }
+
+    private static boolean isInteger(BigDecimal x) {
+        return x.scale() <= 0 || x.stripTrailingZeros().scale() <= 0;
+    }
+
+    /**
+     * Exact result without the trailing zeros (but with scale at least 0, so it's not printed with exponent).
+     */
+    private static BigDecimal stripZeros(BigDecimal x) {
+        x = x.stripTrailingZeros();
+        return x.scale() < 0 ? x.setScale(0) : x;
+    }
+
+    /**
+     * Inexact result, rounded to the precision: with all the digits, even the trailing zeros.
+     */
+    private static BigDecimal inexact(BigDecimal x, MathContext mc) {
+        x = x.round(mc);
+        return x.signum() == 0 || x.precision() >= mc.getPrecision() ? x
+                : x.setScale(x.scale() + mc.getPrecision() - x.precision());
+    }
+
+    private static BigDecimal powerOfTwo(int exponent) {
+        return new BigDecimal(BigInteger.ONE.shiftLeft(exponent));
+    }
+
+    /**
+     * Number of the fraction bits of fixed point value with the precision.
+     *
+     * @param digits decimal digits after the point
+     */
+    private static int bits(long digits) {
+        return Math.toIntExact((long) Math.ceil(digits * LOG2_10) + GUARD_BITS);
+    }
+
+    /**
+     * Fixed point value: <code>x 2<sup>bits</sup></code>, truncated.
+     *
+     * @param x small: its integer part is converted exactly
+     */
+    private static BigInteger toFixed(BigDecimal x, int bits) {
+        if (x.signum() == 0 || exponent(x) < -bits / LOG2_10 - 2) {
+            return BigInteger.ZERO;
+        }
+        final BigInteger shifted = x.unscaledValue().shiftLeft(bits);
+        return x.scale() <= 0 ? shifted.multiply(Constants.powerOfTen(-x.scale()))
+                : shifted.divide(Constants.powerOfTen(x.scale()));
+    }
+
+    /**
+     * Value of fixed point number, rounded.
+     */
+    private static BigDecimal fromFixed(BigInteger x, int bits, MathContext mc) {
+        return x.signum() == 0 ? BigDecimal.ZERO
+                : new BigDecimal(x).divide(new BigDecimal(BigInteger.ONE.shiftLeft(bits)), mc);
+    }
+
+    /**
+     * N-th root, rounded correctly; exact root has no trailing zeros.
+     *
+     * @param degree the root degree, 1 to {@link #MAX_ROOT_DEGREE}; odd root of negative number is negative
+     * @throws ArithmeticException invalid degree, even root of negative number
+     */
+    static BigDecimal root(BigDecimal x, int degree, MathContext mc, ComputationContext context)
+            throws ArithmeticException {
+        if (degree < 1 || degree > MAX_ROOT_DEGREE) {
+            throw new ArithmeticException("root degree must be an integer between 1 and " + MAX_ROOT_DEGREE);
+        }
+        if (x.signum() < 0 && degree % 2 == 0) {
+            throw new ArithmeticException("even root of negative number is not defined");
+        }
+        if (x.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        if (degree == 1) {
+            return x.round(mc);
+        }
+        //radicand = |unscaled| * 10^k: at least degree * (precision + 1) digits, scale + k divisible by the degree
+        final long scale = x.scale();
+        long k = Math.max(0, (long) degree * (mc.getPrecision() + 1) - x.precision());
+        k += Math.floorMod(-(scale + k), (long) degree);
+        final BigInteger radicand = x.unscaledValue().abs().multiply(Constants.powerOfTen(Math.toIntExact(k)));
+        final BigInteger r = floorRoot(radicand, degree, context);
+        final boolean exact = r.pow(degree).equals(radicand);
+        final int rootScale = Math.toIntExact((scale + k) / degree);
+        //r has at least precision + 1 digits: with a sticky digit for the rest, any rounding is correct
+        BigDecimal root = exact ? new BigDecimal(r, rootScale)
+                : new BigDecimal(r.multiply(BigInteger.TEN).add(BigInteger.ONE), Math.addExact(rootScale, 1));
+        if (x.signum() < 0) {
+            root = root.negate();
+        }
+        final BigDecimal rounded = root.round(mc);
+        return exact && rounded.compareTo(root) == 0 ? stripZeros(rounded) : rounded;
+    }
+
+    /**
+     * Integer root: <code>floor(n<sup>1/degree</sup>)</code>, by Newton iteration from above. Big roots start from
+     * the root of the leading half of the bits: one step of the iteration doubles the number of correct bits, so it
+     * needs just one division with the full size of the numbers.
+     *
+     * @param n not negative
+     */
+    static BigInteger floorRoot(BigInteger n, int degree, ComputationContext context) {
+        if (n.signum() == 0) {
+            return BigInteger.ZERO;
+        }
+        final int bits = n.bitLength();
+        if (bits / degree <= ROOT_BASE_BITS) {
+            return degree == 2 ? n.sqrt() : smallRoot(n, degree, context);
+        }
+        //root(n) < (floorRoot(n >> k degree) + 1) 2^k, with error of about 2^k: that is about half the bits
+        final int k = bits / (2 * degree) - 8;
+        final BigInteger y = floorRoot(n.shiftRight(k * degree), degree, context).add(BigInteger.ONE).shiftLeft(k);
+        context.check();
+        //the step never goes below the root, and the error is below one
+        BigInteger root = newtonStep(n, y, degree);
+        while (root.pow(degree).compareTo(n) > 0) {
+            root = root.subtract(BigInteger.ONE);
+        }
+        return root;
+    }
+
+    /**
+     * Integer root of at most {@link #ROOT_BASE_BITS} bits, iterated from estimate by double.
+     */
+    private static BigInteger smallRoot(BigInteger n, int degree, ComputationContext context) {
+        final int bits = n.bitLength();
+        //initial estimate from double, a bit above the root
+        final int shift = Math.max(0, bits - 64);
+        final double log2Root = (shift + Math.log(n.shiftRight(shift).doubleValue()) / Math.log(2)) / degree;
+        final int exponent = Math.max(0, (int) log2Root - 60);
+        final double mantissa = Math.pow(2, log2Root - exponent) * (1 + 0x1p-20);
+        BigInteger y = BigInteger.valueOf((long) Math.ceil(mantissa) + 1).shiftLeft(exponent);
+        if (y.pow(degree).compareTo(n) <= 0) {
+            //imprecise estimate: safe one
+            y = BigInteger.ONE.shiftLeft((bits + degree - 1) / degree);
+        }
+        while (true) {
+            context.check();
+            final BigInteger next = newtonStep(n, y, degree);
+            if (next.compareTo(y) >= 0) {
+                return y;
+            }
+            y = next;
+        }
+    }
+
+    private static BigInteger newtonStep(BigInteger n, BigInteger y, int degree) {
+        return y.multiply(BigInteger.valueOf(degree - 1)).add(n.divide(y.pow(degree - 1)))
+                .divide(BigInteger.valueOf(degree));
+    }
+
+    /**
+     * Exponential function.
+     *
+     * @throws ArithmeticException the argument is out of range (see {@link #MAX_EXP_ARGUMENT})
+     */
+    static BigDecimal exp(BigDecimal x, MathContext mc, ComputationContext context) throws ArithmeticException {
+        if (x.signum() == 0) {
+            return BigDecimal.ONE;
+        }
+        if (x.abs().compareTo(MAX_EXP_ARGUMENT) > 0) {
+            throw new ArithmeticException("argument of exp is out of range");
+        }
+        final int halvings = halvings(mc.getPrecision() + GUARD_DIGITS);
+        //each squaring doubles the relative error
+        final MathContext wmc = working(mc.getPrecision() + GUARD_DIGITS + halvings / 3 + 1);
+        //x = m ln(10) + r: exp(x) = 10^m exp(r)
+        long m = 0;
+        BigDecimal r = x;
+        if (x.abs().compareTo(BigDecimal.ONE) > 0) {
+            final int integerDigits = (int) exponent(x) + 1;
+            final BigDecimal ln10 = Constants.ln10(wmc.getPrecision() + integerDigits + 1, context);
+            //m by short ln(10): any integer close to x / ln(10) is good enough
+            m = x.divide(Constants.ln10(integerDigits + 3, context), working(integerDigits + 3))
+                    .setScale(0, RoundingMode.DOWN).longValueExact();
+            r = x.subtract(ln10.multiply(BigDecimal.valueOf(m)));
+        }
+        final int bits = bits(wmc.getPrecision());
+        final BigInteger a = toFixed(r.round(wmc), bits - halvings);
+        BigInteger sum = BigInteger.ONE.shiftLeft(bits);
+        BigInteger term = sum;
+        for (int i = 1; ; i++) {
+            term = term.multiply(a).shiftRight(bits).divide(BigInteger.valueOf(i));
+            if (term.signum() == 0) {
+                break;
+            }
+            sum = sum.add(term);
+            if (i % CHECK_INTERVAL == 0) {
+                context.check();
+            }
+        }
+        for (int i = 0; i < halvings; i++) {
+            sum = sum.multiply(sum).shiftRight(bits);
+        }
+        return inexact(fromFixed(sum, bits, wmc).scaleByPowerOfTen(Math.toIntExact(m)), mc);
+    }
+
+    /**
+     * Natural logarithm.
+     *
+     * @throws ArithmeticException the argument is not positive
+     */
+    static BigDecimal ln(BigDecimal x, MathContext mc, ComputationContext context) throws ArithmeticException {
+        if (x.signum() <= 0) {
+            throw new ArithmeticException("logarithm is defined only for positive numbers");
+        }
+        if (x.compareTo(BigDecimal.ONE) == 0) {
+            return BigDecimal.ZERO;
+        }
+        //x = y 2^j 10^e, with y in [0.7, 1.42]; all exact
+        final long e = Math.round(log10(x));
+        final BigDecimal m = x.scaleByPowerOfTen(Math.toIntExact(-e));
+        final int j = (int) Math.round(Math.log(m.round(MathContext.DECIMAL64).doubleValue()) / Math.log(2));
+        final BigDecimal y = j >= 0 ? m.divide(powerOfTwo(j)) : m.multiply(powerOfTwo(-j));
+        //the terms cancel each other only a little (less than a digit), but the integer part of e ln(10) is extra
+        final MathContext wmc = working(mc.getPrecision() + GUARD_DIGITS + digits(e));
+        BigDecimal result = lnNearOne(y, wmc, context);
+        if (j != 0) {
+            result = result.add(Constants.ln2(wmc.getPrecision(), context).multiply(BigDecimal.valueOf(j)), wmc);
+        }
+        if (e != 0) {
+            result = result.add(Constants.ln10(wmc.getPrecision(), context).multiply(BigDecimal.valueOf(e)), wmc);
+        }
+        return inexact(result, mc);
+    }
+
+    /**
+     * Logarithm of number close to 1: <code>2<sup>h+1</sup> atanh(z)</code> for
+     * <code>z = (y<sup>1/2<sup>h</sup></sup> - 1) / (y<sup>1/2<sup>h</sup></sup> + 1)</code> by the series (each
+     * square root halves <code>z</code>), or by AGM for high precision (unless the series converges fast anyway).
+     */
+    private static BigDecimal lnNearOne(BigDecimal y, MathContext mc, ComputationContext context) {
+        final BigDecimal z = y.subtract(BigDecimal.ONE).divide(y.add(BigDecimal.ONE), mc);
+        if (z.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        if (isLinear(z, mc)) {
+            return z.multiply(TWO);
+        }
+        final int halvings = halvings(mc.getPrecision());
+        final double digitsPerTerm = 2 * (halvings * Math.log10(2)
+                - Math.log10(Math.abs(z.round(MathContext.DECIMAL64).doubleValue())));
+        if (mc.getPrecision() / digitsPerTerm > MAX_SERIES_TERMS) {
+            return lnAgm(y, z, mc, context);
+        }
+        //the leading zeros of z (including those made by the square roots) are extra bits
+        final int bits = bits((long) mc.getPrecision() + leadingZeros(z)) + halvings;
+        final BigInteger one = BigInteger.ONE.shiftLeft(bits);
+        BigInteger root = toFixed(y, bits);
+        for (int i = 0; i < halvings; i++) {
+            root = floorRoot(root.shiftLeft(bits), 2, context);
+        }
+        final BigInteger reduced = root.subtract(one).shiftLeft(bits).divide(root.add(one));
+        return fromFixed(atanh(reduced, bits, context).shiftLeft(halvings + 1), bits, mc);
+    }
+
+    /**
+     * Logarithm by AGM: <code>ln(s) = &pi; / (2 AGM(1, 4/s))</code> for <code>s &gt; 2<sup>p/2</sup></code> (for
+     * <code>p</code> bits of precision), with <code>s = y 2<sup>m</sup></code>.
+     */
+    private static BigDecimal lnAgm(BigDecimal y, BigDecimal z, MathContext mc, ComputationContext context) {
+        //ln(y) = ln(s) - m ln(2): the difference loses the digits of ln(s) and the leading zeros of ln(y)
+        final MathContext amc = working(mc.getPrecision() + digits(mc.getPrecision()) + 2 + leadingZeros(z) + 1);
+        final int m = bits(amc.getPrecision()) / 2 + 2;
+        //4/s = 2^(2 - m) / y is small: m more bits keep its relative precision
+        final int bits = bits(amc.getPrecision()) + m;
+        BigInteger a = BigInteger.ONE.shiftLeft(bits);
+        BigInteger b = BigInteger.ONE.shiftLeft(2 * bits + 2 - m).divide(toFixed(y, bits));
+        while (a.subtract(b).abs().bitLength() > 4) {
+            context.check();
+            final BigInteger next = a.add(b).shiftRight(1);
+            b = floorRoot(a.multiply(b), 2, context);
+            a = next;
+        }
+        final BigInteger lnS = toFixed(Constants.pi(amc.getPrecision(), context), bits).shiftLeft(bits)
+                .divide(a.add(b));
+        final BigInteger ln2 = toFixed(Constants.ln2(amc.getPrecision(), context), bits);
+        return fromFixed(lnS.subtract(ln2.multiply(BigInteger.valueOf(m))), bits, mc);
+    }
+
+    /**
+     * Series of <code>atanh(z) = z + z<sup>3</sup>/3 + z<sup>5</sup>/5 + ...</code>, for small <code>|z|</code>.
+     *
+     * @param z fixed point value
+     */
+    private static BigInteger atanh(BigInteger z, int bits, ComputationContext context) {
+        final BigInteger z2 = z.multiply(z).shiftRight(bits);
+        BigInteger power = z;
+        BigInteger sum = z;
+        for (int i = 1; ; i++) {
+            power = power.multiply(z2).shiftRight(bits);
+            final BigInteger term = power.divide(BigInteger.valueOf(2L * i + 1));
+            if (term.signum() == 0) {
+                return sum;
+            }
+            sum = sum.add(term);
+            if (i % CHECK_INTERVAL == 0) {
+                context.check();
+            }
+        }
+    }
+
+    /**
+     * Power <code>x<sup>y</sup></code>: by repeated multiplication for integer exponent (any base), through the
+     * square root for half-integer exponent, and as <code>exp(y ln(x))</code> otherwise (positive base only).
+     *
+     * @throws ArithmeticException zero to negative power, negative base with non-integer exponent, result out of
+     *                             range
+     */
+    static BigDecimal pow(BigDecimal x, BigDecimal y, MathContext mc, ComputationContext context)
+            throws ArithmeticException {
+        if (y.signum() == 0) {
+            return BigDecimal.ONE;
+        }
+        if (x.signum() == 0) {
+            if (y.signum() < 0) {
+                throw new ArithmeticException("Division by zero");
+            }
+            return BigDecimal.ZERO;
+        }
+        final BigDecimal maxIntExponent = BigDecimal.valueOf(999_999_999);
+        if (isInteger(y) && y.abs().compareTo(maxIntExponent) <= 0) {
+            final int n = y.intValueExact();
+            return x.pow(n, working(mc.getPrecision() + GUARD_DIGITS + digits(n))).round(mc);
+        }
+        if (x.signum() < 0) {
+            throw new ArithmeticException("power of negative number is defined only for integer exponents");
+        }
+        if (x.compareTo(BigDecimal.ONE) == 0) {
+            return BigDecimal.ONE;
+        }
+        final BigDecimal twice = y.add(y);
+        if (isInteger(twice) && twice.abs().compareTo(maxIntExponent) <= 0) {
+            final int n = twice.intValueExact();
+            final MathContext wmc = working(mc.getPrecision() + GUARD_DIGITS + digits(n));
+            return root(x, 2, wmc, context).pow(n, wmc).round(mc);
+        }
+        //digits of the integer part of y ln(x) are lost by exp
+        final double magnitude = Math.abs(y.round(MathContext.DECIMAL64).doubleValue() * log10(x) * Math.log(10));
+        if (!(magnitude <= MAX_EXP_ARGUMENT.doubleValue())) {
+            throw new ArithmeticException("result of power is out of range");
+        }
+        final MathContext wmc = working(mc.getPrecision() + GUARD_DIGITS + digits((long) magnitude) + 1);
+        return exp(y.multiply(ln(x, wmc, context), wmc), mc, context);
+    }
+
+    /**
+     * Sine.
+     *
+     * @throws ArithmeticException the argument is too big, see {@link #MAX_TRIG_INTEGER_DIGITS}
+     */
+    static BigDecimal sin(BigDecimal x, MathContext mc, ComputationContext context) throws ArithmeticException {
+        return trigonometric(x, false, mc, context);
+    }
+
+    /**
+     * Cosine.
+     *
+     * @throws ArithmeticException the argument is too big, see {@link #MAX_TRIG_INTEGER_DIGITS}
+     */
+    static BigDecimal cos(BigDecimal x, MathContext mc, ComputationContext context) throws ArithmeticException {
+        return trigonometric(x, true, mc, context);
+    }
+
+    private static BigDecimal trigonometric(BigDecimal x, boolean cosine, MathContext mc, ComputationContext context) {
+        if (x.signum() == 0) {
+            return cosine ? BigDecimal.ONE : BigDecimal.ZERO;
+        }
+        final int integerDigits = (int) Math.max(0, Math.min(exponent(x) + 1, Integer.MAX_VALUE));
+        if (integerDigits > MAX_TRIG_INTEGER_DIGITS) {
+            throw new ArithmeticException("argument of " + (cosine ? "cos" : "sin") + " is too big");
+        }
+        final int halvings = halvings(mc.getPrecision() + GUARD_DIGITS);
+        final MathContext wmc = working(mc.getPrecision() + GUARD_DIGITS + halvings / 3 + 1);
+        //x = q pi/2 + r, |r| <= pi/4: the error of r is q times the error of pi, and small r needs even more digits
+        final BigDecimal shortHalfPi = Constants.pi(integerDigits + 5, context).multiply(HALF);
+        final BigInteger q = x.divide(shortHalfPi, working(integerDigits + 3))
+                .setScale(0, RoundingMode.HALF_EVEN).toBigIntegerExact();
+        BigDecimal r;
+        int extra = 3;
+        while (true) {
+            final BigDecimal halfPi = Constants.pi(wmc.getPrecision() + integerDigits + extra, context).multiply(HALF);
+            r = x.subtract(halfPi.multiply(new BigDecimal(q)));
+            if (r.signum() != 0 && 2 - exponent(r) <= extra) {
+                break;
+            }
+            context.check();
+            extra = r.signum() == 0 ? extra * 2 : (int) (3 - exponent(r));
+        }
+        r = r.round(wmc);
+        //sin(x) is sin(r), cos(r), -sin(r), -cos(r) by the quadrant; cos(x) = sin(x + pi/2)
+        final int quadrant = (q.intValue() + (cosine ? 1 : 0)) & 3;
+        final BigDecimal value;
+        if (isLinear(r, wmc)) {
+            //sin(r) = r, cos(r) = 1 at the precision
+            value = (quadrant & 1) == 0 ? r : BigDecimal.ONE;
+        } else {
+            //versine is about r^2 / 2, reduced 4 times by each halving: keep its relative precision
+            final int bits = bits(wmc.getPrecision() + 2L * leadingZeros(r)) + 2 * halvings;
+            final BigInteger versine = versine(toFixed(r, bits - halvings), halvings, bits, context);
+            final BigInteger two = BigInteger.ONE.shiftLeft(bits + 1);
+            value = (quadrant & 1) == 0
+                    ? fromFixed(floorRoot(versine.multiply(two.subtract(versine)), 2, context), bits, wmc)
+                    .multiply(BigDecimal.valueOf(r.signum()))
+                    : fromFixed(BigInteger.ONE.shiftLeft(bits).subtract(versine), bits, wmc);
+        }
+        return inexact((quadrant & 2) == 0 ? value : value.negate(), mc);
+    }
+
+    /**
+     * Versine <code>1 - cos(r)</code>: series of <code>a = r / 2<sup>h</sup></code>, and then the doubling formula
+     * <code>1 - cos(2a) = 2 v (2 - v)</code>. This keeps the relative precision even for small <code>r</code>, so
+     * both sine and cosine can be computed from it.
+     *
+     * @param a fixed point value
+     */
+    private static BigInteger versine(BigInteger a, int halvings, int bits, ComputationContext context) {
+        final BigInteger a2 = a.multiply(a).shiftRight(bits);
+        BigInteger term = a2.shiftRight(1);
+        BigInteger sum = term;
+        for (int i = 2; ; i++) {
+            term = term.multiply(a2).shiftRight(bits).divide(BigInteger.valueOf(-(2L * i - 1) * (2L * i)));
+            if (term.signum() == 0) {
+                break;
+            }
+            sum = sum.add(term);
+            if (i % CHECK_INTERVAL == 0) {
+                context.check();
+            }
+        }
+        final BigInteger two = BigInteger.ONE.shiftLeft(bits + 1);
+        for (int i = 0; i < halvings; i++) {
+            sum = sum.multiply(two.subtract(sum)).shiftRight(bits - 1);
+        }
+        return sum;
+    }
+
+    /**
+     * Arc tangent.
+     */
+    static BigDecimal atan(BigDecimal x, MathContext mc, ComputationContext context) {
+        if (x.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        final int halvings = halvings(mc.getPrecision() + GUARD_DIGITS);
+        final MathContext wmc = working(mc.getPrecision() + GUARD_DIGITS + halvings / 3 + 1);
+        //atan(a) = pi/2 - atan(1/a)
+        final boolean inverted = x.abs().compareTo(BigDecimal.ONE) > 0;
+        final BigDecimal a = inverted ? BigDecimal.ONE.divide(x.abs(), wmc) : x.abs().round(wmc);
+        BigDecimal result;
+        if (isLinear(a, wmc)) {
+            result = a;
+        } else {
+            //the leading zeros of a and the halvings are extra bits, to keep the relative precision
+            final int bits = bits((long) wmc.getPrecision() + leadingZeros(a)) + halvings;
+            final BigInteger one = BigInteger.ONE.shiftLeft(bits);
+            BigInteger f = toFixed(a, bits);
+            //atan(a) = 2 atan(a / (1 + sqrt(1 + a^2)))
+            for (int i = 0; i < halvings; i++) {
+                final BigInteger root = floorRoot(one.shiftLeft(bits).add(f.multiply(f)), 2, context);
+                f = f.shiftLeft(bits).divide(one.add(root));
+            }
+            final BigInteger f2 = f.multiply(f).shiftRight(bits);
+            BigInteger power = f;
+            BigInteger sum = f;
+            for (int i = 1; ; i++) {
+                power = power.multiply(f2).shiftRight(bits).negate();
+                final BigInteger term = power.divide(BigInteger.valueOf(2L * i + 1));
+                if (term.signum() == 0) {
+                    break;
+                }
+                sum = sum.add(term);
+                if (i % CHECK_INTERVAL == 0) {
+                    context.check();
+                }
+            }
+            result = fromFixed(sum.shiftLeft(halvings), bits, wmc);
+        }
+        if (inverted) {
+            result = Constants.pi(wmc.getPrecision(), context).multiply(HALF).subtract(result);
+        }
+        return inexact(x.signum() < 0 ? result.negate() : result, mc);
+    }
+
+    /**
+     * &pi; by the Gauss-Legendre (Brent-Salamin) algorithm, see {@link Constants#pi(int)}.
+     */
+    static BigDecimal computePi(MathContext mc, ComputationContext context) {
+        final int bits = bits((long) mc.getPrecision() + digits(mc.getPrecision()));
+        BigInteger a = BigInteger.ONE.shiftLeft(bits);
+        BigInteger b = floorRoot(BigInteger.ONE.shiftLeft(2 * bits - 1), 2, context);
+        BigInteger t = a.shiftRight(2);
+        int power = 0;
+        while (a.subtract(b).abs().bitLength() > 4) {
+            context.check();
+            final BigInteger next = a.add(b).shiftRight(1);
+            final BigInteger difference = a.subtract(next);
+            b = floorRoot(a.multiply(b), 2, context);
+            t = t.subtract(difference.multiply(difference).shiftRight(bits - power));
+            power++;
+            a = next;
+        }
+        final BigInteger sum = a.add(b);
+        return fromFixed(sum.multiply(sum).divide(t.shiftLeft(2)), bits, mc);
+    }
+
+    /**
+     * <code>ln(2) = 18 atanh(1/26) - 2 atanh(1/4801) + 8 atanh(1/8749)</code>, see {@link Constants#ln2(int)}.
+     */
+    static BigDecimal computeLn2(MathContext mc, ComputationContext context) {
+        final int bits = bits(mc.getPrecision());
+        final BigInteger ln2 = atanhOfInverse(26, bits, context).multiply(BigInteger.valueOf(18))
+                .subtract(atanhOfInverse(4801, bits, context).shiftLeft(1))
+                .add(atanhOfInverse(8749, bits, context).shiftLeft(3));
+        return fromFixed(ln2, bits, mc);
+    }
+
+    /**
+     * <code>ln(10) = 3 ln(2) + 2 atanh(1/9)</code> (that is <code>ln(8) + ln(1.25)</code>), see
+     * {@link Constants#ln10(int)}.
+     */
+    static BigDecimal computeLn10(MathContext mc, ComputationContext context) {
+        final int bits = bits(mc.getPrecision());
+        final BigInteger ln2 = toFixed(Constants.ln2(mc.getPrecision() + 3, context), bits);
+        return fromFixed(ln2.multiply(BigInteger.valueOf(3)).add(atanhOfInverse(9, bits, context).shiftLeft(1)),
+                bits, mc);
+    }
+
+    /**
+     * Fixed point <code>atanh(1/n)</code>: the powers are just divided by <code>n<sup>2</sup></code>.
+     */
+    private static BigInteger atanhOfInverse(int n, int bits, ComputationContext context) {
+        final BigInteger n2 = BigInteger.valueOf((long) n * n);
+        BigInteger power = BigInteger.ONE.shiftLeft(bits).divide(BigInteger.valueOf(n));
+        BigInteger sum = power;
+        for (int i = 1; ; i++) {
+            power = power.divide(n2);
+            if (power.signum() == 0) {
+                return sum;
+            }
+            sum = sum.add(power.divide(BigInteger.valueOf(2L * i + 1)));
+            if (i % CHECK_INTERVAL == 0) {
+                context.check();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+
+/**
+ * Scientific functions: roots, exponential and logarithm, general power, trigonometric functions and &pi;.
+ * Available only in the scientific calculator.
+ * <p/>
+ * The results are irrational in general, so they are always rounded: by the requested precision, or to
+ * {@link #DEFAULT_PRECISION} when the precision is unlimited. Roots are rounded correctly (and exact roots are
+ * exact); the error of the other functions is below one unit in the last place. See {@link ScientificFunctions} for
+ * the algorithms.
+ * <p/>
+ * The cost grows much faster than linearly with the precision (<code>exp</code> takes about a millisecond at 300
+ * digits and more than half a second at 10000 digits), so the precision decides whether the operation is heavy, and
+ * it's limited by {@link #MAX_PRECISION}.
+ */
+public enum ScientificOperator implements Operator {
+
+    SQRT("\u221A", 1, (args, mc, context) -> ScientificFunctions.root(args.get(0), 2, mc, context)),
+    /**
+     * Root of any degree: <code>root(x, n)</code>; odd roots of negative numbers are negative.
+     */
+    ROOT("\u207F\u221A", 2, (args, mc, context) -> ScientificFunctions.root(args.get(0), degree(args.get(1)), mc, context)),
+    EXP("exp", 1, (args, mc, context) -> ScientificFunctions.exp(args.get(0), mc, context)),
+    LN("ln", 1, (args, mc, context) -> ScientificFunctions.ln(args.get(0), mc, context)),
+    /**
+     * General power: <code>pow(x, y)</code>; negative base only with integer exponent.
+     */
+    POW("^", 2, (args, mc, context) -> ScientificFunctions.pow(args.get(0), args.get(1), mc, context)),
+    SIN("sin", 1, (args, mc, context) -> ScientificFunctions.sin(args.get(0), mc, context)),
+    COS("cos", 1, (args, mc, context) -> ScientificFunctions.cos(args.get(0), mc, context)),
+    ATAN("atan", 1, (args, mc, context) -> ScientificFunctions.atan(args.get(0), mc, context)),
+    /**
+     * Constant: no arguments.
+     */
+    PI("\u03C0", 0, (args, mc, context) ->
+            Constants.pi(mc.getPrecision() + ScientificFunctions.GUARD_DIGITS, context).round(mc)),
+    ;
+
+    /**
+     * Default precision, used when the precision is not limited.
+     */
+    public static final MathContext DEFAULT_PRECISION = MathContext.DECIMAL128;
+    /**
+     * Precision of more than this number of digits makes the operation heavy, see
+     * {@link #isHeavy(List, MathContext)}.
+     */
+    public static final int HEAVY_PRECISION = 250;
+    /**
+     * Maximum precision (number of digits); higher precision is refused, by {@link ArithmeticException}.
+     */
+    public static final int MAX_PRECISION = 10_000;
+
+    private final String symbolicName;
+    private final int argumentsCount;
+    /**
+     * The function itself.
+     */
+    private final ScientificOp op;
+
+    ScientificOperator(String symbolicName, int argumentsCount, ScientificOp op) {
+        this.symbolicName = symbolicName;
+        this.argumentsCount = argumentsCount;
+        this.op = op;
+    }
+
+    private static int degree(BigDecimal degree) throws ArithmeticException {
+        try {
+            return degree.intValueExact();
+        } catch (ArithmeticException ignored) {
+            throw new ArithmeticException("root degree must be an integer between 1 and "
+                    + ScientificFunctions.MAX_ROOT_DEGREE);
+        }
+    }
+
+    @Override
+    public String getSymbolicName() {
+        return symbolicName;
+    }
+
+    @Override
+    public String getName() {
+        return name();
+    }
+
+    @Override
+    public boolean isAvailableIn(CalculatorType type) {
+        return type == CalculatorType.SCIENTIFIC;
+    }
+
+    @Override
+    public int getMinArgumentsCount() {
+        return argumentsCount;
+    }
+
+    @Override
+    public int getMaxArgumentsCount() {
+        return argumentsCount;
+    }
+
+    /**
+     * The operation is heavy when the operands are, or when the precision (the default one if not limited) is more
+     * than {@link #HEAVY_PRECISION} digits.
+     */
+    @Override
+    public boolean isHeavy(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext) {
+        return isHeavy(arguments) || fixMathContext(mathContext).getPrecision() > HEAVY_PRECISION;
+    }
+
+    /**
+     * Unlimited precision is replaced by {@link #DEFAULT_PRECISION}: the results are not representable in general.
+     */
+    @Nonnull
+    @Override
+    public MathContext fixMathContext(@Nullable MathContext mathContext) {
+        return mathContext == null || mathContext.getPrecision() == 0 ? DEFAULT_PRECISION : mathContext;
+    }
+
+    @Nonnull
+    @Override
+    public BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext)
+            throws ArithmeticException, IllegalArgumentException {
+        return apply(arguments, mathContext, ComputationContext.NONE);
+    }
+
+    @Nonnull
+    @Override
+    public BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext,
+                            @Nonnull ComputationContext context) throws ArithmeticException, IllegalArgumentException {
+        if (arguments.size() != argumentsCount) {
+            throw new IllegalArgumentException("invalid argument list: " + this + (argumentsCount == 0
+                    ? " has no arguments" : " needs exactly " + argumentsCount
+                    + (argumentsCount == 1 ? " argument" : " arguments")));
+        }
+        for (BigDecimal argument : arguments) {
+            if (argument == null) {
+                throw new IllegalArgumentException("invalid argument list: null argument");
+            }
+        }
+        mathContext = fixMathContext(mathContext);
+        if (mathContext.getPrecision() > MAX_PRECISION) {
+            throw new ArithmeticException("too high precision for " + getName().toLowerCase() + ": "
+                    + mathContext.getPrecision() + " digits, maximum is " + MAX_PRECISION);
+        }
+        context.check();
+        return op.apply(arguments, mathContext, context);
+    }
+
+    /**
+     * The function: arguments are already validated, the math context has limited precision.
+     */
+    @FunctionalInterface
+    private interface ScientificOp {
+        BigDecimal apply(List<BigDecimal> arguments, MathContext mathContext, ComputationContext context)
+                throws ArithmeticException;
+    }
+}
@@ -0,0 +1,112 @@
+package cz.podlesh.demo.calculator.op;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reduction of a long argument list of a commutative and associative operator (see
+ * {@link BinaryOperator#isAnyLength()}) as a balanced tree: each node applies the operator on the results of its two
+ * halves, short ranges are folded sequentially. The operands of each multiplication then have similar sizes, so
+ * product of many big numbers takes much less than the sequential fold, whose running product grows with each step.
+ * <p/>
+ * Subtrees can be reduced in parallel, in the given fork-join pool (see {@link ReductionPolicy#getPool()}). The
+ * shape of the tree depends only on the number of arguments, so the result is the same either way.
+ * <p/>
+ * Rounding: with unlimited precision, the result is exactly the same as of the sequential fold (the operations are
+ * exact, so associativity holds, including the scale). With limited precision, the result of each node is rounded
+ * (by {@link BinaryOperator#apply(BigDecimal, BigDecimal, MathContext)}), just like each step of the sequential
+ * fold is; the number of roundings is the same (one less than the number of arguments), but they are applied to
+ * different partial results, so the last digits may differ from the sequential fold.
+ */
+final class TreeReduction extends RecursiveTask<BigDecimal> {
+
+    /**
+     * Ranges of up to this count of arguments are folded sequentially.
+     */
+    static final int LEAF_SIZE = 8;
+    /**
+     * Subtrees of at least this count of arguments are forked, when reduced in parallel.
+     */
+    private static final int FORK_SIZE = 64;
+    /**
+     * Computation context is checked in subtrees of at least this count of arguments.
+     */
+    private static final int CHECK_SIZE = 256;
+
+    private final BinaryOperator operator;
+    private final BigDecimal[] arguments;
+    private final int from, to;
+    private final MathContext mathContext;
+    private final ComputationContext context;
+    private final boolean parallel;
+
+    private TreeReduction(BinaryOperator operator, BigDecimal[] arguments, int from, int to, MathContext mathContext,
+                          ComputationContext context, boolean parallel) {
+        this.operator = operator;
+        this.arguments = arguments;
+        this.from = from;
+        this.to = to;
+        this.mathContext = mathContext;
+        this.context = context;
+        this.parallel = parallel;
+    }
+
+    /**
+     * Reduce the arguments.
+     *
+     * @param arguments   at least one argument
+     * @param mathContext the math context of each operation (not <code>null</code>)
+     * @param pool        reduce the subtrees in parallel, in this pool; <code>null</code> = sequentially
+     */
+    static BigDecimal reduce(BinaryOperator operator, List<BigDecimal> arguments, MathContext mathContext,
+                             ComputationContext context, @Nullable ForkJoinPool pool) throws ArithmeticException {
+        final TreeReduction task = new TreeReduction(operator, arguments.toArray(new BigDecimal[0]), 0,
+                arguments.size(), mathContext, context, pool != null);
+        if (pool == null) {
+            return task.compute();
+        }
+        try {
+            return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+        } catch (RuntimeException e) {
+            //exception thrown by another thread is re-created by the pool, with the original one as the cause
+            if (e.getCause() != null && e.getCause().getClass() == e.getClass()) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected BigDecimal compute() {
+        final int count = to - from;
+        if (count <= LEAF_SIZE) {
+            BigDecimal result = arguments[from];
+            for (int i = from + 1; i < to; i++) {
+                result = operator.apply(result, arguments[i], mathContext);
+            }
+            return result;
+        }
+        if (count >= CHECK_SIZE) {
+            context.check();
+        }
+        final int middle = from + count / 2;
+        final TreeReduction left = new TreeReduction(operator, arguments, from, middle, mathContext, context, parallel);
+        final TreeReduction right = new TreeReduction(operator, arguments, middle, to, mathContext, context, parallel);
+        final BigDecimal leftResult;
+        final BigDecimal rightResult;
+        if (parallel && count >= FORK_SIZE) {
+            right.fork();
+            leftResult = left.compute();
+            rightResult = right.join();
+        } else {
+            leftResult = left.compute();
+            rightResult = right.compute();
+        }
+        return operator.apply(leftResult, rightResult, mathContext);
+    }
+}
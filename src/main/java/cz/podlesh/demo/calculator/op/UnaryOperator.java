@@ -15,7 +15,7 @@ public enum UnaryOperator implements Operator {
     NEGATE("+/-", false, BigDecimal::negate),
     ABS("|x|", false, BigDecimal::abs),
     SQUARE("x^2", true, (v, mc) -> v.multiply(v, mc)),
-    FACT("x!", true, (v, mc) -> {
+    FACT("x!", true, BigDecimal.valueOf(100), (v, mc, context) -> {
         if (v.signum() <= 0) {
             throw new ArithmeticException("factorial is defined only for positive numbers");
         }
@@ -25,20 +25,29 @@ public enum UnaryOperator implements Operator {
         } catch (Exception ignored) {
             throw new ArithmeticException("factorial is defined only for integers");
         }
-        return new BigDecimal(Factorial.DEFAULT.apply(n));
+        return new BigDecimal(Factorial.DEFAULT.apply(n, context));
     }),
     ;
 
     private final String symbolicName;
     private final boolean scientificOnly;
+    /**
+     * The operation is heavy for operands bigger than this; <code>null</code> if it's never heavy by itself.
+     */
+    private final BigDecimal heavyAbove;
     /**
      * The operator itself.
      */
-    private final BiFunction<BigDecimal, MathContext, BigDecimal> op;
+    private final UnaryOp op;
 
     UnaryOperator(String symbolicName, boolean scientificOnly, BiFunction<BigDecimal, MathContext, BigDecimal> op) {
+        this(symbolicName, scientificOnly, null, (v, mc, context) -> op.apply(v, mc));
+    }
+
+    UnaryOperator(String symbolicName, boolean scientificOnly, BigDecimal heavyAbove, UnaryOp op) {
         this.symbolicName = symbolicName;
         this.scientificOnly = scientificOnly;
+        this.heavyAbove = heavyAbove;
         this.op = op;
     }
 
@@ -58,6 +67,15 @@ public enum UnaryOperator implements Operator {
     }
 
 
+    @Override
+    public boolean isHeavy(@Nonnull List<BigDecimal> arguments) {
+        if (heavyAbove != null && arguments.size() == 1 && arguments.get(0) != null
+                && arguments.get(0).compareTo(heavyAbove) > 0) {
+            return true;
+        }
+        return Operator.super.isHeavy(arguments);
+    }
+
     /**
      * Binary operators always need two arguments.
      *
@@ -76,13 +94,30 @@ public enum UnaryOperator implements Operator {
     @Nonnull
     @Override
     public BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext) throws ArithmeticException, IllegalArgumentException {
+        return apply(arguments, mathContext, ComputationContext.NONE);
+    }
+
+    @Nonnull
+    @Override
+    public BigDecimal apply(@Nonnull List<BigDecimal> arguments, @Nullable MathContext mathContext,
+                            @Nonnull ComputationContext context) throws ArithmeticException, IllegalArgumentException {
         if (arguments.size() != 1) {
             throw new IllegalArgumentException("invalid argument list: " + this + " is an unary operator");
         }
         //ensure that we have precision specified
         mathContext = fixMathContext(mathContext);
         //and apply the operation
-        return op.apply(arguments.get(0), mathContext);
+        context.check();
+        return op.apply(arguments.get(0), mathContext, context);
+    }
+
+    /**
+     * Operation that might take long time: it must check the computation context.
+     */
+    @FunctionalInterface
+    private interface UnaryOp {
+        BigDecimal apply(BigDecimal value, MathContext mathContext, ComputationContext context)
+                throws ArithmeticException;
     }
 
 }
@@ -0,0 +1,230 @@
+package cz.podlesh.demo.calculator.tcp;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client of the TCP listener (see {@link TcpCalculatorServer} and {@link TcpProtocol}): one connection, all the
+ * requests are pipelined over it. The calls do not block, the results are completed when the response arrives; the
+ * client is thread-safe. Requests sent at once (before the event loop gets to them) are flushed together.
+ * <p/>
+ * Errors are reported by the futures: {@link ArithmeticException} when the operation does not have result,
+ * {@link IllegalArgumentException} for invalid requests, {@link ServerException} when the server refuses or fails.
+ */
+public class TcpCalculatorClient implements AutoCloseable {
+
+    /**
+     * Maximum length of the response frame.
+     */
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    @Nullable
+    private final EventLoopGroup ownGroup;
+    private final Channel channel;
+    private final Map<Integer, CompletableFuture<BigDecimal>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    /**
+     * Flush is scheduled on the event loop; accessed only by the event loop.
+     */
+    private boolean flushScheduled;
+
+    /**
+     * Connect to the server, with its own event loop thread.
+     */
+    public TcpCalculatorClient(String host, int port) throws InterruptedException {
+        this(new NioEventLoopGroup(1, new DefaultThreadFactory("tcp-client", true)), true, host, port);
+    }
+
+    /**
+     * Connect to the server, using the given event loop group (it's not closed with the client).
+     */
+    public TcpCalculatorClient(EventLoopGroup group, String host, int port) throws InterruptedException {
+        this(group, false, host, port);
+    }
+
+    private TcpCalculatorClient(EventLoopGroup group, boolean own, String host, int port) throws InterruptedException {
+        this.ownGroup = own ? group : null;
+        try {
+            channel = new Bootstrap()
+                    .group(group)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline()
+                                    .addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0,
+                                            TcpProtocol.LENGTH_PREFIX, 0, TcpProtocol.LENGTH_PREFIX))
+                                    .addLast(new ResponseHandler());
+                        }
+                    })
+                    .connect(host, port)
+                    .sync()
+                    .channel();
+        } catch (InterruptedException | RuntimeException e) {
+            if (ownGroup != null) {
+                ownGroup.shutdownGracefully();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Apply the operator, with the default precision and timeout.
+     */
+    public CompletableFuture<BigDecimal> apply(@Nonnull String operator, BigDecimal... arguments) {
+        return apply(operator, 0, 0, Arrays.asList(arguments));
+    }
+
+    /**
+     * Apply the operator.
+     *
+     * @param operator      operator name or symbol
+     * @param precision     precision of the result, 0 for the default one
+     * @param timeoutMillis timeout in milliseconds, 0 for the default one
+     * @param arguments     the arguments
+     * @return the result
+     */
+    public CompletableFuture<BigDecimal> apply(@Nonnull String operator, int precision, int timeoutMillis,
+                                               @Nonnull List<BigDecimal> arguments) {
+        final CompletableFuture<BigDecimal> result = new CompletableFuture<>();
+        final int id = nextId.incrementAndGet();
+        final ByteBuf frame;
+        try {
+            frame = TcpProtocol.writeRequest(channel.alloc(), id, precision, timeoutMillis, operator, arguments);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        pending.put(id, result);
+        try {
+            channel.eventLoop().execute(() -> write(id, frame));
+        } catch (RejectedExecutionException e) {
+            //closed
+            frame.release();
+            fail(id, e);
+        }
+        return result;
+    }
+
+    /**
+     * Write the request (on the event loop) and schedule flush after all the writes that are already waiting.
+     */
+    private void write(int id, ByteBuf frame) {
+        channel.write(frame).addListener(future -> {
+            if (!future.isSuccess()) {
+                fail(id, future.cause());
+            }
+        });
+        if (!flushScheduled) {
+            flushScheduled = true;
+            channel.eventLoop().execute(() -> {
+                flushScheduled = false;
+                channel.flush();
+            });
+        }
+    }
+
+    /**
+     * Number of requests waiting for the response.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void fail(int id, Throwable cause) {
+        final CompletableFuture<BigDecimal> future = pending.remove(id);
+        if (future != null) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        if (ownGroup != null) {
+            ownGroup.shutdownGracefully();
+        }
+    }
+
+    /**
+     * The server refused the request (it's too busy) or failed to process it.
+     */
+    public static class ServerException extends RuntimeException {
+        private final byte status;
+
+        public ServerException(byte status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        /**
+         * Status of the response: {@link TcpProtocol#UNAVAILABLE} or {@link TcpProtocol#FAILURE}.
+         */
+        public byte getStatus() {
+            return status;
+        }
+    }
+
+    private class ResponseHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            final TcpProtocol.Response response = TcpProtocol.readResponse(frame);
+            final CompletableFuture<BigDecimal> future = pending.remove(response.id);
+            if (future == null) {
+                return;
+            }
+            switch (response.status) {
+                case TcpProtocol.OK:
+                    future.complete(response.result);
+                    break;
+                case TcpProtocol.ERROR:
+                    future.completeExceptionally(new ArithmeticException(response.message));
+                    break;
+                case TcpProtocol.INVALID:
+                    future.completeExceptionally(new IllegalArgumentException(response.message));
+                    break;
+                default:
+                    future.completeExceptionally(new ServerException(response.status, response.message));
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            for (Integer id : pending.keySet()) {
+                fail(id, new ClosedChannelException());
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            for (Integer id : pending.keySet()) {
+                fail(id, cause);
+            }
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package cz.podlesh.demo.calculator.tcp;
+
+import cz.podlesh.demo.calculator.CalculatorMetrics;
+import cz.podlesh.demo.calculator.ComputeExecutor;
+import cz.podlesh.demo.calculator.KnownOperators;
+import cz.podlesh.demo.calculator.op.CalculatorType;
+import cz.podlesh.demo.calculator.op.ComputationContext;
+import cz.podlesh.demo.calculator.op.Operator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Handler of one TCP connection: decodes request frames, evaluates them and writes the responses.
+ * <p/>
+ * Responses of operations evaluated directly on the event loop are only written; they are flushed once, when all the
+ * frames read at once are processed, so that pipelined requests are answered by few big writes. Responses computed
+ * by the {@link ComputeExecutor} are flushed immediately. When the client does not read the responses (the channel
+ * is not writable), reading of the requests is suspended.
+ */
+final class TcpCalculatorHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TcpCalculatorHandler.class);
+
+    private final TcpCalculatorServer server;
+    private ChannelHandlerContext ctx;
+    /**
+     * Inside of {@link #channelRead(ChannelHandlerContext, Object)}: the responses are flushed later.
+     */
+    private boolean reading;
+    private boolean flushPending;
+
+    TcpCalculatorHandler(TcpCalculatorServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        final ByteBuf frame = (ByteBuf) msg;
+        reading = true;
+        try {
+            handle(frame);
+        } finally {
+            frame.release();
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        reading = false;
+        if (flushPending) {
+            flushPending = false;
+            ctx.flush();
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        ctx.channel().config().setAutoRead(ctx.channel().isWritable());
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        if (cause instanceof TooLongFrameException) {
+            LOG.debug("Closing TCP connection {}: {}", ctx.channel().remoteAddress(), cause.getMessage());
+        } else {
+            LOG.warn("Closing TCP connection {} after error", ctx.channel().remoteAddress(), cause);
+        }
+        ctx.close();
+    }
+
+    private void handle(ByteBuf frame) {
+        final ByteBufAllocator allocator = ctx.alloc();
+        if (frame.readableBytes() < Integer.BYTES) {
+            //no request ID: cannot be answered at all
+            ctx.close();
+            return;
+        }
+        final int id = frame.readInt();
+        final TcpProtocol.Request request;
+        final Operator operator;
+        final MathContext mathContext;
+        try {
+            request = TcpProtocol.readRequest(frame, id);
+            operator = server.operators.findOperator(request.operator);
+            mathContext = server.computationConfiguration.getMathContext(request.precision);
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            server.metrics.badRequest(CalculatorType.SCIENTIFIC);
+            send(TcpProtocol.writeError(allocator, id, TcpProtocol.INVALID, "malformed request: " + e.getMessage()));
+            return;
+        } catch (KnownOperators.InvalidOperatorException | IllegalArgumentException e) {
+            server.metrics.badRequest(CalculatorType.SCIENTIFIC);
+            send(TcpProtocol.writeError(allocator, id, TcpProtocol.INVALID, e.getMessage()));
+            return;
+        }
+        final Duration timeout = server.computationConfiguration.getTimeout(
+                request.timeoutMillis == 0 ? null : Duration.ofMillis(request.timeoutMillis));
+        final boolean heavy = operator.isHeavy(request.arguments, mathContext);
+        //note: cheap operations are evaluated synchronously, during the subscription
+        server.computeExecutor
+                .compute(heavy, () -> evaluate(allocator, request, operator, mathContext, timeout, heavy))
+                .subscribe(this::send, e -> {
+                    if (e instanceof ComputeExecutor.CapacityExceededException) {
+                        send(TcpProtocol.writeError(allocator, id, TcpProtocol.UNAVAILABLE, e.getMessage()));
+                    } else {
+                        LOG.warn("TCP request {} failed", id, e);
+                        send(TcpProtocol.writeError(allocator, id, TcpProtocol.FAILURE, e.toString()));
+                    }
+                });
+    }
+
+    /**
+     * Evaluate the operation, just like the REST API does; all the errors are reported in the response.
+     */
+    private ByteBuf evaluate(ByteBufAllocator allocator, TcpProtocol.Request request, Operator operator,
+                             @Nullable MathContext mathContext, @Nullable Duration timeout, boolean heavy) {
+        final List<BigDecimal> arguments = request.arguments;
+        final ComputationContext context = ComputationContext.withTimeout(timeout,
+                server.computeExecutor.getReduction());
+        //only heavy computations take long enough to be worth cancelling on disconnect
+        final ChannelFuture closeFuture = heavy ? ctx.channel().closeFuture() : null;
+        final GenericFutureListener<Future<? super Void>> cancelOnClose = future -> context.cancel();
+        if (closeFuture != null) {
+            closeFuture.addListener(cancelOnClose);
+        }
+        final CalculatorMetrics.OperatorMetrics operatorMetrics =
+                server.metrics.get(CalculatorType.SCIENTIFIC, operator);
+        final long start = System.nanoTime();
+        try {
+            final BigDecimal result = server.resultCache.apply(operator, arguments, mathContext, context);
+            operatorMetrics.success(start, arguments, result);
+            return TcpProtocol.writeResult(allocator, request.id, result);
+        } catch (ArithmeticException e) {
+            operatorMetrics.arithmeticError(start, arguments);
+            return TcpProtocol.writeError(allocator, request.id, TcpProtocol.ERROR, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            server.metrics.badRequest(CalculatorType.SCIENTIFIC);
+            return TcpProtocol.writeError(allocator, request.id, TcpProtocol.INVALID, e.getMessage());
+        } finally {
+            if (closeFuture != null) {
+                closeFuture.removeListener(cancelOnClose);
+            }
+        }
+    }
+
+    private void send(ByteBuf response) {
+        if (ctx.executor().inEventLoop() && reading) {
+            ctx.write(response, ctx.voidPromise());
+            flushPending = true;
+        } else {
+            ctx.writeAndFlush(response, ctx.voidPromise());
+        }
+    }
+}
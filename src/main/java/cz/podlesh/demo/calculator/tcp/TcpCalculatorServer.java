@@ -0,0 +1,92 @@
+package cz.podlesh.demo.calculator.tcp;
+
+import cz.podlesh.demo.calculator.CalculatorMetrics;
+import cz.podlesh.demo.calculator.ComputationConfiguration;
+import cz.podlesh.demo.calculator.ComputeExecutor;
+import cz.podlesh.demo.calculator.KnownOperators;
+import cz.podlesh.demo.calculator.ResultCache;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.net.InetSocketAddress;
+
+/**
+ * Micronaut bean: the second listener, alongside the HTTP API - raw TCP with binary frames (see {@link TcpProtocol}),
+ * for callers of many tiny operations, for which HTTP and JSON processing costs more than the operation itself.
+ * <p/>
+ * Requests are dispatched straight to {@link KnownOperators} and {@link ResultCache} (which calls the operator),
+ * with the same rules as the REST API: heavy operations are evaluated by the {@link ComputeExecutor}, all of them
+ * within the timeout (see {@link ComputationConfiguration}), all recorded by {@link CalculatorMetrics} (as the
+ * scientific calculator, because all the operators are available here). Started only when enabled, see
+ * {@link TcpConfiguration}.
+ */
+@Context
+@Requires(property = "calculator.tcp.enabled", value = "true")
+public class TcpCalculatorServer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TcpCalculatorServer.class);
+
+    final KnownOperators operators;
+    final ResultCache resultCache;
+    final CalculatorMetrics metrics;
+    final ComputationConfiguration computationConfiguration;
+    final ComputeExecutor computeExecutor;
+
+    private final EventLoopGroup group;
+    private final Channel channel;
+
+    public TcpCalculatorServer(TcpConfiguration configuration, KnownOperators operators, ResultCache resultCache,
+                               CalculatorMetrics metrics, ComputationConfiguration computationConfiguration,
+                               ComputeExecutor computeExecutor) {
+        this.operators = operators;
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+        this.computationConfiguration = computationConfiguration;
+        this.computeExecutor = computeExecutor;
+        final int maxFrameLength = configuration.getMaxFrameLength();
+        group = new NioEventLoopGroup(configuration.getThreads(), new DefaultThreadFactory("calculator-tcp", true));
+        channel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()
+                                .addLast(new LengthFieldBasedFrameDecoder(maxFrameLength, 0, TcpProtocol.LENGTH_PREFIX,
+                                        0, TcpProtocol.LENGTH_PREFIX))
+                                .addLast(new TcpCalculatorHandler(TcpCalculatorServer.this));
+                    }
+                })
+                .bind(configuration.getPort())
+                .syncUninterruptibly()
+                .channel();
+        LOG.info("Calculator TCP listener started on port {}", getPort());
+    }
+
+    /**
+     * The port the listener is bound to (useful when configured as 0).
+     */
+    public int getPort() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channel.close().syncUninterruptibly();
+        group.shutdownGracefully();
+    }
+}
@@ -0,0 +1,59 @@
+package cz.podlesh.demo.calculator.tcp;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+/**
+ * Configuration of the binary TCP listener (<code>calculator.tcp</code>), see {@link TcpCalculatorServer}.
+ */
+@ConfigurationProperties("calculator.tcp")
+public class TcpConfiguration {
+
+    /**
+     * Whether the listener is started at all.
+     */
+    private boolean enabled = false;
+    /**
+     * Port to listen on; 0 means any free port.
+     */
+    private int port = 8090;
+    /**
+     * Number of event loop threads; 0 means the Netty default (twice the number of available processors).
+     */
+    private int threads = 0;
+    /**
+     * Maximum length of one request frame (without the length prefix); connection sending bigger frame is closed.
+     */
+    private int maxFrameLength = 1024 * 1024;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getMaxFrameLength() {
+        return maxFrameLength;
+    }
+
+    public void setMaxFrameLength(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+}
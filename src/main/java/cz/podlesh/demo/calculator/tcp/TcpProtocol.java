@@ -0,0 +1,259 @@
+package cz.podlesh.demo.calculator.tcp;
+
+import cz.podlesh.demo.calculator.api.BinaryNumbers;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary protocol of the TCP listener: length-prefixed frames, each frame is one request or one response.
+ * <ul>
+ * <li>frame: length of the payload (4 bytes, big-endian), followed by the payload</li>
+ * <li>request payload: request ID (4 bytes, chosen by the client), precision (varint, 0 = default), timeout
+ * in milliseconds (varint, 0 = default), operator name or symbol (1 byte length + ASCII), number of arguments
+ * (varint) and the arguments (each as varint length + decimal encoded by {@link BinaryNumbers#encodeDecimal})</li>
+ * <li>response payload: request ID (4 bytes), status (1 byte, see {@link #OK} etc), and the rest depends on the
+ * status: the result (encoded decimal) or the error message (UTF-8)</li>
+ * </ul>
+ * Varints are unsigned, 7 bits per byte, least significant group first. Requests can be pipelined: the client does
+ * not have to wait for the response before sending another request, and the responses can come in any order (cheap
+ * operations are answered immediately, heavy ones when they are computed), matched by the request ID.
+ */
+public final class TcpProtocol {
+
+    /**
+     * Status: success, the result follows.
+     */
+    public static final byte OK = 0;
+    /**
+     * Status: the operation does not have result (division by zero, timeout etc), the error message follows. This is
+     * the same as the <code>error</code> property of the REST API.
+     */
+    public static final byte ERROR = 1;
+    /**
+     * Status: invalid request (unknown operator, wrong number of arguments, malformed frame etc), the message follows.
+     * This is the same as <code>400 Bad Request</code> of the REST API.
+     */
+    public static final byte INVALID = 2;
+    /**
+     * Status: the computation is refused because the executor is full, the message follows. This is the same as
+     * <code>503 Service Unavailable</code> of the REST API.
+     */
+    public static final byte UNAVAILABLE = 3;
+    /**
+     * Status: unexpected failure of the server, the message follows. This is the same as
+     * <code>500 Internal Server Error</code> of the REST API.
+     */
+    public static final byte FAILURE = 4;
+
+    /**
+     * Length of the frame length prefix.
+     */
+    public static final int LENGTH_PREFIX = 4;
+
+    private TcpProtocol() {
+    }
+
+    /**
+     * Decoded request.
+     */
+    public static final class Request {
+        public final int id;
+        /**
+         * Precision, 0 means the default one.
+         */
+        public final int precision;
+        /**
+         * Timeout in milliseconds, 0 means the default one.
+         */
+        public final int timeoutMillis;
+        public final String operator;
+        public final List<BigDecimal> arguments;
+
+        public Request(int id, int precision, int timeoutMillis, @Nonnull String operator,
+                       @Nonnull List<BigDecimal> arguments) {
+            this.id = id;
+            this.precision = precision;
+            this.timeoutMillis = timeoutMillis;
+            this.operator = operator;
+            this.arguments = arguments;
+        }
+    }
+
+    /**
+     * Decoded response.
+     */
+    public static final class Response {
+        public final int id;
+        public final byte status;
+        /**
+         * The result, only for {@link #OK}.
+         */
+        @Nullable
+        public final BigDecimal result;
+        /**
+         * The error message, for all the other statuses.
+         */
+        @Nullable
+        public final String message;
+
+        public Response(int id, byte status, @Nullable BigDecimal result, @Nullable String message) {
+            this.id = id;
+            this.status = status;
+            this.result = result;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Write the whole request frame (including the length prefix).
+     */
+    public static ByteBuf writeRequest(ByteBufAllocator allocator, int id, int precision, int timeoutMillis,
+                                       @Nonnull String operator, @Nonnull List<BigDecimal> arguments) {
+        final byte[] name = operator.getBytes(StandardCharsets.US_ASCII);
+        if (name.length > 255) {
+            throw new IllegalArgumentException("operator name is too long");
+        }
+        final ByteBuf buf = allocator.buffer(LENGTH_PREFIX + 16 + name.length + arguments.size() * 12);
+        final int start = startFrame(buf);
+        buf.writeInt(id);
+        writeVarint(buf, precision);
+        writeVarint(buf, timeoutMillis);
+        buf.writeByte(name.length);
+        buf.writeBytes(name);
+        writeVarint(buf, arguments.size());
+        for (BigDecimal argument : arguments) {
+            final byte[] encoded = BinaryNumbers.encodeDecimal(argument);
+            writeVarint(buf, encoded.length);
+            buf.writeBytes(encoded);
+        }
+        return endFrame(buf, start);
+    }
+
+    /**
+     * Read request payload after the request ID: the caller reads the ID first, so that even malformed request can be
+     * answered.
+     *
+     * @throws IndexOutOfBoundsException the payload is incomplete
+     * @throws NumberFormatException      malformed number
+     */
+    public static Request readRequest(ByteBuf payload, int id) throws IndexOutOfBoundsException, NumberFormatException {
+        final int precision = readVarint(payload);
+        final int timeout = readVarint(payload);
+        final int nameLength = payload.readUnsignedByte();
+        final String operator = payload.readCharSequence(nameLength, StandardCharsets.US_ASCII).toString();
+        final int count = readVarint(payload);
+        if (count < 0 || count > payload.readableBytes()) {
+            //each argument takes at least one byte: do not allocate nonsense
+            throw new IndexOutOfBoundsException("too many arguments: " + count);
+        }
+        final List<BigDecimal> arguments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            arguments.add(readDecimal(payload, readVarint(payload)));
+        }
+        if (payload.isReadable()) {
+            throw new IndexOutOfBoundsException("extra bytes after the arguments");
+        }
+        return new Request(id, precision, timeout, operator, arguments);
+    }
+
+    /**
+     * Write the whole response frame (including the length prefix) with the result.
+     */
+    public static ByteBuf writeResult(ByteBufAllocator allocator, int id, @Nonnull BigDecimal result) {
+        final byte[] encoded = BinaryNumbers.encodeDecimal(result);
+        final ByteBuf buf = allocator.buffer(LENGTH_PREFIX + 5 + encoded.length);
+        buf.writeInt(5 + encoded.length);
+        buf.writeInt(id);
+        buf.writeByte(OK);
+        buf.writeBytes(encoded);
+        return buf;
+    }
+
+    /**
+     * Write the whole response frame (including the length prefix) with error status and message.
+     */
+    public static ByteBuf writeError(ByteBufAllocator allocator, int id, byte status, @Nullable String message) {
+        final byte[] encoded = message == null ? new byte[0] : message.getBytes(StandardCharsets.UTF_8);
+        final ByteBuf buf = allocator.buffer(LENGTH_PREFIX + 5 + encoded.length);
+        buf.writeInt(5 + encoded.length);
+        buf.writeInt(id);
+        buf.writeByte(status);
+        buf.writeBytes(encoded);
+        return buf;
+    }
+
+    /**
+     * Read response payload (without the length prefix).
+     *
+     * @throws IndexOutOfBoundsException the payload is incomplete
+     * @throws NumberFormatException      malformed result
+     */
+    public static Response readResponse(ByteBuf payload) throws IndexOutOfBoundsException, NumberFormatException {
+        final int id = payload.readInt();
+        final byte status = payload.readByte();
+        final int length = payload.readableBytes();
+        if (status == OK) {
+            return new Response(id, status, readDecimal(payload, length), null);
+        }
+        return new Response(id, status, null, payload.readCharSequence(length, StandardCharsets.UTF_8).toString());
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException the length is more than the rest of the buffer (checked before anything is
+     *                                   allocated, the length comes from the wire)
+     */
+    private static BigDecimal readDecimal(ByteBuf buf, int length) throws IndexOutOfBoundsException {
+        if (length < 0 || length > buf.readableBytes()) {
+            throw new IndexOutOfBoundsException("argument length " + length + " exceeds the frame, "
+                    + buf.readableBytes() + " bytes left");
+        }
+        final byte[] data = new byte[length];
+        buf.readBytes(data);
+        return BinaryNumbers.decodeDecimal(data);
+    }
+
+    private static int startFrame(ByteBuf buf) {
+        final int start = buf.writerIndex();
+        buf.writeInt(0);
+        return start;
+    }
+
+    private static ByteBuf endFrame(ByteBuf buf, int start) {
+        buf.setInt(start, buf.writerIndex() - start - LENGTH_PREFIX);
+        return buf;
+    }
+
+    static void writeVarint(ByteBuf buf, int value) {
+        while ((value & ~0x7f) != 0) {
+            buf.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException incomplete varint
+     * @throws NumberFormatException      value does not fit into non-negative int
+     */
+    static int readVarint(ByteBuf buf) throws IndexOutOfBoundsException, NumberFormatException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buf.readByte();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                if (value < 0 || shift == 28 && (b & 0x70) != 0) {
+                    throw new NumberFormatException("varint is too big");
+                }
+                return value;
+            }
+        }
+        throw new NumberFormatException("varint is too long");
+    }
+}
@@ -0,0 +1,240 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.ReductionPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.reactivex.Single;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test the execution modes of the {@link ComputeExecutor}.
+ */
+class ComputeExecutorTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private ComputeExecutor createExecutor(ComputeConfiguration.Mode mode) {
+        ComputeConfiguration configuration = new ComputeConfiguration();
+        configuration.setMode(mode);
+        configuration.setThreads(1);
+        configuration.setQueueSize(1);
+        return new ComputeExecutor(configuration, registry);
+    }
+
+    private static boolean hasVirtualThreads() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    private static Single<Thread> currentThread(ComputeExecutor executor, boolean heavy) {
+        return executor.compute(heavy, Thread::currentThread);
+    }
+
+    private double active() {
+        return registry.get("executor.active").tag("name", ComputeExecutor.NAME).gauge().value();
+    }
+
+    @Test
+    void testEventLoop() {
+        ComputeExecutor executor = createExecutor(ComputeConfiguration.Mode.EVENT_LOOP);
+        assertSame(Thread.currentThread(), currentThread(executor, false).blockingGet());
+        assertSame(Thread.currentThread(), currentThread(executor, true).blockingGet());
+        executor.shutdown();
+    }
+
+    @Test
+    void testPool() {
+        ComputeExecutor executor = createExecutor(ComputeConfiguration.Mode.POOL);
+        assertSame(Thread.currentThread(), currentThread(executor, false).blockingGet());
+        assertEquals("compute-1", currentThread(executor, true).blockingGet().getName());
+        //own bounded pool of the parallel reduction
+        ForkJoinPool pool = executor.getReduction().getPool();
+        assertNotNull(pool);
+        assertNotSame(ForkJoinPool.commonPool(), pool);
+        assertEquals(1, pool.getParallelism());
+        assertEquals(ReductionPolicy.DEFAULT_THRESHOLD, executor.getReduction().getThreshold());
+        assertTrue(pool.submit(() -> Thread.currentThread().getName()).join().startsWith("reduce-"));
+        executor.shutdown();
+        assertTrue(pool.isShutdown());
+    }
+
+    /**
+     * Disposed computation that waits in the queue is removed from it: it does not take the place of the next one.
+     */
+    @Test
+    void testPoolDisposeQueued() throws Exception {
+        ComputeExecutor executor = createExecutor(ComputeConfiguration.Mode.POOL);
+        try {
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+            Future<Boolean> first = executor.compute(true, () -> {
+                running.countDown();
+                return finish.await(10, TimeUnit.SECONDS);
+            }).toFuture();
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            AtomicBoolean started = new AtomicBoolean();
+            executor.compute(true, () -> started.getAndSet(true)).subscribe().dispose();
+            //the queue (of size 1) is free again
+            Future<Thread> next = currentThread(executor, true).toFuture();
+            finish.countDown();
+            assertTrue(first.get(10, TimeUnit.SECONDS));
+            assertEquals("compute-1", next.get(10, TimeUnit.SECONDS).getName());
+            assertFalse(started.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Parallel loop: every index exactly once, all of them by the reduction pool, exceptions propagated.
+     */
+    @Test
+    void testParallelFor() {
+        ComputeExecutor executor = createExecutor(ComputeConfiguration.Mode.POOL);
+        try {
+            AtomicIntegerArray counts = new AtomicIntegerArray(100);
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            executor.parallelFor(counts.length(), i -> {
+                counts.incrementAndGet(i);
+                threads.add(Thread.currentThread().getName());
+            });
+            for (int i = 0; i < counts.length(); i++) {
+                assertEquals(1, counts.get(i), "index " + i);
+            }
+            assertEquals(Collections.singleton("reduce-1"), threads);
+            executor.parallelFor(0, i -> fail("no index expected"));
+            assertThrows(ArithmeticException.class, () -> executor.parallelFor(10, i -> {
+                if (i == 7) {
+                    throw new ArithmeticException("seven");
+                }
+            }));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Heavy computations in the virtual mode: one running, one waiting, the third one rejected; cheap ones are not
+     * limited.
+     */
+    @Test
+    void testVirtual() throws Exception {
+        assumeTrue(hasVirtualThreads(), "virtual threads need Java 21");
+        ComputeExecutor executor = createExecutor(ComputeConfiguration.Mode.VIRTUAL);
+        try {
+            assertNotSame(Thread.currentThread(), currentThread(executor, false).blockingGet());
+
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+            Future<Boolean> first = executor.compute(true, () -> {
+                running.countDown();
+                return finish.await(10, TimeUnit.SECONDS);
+            }).toFuture();
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            assertEquals(1, active());
+            Future<Thread> second = currentThread(executor, true).toFuture();
+            assertThrows(ComputeExecutor.CapacityExceededException.class,
+                    () -> currentThread(executor, true).blockingGet());
+            assertNotNull(currentThread(executor, false).blockingGet());
+            assertFalse(second.isDone());
+
+            finish.countDown();
+            assertTrue(first.get());
+            assertNotNull(second.get());
+            assertEquals(1, registry.get(ComputeExecutor.NAME + ".rejected").counter().count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testVirtualNotAvailable() {
+        assumeFalse(hasVirtualThreads());
+        assertThrows(ConfigurationException.class, () -> createExecutor(ComputeConfiguration.Mode.VIRTUAL));
+    }
+
+    /**
+     * By default, the virtual mode leaves one carrier thread to the cheap computations.
+     */
+    @Test
+    void testVirtualDefaultThreads() {
+        ComputeConfiguration configuration = new ComputeConfiguration();
+        assertEquals(Runtime.getRuntime().availableProcessors(), configuration.getEffectiveThreads());
+        configuration.setMode(ComputeConfiguration.Mode.VIRTUAL);
+        assertEquals(Math.max(1, ComputeConfiguration.getVirtualThreadParallelism() - 1),
+                configuration.getEffectiveThreads());
+        String property = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+        try {
+            System.setProperty("jdk.virtualThreadScheduler.parallelism", "4");
+            assertEquals(3, configuration.getEffectiveThreads());
+            System.setProperty("jdk.virtualThreadScheduler.parallelism", "1");
+            assertEquals(1, configuration.getEffectiveThreads());
+        } finally {
+            if (property == null) {
+                System.clearProperty("jdk.virtualThreadScheduler.parallelism");
+            } else {
+                System.setProperty("jdk.virtualThreadScheduler.parallelism", property);
+            }
+        }
+        configuration.setThreads(7);
+        assertEquals(7, configuration.getEffectiveThreads());
+    }
+
+    /**
+     * Heavy computations that hold their carrier threads (busy loop, no blocking) up to the default limit: cheap
+     * computations still run, the next heavy one waits.
+     */
+    @Test
+    void testVirtualCheapNotStarved() throws Exception {
+        assumeTrue(hasVirtualThreads(), "virtual threads need Java 21");
+        assumeTrue(ComputeConfiguration.getVirtualThreadParallelism() > 1, "needs at least two carrier threads");
+        ComputeConfiguration configuration = new ComputeConfiguration();
+        configuration.setMode(ComputeConfiguration.Mode.VIRTUAL);
+        ComputeExecutor executor = new ComputeExecutor(configuration, registry);
+        AtomicBoolean stop = new AtomicBoolean();
+        try {
+            int threads = configuration.getEffectiveThreads();
+            CountDownLatch running = new CountDownLatch(threads);
+            List<Future<Boolean>> heavy = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                heavy.add(executor.compute(true, () -> {
+                    running.countDown();
+                    while (!stop.get()) {
+                        Thread.onSpinWait();
+                    }
+                    return true;
+                }).toFuture());
+            }
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            assertEquals(threads, active());
+            Future<Thread> waiting = currentThread(executor, true).toFuture();
+            assertNotNull(currentThread(executor, false).timeout(10, TimeUnit.SECONDS).blockingGet());
+            assertFalse(waiting.isDone());
+
+            stop.set(true);
+            for (Future<Boolean> future : heavy) {
+                assertTrue(future.get(10, TimeUnit.SECONDS));
+            }
+            assertNotNull(waiting.get(10, TimeUnit.SECONDS));
+        } finally {
+            stop.set(true);
+            executor.shutdown();
+        }
+    }
+}
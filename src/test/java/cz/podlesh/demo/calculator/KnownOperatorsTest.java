@@ -0,0 +1,68 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.BinaryOperator;
+import cz.podlesh.demo.calculator.op.NumberTheoryOperator;
+import cz.podlesh.demo.calculator.op.Operator;
+import cz.podlesh.demo.calculator.op.UnaryOperator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the operator lookup of {@link KnownOperators}.
+ */
+class KnownOperatorsTest {
+
+    private final KnownOperators operators = new KnownOperators();
+
+    @Test
+    void testFindOperator() {
+        assertSame(BinaryOperator.PLUS, operators.findOperator("+"));
+        assertSame(BinaryOperator.PLUS, operators.findOperator("plus"));
+        assertSame(BinaryOperator.PLUS, operators.findOperator("PLUS"));
+        assertSame(UnaryOperator.NEGATE, operators.findOperator("+/-"));
+        assertSame(UnaryOperator.NEGATE, operators.findOperator("NeGaTe"));
+        assertSame(UnaryOperator.FACT, operators.findOperator("X!"));
+        assertSame(UnaryOperator.SQUARE, operators.findOperator("x^2"));
+        assertSame(NumberTheoryOperator.MODINVERSE, operators.findOperator("modinv"));
+        assertSame(NumberTheoryOperator.MODINVERSE, operators.findOperator("ModInverse"));
+        //all the names of the map are found
+        for (Map.Entry<String, Operator> entry : operators.getOperatorsByName().entrySet()) {
+            assertSame(entry.getValue(), operators.findOperator(entry.getKey()));
+            assertSame(entry.getValue(), operators.findOperator(entry.getKey().toUpperCase()));
+        }
+    }
+
+    @Test
+    void testUnknownOperator() {
+        KnownOperators.InvalidOperatorException e =
+                assertThrows(KnownOperators.InvalidOperatorException.class, () -> operators.findOperator("?"));
+        assertEquals("unsupported operator: ?", e.getMessage());
+        assertEquals("?", e.getName());
+        assertThrows(KnownOperators.InvalidOperatorException.class, () -> operators.findOperator(""));
+        assertThrows(KnownOperators.InvalidOperatorException.class, () -> operators.findOperator("plus2"));
+        assertThrows(KnownOperators.InvalidOperatorException.class, () -> operators.findOperator(null));
+        //prefix of known names: suggested
+        e = assertThrows(KnownOperators.InvalidOperatorException.class, () -> operators.findOperator("M"));
+        assertEquals("unsupported operator: M (did you mean minus, modinverse, modpow, mul?)", e.getMessage());
+    }
+
+    @Test
+    void testFindOperatorsByPrefix() {
+        assertEquals(Arrays.asList(BinaryOperator.MINUS, NumberTheoryOperator.MODINVERSE, NumberTheoryOperator.MODPOW,
+                BinaryOperator.MUL), operators.findOperatorsByPrefix("m"));
+        assertEquals(Collections.singletonList(NumberTheoryOperator.MODINVERSE), operators.findOperatorsByPrefix("modi"));
+        assertEquals(Collections.singletonList(BinaryOperator.MUL), operators.findOperatorsByPrefix("MU"));
+        assertEquals(Collections.singletonList(BinaryOperator.MUL), operators.findOperatorsByPrefix("mul"));
+        assertEquals(Arrays.asList(BinaryOperator.PLUS, UnaryOperator.NEGATE), operators.findOperatorsByPrefix("+"));
+        assertEquals(Arrays.asList(UnaryOperator.FACT, UnaryOperator.SQUARE), operators.findOperatorsByPrefix("X"));
+        assertEquals(Collections.emptyList(), operators.findOperatorsByPrefix("mull"));
+        assertEquals(Collections.emptyList(), operators.findOperatorsByPrefix("?"));
+        //each operator once, even when both its names match
+        assertEquals(operators.getOperators().size(), operators.findOperatorsByPrefix("").size());
+    }
+}
@@ -0,0 +1,105 @@
+package cz.podlesh.demo.calculator;
+
+import cz.podlesh.demo.calculator.op.BigFactorization;
+import cz.podlesh.demo.calculator.op.BinaryOperator;
+import cz.podlesh.demo.calculator.op.UnaryOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the {@link ResultCache}: cached results must be the same as computed ones.
+ */
+class ResultCacheTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private ResultCache createCache(long maxWeight, String... operators) {
+        ResultCacheConfiguration configuration = new ResultCacheConfiguration();
+        configuration.setOperators(Arrays.asList(operators));
+        configuration.setMaxWeight(maxWeight);
+        return new ResultCache(configuration, new KnownOperators(), BigFactorization.DEFAULT, registry);
+    }
+
+    private double gets(String cache, String result) {
+        return registry.get("cache.gets").tag("cache", ResultCache.CACHE_NAME_PREFIX + cache).tag("result", result)
+                .functionCounter().count();
+    }
+
+    @Test
+    void testCachedOperators() {
+        ResultCache cache = createCache(1_000_000, "x!", "div");
+        assertTrue(cache.isCached(UnaryOperator.FACT));
+        assertTrue(cache.isCached(BinaryOperator.DIV));
+        assertFalse(cache.isCached(BinaryOperator.PLUS));
+        assertEquals(new BigDecimal(3), cache.apply(BinaryOperator.PLUS, Arrays.asList(BigDecimal.ONE, new BigDecimal(2)), null));
+    }
+
+    @Test
+    void testHits() {
+        ResultCache cache = createCache(1_000_000, "fact", "/");
+        List<BigDecimal> arguments = Collections.singletonList(new BigDecimal(1000));
+        BigDecimal first = cache.apply(UnaryOperator.FACT, arguments, null);
+        BigDecimal second = cache.apply(UnaryOperator.FACT, Collections.singletonList(new BigDecimal(1000)), null);
+        assertSame(first, second);
+        assertEquals(1, gets("fact", "miss"));
+        assertEquals(1, gets("fact", "hit"));
+
+        //null and unlimited math context are the same
+        List<BigDecimal> division = Arrays.asList(BigDecimal.TEN, new BigDecimal(3));
+        assertSame(cache.apply(BinaryOperator.DIV, division, null),
+                cache.apply(BinaryOperator.DIV, division, MathContext.UNLIMITED));
+        //but other math context is not
+        assertEquals("3.33", cache.apply(BinaryOperator.DIV, division, new MathContext(3)).toString());
+        //and scale of the operands matters too
+        assertEquals("4", cache.apply(BinaryOperator.DIV, Arrays.asList(new BigDecimal("12"), new BigDecimal("3")), null).toString());
+        assertEquals("4.0", cache.apply(BinaryOperator.DIV, Arrays.asList(new BigDecimal("12.0"), new BigDecimal("3")), null).toString());
+        assertEquals(4, gets("div", "miss"));
+    }
+
+    @Test
+    void testErrorsNotCached() {
+        ResultCache cache = createCache(1_000_000, "/");
+        List<BigDecimal> arguments = Arrays.asList(BigDecimal.TEN, BigDecimal.ZERO);
+        assertThrows(ArithmeticException.class, () -> cache.apply(BinaryOperator.DIV, arguments, null));
+        assertThrows(ArithmeticException.class, () -> cache.apply(BinaryOperator.DIV, arguments, null));
+        assertEquals(0, gets("div", "hit"));
+        assertEquals(2, gets("div", "miss"));
+    }
+
+    @Test
+    void testWeight() {
+        //factorial of 1000 has 2568 digits: only a few fit in
+        ResultCache cache = createCache(10_000, "fact");
+        for (int n = 1000; n < 1020; n++) {
+            cache.apply(UnaryOperator.FACT, Collections.singletonList(new BigDecimal(n)), null);
+        }
+        for (int n = 1000; n < 1020; n++) {
+            cache.apply(UnaryOperator.FACT, Collections.singletonList(new BigDecimal(n)), null);
+        }
+        assertTrue(gets("fact", "hit") <= 4, "too many hits: " + gets("fact", "hit"));
+        assertTrue(registry.get("cache.evictions").tag("cache", ResultCache.CACHE_NAME_PREFIX + "fact")
+                .functionCounter().count() > 0);
+    }
+
+    @Test
+    void testFactorization() {
+        ResultCache cache = createCache(1_000_000);
+        BigInteger n = BigInteger.valueOf(2147483647).multiply(BigInteger.valueOf(2147483629));
+        BigFactorization.Result first = cache.factorize(n, Duration.ofSeconds(10));
+        assertTrue(first.isComplete());
+        assertSame(first, cache.factorize(n, Duration.ofSeconds(10)));
+        assertEquals(1, gets("prime", "hit"));
+    }
+
+}
@@ -0,0 +1,132 @@
+package cz.podlesh.demo.calculator.api;
+
+import cz.podlesh.demo.calculator.AccumulatorSessions;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.RxStreamingHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.annotation.MicronautTest;
+import io.reactivex.Flowable;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the accumulator sessions: arguments appended over several requests and streams.
+ */
+@MicronautTest
+public class AccumulatorApiTest {
+
+    @SuppressWarnings("unused")
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    @Client("/calculator/basic")
+    RxStreamingHttpClient basicCalc;
+
+    @Inject
+    AccumulatorSessions accumulatorSessions;
+
+    private static FullOperation chunk(String op, long... args) {
+        BigDecimal[] arguments = new BigDecimal[args.length];
+        for (int i = 0; i < args.length; i++) {
+            arguments[i] = BigDecimal.valueOf(args[i]);
+        }
+        return new FullOperation(op, arguments);
+    }
+
+    private HttpResponse<AccumulatorResult> exchange(HttpRequest<?> request) {
+        return basicCalc.toBlocking().exchange(request, AccumulatorResult.class);
+    }
+
+    private HttpStatus errorStatus(HttpRequest<?> request) {
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> basicCalc.toBlocking().exchange(request, Argument.of(AccumulatorResult.class),
+                        Argument.of(String.class)));
+        return e.getStatus();
+    }
+
+    @Test
+    void testSession() {
+        HttpResponse<AccumulatorResult> response = exchange(HttpRequest.POST("/accumulators", chunk("+", 1, 2)));
+        assertEquals(HttpStatus.CREATED, response.getStatus());
+        AccumulatorResult opened = response.body();
+        assertNotNull(opened.id);
+        assertEquals("/calculator/basic/accumulators/" + opened.id, response.getHeaders().get("Location"));
+        assertEquals("+", opened.operator);
+        assertEquals(2, opened.count);
+        assertEquals(BigDecimal.valueOf(3), opened.result);
+        String uri = "/accumulators/" + opened.id;
+        //more chunks, the operator can be omitted
+        AccumulatorResult result = exchange(HttpRequest.POST(uri, chunk(null, 10, 20, 30))).body();
+        assertEquals(5, result.count);
+        assertEquals(BigDecimal.valueOf(63), result.result);
+        result = exchange(HttpRequest.POST(uri, chunk("plus", 100))).body();
+        assertEquals(BigDecimal.valueOf(163), result.result);
+        //other operator: refused
+        assertEquals(HttpStatus.BAD_REQUEST, errorStatus(HttpRequest.POST(uri, chunk("*", 2))));
+        //read, close
+        result = exchange(HttpRequest.GET(uri)).body();
+        assertEquals(6, result.count);
+        assertEquals(BigDecimal.valueOf(163), result.result);
+        result = exchange(HttpRequest.DELETE(uri)).body();
+        assertEquals(BigDecimal.valueOf(163), result.result);
+        assertEquals(HttpStatus.NOT_FOUND, errorStatus(HttpRequest.GET(uri)));
+        assertEquals(HttpStatus.NOT_FOUND, errorStatus(HttpRequest.POST(uri, chunk(null, 1))));
+        assertEquals(HttpStatus.NOT_FOUND, errorStatus(HttpRequest.DELETE(uri)));
+    }
+
+    @Test
+    void testInvalidSession() {
+        //only operators with unlimited number of arguments
+        assertEquals(HttpStatus.BAD_REQUEST, errorStatus(HttpRequest.POST("/accumulators", chunk("-"))));
+        assertEquals(HttpStatus.BAD_REQUEST, errorStatus(HttpRequest.POST("/accumulators", chunk("?"))));
+        assertEquals(HttpStatus.NOT_FOUND, errorStatus(HttpRequest.GET("/accumulators/nonsense")));
+        //invalid first chunk: no session is left behind
+        long sessions = accumulatorSessions.getSessionCount();
+        assertEquals(HttpStatus.BAD_REQUEST, errorStatus(HttpRequest.POST("/accumulators",
+                new FullOperation("+", new BigDecimal[]{BigDecimal.ONE, null}))));
+        assertEquals(sessions, accumulatorSessions.getSessionCount());
+    }
+
+    @Test
+    void testPrecision() {
+        AccumulatorResult opened = exchange(HttpRequest.POST("/accumulators?precision=3", chunk("*"))).body();
+        assertNull(opened.result);
+        assertEquals(0, opened.count);
+        AccumulatorResult result = exchange(HttpRequest.POST("/accumulators/" + opened.id,
+                chunk("*", 1234, 1, 1))).body();
+        //same as a single operation: rounded after each step
+        assertEquals(new BigDecimal("1.23E+3"), result.result);
+    }
+
+    @Test
+    void testStream() {
+        String id = exchange(HttpRequest.POST("/accumulators", chunk("*", 2))).body().id;
+        List<AccumulatorResult> results = basicCalc.jsonStream(
+                HttpRequest.POST("/accumulators/" + id + "/stream",
+                        Flowable.range(1, 10).map(i -> i == 5 ? chunk("+", 1) : chunk(null, 2, 1)))
+                        .contentType(MediaType.APPLICATION_JSON_STREAM_TYPE)
+                        .accept(MediaType.APPLICATION_JSON_STREAM_TYPE),
+                AccumulatorResult.class
+        ).toList().blockingGet();
+        assertEquals(10, results.size());
+        assertEquals(BigDecimal.valueOf(4), results.get(0).result);
+        //wrong operator: reported, not appended
+        assertNotNull(results.get(4).error);
+        assertEquals(BigDecimal.valueOf(32), results.get(4).result);
+        assertEquals(BigDecimal.valueOf(1024), results.get(9).result);
+        assertEquals(19, results.get(9).count);
+        assertEquals(BigDecimal.valueOf(1024), exchange(HttpRequest.GET("/accumulators/" + id)).body().result);
+    }
+}
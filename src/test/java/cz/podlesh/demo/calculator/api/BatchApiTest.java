@@ -0,0 +1,171 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cz.podlesh.demo.calculator.BatchConfiguration;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static io.micronaut.http.HttpStatus.BAD_REQUEST;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the batch API.
+ */
+@MicronautTest
+public class BatchApiTest {
+
+    @SuppressWarnings("unused")
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    ObjectMapper jackson;
+    @Inject
+    BatchConfiguration batchConfiguration;
+
+    @Inject
+    @Client("/calculator/scientific")
+    HttpClient sciCalc;
+    @Inject
+    @Client("/calculator/basic")
+    HttpClient basicCalc;
+
+    private FullOperationResult[] invokeBatch(HttpClient client, ArrayNode request, Integer precision) {
+        String uri = precision == null ? "/batch" : "/batch?precision=" + precision;
+        return client.toBlocking()
+                .retrieve(HttpRequest.POST(uri, request),
+                        Argument.of(FullOperationResult[].class), Argument.of(ObjectNode.class)
+                );
+    }
+
+    private static void addOperation(ArrayNode request, String op, String... args) {
+        ObjectNode operation = request.addObject();
+        operation.put("operator", op);
+        ArrayNode arguments = operation.putArray("arguments");
+        for (String arg : args) {
+            arguments.add(arg);
+        }
+    }
+
+    @Test
+    void testBatchWithErrors() {
+        ArrayNode request = jackson.createArrayNode();
+        addOperation(request, "+", "1", "2.4", "77");
+        addOperation(request, "/", "12", "0");
+        addOperation(request, "?", "1");
+        addOperation(request, "/", "12");
+        addOperation(request, "x!", "5");
+        addOperation(request, "/", "10", "12");
+
+        FullOperationResult[] results = invokeBatch(basicCalc, request, null);
+        assertEquals(6, results.length);
+        assertEquals("+", results[0].operator);
+        assertEquals("80.4", results[0].result.toString());
+        assertNull(results[0].error);
+        assertEquals("Division by zero", results[1].error);
+        assertNull(results[1].result);
+        assertEquals("unsupported operator: ?", results[2].error);
+        assertNotNull(results[3].error);
+        assertNull(results[3].result);
+        //not available in basic calculator
+        assertNotNull(results[4].error);
+        assertEquals("0.8333333333333333", results[5].result.toString());
+
+        //but this one is OK in the scientific one
+        results = invokeBatch(sciCalc, request, 6);
+        assertEquals("120", results[4].result.toString());
+        assertEquals("0.833333", results[5].result.toString());
+    }
+
+    @Test
+    void testParallelBatchOrder() {
+        int size = batchConfiguration.getParallelThreshold() * 4;
+        ArrayNode request = jackson.createArrayNode();
+        for (int i = 0; i < size; i++) {
+            addOperation(request, "*", Integer.toString(i), "3");
+        }
+        FullOperationResult[] results = invokeBatch(sciCalc, request, null);
+        assertEquals(size, results.length);
+        for (int i = 0; i < size; i++) {
+            assertNull(results[i].error);
+            assertEquals(BigDecimal.valueOf(i), results[i].getArguments().get(0));
+            assertEquals(BigDecimal.valueOf(3L * i), results[i].result);
+        }
+    }
+
+    @Test
+    void testEmptyBatch() {
+        assertEquals(0, invokeBatch(basicCalc, jackson.createArrayNode(), null).length);
+    }
+
+    @Test
+    void testTooBigBatch() {
+        ArrayNode request = jackson.createArrayNode();
+        for (int i = 0; i <= batchConfiguration.getMaxSize(); i++) {
+            addOperation(request, "+/-", "1");
+        }
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> invokeBatch(basicCalc, request, null));
+        assertEquals(BAD_REQUEST, e.getStatus());
+    }
+
+    @Test
+    void testTooManyArguments() {
+        ArrayNode request = jackson.createArrayNode();
+        String[] args = new String[batchConfiguration.getMaxArguments() / 2 + 1];
+        Arrays.fill(args, "1");
+        addOperation(request, "+", args);
+        addOperation(request, "*", args);
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> invokeBatch(basicCalc, request, null));
+        assertEquals(BAD_REQUEST, e.getStatus());
+    }
+
+    @Test
+    void testColumns() {
+        ObjectNode request = jackson.createObjectNode();
+        request.put("operator", "/");
+        ArrayNode columns = request.putArray("columns");
+        ArrayNode dividends = columns.addArray();
+        ArrayNode divisors = columns.addArray();
+        dividends.add("12").add("10").add("1").add("10000000000000000000000000000000000000000001");
+        divisors.add("10").add("12").add("0").add("3");
+        ColumnOperationResult result = basicCalc.toBlocking()
+                .retrieve(HttpRequest.POST("/columns", request),
+                        Argument.of(ColumnOperationResult.class), Argument.of(ObjectNode.class)
+                );
+        assertEquals("/", result.operator);
+        assertEquals(4, result.result.length);
+        assertEquals("1.2", result.result[0].toString());
+        assertEquals("0.8333333333333333", result.result[1].toString());
+        assertNull(result.result[2]);
+        assertEquals("Division by zero", result.errors[2]);
+        assertEquals("3333333333333333333333333333333333333333333.6666666666666667", result.result[3].toString());
+    }
+
+    @Test
+    void testColumnsBadRequest() {
+        ObjectNode request = jackson.createObjectNode();
+        request.put("operator", "+");
+        ArrayNode columns = request.putArray("columns");
+        columns.addArray().add("1").add("2");
+        columns.addArray().add("1");
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> basicCalc.toBlocking().retrieve(HttpRequest.POST("/columns", request),
+                        Argument.of(ColumnOperationResult.class), Argument.of(ObjectNode.class)));
+        assertEquals(BAD_REQUEST, e.getStatus());
+    }
+
+}
@@ -76,6 +76,31 @@ public class CalculatorTest {
         );
     }
 
+    @Test
+    void testListOperandsNotModified() {
+        HttpResponse<String> response = basicCalc.toBlocking().exchange(HttpRequest.GET("/"), String.class);
+        String etag = response.getHeaders().get("ETag");
+        assertNotNull(etag);
+        assertTrue(response.body().contains("\"operators\""));
+        //same list for the same calculator, different for the other one
+        assertEquals(etag, basicCalc.toBlocking().exchange(HttpRequest.GET("/"), String.class)
+                .getHeaders().get("ETag"));
+        assertNotEquals(etag, sciCalc.toBlocking().exchange(HttpRequest.GET("/"), String.class)
+                .getHeaders().get("ETag"));
+        //conditional requests
+        response = basicCalc.toBlocking().exchange(HttpRequest.GET("/").header("If-None-Match", etag), String.class);
+        assertEquals(NOT_MODIFIED, response.getStatus());
+        assertEquals(etag, response.getHeaders().get("ETag"));
+        assertFalse(response.getBody().isPresent());
+        response = basicCalc.toBlocking().exchange(HttpRequest.GET("/")
+                .header("If-None-Match", "\"other\", W/" + etag), String.class);
+        assertEquals(NOT_MODIFIED, response.getStatus());
+        response = basicCalc.toBlocking().exchange(HttpRequest.GET("/").header("If-None-Match", "\"other\""),
+                String.class);
+        assertEquals(OK, response.getStatus());
+        assertTrue(response.getBody().isPresent());
+    }
+
     @Test
     void testUnsupportedOperand() {
         FullOperation request = new FullOperation("?", null);
@@ -251,6 +276,35 @@ public class CalculatorTest {
                 {"*", false, new String[]{"1000000", "12001"}, 2, OK, "1.2E+10"},
                 {"/", false, new String[]{"10", "12"}, 6, OK, "0.833333"},
                 {"/", false, new String[]{"20", "12"}, 6, OK, "1.66667"},
+                {"/", false, new String[]{"20", "12"}, -1, BAD_REQUEST, null},
+                {"/", false, new String[]{"20", "12"}, 100_001, BAD_REQUEST, null},
+
+                //scientific functions: unlimited precision means the default one
+                {"sqrt", true, new String[]{"2"}, null, OK, "1.414213562373095048801688724209698"},
+                {"sqrt", true, new String[]{"2"}, 10, OK, "1.414213562"},
+                {"sqrt", true, new String[]{"6.25"}, null, OK, "2.5"},
+                {"sqrt", true, new String[]{"-1"}, null, OK, null},
+                {"sqrt", true, new String[]{"1", "2"}, null, BAD_REQUEST, null},
+                {"pow", true, new String[]{"2", "0.5"}, 5, OK, "1.4142"},
+                {"pow", true, new String[]{"0", "-1"}, null, OK, null},
+                {"ln", true, new String[]{"10"}, 8, OK, "2.3025851"},
+                {"ln", true, new String[]{"0"}, null, OK, null},
+                {"exp", true, new String[]{"1"}, 8, OK, "2.7182818"},
+                {"exp", true, new String[]{"1"}, 10_001, OK, null},
+                {"sin", true, new String[]{"1"}, 8, OK, "0.84147098"},
+                {"atan", true, new String[]{"1"}, 8, OK, "0.78539816"},
+                {"pi", true, new String[]{}, 6, OK, "3.14159"},
+
+                //number theory: exact integers, precision does not matter
+                {"modpow", true, new String[]{"4", "13", "497"}, null, OK, "445"},
+                {"modpow", true, new String[]{"4", "13", "497"}, 1, OK, "445"},
+                {"modpow", true, new String[]{"4", "13", "0"}, null, OK, null},
+                {"modpow", true, new String[]{"4", "13"}, null, BAD_REQUEST, null},
+                {"modinverse", true, new String[]{"3", "7"}, null, OK, "5"},
+                {"gcd", true, new String[]{"12", "18", "27"}, null, OK, "3"},
+                {"lcm", true, new String[]{"4", "6"}, null, OK, "12"},
+                {"lcm", true, new String[]{"4", "6.5"}, null, OK, null},
+                {"jacobi", true, new String[]{"1001", "9907"}, null, OK, "-1"},
         };
     }
 
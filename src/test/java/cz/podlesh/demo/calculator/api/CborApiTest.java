@@ -0,0 +1,224 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.exceptions.ContentLengthExceededException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.annotation.MicronautTest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the binary content type (CBOR): requests and responses, content negotiation.
+ */
+@MicronautTest
+public class CborApiTest {
+
+    @SuppressWarnings("unused")
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    @Client("/calculator")
+    HttpClient client;
+
+    @Inject
+    CborMediaTypeCodec codec;
+
+    private HttpResponse<JsonNode> exchange(HttpRequest<?> request) {
+        return client.toBlocking().exchange(request, JsonNode.class);
+    }
+
+    private JsonNode parse(HttpResponse<JsonNode> response) {
+        assertEquals(CborMediaTypeCodec.APPLICATION_CBOR_TYPE, response.getContentType().orElse(null));
+        return response.body();
+    }
+
+    private static BigDecimal decimal(JsonNode node) throws Exception {
+        assertTrue(node.isBinary(), node.toString());
+        return BinaryNumbers.decodeDecimal(node.binaryValue());
+    }
+
+    @Test
+    void testOperation() throws Exception {
+        FullOperation operation = new FullOperation("x!", new BigDecimal[]{new BigDecimal(100)});
+        HttpResponse<JsonNode> response = exchange(HttpRequest.POST("/scientific", operation)
+                .contentType(CborMediaTypeCodec.APPLICATION_CBOR_TYPE)
+                .accept(CborMediaTypeCodec.APPLICATION_CBOR_TYPE));
+        JsonNode result = parse(response);
+        assertEquals("x!", result.get("operator").textValue());
+        assertEquals(new BigDecimal(100), decimal(result.get("arguments").get(0)));
+        BigDecimal expected = new BigDecimal(new BigInteger(
+                "93326215443944152681699238856266700490715968264381621468592963895217599993229915608941463976156518286253697920827223758251185210916864000000000000000000000000"));
+        assertEquals(expected, decimal(result.get("result")));
+        //smaller than JSON
+        String json = client.toBlocking().retrieve(HttpRequest.POST("/scientific", operation));
+        assertTrue(codec.encode(result).length < json.length() * 2 / 3);
+        //and the same when decoded by the codec
+        assertEquals(expected, codec.getObjectMapper().treeToValue(result, FullOperationResult.class).result);
+        assertEquals(operation.toString(), codec.decode(FullOperation.class, codec.encode(operation)).toString());
+    }
+
+    @Test
+    void testNegotiation() throws Exception {
+        FullOperation operation = new FullOperation("+", new BigDecimal[]{new BigDecimal("1.5"), BigDecimal.ONE});
+        //JSON request, binary response
+        HttpResponse<JsonNode> response = exchange(HttpRequest.POST("/basic", operation)
+                .accept(CborMediaTypeCodec.APPLICATION_CBOR_TYPE));
+        assertEquals(new BigDecimal("2.5"), decimal(parse(response).get("result")));
+        //binary request, JSON response
+        response = exchange(HttpRequest.POST("/basic", operation)
+                .contentType(CborMediaTypeCodec.APPLICATION_CBOR_TYPE));
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getContentType().orElse(null));
+        assertEquals("2.5", response.body().get("result").textValue());
+        //operator list
+        response = exchange(HttpRequest.GET("/basic").accept(CborMediaTypeCodec.APPLICATION_CBOR_TYPE));
+        assertTrue(parse(response).get("operators").isArray());
+        //the representations have different entity tags
+        String etag = response.getHeaders().get("ETag");
+        assertNotNull(etag);
+        assertNotEquals(etag, exchange(HttpRequest.GET("/basic")).getHeaders().get("ETag"));
+        response = exchange(HttpRequest.GET("/basic").accept(CborMediaTypeCodec.APPLICATION_CBOR_TYPE)
+                .header("If-None-Match", etag));
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatus());
+        assertEquals(HttpStatus.OK, exchange(HttpRequest.GET("/basic").header("If-None-Match", etag)).getStatus());
+    }
+
+    @Test
+    void testFactorization() throws Exception {
+        BigInteger big = BigInteger.valueOf(1_000_000_007L).multiply(BigInteger.valueOf(998_244_353L));
+        FullOperation operation = new FullOperation("prime", new BigDecimal[]{new BigDecimal(big.shiftLeft(3))});
+        HttpResponse<JsonNode> response = exchange(HttpRequest.POST("/scientific/prime", operation)
+                .contentType(CborMediaTypeCodec.APPLICATION_CBOR_TYPE)
+                .accept(CborMediaTypeCodec.APPLICATION_CBOR_TYPE));
+        JsonNode result = parse(response);
+        assertTrue(result.get("result").isBinary());
+        assertArrayEquals(new BigInteger[]{BigInteger.TWO, BigInteger.TWO, BigInteger.TWO,
+                        BigInteger.valueOf(998_244_353L), BigInteger.valueOf(1_000_000_007L)},
+                BinaryNumbers.decodeVarints(result.get("result").binaryValue()));
+        assertFalse(result.get("prime").booleanValue());
+    }
+
+    @Test
+    void testBatchAndErrors() throws Exception {
+        FullOperation[] batch = {
+                new FullOperation("/", new BigDecimal[]{BigDecimal.ONE, new BigDecimal(4)}),
+                new FullOperation("/", new BigDecimal[]{BigDecimal.ONE, BigDecimal.ZERO}),
+        };
+        JsonNode results = parse(exchange(HttpRequest.POST("/basic/batch", batch)
+                .contentType(CborMediaTypeCodec.APPLICATION_CBOR_TYPE)
+                .accept(CborMediaTypeCodec.APPLICATION_CBOR_TYPE)));
+        assertEquals(new BigDecimal("0.25"), decimal(results.get(0).get("result")));
+        assertNotNull(results.get(1).get("error"));
+
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> exchange(HttpRequest.POST("/basic/nonsense", batch[0])
+                        .contentType(CborMediaTypeCodec.APPLICATION_CBOR_TYPE)
+                        .accept(CborMediaTypeCodec.APPLICATION_CBOR_TYPE)));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatus());
+        //errors are always JSON
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, e.getResponse().getContentType().orElse(null));
+    }
+
+
+    /**
+     * Processor of the request body: parsed on completion, and the buffered content is released on cancel or when
+     * the body is too big.
+     */
+    @Test
+    void testContentProcessor() throws Exception {
+        byte[] body = codec.getObjectMapper().writeValueAsBytes(new FullOperation("x!", new BigDecimal[]{BigDecimal.TEN}));
+        List<Object> received = new ArrayList<>();
+
+        //complete
+        ByteBuf chunk = Unpooled.wrappedBuffer(body);
+        subscribe(processor(chunk, true, 1000), received, false);
+        assertEquals(1, received.size());
+        assertEquals("x!", ((JsonNode) received.get(0)).get("operator").textValue());
+        assertEquals(0, chunk.refCnt());
+
+        //cancelled before the end of the body
+        received.clear();
+        chunk = Unpooled.wrappedBuffer(body);
+        subscribe(processor(chunk, false, 1000), received, true);
+        assertTrue(received.isEmpty(), received.toString());
+        assertEquals(0, chunk.refCnt());
+
+        //too big
+        chunk = Unpooled.wrappedBuffer(body);
+        subscribe(processor(chunk, false, body.length - 1), received, false);
+        assertEquals(1, received.size());
+        assertTrue(received.get(0) instanceof ContentLengthExceededException, received.toString());
+        assertEquals(0, chunk.refCnt());
+    }
+
+    private CborContentSubscriberFactory.CborContentProcessor processor(ByteBuf chunk, boolean complete, long maxLength) {
+        Publisher<ByteBufHolder> source = subscriber -> subscriber.onSubscribe(new Subscription() {
+            private boolean sent;
+
+            @Override
+            public void request(long n) {
+                if (!sent) {
+                    sent = true;
+                    subscriber.onNext(new DefaultHttpContent(chunk));
+                    if (complete) {
+                        subscriber.onComplete();
+                    }
+                }
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        return new CborContentSubscriberFactory.CborContentProcessor(source, -1, maxLength,
+                UnpooledByteBufAllocator.DEFAULT, codec.getObjectMapper());
+    }
+
+    private static void subscribe(Publisher<JsonNode> processor, List<Object> received, boolean cancel) {
+        processor.subscribe(new Subscriber<JsonNode>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(1);
+                if (cancel) {
+                    subscription.cancel();
+                }
+            }
+
+            @Override
+            public void onNext(JsonNode node) {
+                received.add(node);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                received.add(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+}
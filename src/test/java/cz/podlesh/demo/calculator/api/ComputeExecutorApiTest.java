@@ -0,0 +1,91 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cz.podlesh.demo.calculator.ComputeExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micronaut.context.annotation.Property;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.annotation.MicronautTest;
+import io.reactivex.Flowable;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the compute executor: with single thread and no queue, second heavy computation must be rejected, while
+ * cheap operations are still evaluated.
+ */
+@MicronautTest
+@Property(name = "calculator.compute.threads", value = "1")
+@Property(name = "calculator.compute.queue-size", value = "0")
+@Property(name = "calculator.factorization.time-budget", value = "3s")
+public class ComputeExecutorApiTest {
+
+    @SuppressWarnings("unused")
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    @Client("/calculator/scientific")
+    HttpClient sciCalc;
+
+    @Inject
+    MeterRegistry registry;
+
+    /**
+     * Product of two 160-bit primes: the factorization takes the whole time budget.
+     */
+    private static FullOperation hardFactorization() {
+        Random random = new Random(42);
+        BigInteger n = BigInteger.probablePrime(160, random).multiply(BigInteger.probablePrime(160, random));
+        return new FullOperation("prime", new BigDecimal[]{new BigDecimal(n)});
+    }
+
+    private double active() {
+        return registry.get("executor.active").tag("name", ComputeExecutor.NAME).gauge().value();
+    }
+
+    @Test
+    void testRejected() throws Exception {
+        //occupy the only thread
+        Future<FactorizationResult> first = Flowable.fromPublisher(sciCalc.retrieve(
+                HttpRequest.POST("/prime", hardFactorization()), FactorizationResult.class)).toFuture();
+        for (int i = 0; i < 100 && active() < 1; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, active());
+
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> sciCalc.toBlocking().retrieve(HttpRequest.POST("/x!",
+                        new FullOperation("x!", new BigDecimal[]{new BigDecimal(1000)}))));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        assertThrows(HttpClientResponseException.class,
+                () -> sciCalc.toBlocking().retrieve(HttpRequest.POST("/prime", hardFactorization())));
+
+        //cheap operations are not affected
+        FullOperationResult cheap = sciCalc.toBlocking().retrieve(
+                HttpRequest.POST("/", new FullOperation("x!", new BigDecimal[]{new BigDecimal(20)})),
+                Argument.of(FullOperationResult.class), Argument.of(ObjectNode.class));
+        assertEquals(new BigDecimal("2432902008176640000"), cheap.result);
+        FactorizationResult small = sciCalc.toBlocking().retrieve(
+                HttpRequest.POST("/prime", new FullOperation("prime", new BigDecimal[]{new BigDecimal(1001)})),
+                FactorizationResult.class);
+        assertEquals(3, small.result.length);
+
+        assertNotNull(first.get().cofactor);
+        assertTrue(registry.get(ComputeExecutor.NAME + ".rejected").counter().count() >= 2);
+    }
+
+}
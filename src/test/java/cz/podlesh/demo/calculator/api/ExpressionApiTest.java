@@ -0,0 +1,134 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cz.podlesh.demo.calculator.ExpressionCache;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+
+import static io.micronaut.http.HttpStatus.BAD_REQUEST;
+import static io.micronaut.http.HttpStatus.NOT_FOUND;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the expression API.
+ */
+@MicronautTest
+public class ExpressionApiTest {
+
+    @SuppressWarnings("unused")
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    ObjectMapper jackson;
+    @Inject
+    ExpressionCache expressionCache;
+
+    @Inject
+    @Client("/calculator/scientific")
+    HttpClient sciCalc;
+    @Inject
+    @Client("/calculator/basic")
+    HttpClient basicCalc;
+
+    private ExpressionResult invoke(HttpClient client, String uri, ObjectNode request) {
+        return client.toBlocking()
+                .retrieve(HttpRequest.POST(uri, request),
+                        Argument.of(ExpressionResult.class), Argument.of(ObjectNode.class)
+                );
+    }
+
+    private ObjectNode request(String expression, String... variables) {
+        ObjectNode request = jackson.createObjectNode();
+        request.put("expression", expression);
+        ObjectNode vars = request.putObject("variables");
+        for (int i = 0; i < variables.length; i += 2) {
+            vars.put(variables[i], variables[i + 1]);
+        }
+        return request;
+    }
+
+    @Test
+    void testExpression() {
+        ExpressionResult result = invoke(sciCalc, "/expr", request("(a + b) * c!", "a", "1", "b", "2.5", "c", "4"));
+        assertNull(result.error);
+        assertEquals("84.0", result.result.toString());
+        assertEquals("(a + b) * c!", result.expression);
+        assertEquals(3, result.variables.size());
+
+        //the same expression from the cache
+        int cached = expressionCache.size();
+        result = invoke(sciCalc, "/expr", request("(a + b) * c!", "a", "0", "b", "1", "c", "5"));
+        assertEquals("120", result.result.toString());
+        assertEquals(cached, expressionCache.size());
+    }
+
+    @Test
+    void testPrecision() {
+        ExpressionResult result = invoke(sciCalc, "/expr?precision=3", request("x / 3", "x", "1"));
+        assertEquals("0.333", result.result.toString());
+    }
+
+    @Test
+    void testBindings() {
+        ObjectNode request = request("x^2 - 1");
+        ArrayNode bindings = request.putArray("bindings");
+        for (int i = 0; i < 5; i++) {
+            bindings.addObject().put("x", i);
+        }
+        bindings.addObject().put("x", "0.5");
+        ExpressionResult result = invoke(sciCalc, "/expr", request);
+        assertNull(result.result);
+        assertEquals(6, result.results.length);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.toString(i * i - 1), result.results[i].result.toString());
+        }
+        assertEquals("-0.75", result.results[5].result.toString());
+    }
+
+    @Test
+    void testArithmeticError() {
+        ExpressionResult result = invoke(sciCalc, "/expr", request("1 / (x - 1)", "x", "1"));
+        assertNull(result.result);
+        assertEquals("Division by zero", result.error);
+    }
+
+    @Test
+    void testTooManyDigits() {
+        ExpressionResult result = invoke(sciCalc, "/expr", request("x^2^2^2^2^2^2^2^2^2^2^2^2^2^2^2^2^2^2^2^2", "x", "9"));
+        assertNull(result.result);
+        assertTrue(result.error.startsWith("intermediate result of x^2 is too big"), result.error);
+    }
+
+    @Test
+    void testBadRequest() {
+        for (ObjectNode request : new ObjectNode[]{
+                request("1 + "),
+                request("1 + x"),
+                request("foo(1)"),
+                jackson.createObjectNode(),
+        }) {
+            HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                    () -> invoke(sciCalc, "/expr", request), request.toString());
+            assertEquals(BAD_REQUEST, e.getStatus());
+        }
+    }
+
+    @Test
+    void testNotInBasic() {
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> invoke(basicCalc, "/expr", request("1 + 1")));
+        assertEquals(NOT_FOUND, e.getStatus());
+    }
+
+}
@@ -0,0 +1,144 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the {@link JsonCodecs} with the object mapper configured by Micronaut: the output must be the same as
+ * produced by Jackson databind (the expected values were produced by it).
+ */
+@MicronautTest
+public class JsonCodecsTest {
+
+    @Inject
+    ObjectMapper mapper;
+
+    private static final FullOperation OPERATION = new FullOperation("+",
+            new BigDecimal[]{new BigDecimal("1.50"), new BigDecimal("1E+3"), null});
+    private static final String OPERATION_JSON = "\"operator\":\"+\",\"arguments\":[\"1.50\",\"1E+3\",null]";
+
+    @Test
+    void testWriteOperation() throws Exception {
+        assertEquals("{" + OPERATION_JSON + "}", mapper.writeValueAsString(OPERATION));
+        assertEquals("{}", mapper.writeValueAsString(new FullOperation(null, new BigDecimal[0])));
+        assertEquals("{\"operator\":\"x\"}", mapper.writeValueAsString(new FullOperation("x", null)));
+        assertEquals("[{\"arguments\":[\"1\"]},null]", mapper.writeValueAsString(
+                new FullOperation[]{new FullOperation("", new BigDecimal[]{BigDecimal.ONE}), null}));
+    }
+
+    @Test
+    void testWriteResult() throws Exception {
+        assertEquals("{" + OPERATION_JSON + ",\"result\":\"2.5E-10\"}",
+                mapper.writeValueAsString(new FullOperationResult(OPERATION, null, new BigDecimal("2.5E-10"))));
+        assertEquals("{" + OPERATION_JSON + ",\"error\":\"division \\\"by\\\" zero\\n\"}",
+                mapper.writeValueAsString(new FullOperationResult(OPERATION, "division \"by\" zero\n", null)));
+        assertEquals("{\"arguments\":[\"1\"],\"error\":\"e\",\"result\":\"10\"}", mapper.writeValueAsString(
+                new FullOperationResult(new FullOperation("", new BigDecimal[]{BigDecimal.ONE}), "e", BigDecimal.TEN)));
+    }
+
+    @Test
+    void testWriteFactorization() throws Exception {
+        BigInteger[] factors = {BigInteger.TWO, BigInteger.TEN};
+        assertEquals("{" + OPERATION_JSON + ",\"result\":[\"2\",\"10\"],\"cofactor\":\"77\",\"prime\":false}",
+                mapper.writeValueAsString(new FactorizationResult(OPERATION, null, factors, BigInteger.valueOf(77))));
+        assertEquals("{" + OPERATION_JSON + ",\"result\":[\"2\"],\"prime\":true}",
+                mapper.writeValueAsString(new FactorizationResult(OPERATION, null, new BigInteger[]{BigInteger.TWO})));
+        assertEquals("{" + OPERATION_JSON + ",\"error\":\"err\",\"prime\":false}",
+                mapper.writeValueAsString(new FactorizationResult(OPERATION, "err", null)));
+        assertEquals("{" + OPERATION_JSON + ",\"prime\":false}",
+                mapper.writeValueAsString(new FactorizationResult(OPERATION, "", new BigInteger[0])));
+        assertEquals("{" + OPERATION_JSON + ",\"error\":\"e\",\"result\":[null],\"cofactor\":\"10\",\"prime\":false}",
+                mapper.writeValueAsString(
+                        new FactorizationResult(OPERATION, "e", new BigInteger[]{null}, BigInteger.TEN)));
+    }
+
+    @Test
+    void testWriteOperatorList() throws Exception {
+        assertEquals("{\"operators\":[{\"symbol\":\"+\",\"name\":\"plus\"},{\"symbol\":\"x!\"},null,{}]}",
+                mapper.writeValueAsString(new OperatorList(new OperatorList.JsonOperator[]{
+                        new OperatorList.JsonOperator("+", "plus"), new OperatorList.JsonOperator("x!", null),
+                        null, new OperatorList.JsonOperator("", "")})));
+        assertEquals("{}", mapper.writeValueAsString(new OperatorList(new OperatorList.JsonOperator[0])));
+        assertEquals("{}", mapper.writeValueAsString(new OperatorList(null)));
+    }
+
+    private FullOperation read(String json) throws Exception {
+        return mapper.readValue(json, FullOperation.class);
+    }
+
+    @Test
+    void testReadAliases() throws Exception {
+        assertEquals("FullOperation:+/[1, 2.5, 1E+3, null]",
+                read("{\"op\":\"+\",\"args\":[1,\"2.5\",1e3, null]}").toString());
+        assertEquals("FullOperation:x!/[450]", read("{\"operator\":\"x!\",\"arg\":\"450\"}").toString());
+        assertEquals("FullOperation:x!/[450]", read("{\"operator\":\"x!\",\"argument\":450}").toString());
+        assertEquals("FullOperation:+/[2]", read("{\"operator\":\"+\",\"args\":[1],\"arguments\":[2]}").toString());
+    }
+
+    @Test
+    void testReadNumbers() throws Exception {
+        //numbers bigger than long or double
+        assertArrayEquals(new BigDecimal[]{new BigDecimal("0.1000000000000000000001"),
+                        new BigDecimal("12345678901234567890123"), new BigDecimal("1.0E+400000")},
+                read("{\"arguments\":[0.1000000000000000000001, 12345678901234567890123, 1.0e400000]}").arguments);
+        assertArrayEquals(new BigDecimal[]{BigDecimal.ONE, null, null},
+                read("{\"arguments\":[\" 1\\t\", \"\", \"null\"]}").arguments);
+        assertArrayEquals(new BigDecimal[]{BigDecimal.ONE}, read("{\"arguments\":[[1]]}").arguments);
+        assertArrayEquals(new BigDecimal[]{null}, read("{\"arguments\":\"\"}").arguments);
+        assertArrayEquals(new BigDecimal[0], read("{\"operator\":\"x!\",\"arguments\":[]}").arguments);
+        assertNull(read("{\"arguments\":null}").arguments);
+
+        for (String invalid : new String[]{"abc", "0x10", "NaN"}) {
+            InvalidFormatException e = assertThrows(InvalidFormatException.class,
+                    () -> read("{\"arguments\":[\"" + invalid + "\"]}"));
+            assertEquals(invalid, e.getValue());
+        }
+        assertThrows(MismatchedInputException.class, () -> read("{\"arguments\":[true]}"));
+        assertThrows(MismatchedInputException.class, () -> read("{\"arguments\":{}}"));
+        assertThrows(MismatchedInputException.class, () -> read("{\"arguments\":[[1, 2]]}"));
+    }
+
+    @Test
+    void testReadOther() throws Exception {
+        assertEquals("FullOperation:null/null",
+                read("{\"foo\":{\"a\":[1,2]},\"operator\":null,\"arguments\":null}").toString());
+        assertEquals("5", read("{\"operator\":5}").operator);
+        assertEquals("+", read("{\"operator\":[\"+\"]}").operator);
+        assertEquals("+", read("[{\"operator\":\"+\"}]").operator);
+        assertNull(read("null"));
+        assertThrows(MismatchedInputException.class, () -> read("[]"));
+        assertThrows(MismatchedInputException.class, () -> read("\"x\""));
+        assertThrows(UnrecognizedPropertyException.class, () -> mapper.readerFor(FullOperation.class)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue("{\"foo\":1}"));
+    }
+
+    @Test
+    void testReadResults() throws Exception {
+        String json = "{\"operator\":\"+\",\"arguments\":[1],"
+                + "\"result\":\"5\",\"error\":\"e\",\"prime\":true,\"cofactor\":\"3\"}";
+        assertEquals("FullOperationResult:+/[1] -> 5 / e",
+                mapper.readValue(json, FullOperationResult.class).toString());
+        assertEquals("FactorizationResult:+/[1] -> [5] * 3? / e",
+                mapper.readValue(json, FactorizationResult.class).toString());
+        //also with strict mapper: prime is known
+        assertNotNull(mapper.readerFor(FactorizationResult.class)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(json));
+
+        FactorizationResult result = new FactorizationResult(OPERATION, null,
+                new BigInteger[]{BigInteger.TWO, BigInteger.TEN}, BigInteger.valueOf(77));
+        assertEquals(result.toString(),
+                mapper.readValue(mapper.writeValueAsBytes(result), FactorizationResult.class).toString());
+    }
+
+}
@@ -0,0 +1,93 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the metrics: operations must be visible at the Prometheus endpoint.
+ */
+@MicronautTest
+public class MetricsApiTest {
+
+    @SuppressWarnings("unused")
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    @Client("/")
+    HttpClient client;
+
+    private FullOperationResult invoke(String uri, String operator, String... args) {
+        BigDecimal[] arguments = new BigDecimal[args.length];
+        for (int i = 0; i < args.length; i++) {
+            arguments[i] = new BigDecimal(args[i]);
+        }
+        return client.toBlocking()
+                .retrieve(HttpRequest.POST(uri, new FullOperation(operator, arguments)),
+                        Argument.of(FullOperationResult.class), Argument.of(ObjectNode.class));
+    }
+
+    private String scrape() {
+        return client.toBlocking().retrieve("/prometheus");
+    }
+
+    /**
+     * Get value of metric (with all the labels), or 0 if it does not exist.
+     */
+    private static double value(String metrics, String name) {
+        Matcher matcher = Pattern.compile("^" + Pattern.quote(name) + " (\\S+)$", Pattern.MULTILINE).matcher(metrics);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+    }
+
+    @Test
+    void testOperatorMetrics() {
+        String before = scrape();
+        assertTrue(before.contains("calculator_operation_seconds_bucket{calculator=\"basic\",operator=\"div\","),
+                "meters must be registered in advance");
+        String timer = "calculator_operation_seconds_count{calculator=\"basic\",operator=\"div\",}";
+        String errors = "calculator_errors_total{calculator=\"basic\",operator=\"div\",}";
+        String operands = "calculator_operand_digits_sum{calculator=\"basic\",operator=\"div\",}";
+        String results = "calculator_result_digits_count{calculator=\"basic\",operator=\"div\",}";
+        String badRequests = "calculator_bad_requests_total{calculator=\"basic\",}";
+
+        assertEquals(new BigDecimal(4), invoke("/calculator/basic", "/", "12", "3").result);
+        assertNotNull(invoke("/calculator/basic", "/", "12345", "0").error);
+        assertThrows(HttpClientResponseException.class, () -> invoke("/calculator/basic", "x!", "3"));
+
+        String after = scrape();
+        assertEquals(2, value(after, timer) - value(before, timer));
+        assertEquals(1, value(after, errors) - value(before, errors));
+        assertEquals(2 + 1 + 5 + 1, value(after, operands) - value(before, operands));
+        assertEquals(1, value(after, results) - value(before, results));
+        assertEquals(1, value(after, badRequests) - value(before, badRequests));
+    }
+
+    @Test
+    void testFactorizationMetrics() {
+        String timer = "calculator_operation_seconds_count{calculator=\"scientific\",operator=\"prime\",}";
+        String errors = "calculator_errors_total{calculator=\"scientific\",operator=\"prime\",}";
+        String before = scrape();
+        client.toBlocking().retrieve(HttpRequest.POST("/calculator/scientific/prime",
+                new FullOperation("prime", new BigDecimal[]{new BigDecimal(1001)})));
+        client.toBlocking().retrieve(HttpRequest.POST("/calculator/scientific/prime",
+                new FullOperation("prime", new BigDecimal[]{new BigDecimal("10.5")})));
+        String after = scrape();
+        assertEquals(2, value(after, timer) - value(before, timer));
+        assertEquals(1, value(after, errors) - value(before, errors));
+    }
+
+}
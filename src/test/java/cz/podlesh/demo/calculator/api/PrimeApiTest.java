@@ -14,6 +14,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import javax.inject.Inject;
+import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -66,8 +67,10 @@ public class PrimeApiTest {
             assertNull(result.result);
         } else {
             assertNull(result.error);
-            long[] expectedArr = expectedResult.stream().mapToLong(Number::longValue).toArray();
+            BigInteger[] expectedArr = expectedResult.stream()
+                    .map(v -> new BigInteger(v.toString())).toArray(BigInteger[]::new);
             assertArrayEquals(expectedArr, result.result);
+            assertNull(result.cofactor);
         }
         assertEquals(error, result.error);
     }
@@ -86,11 +89,14 @@ public class PrimeApiTest {
                 {1_000_000_000, Arrays.asList(2, 2, 2, 2, 2, 2, 2, 2, 2, 5, 5, 5, 5, 5, 5, 5, 5, 5), OK, null},
                 {1_306_020_009, Arrays.asList(3, 7, 62191429), OK, null},
                 {221_306_020_009L, Arrays.asList(17, 3659, 3557803), OK, null},
+                {Long.MAX_VALUE, Arrays.asList(7, 7, 73, 127, 337, 92737, 649657), OK, null},
+                //beyond long: (2^89 - 1) * 1000000007 * 3
+                {new BigInteger("1856910071926440824845179219440804331"),
+                        Arrays.asList(3, 1_000_000_007, new BigInteger("618970019642690137449562111")), OK, null},
 
                 //and some invalid results
                 {0, null, OK, "only positive number can be factorized to primes"},
                 {1.2, null, OK, "only integer number can be factorized to primes"},
-                {Long.MAX_VALUE, null, OK, "prime factorization of " + Long.MAX_VALUE + " refused, too big value"},
         };
     }
 
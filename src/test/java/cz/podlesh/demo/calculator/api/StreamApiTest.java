@@ -0,0 +1,99 @@
+package cz.podlesh.demo.calculator.api;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.client.RxStreamingHttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.annotation.MicronautTest;
+import io.reactivex.Flowable;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the streaming (newline-delimited JSON) API.
+ */
+@MicronautTest
+public class StreamApiTest {
+
+    @SuppressWarnings("unused")
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    @Client("/calculator/scientific")
+    RxStreamingHttpClient sciCalc;
+    @Inject
+    @Client("/calculator/basic")
+    RxStreamingHttpClient basicCalc;
+
+    private List<FullOperationResult> invokeStream(RxStreamingHttpClient client, Flowable<FullOperation> operations) {
+        return invokeStream(client, "/stream", operations);
+    }
+
+    private List<FullOperationResult> invokeStream(RxStreamingHttpClient client, String uri, Flowable<FullOperation> operations) {
+        return client.jsonStream(
+                HttpRequest.POST(uri, operations)
+                        .contentType(MediaType.APPLICATION_JSON_STREAM_TYPE)
+                        .accept(MediaType.APPLICATION_JSON_STREAM_TYPE),
+                FullOperationResult.class
+        ).toList().blockingGet();
+    }
+
+    private static FullOperation operation(String op, long... args) {
+        BigDecimal[] arguments = new BigDecimal[args.length];
+        for (int i = 0; i < args.length; i++) {
+            arguments[i] = BigDecimal.valueOf(args[i]);
+        }
+        return new FullOperation(op, arguments);
+    }
+
+    @Test
+    void testStreamWithErrors() {
+        List<FullOperationResult> results = invokeStream(basicCalc, Flowable.just(
+                operation("+", 1, 2, 3),
+                operation("/", 1, 0),
+                operation("?", 1),
+                operation("-", 1),
+                operation("x!", 5),
+                operation("*", 6, 7)
+        ));
+        assertEquals(6, results.size());
+        assertEquals(BigDecimal.valueOf(6), results.get(0).result);
+        assertEquals("Division by zero", results.get(1).error);
+        assertEquals("unsupported operator: ?", results.get(2).error);
+        assertNotNull(results.get(3).error);
+        //not available in basic calculator
+        assertNotNull(results.get(4).error);
+        assertNull(results.get(4).result);
+        assertEquals(BigDecimal.valueOf(42), results.get(5).result);
+    }
+
+    @Test
+    void testPrecision() {
+        List<FullOperationResult> results = invokeStream(basicCalc, "/stream?precision=6",
+                Flowable.just(operation("/", 10, 12), operation("/", 20, 12)));
+        assertEquals("0.833333", results.get(0).result.toString());
+        assertEquals("1.66667", results.get(1).result.toString());
+    }
+
+    @Test
+    void testLongStream() {
+        int count = 20000;
+        List<FullOperationResult> results = invokeStream(sciCalc,
+                Flowable.range(0, count).map(i -> operation("*", i, 2)));
+        assertEquals(count, results.size());
+        for (int i = 0; i < count; i++) {
+            FullOperationResult result = results.get(i);
+            assertNull(result.error);
+            assertEquals(BigDecimal.valueOf(i), result.getArguments().get(0));
+            assertEquals(BigDecimal.valueOf(2L * i), result.result);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package cz.podlesh.demo.calculator.api;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.micronaut.test.annotation.MicronautTest;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the request timeout: computation is stopped when it's exceeded, and the error is reported in the result.
+ */
+@MicronautTest
+public class TimeoutApiTest {
+
+    @SuppressWarnings("unused")
+    @Inject
+    EmbeddedServer server;
+
+    @Inject
+    @Client("/calculator/scientific")
+    HttpClient sciCalc;
+
+    /**
+     * Product of two 160-bit primes: cannot be factored within the default time budget (2 seconds).
+     */
+    private static BigDecimal hardNumber() {
+        Random random = new Random(42);
+        return new BigDecimal(BigInteger.probablePrime(160, random).multiply(BigInteger.probablePrime(160, random)));
+    }
+
+    private FactorizationResult factorize(MutableHttpRequest<FullOperation> request) {
+        return sciCalc.toBlocking().retrieve(request,
+                Argument.of(FactorizationResult.class), Argument.of(ObjectNode.class));
+    }
+
+    @Test
+    void testTimeoutParameter() {
+        FullOperation operation = new FullOperation("prime", new BigDecimal[]{hardNumber()});
+        long start = System.nanoTime();
+        FactorizationResult result = factorize(HttpRequest.POST("/prime?timeout=100ms", operation));
+        assertEquals("computation cannot be completed in time", result.error);
+        assertNull(result.result);
+        assertTrue(System.nanoTime() - start < 1_500_000_000L, "must be stopped before the time budget");
+    }
+
+    @Test
+    void testTimeoutHeader() {
+        FullOperation operation = new FullOperation("prime", new BigDecimal[]{hardNumber()});
+        FactorizationResult result = factorize(HttpRequest.POST("/prime", operation)
+                .header(AbstractCalculator.TIMEOUT_HEADER, "100"));
+        assertEquals("computation cannot be completed in time", result.error);
+    }
+
+    @Test
+    void testLongTimeout() {
+        //time budget of the factorization is shorter: partial result, not an error
+        FullOperation operation = new FullOperation("prime", new BigDecimal[]{hardNumber()});
+        FactorizationResult result = factorize(HttpRequest.POST("/prime?timeout=1h", operation));
+        assertNull(result.error);
+        assertNotNull(result.cofactor);
+
+        FullOperationResult sum = sciCalc.toBlocking().retrieve(
+                HttpRequest.POST("/?timeout=5000", new FullOperation("+", new BigDecimal[]{BigDecimal.ONE, BigDecimal.TEN})),
+                Argument.of(FullOperationResult.class), Argument.of(ObjectNode.class));
+        assertEquals(new BigDecimal(11), sum.result);
+    }
+
+    @Test
+    void testInvalidTimeout() {
+        for (String timeout : new String[]{"abc", "0", "-5s", ""}) {
+            HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                    () -> sciCalc.toBlocking().retrieve(HttpRequest.POST("/plus",
+                            new FullOperation("+", new BigDecimal[]{BigDecimal.ONE, BigDecimal.TEN}))
+                            .header(AbstractCalculator.TIMEOUT_HEADER, timeout)), timeout);
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatus(), timeout);
+        }
+    }
+
+}
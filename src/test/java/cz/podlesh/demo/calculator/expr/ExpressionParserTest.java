@@ -0,0 +1,255 @@
+package cz.podlesh.demo.calculator.expr;
+
+import cz.podlesh.demo.calculator.ExpressionConfiguration;
+import cz.podlesh.demo.calculator.KnownOperators;
+import cz.podlesh.demo.calculator.op.BinaryOperator;
+import cz.podlesh.demo.calculator.op.CalculatorType;
+import cz.podlesh.demo.calculator.op.ComputationCancelledException;
+import cz.podlesh.demo.calculator.op.ComputationContext;
+import cz.podlesh.demo.calculator.op.UnaryOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionParserTest {
+
+    private final ExpressionParser parser = new ExpressionParser(new KnownOperators(), CalculatorType.SCIENTIFIC);
+
+    private static Map<String, BigDecimal> variables() {
+        Map<String, BigDecimal> variables = new HashMap<>();
+        variables.put("a", new BigDecimal("1.5"));
+        variables.put("b", new BigDecimal("2.5"));
+        variables.put("c", new BigDecimal("4"));
+        variables.put("long_name2", new BigDecimal("-7"));
+        return variables;
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    void testEvaluate(String expression, String expectedResult) {
+        CompiledExpression compiled = CompiledExpression.compile(parser.parse(expression));
+        assertEquals(expectedResult, compiled.evaluate(variables(), null).toString(), compiled.toString());
+        //the canonical form can be parsed back
+        assertEquals(compiled.getExpression(), parser.parse(compiled.toString()));
+    }
+
+    public static Object[][] testCases() {
+        return new Object[][]{
+                {"1", "1"},
+                {" 1 + 2 * 3 ", "7"},
+                {"(1 + 2) * 3", "9"},
+                {"10 - 4 - 3", "3"},
+                {"12 / 2 / 3", "2"},
+                {"10 / 12", "0.8333333333333333"},
+                {"(a + b) * c!", "96.0"},
+                {"-c!", "-24"},
+                {"-c^2", "-16"},
+                {"(-c)^2", "16"},
+                {"3!!", "720"},
+                {"|a - c|", "2.5"},
+                {"|a - |long_name2||", "5.5"},
+                {"--a", "1.5"},
+                {"+a", "1.5"},
+                {"2 * -a", "-3.0"},
+                {"1e3 + 2.5E-1 + .5", "1000.75"},
+                {"plus(1, 2, 3, c)", "10"},
+                {"fact(c) / square(2)", "6"},
+                {"abs(long_name2) * NEGATE(1)", "-7"},
+                {"sqrt(c) + pi()", "5.141592653589793238462643383279503"},
+                {"pow(c, 0.5) * root(27, 3)", "6"},
+        };
+    }
+
+    @Test
+    void testAst() {
+        Expression e = parser.parse("a + b * c!");
+        assertEquals(new Expression.Application(BinaryOperator.PLUS,
+                new Expression.Variable("a"),
+                new Expression.Application(BinaryOperator.MUL,
+                        new Expression.Variable("b"),
+                        new Expression.Application(UnaryOperator.FACT, new Expression.Variable("c")))
+        ), e);
+        assertEquals("plus(a, mul(b, fact(c)))", e.toString());
+        assertEquals(Arrays.asList("a", "b", "c"), CompiledExpression.compile(e).getVariableNames());
+    }
+
+    @Test
+    void testMathContext() {
+        CompiledExpression compiled = CompiledExpression.compile(parser.parse("a / 7 + 1000"));
+        assertEquals("1000.21", compiled.evaluate(variables(), new MathContext(6)).toString());
+    }
+
+    @Test
+    void testArithmeticError() {
+        CompiledExpression compiled = CompiledExpression.compile(parser.parse("a / (c - 4)"));
+        assertThrows(ArithmeticException.class, () -> compiled.evaluate(variables(), null));
+        CompiledExpression fact = CompiledExpression.compile(parser.parse("a!"));
+        assertThrows(ArithmeticException.class, () -> fact.evaluate(variables(), null));
+    }
+
+    @Test
+    void testCancelled() {
+        CompiledExpression compiled = CompiledExpression.compile(parser.parse("(c + 1)! / 3"));
+        assertEquals("40", compiled.evaluate(variables(), null, ComputationContext.cancellable()).toString());
+        ComputationContext context = ComputationContext.cancellable();
+        context.cancel();
+        assertThrows(ComputationCancelledException.class, () -> compiled.evaluate(variables(), null, context));
+    }
+
+    @Test
+    void testCancelledCheapOperators() {
+        //no operator checks the context by itself, but every node does
+        CompiledExpression compiled = CompiledExpression.compile(parser.parse("a + b * c"));
+        ComputationContext context = ComputationContext.cancellable();
+        context.cancel();
+        assertThrows(ComputationCancelledException.class, () -> compiled.evaluate(variables(), null, context));
+    }
+
+    @Test
+    void testMaxDigits() {
+        Expression squares = parser.parse("c^2^2^2^2");
+        //4^16 = 4294967296
+        assertEquals("4294967296", CompiledExpression.compile(squares, 10).evaluate(variables(), null).toString());
+        ArithmeticException e = assertThrows(ArithmeticException.class,
+                () -> CompiledExpression.compile(squares, 9).evaluate(variables(), null));
+        assertEquals("intermediate result of x^2 is too big: 10 digits, maximum is 9", e.getMessage());
+        //the default limit stops the doubling long before the memory runs out
+        CompiledExpression huge = CompiledExpression.compile(parser.parse("9" + String.join("", Collections.nCopies(40, "^2"))));
+        assertThrows(ArithmeticException.class, () -> huge.evaluate(variables(), null));
+        assertThrows(IllegalArgumentException.class, () -> CompiledExpression.compile(squares, 0));
+    }
+
+    @Test
+    void testMissingVariable() {
+        CompiledExpression compiled = CompiledExpression.compile(parser.parse("a + x"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> compiled.evaluate(variables(), null));
+        assertEquals("missing value of variable x", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> compiled.evaluate(Collections.emptyMap(), null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("invalidExpressions")
+    void testInvalid(String expression, int position) {
+        ExpressionParseException e = assertThrows(ExpressionParseException.class, () -> parser.parse(expression));
+        assertEquals(position, e.getPosition(), e.getMessage());
+    }
+
+    public static Object[][] invalidExpressions() {
+        return new Object[][]{
+                {"", 0},
+                {"1 +", 3},
+                {"(1 + 2", 6},
+                {"1 + 2)", 5},
+                {"|1 + 2", 6},
+                {"1 $ 2", 2},
+                {"a b", 2},
+                {"2^3", 1},
+                {"2^22", 1},
+                {"2^2.5", 1},
+                {"1..2", 0},
+                {"foo(1)", 0},
+                {"fact(1, 2)", 0},
+                {"minus(1)", 0},
+                {"plus()", 5},
+                {"pi(1)", 0},
+        };
+    }
+
+    @Test
+    void testNotAvailable() {
+        ExpressionParser basic = new ExpressionParser(new KnownOperators(), CalculatorType.BASIC);
+        assertThrows(ExpressionParseException.class, () -> basic.parse("fact(3)"));
+    }
+
+    @Test
+    void testTooDeep() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ExpressionParser.MAX_DEPTH + 1; i++) {
+            sb.append('(');
+        }
+        sb.append('1');
+        for (int i = 0; i < ExpressionParser.MAX_DEPTH + 1; i++) {
+            sb.append(')');
+        }
+        assertThrows(ExpressionParseException.class, () -> parser.parse(sb.toString()));
+        assertEquals("1", parser.parse(sb.substring(2, sb.length() - 2)).toString());
+    }
+
+    /**
+     * Chains of binary and postfix operators build deep trees too: the longest expressions accepted by the API
+     * (4096 characters by default) are rejected cleanly, instead of stack overflow in the compilation.
+     */
+    @Test
+    void testTooDeepChains() {
+        final int maxLength = new ExpressionConfiguration().getMaxLength();
+        StringBuilder minus = new StringBuilder("1");
+        while (minus.length() + 2 <= maxLength) {
+            minus.append("-1");
+        }
+        StringBuilder factorial = new StringBuilder("3");
+        while (factorial.length() < maxLength) {
+            factorial.append('!');
+        }
+        StringBuilder negate = new StringBuilder();
+        while (negate.length() + 1 < maxLength) {
+            negate.append('-');
+        }
+        negate.append('1');
+        for (StringBuilder expression : Arrays.asList(minus, factorial, negate)) {
+            ExpressionParseException e = assertThrows(ExpressionParseException.class,
+                    () -> parser.parse(expression.toString()));
+            assertEquals("expression is nested too deep", e.getMessage().replaceAll(" at .*", ""));
+        }
+    }
+
+    /**
+     * The deepest accepted trees can be parsed, compiled, evaluated, printed and compared with the default stack
+     * size of the server threads (1 MB), set explicitly so that it does not depend on <code>-Xss</code>.
+     */
+    @Test
+    void testMaxDepthOnDefaultStack() throws InterruptedException {
+        StringBuilder minus = new StringBuilder("1");
+        StringBuilder square = new StringBuilder("1");
+        StringBuilder nested = new StringBuilder("1");
+        for (int i = 1; i < ExpressionParser.MAX_DEPTH; i++) {
+            minus.append("-1");
+            square.append("^2");
+            nested.insert(0, "abs(").append(")");
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                for (StringBuilder text : Arrays.asList(minus, square, nested)) {
+                    Expression expression = parser.parse(text.toString());
+                    assertEquals(ExpressionParser.MAX_DEPTH, expression.getDepth());
+                    CompiledExpression compiled = CompiledExpression.compile(expression);
+                    assertNotNull(compiled.evaluate(Collections.emptyMap(), null));
+                    assertEquals(expression, parser.parse(compiled.toString()));
+                    assertEquals(expression.hashCode(), parser.parse(compiled.toString()).hashCode());
+                }
+                assertThrows(ExpressionParseException.class, () -> parser.parse(minus + "-1"));
+                assertThrows(ExpressionParseException.class, () -> parser.parse(square + "!"));
+                assertThrows(ExpressionParseException.class, () -> parser.parse("abs(" + nested + ")"));
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "default-stack", 1024 * 1024);
+        thread.start();
+        thread.join();
+        if (failure.get() != null) {
+            fail(failure.get());
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the {@link Accumulator}: the running result must be the same as of the operator applied on all the arguments.
+ */
+class AccumulatorTest {
+
+    private static List<BigDecimal> randomArguments(Random random, int count) {
+        List<BigDecimal> arguments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            arguments.add(BigDecimal.valueOf(random.nextInt(2_000_001) - 1_000_000, random.nextInt(5)));
+        }
+        return arguments;
+    }
+
+    @Test
+    void testSameAsApply() {
+        Random random = new Random(42);
+        for (BinaryOperator operator : Arrays.asList(BinaryOperator.PLUS, BinaryOperator.MUL)) {
+            for (MathContext mathContext : Arrays.asList(null, new MathContext(7), MathContext.DECIMAL64)) {
+                List<BigDecimal> arguments = randomArguments(random, 1000);
+                Accumulator accumulator = operator.accumulator(mathContext, Integer.MAX_VALUE);
+                assertNull(accumulator.getResult());
+                //chunks of various sizes, including empty ones
+                for (int from = 0; from < arguments.size(); ) {
+                    int to = Math.min(arguments.size(), from + random.nextInt(300));
+                    accumulator.append(arguments.subList(from, to), ComputationContext.NONE);
+                    from = to;
+                }
+                //sequential fold; with unlimited precision, the same as the tree reduction of apply
+                BigDecimal expected = arguments.get(0);
+                for (BigDecimal argument : arguments.subList(1, arguments.size())) {
+                    expected = operator.apply(Arrays.asList(expected, argument), mathContext);
+                }
+                assertEquals(expected, accumulator.getResult(), operator + " " + mathContext);
+                if (mathContext == null) {
+                    assertEquals(operator.apply(arguments, null), accumulator.getResult());
+                }
+                assertEquals(arguments.size(), accumulator.getCount());
+                assertSame(mathContext, accumulator.getMathContext());
+            }
+        }
+    }
+
+    @Test
+    void testFailedChunkNotAppended() {
+        Accumulator accumulator = BinaryOperator.MUL.accumulator(null, 10);
+        assertEquals(BigDecimal.valueOf(6), accumulator.append(Arrays.asList(BigDecimal.valueOf(2),
+                BigDecimal.valueOf(3)), ComputationContext.NONE));
+        //invalid argument
+        assertThrows(IllegalArgumentException.class,
+                () -> accumulator.append(Arrays.asList(BigDecimal.ONE, null), ComputationContext.NONE));
+        //too big result
+        ArithmeticException e = assertThrows(ArithmeticException.class, () -> accumulator.append(
+                Collections.nCopies(5, BigDecimal.valueOf(1000)), ComputationContext.NONE));
+        assertEquals("accumulated result is too big: 16 digits, maximum is 10", e.getMessage());
+        //cancelled
+        ComputationContext cancelled = ComputationContext.cancellable();
+        cancelled.cancel();
+        assertThrows(ComputationCancelledException.class,
+                () -> accumulator.append(Collections.singletonList(BigDecimal.TEN), cancelled));
+        assertEquals(BigDecimal.valueOf(6), accumulator.getResult());
+        assertEquals(2, accumulator.getCount());
+    }
+
+    /**
+     * While a chunk is being appended, the result is read without waiting and other chunk is refused by
+     * <code>tryAppend</code>.
+     */
+    @Test
+    void testBusy() throws Exception {
+        Accumulator accumulator = BinaryOperator.PLUS.accumulator(null, Integer.MAX_VALUE);
+        accumulator.append(Collections.singletonList(BigDecimal.ONE), ComputationContext.NONE);
+        CountDownLatch release = new CountDownLatch(1);
+        //the chunk blocks the accumulator until released
+        List<BigDecimal> blocking = new AbstractList<BigDecimal>() {
+            @Override
+            public BigDecimal get(int index) {
+                try {
+                    assertTrue(release.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return BigDecimal.TEN;
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+        CompletableFuture<BigDecimal> slow = CompletableFuture.supplyAsync(
+                () -> accumulator.append(blocking, ComputationContext.NONE));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!accumulator.isBusy()) {
+            assertTrue(System.nanoTime() < deadline, "the chunk is not being appended");
+            Thread.sleep(1);
+        }
+        assertThrows(Accumulator.BusyException.class,
+                () -> accumulator.tryAppend(Collections.singletonList(BigDecimal.ONE), ComputationContext.NONE));
+        assertEquals(BigDecimal.ONE, accumulator.getResult());
+        assertEquals(1, accumulator.getState().getCount());
+        release.countDown();
+        assertEquals(BigDecimal.valueOf(11), slow.get(10, TimeUnit.SECONDS));
+        assertFalse(accumulator.isBusy());
+        assertEquals(BigDecimal.valueOf(12),
+                accumulator.tryAppend(Collections.singletonList(BigDecimal.ONE), ComputationContext.NONE));
+        assertEquals(3, accumulator.getCount());
+    }
+
+    @Test
+    void testOnlyAnyLengthOperators() {
+        assertTrue(BinaryOperator.PLUS.isAnyLength());
+        assertFalse(BinaryOperator.DIV.isAnyLength());
+        assertThrows(IllegalArgumentException.class, () -> BinaryOperator.MINUS.accumulator(null, 10));
+        assertThrows(IllegalArgumentException.class, () -> BinaryOperator.DIV.accumulator(null, 10));
+    }
+}
@@ -0,0 +1,85 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BigFactorizationTest {
+
+    private static final Duration BUDGET = Duration.ofSeconds(30);
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    void testFactorization(String n, String[] expectedFactors) {
+        BigFactorization.Result result = BigFactorization.DEFAULT.apply(new BigInteger(n), BUDGET);
+        assertTrue(result.isComplete(), result.toString());
+        assertArrayEquals(Arrays.stream(expectedFactors).map(BigInteger::new).toArray(), result.getFactors().toArray());
+    }
+
+    public static Object[][] testCases() {
+        return new Object[][]{
+                {"1", new String[]{"1"}},
+                {"9223372036854775783", new String[]{"9223372036854775783"}},
+                {"9223372036854775808", Collections.nCopies(63, "2").toArray(new String[0])},
+                //2^89 - 1 is prime
+                {"618970019642690137449562111", new String[]{"618970019642690137449562111"}},
+                //square of a prime
+                {"383123885216472214589586755549637256619304505646776321",
+                        new String[]{"618970019642690137449562111", "618970019642690137449562111"}},
+                //found by Pollard-rho
+                {"1856910071926440824845179219440804331", new String[]{"3", "1000000007", "618970019642690137449562111"}},
+        };
+    }
+
+    /**
+     * Factors too big for Pollard-rho: ECM must find them.
+     */
+    @Test
+    void testEcm() {
+        Random random = new Random(42);
+        BigInteger p = BigInteger.probablePrime(40, random);
+        BigInteger q = BigInteger.probablePrime(100, random);
+        BigFactorization.Result result = BigFactorization.DEFAULT.apply(p.multiply(q), BUDGET);
+        assertTrue(result.isComplete(), result.toString());
+        assertEquals(Arrays.asList(p, q), result.getFactors());
+    }
+
+    @Test
+    void testTimeout() {
+        Random random = new Random(42);
+        BigInteger p = BigInteger.probablePrime(160, random);
+        BigInteger q = BigInteger.probablePrime(160, random);
+        BigFactorization.Result result = BigFactorization.DEFAULT.apply(p.multiply(q).multiply(BigInteger.valueOf(6)),
+                Duration.ofMillis(50));
+        assertFalse(result.isComplete());
+        assertEquals(Arrays.asList(BigInteger.valueOf(2), BigInteger.valueOf(3)), result.getFactors());
+        assertEquals(p.multiply(q), result.getCofactor());
+    }
+
+    @Test
+    void testTooBig() {
+        assertThrows(ArithmeticException.class, () -> BigFactorization.DEFAULT.apply(BigInteger.ONE.shiftLeft(5000), BUDGET));
+        assertThrows(IllegalArgumentException.class, () -> BigFactorization.DEFAULT.apply(BigInteger.ZERO, BUDGET));
+    }
+
+    @Test
+    void testProbablePrime() {
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            BigInteger n = new BigInteger(64 + random.nextInt(200), random);
+            assertEquals(n.isProbablePrime(64), BigFactorization.isProbablePrime(n), n.toString());
+        }
+        for (int i = 0; i < 50; i++) {
+            BigInteger p = BigInteger.probablePrime(64 + random.nextInt(400), random);
+            assertTrue(BigFactorization.isProbablePrime(p), p.toString());
+        }
+    }
+}
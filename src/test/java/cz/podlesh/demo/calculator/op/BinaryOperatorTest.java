@@ -0,0 +1,83 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The <code>long</code> fast path of the binary operators must give exactly the same results (including scale) as
+ * the plain {@link BigDecimal} operations.
+ */
+class BinaryOperatorTest {
+
+    private static BigDecimal randomValue(Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return BigDecimal.valueOf(random.nextInt(2001) - 1000);
+            case 1:
+                return BigDecimal.valueOf(random.nextLong() >> random.nextInt(64));
+            case 2:
+                //close to the limits of the fast path
+                long[] edges = {Long.MAX_VALUE, Long.MIN_VALUE, 999_999_999_999_999_999L, -999_999_999_999_999_999L,
+                        1_000_000_000_000_000_000L, 1L << 62, 3037000499L, -3037000500L, 999_999_999L, 0};
+                return BigDecimal.valueOf(edges[random.nextInt(edges.length)]);
+            case 3:
+                return new BigDecimal(new BigInteger(80, random), random.nextInt(10) - 5);
+            default:
+                return BigDecimal.valueOf(random.nextInt(100_000), random.nextInt(6) - 3);
+        }
+    }
+
+    public static Object[][] testCases() {
+        Object[][] operators = {
+                {BinaryOperator.PLUS, (BigDecimalBinaryOp) BigDecimal::add},
+                {BinaryOperator.MINUS, (BigDecimalBinaryOp) BigDecimal::subtract},
+                {BinaryOperator.MUL, (BigDecimalBinaryOp) BigDecimal::multiply},
+        };
+        List<Object[]> cases = new ArrayList<>();
+        for (Object[] operator : operators) {
+            for (MathContext mathContext : Arrays.asList(MathContext.UNLIMITED, new MathContext(1),
+                    new MathContext(3, RoundingMode.DOWN), new MathContext(5), MathContext.DECIMAL64,
+                    new MathContext(18, RoundingMode.CEILING), new MathContext(19))) {
+                cases.add(new Object[]{operator[0], operator[1], mathContext});
+            }
+        }
+        return cases.toArray(new Object[0][]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    void testSameAsBigDecimal(BinaryOperator operator, BigDecimalBinaryOp reference, MathContext mathContext) {
+        Random random = new Random(operator.getName().hashCode() + mathContext.hashCode());
+        for (int i = 0; i < 20000; i++) {
+            BigDecimal a1 = randomValue(random);
+            BigDecimal a2 = randomValue(random);
+            BigDecimal expected = reference.apply(a1, a2, mathContext);
+            BigDecimal result = operator.apply(Arrays.asList(a1, a2), mathContext);
+            //compare the representation: the scale must be the same too
+            assertEquals(expected.toString(), result.toString(), a1 + " " + operator.getSymbolicName() + " " + a2);
+        }
+    }
+
+    @Test
+    void testIsHeavy() {
+        List<BigDecimal> small = Arrays.asList(BigDecimal.ONE, new BigDecimal(3));
+        List<BigDecimal> big = Arrays.asList(new BigDecimal(BigInteger.TEN.pow(Operator.HEAVY_OPERAND_DIGITS)),
+                BigDecimal.ONE);
+        assertFalse(BinaryOperator.DIV.isHeavy(small, null));
+        assertFalse(BinaryOperator.DIV.isHeavy(small, new MathContext(Operator.HEAVY_PRECISION)));
+        assertTrue(BinaryOperator.DIV.isHeavy(small, new MathContext(Operator.HEAVY_PRECISION + 1)));
+        assertTrue(BinaryOperator.DIV.isHeavy(big, null));
+    }
+}
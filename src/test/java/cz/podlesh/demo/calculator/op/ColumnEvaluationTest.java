@@ -0,0 +1,125 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Column evaluation must give exactly the same results (including scale) as the evaluation row by row.
+ */
+class ColumnEvaluationTest {
+
+    private static BigDecimal randomValue(Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return BigDecimal.valueOf(random.nextInt(2001) - 1000);
+            case 1:
+                return BigDecimal.valueOf(random.nextLong(), random.nextInt(10));
+            case 2:
+                //close to the long limits
+                long[] edges = {Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE / 10, 999_999_999_999_999_999L,
+                        -999_999_999_999_999_999L, 1L << 62, 3037000499L, -3037000500L};
+                return BigDecimal.valueOf(edges[random.nextInt(edges.length)], random.nextInt(3));
+            case 3:
+                return new BigDecimal(new BigInteger(100, random), random.nextInt(40) - 20);
+            case 4:
+                return BigDecimal.valueOf(random.nextInt(100_000), random.nextInt(40) - 20);
+            default:
+                return BigDecimal.valueOf(random.nextInt(1000), random.nextInt(5));
+        }
+    }
+
+    private static BigDecimal[] randomColumn(Random random, int rows) {
+        BigDecimal[] column = new BigDecimal[rows];
+        for (int i = 0; i < rows; i++) {
+            column[i] = randomValue(random);
+        }
+        return column;
+    }
+
+    public static Object[][] testCases() {
+        List<Object[]> cases = new ArrayList<>();
+        for (Operator operator : BinaryOperator.values()) {
+            for (MathContext mathContext : Arrays.asList(null, MathContext.UNLIMITED, new MathContext(5),
+                    MathContext.DECIMAL64, new MathContext(19), new MathContext(40))) {
+                cases.add(new Object[]{operator, mathContext});
+            }
+        }
+        return cases.toArray(new Object[0][]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    void testSameAsRows(Operator operator, MathContext mathContext) {
+        Random random = new Random(operator.getName().hashCode());
+        int columnCount = operator.getMaxArgumentsCount() > 2 ? 3 : 2;
+        int rows = 5000;
+        List<BigDecimal[]> columns = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(randomColumn(random, rows));
+        }
+        //some zeroes, for division
+        for (int row = 0; row < rows; row += 97) {
+            columns.get(1)[row] = BigDecimal.ZERO;
+        }
+        ColumnResult result = operator.applyColumns(columns, mathContext);
+        assertEquals(rows, result.size());
+        for (int row = 0; row < rows; row++) {
+            List<BigDecimal> arguments = new ArrayList<>();
+            for (BigDecimal[] column : columns) {
+                arguments.add(column[row]);
+            }
+            BigDecimal expected;
+            try {
+                expected = operator.apply(arguments, mathContext);
+            } catch (ArithmeticException e) {
+                assertEquals(e.getMessage(), result.getError(row), arguments.toString());
+                assertNull(result.getResult(row));
+                continue;
+            }
+            //compare the representation: the scale must be the same too
+            assertEquals(expected.toString(), String.valueOf(result.getResult(row)), arguments.toString());
+            assertNull(result.getError(row));
+        }
+    }
+
+    @Test
+    void testUnaryColumn() {
+        BigDecimal[] column = {new BigDecimal("3"), new BigDecimal("-2.5"), new BigDecimal("0.5")};
+        ColumnResult result = UnaryOperator.FACT.applyColumns(Collections.singletonList(column), null);
+        assertEquals(new BigDecimal(6), result.getResult(0));
+        assertNotNull(result.getError(1));
+        assertNotNull(result.getError(2));
+        result = UnaryOperator.NEGATE.applyColumns(Collections.singletonList(column), null);
+        assertFalse(result.hasErrors());
+        assertArrayEquals(new BigDecimal[]{new BigDecimal("-3"), new BigDecimal("2.5"), new BigDecimal("-0.5")},
+                result.getResults());
+    }
+
+    @Test
+    void testInvalidColumns() {
+        BigDecimal[] two = {BigDecimal.ONE, BigDecimal.TEN};
+        BigDecimal[] three = {BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE};
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryOperator.PLUS.applyColumns(Collections.singletonList(two), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryOperator.MINUS.applyColumns(Arrays.asList(two, two, two), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryOperator.PLUS.applyColumns(Arrays.asList(two, three), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryOperator.PLUS.applyColumns(Arrays.asList(two, new BigDecimal[]{BigDecimal.ONE, null}), null));
+        assertEquals(0, BinaryOperator.PLUS.applyColumns(Arrays.asList(new BigDecimal[0], new BigDecimal[0]), null).size());
+    }
+
+}
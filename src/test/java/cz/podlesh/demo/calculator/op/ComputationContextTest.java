@@ -0,0 +1,119 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Long computations must stop when the computation context is cancelled or out of time.
+ */
+class ComputationContextTest {
+
+    private static ComputationContext cancelled() {
+        ComputationContext context = ComputationContext.cancellable();
+        context.cancel();
+        return context;
+    }
+
+    @Test
+    void testContext() {
+        assertFalse(ComputationContext.NONE.isExpired());
+        ComputationContext.NONE.check();
+        assertThrows(IllegalStateException.class, ComputationContext.NONE::cancel);
+
+        ComputationContext context = ComputationContext.withTimeout(Duration.ofHours(1));
+        assertFalse(context.isExpired());
+        context.check();
+        context.cancel();
+        assertTrue(context.isCancelled());
+        assertTrue(context.isExpired());
+        assertEquals("computation cancelled",
+                assertThrows(ComputationCancelledException.class, context::check).getMessage());
+
+        ComputationContext expired = ComputationContext.withTimeout(Duration.ofNanos(1));
+        assertTrue(expired.isExpired());
+        assertFalse(expired.isCancelled());
+        assertThrows(ComputationCancelledException.class, expired::check);
+    }
+
+    @Test
+    void testEarlierDeadline() {
+        long now = System.nanoTime();
+        assertEquals(now, ComputationContext.NONE.earlierDeadline(now));
+        assertEquals(now, ComputationContext.withTimeout(Duration.ofHours(1)).earlierDeadline(now));
+        long later = now + TimeUnit.HOURS.toNanos(1);
+        assertTrue(ComputationContext.withTimeout(Duration.ofSeconds(1)).earlierDeadline(later) < later);
+    }
+
+    @Test
+    void testFactorial() {
+        //fresh instance: no cached checkpoints
+        Factorial factorial = new Factorial(20_000);
+        assertThrows(ComputationCancelledException.class, () -> factorial.apply(20_000, cancelled()));
+        assertEquals(Factorial.DEFAULT.apply(20_000), factorial.apply(20_000, ComputationContext.cancellable()));
+        assertThrows(ComputationCancelledException.class,
+                () -> UnaryOperator.FACT.apply(Collections.singletonList(BigDecimal.TEN), null, cancelled()));
+    }
+
+    @Test
+    void testBinaryOperator() {
+        BigDecimal[] arguments = new BigDecimal[10_000];
+        Arrays.fill(arguments, BigDecimal.ONE);
+        assertEquals(BigDecimal.valueOf(10_000),
+                BinaryOperator.PLUS.apply(Arrays.asList(arguments), null, ComputationContext.cancellable()));
+        assertThrows(ComputationCancelledException.class,
+                () -> BinaryOperator.PLUS.apply(Arrays.asList(arguments), null, cancelled()));
+    }
+
+    @Test
+    void testColumns() {
+        BigDecimal[] column = new BigDecimal[1000];
+        Arrays.fill(column, BigDecimal.ONE);
+        for (Operator operator : Arrays.asList(BinaryOperator.DIV, UnaryOperator.FACT)) {
+            ColumnResult result = operator.applyColumns(
+                    Collections.nCopies(operator.getMinArgumentsCount(), column), null, cancelled());
+            for (int row = 0; row < column.length; row++) {
+                assertNull(result.getResult(row));
+                assertEquals("computation cancelled", result.getError(row));
+            }
+        }
+    }
+
+    /**
+     * Unlike the time budget, the context stops the factorization with an error, not a partial result.
+     */
+    @Test
+    void testFactorization() {
+        Random random = new Random(42);
+        BigInteger n = BigInteger.probablePrime(160, random).multiply(BigInteger.probablePrime(160, random));
+        BigFactorization.Result partial = BigFactorization.DEFAULT.apply(n, Duration.ofMillis(50),
+                ComputationContext.withTimeout(Duration.ofHours(1)));
+        assertEquals(n, partial.getCofactor());
+
+        assertThrows(ComputationCancelledException.class, () -> BigFactorization.DEFAULT.apply(n,
+                Duration.ofHours(1), ComputationContext.withTimeout(Duration.ofMillis(50))));
+
+        ComputationContext context = ComputationContext.cancellable();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            executor.schedule(context::cancel, 50, TimeUnit.MILLISECONDS);
+            long start = System.nanoTime();
+            assertThrows(ComputationCancelledException.class,
+                    () -> BigFactorization.DEFAULT.apply(n, Duration.ofHours(1), context));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -1,13 +1,19 @@
 package cz.podlesh.demo.calculator.op;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.util.Arrays;
+import java.util.Random;
 
 import static cz.podlesh.demo.calculator.op.BinaryOperator.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
 
 /**
  * Test division operation from {@link BinaryOperator}.
@@ -73,4 +79,133 @@ class DivisionOperatorTest {
         };
     }
 
-}
\ No newline at end of file
+    /**
+     * The original implementation of the division: with unlimited precision, the result must be the same,
+     * including the scale.
+     */
+    private static BigDecimal legacyDivide(BigDecimal a1, BigDecimal a2) {
+        BigDecimal[] dr = a1.divideAndRemainder(a2, MathContext.UNLIMITED);
+        if (dr[1].signum() == 0) {
+            //fully divisible
+            return dr[0];
+        }
+        return dr[0].add(dr[1].divide(a2, MathContext.DECIMAL64), MathContext.UNLIMITED);
+    }
+
+    private static BigDecimal randomValue(Random random) {
+        BigDecimal value;
+        switch (random.nextInt(7)) {
+            case 0:
+                value = BigDecimal.valueOf(random.nextInt(2001) - 1000, random.nextInt(7) - 3);
+                break;
+            case 1:
+                value = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(40) - 20);
+                break;
+            case 2:
+                //power of two and five: terminating expansion
+                value = BigDecimal.valueOf(1L << random.nextInt(63), random.nextInt(5))
+                        .multiply(BigDecimal.valueOf(5).pow(random.nextInt(20)));
+                break;
+            case 3:
+                value = new BigDecimal(new BigInteger(1 + random.nextInt(300), random), random.nextInt(80) - 40);
+                break;
+            case 4:
+                //trailing zeros
+                value = BigDecimal.valueOf(random.nextInt(100) + 1).scaleByPowerOfTen(random.nextInt(30))
+                        .setScale(random.nextInt(10));
+                break;
+            case 5:
+                //almost one: the fraction rounds up to the next power of ten
+                value = BigDecimal.ONE.subtract(BigDecimal.ONE.movePointLeft(10 + random.nextInt(20)));
+                break;
+            default:
+                value = BigDecimal.valueOf(random.nextInt(10));
+        }
+        return random.nextBoolean() ? value : value.negate();
+    }
+
+    /**
+     * Unlimited precision: the result must be exactly the same as of the original implementation.
+     */
+    @Test
+    void testSameAsLegacy() {
+        Random random = new Random(10);
+        for (int i = 0; i < 200_000; i++) {
+            BigDecimal a1 = randomValue(random);
+            BigDecimal a2 = randomValue(random);
+            if (random.nextInt(10) == 0) {
+                //exact quotient
+                a1 = a1.multiply(a2);
+            }
+            assertSameAsLegacy(a1, a2);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("legacyCases")
+    void testSameAsLegacy(String arg1, String arg2) {
+        assertSameAsLegacy(bd(arg1), bd(arg2));
+    }
+
+    private static Object[][] legacyCases() {
+        return new Object[][]{
+                {"0", "0"},
+                {"1", "0"},
+                {"0.00", "3"},
+                {"0E+5", "3.0"},
+                {"10", "3"},
+                {"1E+10", "3"},
+                {"1E+10", "4"},
+                {"1E+10", "1E-5"},
+                {"1E-10", "3E+5"},
+                {"2", "3"},
+                {"1", "1.00000000000000001"},
+                {"0.99999999999999999", "1"},
+                {"999999999999999999.5", "1"},
+                {"1", "1024"},
+                {"1", "2E+100"},
+                {"1.0000", "8"},
+                {"7E-1000", "3"},
+                {"123456789012345678901234567890", "0.00007"},
+                {"-124322222188342212312312388", "-3"},
+        };
+    }
+
+    private static void assertSameAsLegacy(BigDecimal a1, BigDecimal a2) {
+        BigDecimal expected;
+        try {
+            expected = legacyDivide(a1, a2);
+        } catch (ArithmeticException e) {
+            try {
+                DIV.apply(Arrays.asList(a1, a2), null);
+                fail("division should fail: " + a1 + " / " + a2);
+            } catch (ArithmeticException e2) {
+                assertEquals(e.getMessage(), e2.getMessage());
+            }
+            return;
+        }
+        //compare the representation: the scale must be the same too
+        assertEquals(expected.toString(), DIV.apply(Arrays.asList(a1, a2), null).toString(), a1 + " / " + a2);
+    }
+
+    /**
+     * Limited precision: the result is correctly rounded.
+     */
+    @Test
+    void testLimitedPrecision() {
+        Random random = new Random(11);
+        MathContext[] mathContexts = {new MathContext(1), new MathContext(6), MathContext.DECIMAL64,
+                new MathContext(20, RoundingMode.DOWN), new MathContext(50, RoundingMode.CEILING)};
+        for (int i = 0; i < 50_000; i++) {
+            BigDecimal a1 = randomValue(random);
+            BigDecimal a2 = randomValue(random);
+            if (a2.signum() == 0) {
+                continue;
+            }
+            MathContext mathContext = mathContexts[random.nextInt(mathContexts.length)];
+            assertEquals(a1.divide(a2, mathContext).toString(),
+                    DIV.apply(Arrays.asList(a1, a2), mathContext).toString(), a1 + " / " + a2);
+        }
+    }
+
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigInteger;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,6 +37,37 @@ class FactorialTest {
         };
     }
 
+    /**
+     * Compare with naive sequential product, including values around the checkpoints and requests in random order
+     * (so that the cached checkpoints are used).
+     */
+    @Test
+    void testAgainstSequentialProduct() {
+        Factorial factorial = new Factorial(3000);
+        BigInteger[] expected = new BigInteger[3001];
+        expected[0] = BigInteger.ONE;
+        for (int i = 1; i < expected.length; i++) {
+            expected[i] = expected[i - 1].multiply(BigInteger.valueOf(i));
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            int n = 1 + random.nextInt(3000);
+            assertEquals(expected[n], factorial.apply(n), "n=" + n);
+        }
+        for (int n = 1; n <= 3000; n++) {
+            assertEquals(expected[n], factorial.apply(n), "n=" + n);
+            assertEquals(expected[n], Factorial.splitFactorial(n), "n=" + n);
+        }
+        assertThrows(ArithmeticException.class, () -> factorial.apply(3001));
+    }
+
+    @Test
+    void testBigValue() {
+        BigInteger f = Factorial.DEFAULT.apply(Factorial.DEFAULT.getMaxN());
+        assertEquals(77338, f.toString().length());
+        assertEquals(Factorial.DEFAULT.apply(19_999).multiply(BigInteger.valueOf(20_000)), f);
+    }
+
     @Test
     void maxDigits() {
         Factorial factorial = Factorial.maxDigits(158);
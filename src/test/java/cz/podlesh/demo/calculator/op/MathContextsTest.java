@@ -0,0 +1,86 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the interned math contexts of {@link MathContexts} and the memoized {@link Constants}.
+ */
+class MathContextsTest {
+
+    @Test
+    void testInterned() {
+        for (int precision = 0; precision <= MathContexts.MAX_INTERNED_PRECISION; precision += 7) {
+            MathContext mathContext = MathContexts.of(precision);
+            assertEquals(new MathContext(precision), mathContext);
+            assertSame(mathContext, MathContexts.of(precision));
+            assertSame(mathContext, MathContexts.intern(new MathContext(precision)));
+        }
+        MathContext floor = MathContexts.of(10, RoundingMode.FLOOR);
+        assertEquals(new MathContext(10, RoundingMode.FLOOR), floor);
+        assertSame(floor, MathContexts.of(10, RoundingMode.FLOOR));
+        assertNotSame(floor, MathContexts.of(10));
+    }
+
+    @Test
+    void testStandard() {
+        assertSame(MathContext.UNLIMITED, MathContexts.of(0));
+        assertSame(MathContext.DECIMAL32, MathContexts.of(7, RoundingMode.HALF_EVEN));
+        assertSame(MathContext.DECIMAL64, MathContexts.of(16, RoundingMode.HALF_EVEN));
+        assertSame(MathContext.DECIMAL128, MathContexts.of(34, RoundingMode.HALF_EVEN));
+        assertSame(MathContext.DECIMAL64, MathContexts.intern(new MathContext(16, RoundingMode.HALF_EVEN)));
+    }
+
+    @Test
+    void testNotInterned() {
+        int precision = MathContexts.MAX_INTERNED_PRECISION + 1;
+        assertEquals(new MathContext(precision), MathContexts.of(precision));
+        assertThrows(IllegalArgumentException.class, () -> MathContexts.of(-1));
+    }
+
+    @Test
+    void testPowersOfTen() {
+        for (int exponent : new int[]{0, 1, 2, 17, 63, 64, 255, 256, 1000}) {
+            assertEquals(BigInteger.TEN.pow(exponent), Constants.powerOfTen(exponent));
+            assertEquals(BigDecimal.ONE.scaleByPowerOfTen(exponent).setScale(0), Constants.decimalPowerOfTen(exponent));
+            assertEquals(0, Constants.decimalPowerOfTen(exponent).scale());
+        }
+        assertSame(Constants.powerOfTen(100), Constants.powerOfTen(100));
+    }
+
+    @Test
+    void testReciprocal() {
+        MathContext mathContext = MathContexts.of(50);
+        for (long n : new long[]{1, 2, 3, 7, -9, 1024, Long.MAX_VALUE}) {
+            assertEquals(BigDecimal.ONE.divide(BigDecimal.valueOf(n), mathContext), Constants.reciprocal(n, mathContext));
+        }
+        assertSame(Constants.reciprocal(3, mathContext), Constants.reciprocal(3, mathContext));
+        //different rounding, different value
+        assertEquals(new BigDecimal("0.3333333334"), Constants.reciprocal(3, MathContexts.of(10, RoundingMode.UP)));
+        assertEquals(new BigDecimal("0.3333333333"), Constants.reciprocal(3, MathContexts.of(10)));
+        assertEquals(new BigDecimal("0.25"), Constants.reciprocal(4, MathContext.UNLIMITED));
+        assertThrows(ArithmeticException.class, () -> Constants.reciprocal(0, mathContext));
+        assertThrows(ArithmeticException.class, () -> Constants.reciprocal(3, MathContext.UNLIMITED));
+    }
+
+    @Test
+    void testMemoizedConstants() {
+        String pi = "3.141592653589793238462643383279502884197169399375105820974944592307816406286208998628034825342117068";
+        String ln2 = "0.6931471805599453094172321214581765680755001343602552541206800094933936219696947156058633269964186875";
+        String ln10 = "2.302585092994045684017991454684364207601101488628772976033327900967572609677352480235997205089598298";
+        assertEquals(pi, Constants.pi(100).toString());
+        assertEquals(ln2, Constants.ln2(100).toString());
+        assertEquals(ln10, Constants.ln10(100).toString());
+        //lower precision: rounded from the memoized value
+        assertEquals("3.14159", Constants.pi(6).toString());
+        assertEquals("0.69315", Constants.ln2(5).toString());
+        assertEquals(new BigDecimal(pi).round(MathContexts.of(60, RoundingMode.HALF_EVEN)), Constants.pi(60));
+        assertThrows(IllegalArgumentException.class, () -> Constants.pi(0));
+    }
+}
@@ -0,0 +1,169 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static cz.podlesh.demo.calculator.op.NumberTheoryOperator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test {@link NumberTheoryOperator} and the Montgomery kernels; the expected values are computed by
+ * <code>BigInteger</code>.
+ */
+class NumberTheoryOperatorTest {
+
+    private static List<BigDecimal> args(Object... arguments) {
+        List<BigDecimal> list = new ArrayList<>();
+        for (Object argument : arguments) {
+            list.add(new BigDecimal(argument.toString()));
+        }
+        return list;
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCases")
+    void testApply(NumberTheoryOperator op, Object[] arguments, String expected) {
+        assertEquals(expected, op.apply(args(arguments), null).toString());
+        //math context does not matter, the results are exact
+        assertEquals(expected, op.apply(args(arguments), MathContext.DECIMAL32).toString());
+    }
+
+    private static Object[][] testCases() {
+        return new Object[][]{
+                {MODPOW, new Object[]{4, 13, 497}, "445"},
+                {MODPOW, new Object[]{-4, 13, 497}, "52"},
+                {MODPOW, new Object[]{3, -1, 7}, "5"},
+                {MODPOW, new Object[]{2, 0, 1}, "0"},
+                {MODPOW, new Object[]{0, 0, 5}, "1"},
+                {MODPOW, new Object[]{2, 100, 1024}, "0"},
+                {MODPOW, new Object[]{"2.000", 10, 1000}, "24"},
+                {MODPOW, new Object[]{2, "1E+30", "1000000007"}, "312267046"},
+                {MODINVERSE, new Object[]{3, 7}, "5"},
+                {MODINVERSE, new Object[]{-3, 7}, "2"},
+                {MODINVERSE, new Object[]{5, 1}, "0"},
+                {GCD, new Object[]{12, 18}, "6"},
+                {GCD, new Object[]{-12, 18, 27}, "3"},
+                {GCD, new Object[]{0, 0}, "0"},
+                {GCD, new Object[]{0, -5}, "5"},
+                {LCM, new Object[]{4, 6}, "12"},
+                {LCM, new Object[]{-4, 6, 10}, "60"},
+                {LCM, new Object[]{4, 0}, "0"},
+                {JACOBI, new Object[]{1001, 9907}, "-1"},
+                {JACOBI, new Object[]{19, 45}, "1"},
+                {JACOBI, new Object[]{21, 15}, "0"},
+        };
+    }
+
+    @Test
+    void testErrors() {
+        assertThrows(ArithmeticException.class, () -> MODPOW.apply(args(2, 3, 0), null));
+        assertThrows(ArithmeticException.class, () -> MODPOW.apply(args(2, 3, -7), null));
+        assertThrows(ArithmeticException.class, () -> MODPOW.apply(args(2, -1, 4), null));
+        assertThrows(ArithmeticException.class, () -> MODPOW.apply(args("2.5", 3, 7), null));
+        assertThrows(ArithmeticException.class, () -> MODPOW.apply(args(2, 3, BigInteger.ONE.shiftLeft(8192)), null));
+        assertThrows(ArithmeticException.class, () -> MODINVERSE.apply(args(6, 9), null));
+        assertThrows(ArithmeticException.class, () -> GCD.apply(args("1E+1000000000", 2), null));
+        assertThrows(ArithmeticException.class, () -> JACOBI.apply(args(3, 10), null));
+        assertThrows(ArithmeticException.class, () -> JACOBI.apply(args(3, -7), null));
+        assertEquals("gcd is defined only for integers",
+                assertThrows(ArithmeticException.class, () -> GCD.apply(args("0.5", 2), null)).getMessage());
+        //coprime, so the result has 120000 digits
+        assertThrows(ArithmeticException.class, () -> LCM.apply(args(BigInteger.TEN.pow(60_000).add(BigInteger.ONE),
+                BigInteger.TEN.pow(60_000).subtract(BigInteger.ONE)), null));
+        assertThrows(IllegalArgumentException.class, () -> MODPOW.apply(args(2, 3), null));
+        assertThrows(IllegalArgumentException.class, () -> GCD.apply(args(2), null));
+        assertThrows(IllegalArgumentException.class, () -> JACOBI.apply(args(1, 3, 5), null));
+        assertThrows(IllegalArgumentException.class, () -> LCM.apply(Arrays.asList(BigDecimal.ONE, null), null));
+    }
+
+    /**
+     * All the paths of modpow (63-bit Montgomery, BigInteger with odd and even modulus) agree with BigInteger.
+     */
+    @Test
+    void testModPow() {
+        Random random = new Random(25);
+        for (int bits : new int[]{2, 10, 62, 63, 64, 65, 127, 500, 2048}) {
+            for (int i = 0; i < 20; i++) {
+                BigInteger modulus = new BigInteger(bits, random).add(BigInteger.ONE);
+                BigInteger base = new BigInteger(bits + 20, random).subtract(BigInteger.ONE.shiftLeft(bits + 19));
+                BigInteger exponent = new BigInteger(1 + random.nextInt(100), random);
+                assertEquals(base.modPow(exponent, modulus), NumberTheory.modPow(base, exponent, modulus),
+                        base + "^" + exponent + " mod " + modulus);
+            }
+        }
+    }
+
+    @Test
+    void testMontgomeryBig() {
+        Random random = new Random(25);
+        for (int bits : new int[]{2, 63, 64, 65, 128, 129, 1000, 2048}) {
+            for (int i = 0; i < 20; i++) {
+                BigInteger n = new BigInteger(bits, random).setBit(0).setBit(1);
+                //all ones: the biggest modulus of the given number of words
+                if (i == 0) {
+                    n = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+                }
+                MontgomeryBig mont = new MontgomeryBig(n);
+                BigInteger a = new BigInteger(bits + 10, random);
+                BigInteger b = new BigInteger(bits, random).mod(n);
+                BigInteger exponent = new BigInteger(random.nextInt(bits + 40), random);
+                long[] ma = mont.toMontgomery(a), mb = mont.toMontgomery(b);
+                assertEquals(a.mod(n), mont.fromMontgomery(ma));
+                assertEquals(a.multiply(b).mod(n), mont.fromMontgomery(mont.mul(ma, mb)));
+                assertEquals(a.multiply(a).mod(n), mont.fromMontgomery(mont.square(ma)));
+                assertEquals(a.add(b).mod(n), mont.fromMontgomery(mont.addMod(ma, mb)));
+                assertEquals(a.subtract(b).mod(n), mont.fromMontgomery(mont.subMod(ma, mb)));
+                assertEquals(b.subtract(a).mod(n), mont.fromMontgomery(mont.subMod(mb, ma)));
+                assertEquals(a.modPow(exponent, n), mont.fromMontgomery(mont.pow(ma, exponent)));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MontgomeryBig(BigInteger.ONE));
+        assertThrows(IllegalArgumentException.class, () -> new MontgomeryBig(BigInteger.valueOf(100)));
+    }
+
+    @Test
+    void testGcd() {
+        Random random = new Random(25);
+        for (int i = 0; i < 1000; i++) {
+            long a = random.nextLong() >>> (1 + random.nextInt(63)), b = random.nextLong() >>> (1 + random.nextInt(63));
+            assertEquals(BigInteger.valueOf(a).gcd(BigInteger.valueOf(b)).longValue(), NumberTheory.gcd(a, b));
+        }
+    }
+
+    @Test
+    void testJacobi() {
+        //compare with Euler's criterion for primes
+        BigInteger p = BigInteger.valueOf(1_000_000_007);
+        for (int a = -50; a < 50; a++) {
+            BigInteger bigA = BigInteger.valueOf(a);
+            BigInteger euler = bigA.mod(p).modPow(p.shiftRight(1), p);
+            int expected = euler.equals(BigInteger.ONE) ? 1 : euler.signum() == 0 ? 0 : -1;
+            assertEquals(expected, NumberTheory.jacobi(bigA, p), "a=" + a);
+        }
+        assertEquals(0, NumberTheory.jacobi(BigInteger.valueOf(21), BigInteger.valueOf(15)));
+        assertEquals(-1, NumberTheory.jacobi(BigInteger.valueOf(7), BigInteger.valueOf(15)));
+    }
+
+    @Test
+    void testOperatorProperties() {
+        for (NumberTheoryOperator op : NumberTheoryOperator.values()) {
+            assertTrue(op.isAvailableIn(CalculatorType.SCIENTIFIC), op.name());
+            assertFalse(op.isAvailableIn(CalculatorType.BASIC), op.name());
+        }
+        assertEquals(Arrays.asList(3, 2, Integer.MAX_VALUE), Arrays.asList(MODPOW.getMaxArgumentsCount(),
+                GCD.getMinArgumentsCount(), LCM.getMaxArgumentsCount()));
+        assertFalse(MODPOW.isHeavy(args(2, 65537, BigInteger.ONE.shiftLeft(512).add(BigInteger.ONE))));
+        assertTrue(MODPOW.isHeavy(args(2, BigInteger.ONE.shiftLeft(2048), BigInteger.ONE.shiftLeft(2048).add(BigInteger.ONE))));
+        assertFalse(GCD.isHeavy(args(BigInteger.ONE.shiftLeft(2048), 2)));
+        assertFalse(GCD.isHeavy(args(12, 18), new MathContext(100_000)));
+    }
+}
@@ -1,14 +1,18 @@
 package cz.podlesh.demo.calculator.op;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PrimeFactorizationTest {
 
@@ -34,7 +38,35 @@ public class PrimeFactorizationTest {
                 {1_000_000_000, Arrays.asList(2, 2, 2, 2, 2, 2, 2, 2, 2, 5, 5, 5, 5, 5, 5, 5, 5, 5)},
                 {1_306_020_009, Arrays.asList(3, 7, 62191429)},
                 {221_306_020_009L, Arrays.asList(17, 3659, 3557803)},
+                //beyond trial division: semiprimes, prime powers and big primes
+                {9_198_999_999_898_811L, Arrays.asList(9199, 999_999_999_989L)},
+                {1_000_000_014_000_000_049L, Arrays.asList(1_000_000_007, 1_000_000_007)},
+                {9_223_371_873_002_223_329L, Arrays.asList(3_037_000_453L, 3_037_000_493L)},
+                {2_305_843_009_213_693_951L, singletonList(2_305_843_009_213_693_951L)},
+                {9_223_372_036_854_775_783L, singletonList(9_223_372_036_854_775_783L)},
+                {Long.MAX_VALUE, Arrays.asList(7, 7, 73, 127, 337, 92737, 649657)},
+                {1L << 62, Collections.nCopies(62, 2)},
         };
     }
 
+    @Test
+    void testIsPrime() {
+        assertTrue(PrimeFactorization.isPrime(2));
+        assertTrue(PrimeFactorization.isPrime(1_000_000_007));
+        assertTrue(PrimeFactorization.isPrime(9_223_372_036_854_775_783L));
+        assertFalse(PrimeFactorization.isPrime(1));
+        assertFalse(PrimeFactorization.isPrime(561));
+        //strong pseudoprime to bases 2, 3, 5 and 7
+        assertFalse(PrimeFactorization.isPrime(3_215_031_751L));
+        assertFalse(PrimeFactorization.isPrime(Long.MAX_VALUE));
+        //compare with naive test on small numbers
+        for (int n = 0; n < 10_000; n++) {
+            boolean naive = n > 1;
+            for (int d = 2; d * d <= n && naive; d++) {
+                naive = n % d != 0;
+            }
+            assertEquals(naive, PrimeFactorization.isPrime(n), "isPrime(" + n + ")");
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimeTableTest {
+
+    @Test
+    void testIsPrime() {
+        PrimeTable table = new PrimeTable(200_000);
+        for (int n = 0; n <= table.getLimit(); n++) {
+            assertEquals(BigInteger.valueOf(n).isProbablePrime(50), table.isPrime(n), "isPrime(" + n + ")");
+        }
+        assertThrows(IllegalArgumentException.class, () -> table.isPrime(200_001));
+    }
+
+    @Test
+    void testNextPrime() {
+        PrimeTable table = new PrimeTable(100_000);
+        assertEquals(2, table.nextPrime(-5));
+        assertEquals(2, table.nextPrime(2));
+        assertEquals(3, table.nextPrime(3));
+        assertEquals(5, table.nextPrime(4));
+        assertEquals(65_537, table.nextPrime(65_522));
+        assertEquals(99_991, table.nextPrime(99_990));
+        assertEquals(-1, table.nextPrime(99_992));
+        assertEquals(-1, table.nextPrime(200_000));
+    }
+
+    @Test
+    void testPrimesUpTo() {
+        PrimeTable table = new PrimeTable(1 << 20);
+        int[] primes = table.primesUpTo(1000);
+        assertEquals(2, primes[0]);
+        assertEquals(997, primes[167]);
+        assertSame(primes, table.primesUpTo(100));
+        //bigger table replaces the smaller one
+        int[] more = table.primesUpTo(1 << 20);
+        assertEquals(82_025, more.length);
+        assertSame(more, table.primesUpTo(1000));
+        assertEquals(table.getMaxMemoryFootprint() + more.length * Integer.BYTES, table.getMemoryFootprint());
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        PrimeTable table = new PrimeTable(1 << 22);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> counts = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                counts.add(executor.submit(() -> {
+                    int count = 0;
+                    for (int p = 2; p > 0; p = table.nextPrime(p + 1)) {
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            for (Future<Integer> count : counts) {
+                assertEquals(295_947, count.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
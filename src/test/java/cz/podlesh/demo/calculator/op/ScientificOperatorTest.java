@@ -0,0 +1,199 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static cz.podlesh.demo.calculator.op.ScientificOperator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the functions of {@link ScientificOperator}; the expected values are computed independently, with much
+ * more digits.
+ */
+class ScientificOperatorTest {
+
+    private static List<BigDecimal> args(Object... arguments) {
+        List<BigDecimal> list = new ArrayList<>();
+        for (Object argument : arguments) {
+            list.add(new BigDecimal(argument.toString()));
+        }
+        return list;
+    }
+
+    /**
+     * Default precision (34 digits), rounding half-even.
+     */
+    @ParameterizedTest
+    @MethodSource("defaultPrecisionCases")
+    void testDefaultPrecision(ScientificOperator op, Object[] arguments, String expected) {
+        assertEquals(expected, op.apply(args(arguments), null).toString());
+        assertEquals(expected, op.apply(args(arguments), MathContext.UNLIMITED).toString());
+    }
+
+    private static Object[][] defaultPrecisionCases() {
+        return new Object[][]{
+                {SQRT, new Object[]{2}, "1.414213562373095048801688724209698"},
+                {ROOT, new Object[]{1000000, 7}, "7.196856730011520199287864249634569"},
+                {EXP, new Object[]{"0.001"}, "1.001000500166708341668055753993058"},
+                {EXP, new Object[]{-100}, "3.720075976020835962959695803863118E-44"},
+                {LN, new Object[]{"1E-100"}, "-230.2585092994045684017991454684364"},
+                {LN, new Object[]{"1.000000001"}, "9.999999995000000003333333330833333E-10"},
+                {POW, new Object[]{2, "1.1"}, "2.143546925072586328426012650046684"},
+                {POW, new Object[]{10, "-2.5"}, "0.003162277660168379331998893544432719"},
+                {SIN, new Object[]{"1E22"}, "-0.8522008497671888017727058937530294"},
+                {COS, new Object[]{10}, "-0.8390715290764524522588639478240648"},
+                {ATAN, new Object[]{"-0.5"}, "-0.4636476090008061162142562314612144"},
+                {ATAN, new Object[]{"1E-20"}, "1.000000000000000000000000000000000E-20"},
+                {PI, new Object[0], "3.141592653589793238462643383279503"},
+        };
+    }
+
+    /**
+     * Arguments close to the multiples of &pi;/2: the result is small, so it cancels most of the digits.
+     */
+    @Test
+    void testCancellation() {
+        assertEquals("-0.00003014435335948844921433028000865010", SIN.apply(args(355), null).toString());
+        assertEquals("-1.158028306006248941790250554076922E-34",
+                SIN.apply(args("3.141592653589793238462643383279503"), null).toString());
+        assertEquals("1.923132169163975144209858469968755E-17",
+                COS.apply(args("1.5707963267948966"), null).toString());
+    }
+
+    @Test
+    void testPrecision() {
+        assertEquals("0.14112000805986722210074480280811027984693326425227",
+                SIN.apply(args(3), MathContexts.of(50, RoundingMode.HALF_EVEN)).toString());
+        assertEquals("1.0986122886681096913952452369225257046474905578227",
+                LN.apply(args(3), MathContexts.of(50, RoundingMode.HALF_EVEN)).toString());
+        assertEquals("3.1416", PI.apply(Collections.emptyList(), MathContexts.of(5)).toString());
+    }
+
+    /**
+     * Roots are rounded correctly, by any rounding mode.
+     */
+    @Test
+    void testRootRounding() {
+        assertEquals("1.4142135623730950488", SQRT.apply(args(2), MathContexts.of(20, RoundingMode.DOWN)).toString());
+        assertEquals("1.4142135623730950489", SQRT.apply(args(2), MathContexts.of(20, RoundingMode.UP)).toString());
+        assertEquals("-1.259921050", ROOT.apply(args(-2, 3), MathContexts.of(10, RoundingMode.FLOOR)).toString());
+        assertEquals("-1.259921049", ROOT.apply(args(-2, 3), MathContexts.of(10, RoundingMode.CEILING)).toString());
+        //exactly in the middle
+        assertEquals("1.2", SQRT.apply(args("1.5625"), MathContexts.of(2, RoundingMode.HALF_EVEN)).toString());
+        assertEquals("1.3", SQRT.apply(args("1.5625"), MathContexts.of(2, RoundingMode.HALF_UP)).toString());
+        assertThrows(ArithmeticException.class,
+                () -> SQRT.apply(args(2), MathContexts.of(20, RoundingMode.UNNECESSARY)));
+    }
+
+    /**
+     * Exact results are exact, without the trailing zeros.
+     */
+    @Test
+    void testExact() {
+        assertEquals("100000", SQRT.apply(args("1E+10"), null).toString());
+        assertEquals("1.5", SQRT.apply(args("2.25"), null).toString());
+        assertEquals("-3", ROOT.apply(args(-27, 3), null).toString());
+        assertEquals("1E-10", ROOT.apply(args("1E-30", 3), null).toString());
+        assertEquals("8", POW.apply(args(4, "1.5"), null).toString());
+        assertEquals("-8", POW.apply(args(-2, 3), null).toString());
+        assertEquals("0.25", POW.apply(args(2, -2), null).toString());
+        assertEquals("1", EXP.apply(args(0), null).toString());
+        assertEquals("0", LN.apply(args(1), null).toString());
+        assertEquals("0", SIN.apply(args(0), null).toString());
+        assertEquals("1", COS.apply(args(0), null).toString());
+        assertEquals("0", ATAN.apply(args(0), null).toString());
+    }
+
+    @Test
+    void testErrors() {
+        assertThrows(ArithmeticException.class, () -> SQRT.apply(args(-1), null));
+        assertThrows(ArithmeticException.class, () -> ROOT.apply(args(2, "2.5"), null));
+        assertThrows(ArithmeticException.class, () -> ROOT.apply(args(2, 0), null));
+        assertThrows(ArithmeticException.class, () -> LN.apply(args(0), null));
+        assertThrows(ArithmeticException.class, () -> LN.apply(args(-1), null));
+        assertThrows(ArithmeticException.class, () -> EXP.apply(args("1000000001"), null));
+        assertThrows(ArithmeticException.class, () -> POW.apply(args(0, -1), null));
+        assertThrows(ArithmeticException.class, () -> POW.apply(args(-2, "0.5"), null));
+        assertThrows(ArithmeticException.class, () -> POW.apply(args(10, "1E+20"), null));
+        assertThrows(ArithmeticException.class, () -> SIN.apply(args("1E+10001"), null));
+        assertEquals("too high precision for exp: 10001 digits, maximum is 10000",
+                assertThrows(ArithmeticException.class,
+                        () -> EXP.apply(args(2), MathContexts.of(MAX_PRECISION + 1))).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> SQRT.apply(args(), null));
+        assertThrows(IllegalArgumentException.class, () -> POW.apply(args(2), null));
+        assertThrows(IllegalArgumentException.class, () -> PI.apply(args(2), null));
+        assertThrows(IllegalArgumentException.class, () -> SQRT.apply(Collections.singletonList(null), null));
+    }
+
+    /**
+     * Logarithm with high precision is computed by AGM, with lower by the series: both agree.
+     */
+    @Test
+    void testLogarithmMethods() {
+        for (String x : new String[]{"3", "0.75", "1.01", "123456.789"}) {
+            BigDecimal series = LN.apply(args(x), MathContexts.of(100));
+            BigDecimal agm = LN.apply(args(x), MathContexts.of(1500)).round(MathContexts.of(100));
+            assertEquals(series, agm, x);
+            //and exp is the inverse
+            assertEquals(0, new BigDecimal(x).compareTo(EXP.apply(Collections.singletonList(series), MathContexts.of(99))
+                    .round(MathContexts.of(new BigDecimal(x).precision()))), x);
+        }
+    }
+
+    @Test
+    void testIdentities() {
+        MathContext mathContext = MathContexts.of(60);
+        for (String x : new String[]{"0.1", "1", "2.5", "-7", "100.001"}) {
+            BigDecimal sin = SIN.apply(args(x), mathContext);
+            BigDecimal cos = COS.apply(args(x), mathContext);
+            BigDecimal one = sin.multiply(sin).add(cos.multiply(cos)).round(MathContexts.of(55));
+            assertEquals(0, BigDecimal.ONE.compareTo(one), x);
+            BigDecimal tan = sin.divide(cos, mathContext);
+            BigDecimal atan = ATAN.apply(Collections.singletonList(tan), mathContext);
+            //x reduced to (-pi/2, pi/2)
+            BigDecimal reduced = new BigDecimal(x).subtract(PI.apply(args(), mathContext).multiply(
+                    BigDecimal.valueOf(Math.round(Double.parseDouble(x) / Math.PI))));
+            assertEquals(reduced.round(MathContexts.of(50)), atan.round(MathContexts.of(50)), x);
+        }
+    }
+
+    @Test
+    void testFloorRoot() {
+        for (String n : new String[]{"1", "2", "99", "12345678901234567890123456789",
+                "9".repeat(1000), "1" + "0".repeat(2000)}) {
+            BigInteger value = new BigInteger(n);
+            assertEquals(value.sqrt(), ScientificFunctions.floorRoot(value, 2, ComputationContext.NONE), n);
+            for (int degree : new int[]{3, 7, 50}) {
+                BigInteger root = ScientificFunctions.floorRoot(value, degree, ComputationContext.NONE);
+                assertTrue(root.pow(degree).compareTo(value) <= 0, n);
+                assertTrue(root.add(BigInteger.ONE).pow(degree).compareTo(value) > 0, n);
+            }
+        }
+    }
+
+    @Test
+    void testOperatorProperties() {
+        for (ScientificOperator op : ScientificOperator.values()) {
+            assertTrue(op.isAvailableIn(CalculatorType.SCIENTIFIC), op.name());
+            assertFalse(op.isAvailableIn(CalculatorType.BASIC), op.name());
+            assertEquals(DEFAULT_PRECISION, op.fixMathContext(null));
+            assertEquals(DEFAULT_PRECISION, op.fixMathContext(MathContext.UNLIMITED));
+        }
+        assertEquals(Arrays.asList(1, 2, 0), Arrays.asList(SQRT.getMinArgumentsCount(),
+                POW.getMaxArgumentsCount(), PI.getMaxArgumentsCount()));
+        assertFalse(EXP.isHeavy(args(2), null));
+        assertFalse(EXP.isHeavy(args(2), MathContexts.of(HEAVY_PRECISION)));
+        assertTrue(EXP.isHeavy(args(2), MathContexts.of(HEAVY_PRECISION + 1)));
+        assertTrue(PI.isHeavy(args(), MathContexts.of(1000)));
+    }
+}
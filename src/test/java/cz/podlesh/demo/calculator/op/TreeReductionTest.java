@@ -0,0 +1,142 @@
+package cz.podlesh.demo.calculator.op;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the {@link TreeReduction} of long argument lists: exactly the same results as the sequential fold with
+ * unlimited precision, deterministic results with limited precision.
+ */
+class TreeReductionTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        POOL.shutdownNow();
+    }
+
+    private static List<BigDecimal> randomArguments(Random random, int count, int bits) {
+        List<BigDecimal> arguments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BigInteger unscaled = new BigInteger(1 + random.nextInt(bits), random);
+            arguments.add(new BigDecimal(random.nextBoolean() ? unscaled : unscaled.negate(), random.nextInt(9) - 4));
+        }
+        return arguments;
+    }
+
+    /**
+     * The sequential fold, by plain {@link BigDecimal} operations.
+     */
+    private static BigDecimal fold(BinaryOperator operator, List<BigDecimal> arguments, MathContext mathContext) {
+        BigDecimal result = arguments.get(0);
+        for (BigDecimal argument : arguments.subList(1, arguments.size())) {
+            result = operator == BinaryOperator.PLUS
+                    ? result.add(argument, mathContext) : result.multiply(argument, mathContext);
+        }
+        return result;
+    }
+
+    @Test
+    void testExactSameAsFold() {
+        Random random = new Random(42);
+        for (BinaryOperator operator : Arrays.asList(BinaryOperator.PLUS, BinaryOperator.MUL)) {
+            for (int count : new int[]{2, TreeReduction.LEAF_SIZE, TreeReduction.LEAF_SIZE + 1, 100, 1000, 3001}) {
+                List<BigDecimal> arguments = randomArguments(random, count, 70);
+                BigDecimal expected = fold(operator, arguments, MathContext.UNLIMITED);
+                for (ForkJoinPool pool : Arrays.asList(null, POOL)) {
+                    BigDecimal result = TreeReduction.reduce(operator, arguments, MathContext.UNLIMITED,
+                            ComputationContext.NONE, pool);
+                    //compare the representation: the scale must be the same too
+                    assertEquals(expected.toString(), result.toString(), operator + " of " + count);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testApply() {
+        Random random = new Random(7);
+        //long enough to be reduced as a tree, big enough to be heavy (parallel)
+        List<BigDecimal> arguments = randomArguments(random, 2000, 200);
+        assertTrue(BinaryOperator.MUL.isHeavy(arguments));
+        assertTrue(arguments.size() >= ReductionPolicy.DEFAULT_THRESHOLD);
+        ComputationContext parallel = ComputationContext.withTimeout(null,
+                new ReductionPolicy(ReductionPolicy.DEFAULT_THRESHOLD, POOL));
+        BigDecimal product = fold(BinaryOperator.MUL, arguments, MathContext.UNLIMITED);
+        assertEquals(product, BinaryOperator.MUL.apply(arguments, null));
+        assertEquals(product, BinaryOperator.MUL.apply(arguments, null, parallel));
+        assertEquals(fold(BinaryOperator.PLUS, arguments, MathContext.UNLIMITED),
+                BinaryOperator.PLUS.apply(arguments, MathContext.UNLIMITED, parallel));
+    }
+
+    /**
+     * The threshold is given by the computation context: shorter lists are folded sequentially.
+     */
+    @Test
+    void testThreshold() {
+        Random random = new Random(13);
+        MathContext mathContext = new MathContext(10);
+        List<BigDecimal> arguments = randomArguments(random, 100, 60);
+        BigDecimal tree = TreeReduction.reduce(BinaryOperator.PLUS, arguments, mathContext, ComputationContext.NONE,
+                null);
+        BigDecimal sequential = arguments.get(0);
+        for (BigDecimal argument : arguments.subList(1, arguments.size())) {
+            sequential = BinaryOperator.PLUS.apply(sequential, argument, mathContext);
+        }
+        assertEquals(tree, BinaryOperator.PLUS.apply(arguments, mathContext,
+                ComputationContext.withTimeout(null, new ReductionPolicy(100, null))));
+        assertEquals(sequential, BinaryOperator.PLUS.apply(arguments, mathContext,
+                ComputationContext.withTimeout(null, new ReductionPolicy(101, null))));
+        assertThrows(IllegalArgumentException.class, () -> new ReductionPolicy(1, null));
+    }
+
+    @Test
+    void testLimitedPrecision() {
+        Random random = new Random(11);
+        MathContext mathContext = new MathContext(20);
+        for (BinaryOperator operator : Arrays.asList(BinaryOperator.PLUS, BinaryOperator.MUL)) {
+            //positive: no cancellation, so that the relative error is meaningful
+            List<BigDecimal> arguments = new ArrayList<>();
+            for (BigDecimal argument : randomArguments(random, 1000, 60)) {
+                arguments.add(argument.abs().add(BigDecimal.ONE));
+            }
+            BigDecimal sequential = TreeReduction.reduce(operator, arguments, mathContext, ComputationContext.NONE,
+                    null);
+            BigDecimal parallel = TreeReduction.reduce(operator, arguments, mathContext, ComputationContext.NONE,
+                    POOL);
+            //the same tree, the same roundings
+            assertEquals(sequential, parallel);
+            assertEquals(sequential, operator.apply(arguments, mathContext));
+            assertTrue(sequential.precision() <= 20);
+            //999 roundings of at most half ulp: close to the exact result
+            BigDecimal exact = fold(operator, arguments, MathContext.UNLIMITED);
+            BigDecimal relativeError = sequential.subtract(exact).abs()
+                    .divide(exact.abs(), MathContext.DECIMAL64);
+            assertTrue(relativeError.compareTo(new BigDecimal("1E-16")) < 0, operator + ": " + relativeError);
+        }
+    }
+
+    @Test
+    void testCancelled() {
+        List<BigDecimal> arguments = Collections.nCopies(1000, new BigDecimal("1.5"));
+        ComputationContext context = ComputationContext.cancellable();
+        context.cancel();
+        for (ForkJoinPool pool : Arrays.asList(null, POOL)) {
+            assertThrows(ComputationCancelledException.class, () -> TreeReduction.reduce(BinaryOperator.MUL,
+                    arguments, MathContext.UNLIMITED, context, pool));
+        }
+    }
+}
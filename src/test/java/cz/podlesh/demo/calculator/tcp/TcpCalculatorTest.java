@@ -0,0 +1,164 @@
+package cz.podlesh.demo.calculator.tcp;
+
+import io.micronaut.test.annotation.MicronautTest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the TCP listener: the protocol, pipelining, errors.
+ */
+@MicronautTest
+public class TcpCalculatorTest {
+
+    @Inject
+    TcpCalculatorServer server;
+
+    private TcpCalculatorClient client;
+
+    @BeforeEach
+    void connect() throws Exception {
+        client = new TcpCalculatorClient("localhost", server.getPort());
+    }
+
+    @AfterEach
+    void close() {
+        client.close();
+    }
+
+    private static <T> T get(CompletableFuture<T> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Test
+    void testOperations() throws Exception {
+        assertEquals(new BigDecimal("4.5"), get(client.apply("+", new BigDecimal("1.5"), new BigDecimal(3))));
+        assertEquals(new BigDecimal("-6"), get(client.apply("mul", new BigDecimal(-2), new BigDecimal(3))));
+        assertEquals(new BigDecimal("0.3333"),
+                get(client.apply("/", 4, 0, List.of(BigDecimal.ONE, new BigDecimal(3)))));
+        BigDecimal factorial = get(client.apply("x!", new BigDecimal(1000)));
+        assertEquals(2568, factorial.precision());
+    }
+
+    @Test
+    void testPipelining() throws Exception {
+        List<CompletableFuture<BigDecimal>> results = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            results.add(client.apply(i % 2 == 0 ? "+" : "*", new BigDecimal(i), new BigDecimal(2)));
+        }
+        //heavy one in the middle: answered later, but matched by the request ID
+        CompletableFuture<BigDecimal> heavy = client.apply("x!", new BigDecimal(3000));
+        for (int i = 0; i < 10_000; i++) {
+            results.add(client.apply("-", new BigDecimal(i), BigDecimal.ONE));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(new BigDecimal(i % 2 == 0 ? i + 2 : i * 2), get(results.get(i)));
+            assertEquals(new BigDecimal(i - 1), get(results.get(10_000 + i)));
+        }
+        assertEquals(9131, get(heavy).precision());
+        assertEquals(0, client.getPendingCount());
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        assertTrue(failure(client.apply("/", BigDecimal.ONE, BigDecimal.ZERO)) instanceof ArithmeticException);
+        assertTrue(failure(client.apply("nonsense", BigDecimal.ONE)) instanceof IllegalArgumentException);
+        assertTrue(failure(client.apply("+", BigDecimal.ONE)) instanceof IllegalArgumentException);
+        assertTrue(failure(client.apply("/", 100_001, 0, List.of(BigDecimal.ONE, new BigDecimal(3))))
+                instanceof IllegalArgumentException);
+        //timeout
+        Throwable timeout = failure(client.apply("x!", 0, 1, List.of(new BigDecimal(200_000))));
+        assertTrue(timeout instanceof ArithmeticException, timeout.toString());
+        //the connection is still usable
+        assertEquals(BigDecimal.TEN, get(client.apply("+", new BigDecimal(7), new BigDecimal(3))));
+    }
+
+    /**
+     * The protocol by hand: malformed requests are answered, too long frame closes the connection.
+     */
+    @Test
+    void testRawFrames() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            //valid request
+            ByteBuf request = TcpProtocol.writeRequest(ByteBufAllocator.DEFAULT, 42, 0, 0, "+",
+                    List.of(new BigDecimal("1.25"), new BigDecimal(BigInteger.TEN.pow(40))));
+            TcpProtocol.Response response = send(out, in, request);
+            assertEquals(42, response.id);
+            assertEquals(TcpProtocol.OK, response.status);
+            assertEquals(new BigDecimal("10000000000000000000000000000000000000001.25"), response.result);
+            //truncated payload
+            response = send(out, in, Unpooled.buffer().writeInt(6).writeInt(7).writeByte(0).writeByte(0));
+            assertEquals(7, response.id);
+            assertEquals(TcpProtocol.INVALID, response.status);
+            assertTrue(response.message.startsWith("malformed request"), response.message);
+            //argument length far beyond the frame: refused before anything is allocated
+            ByteBuf oversized = Unpooled.buffer();
+            oversized.writeInt(0).writeInt(8).writeByte(0).writeByte(0).writeByte(1).writeByte('+').writeByte(1);
+            TcpProtocol.writeVarint(oversized, Integer.MAX_VALUE - 8);
+            oversized.setInt(0, oversized.readableBytes() - TcpProtocol.LENGTH_PREFIX);
+            response = send(out, in, oversized);
+            assertEquals(8, response.id);
+            assertEquals(TcpProtocol.INVALID, response.status);
+            assertTrue(response.message.startsWith("malformed request"), response.message);
+            //too many arguments for the frame
+            ByteBuf tooMany = Unpooled.buffer();
+            tooMany.writeInt(0).writeInt(9).writeByte(0).writeByte(0).writeByte(1).writeByte('+');
+            TcpProtocol.writeVarint(tooMany, 1_000_000);
+            tooMany.setInt(0, tooMany.readableBytes() - TcpProtocol.LENGTH_PREFIX);
+            response = send(out, in, tooMany);
+            assertEquals(9, response.id);
+            assertEquals(TcpProtocol.INVALID, response.status);
+            //the connection is still usable
+            response = send(out, in, TcpProtocol.writeRequest(ByteBufAllocator.DEFAULT, 10, 0, 0, "+",
+                    List.of(BigDecimal.ONE, BigDecimal.ONE)));
+            assertEquals(new BigDecimal(2), response.result);
+            //too long frame
+            out.write(Unpooled.buffer().writeInt(Integer.MAX_VALUE).writeInt(1).array(), 0, 8);
+            out.flush();
+            assertEquals(-1, in.read());
+        }
+    }
+
+    private static TcpProtocol.Response send(OutputStream out, DataInputStream in, ByteBuf frame) throws Exception {
+        byte[] bytes = new byte[frame.readableBytes()];
+        frame.readBytes(bytes);
+        frame.release();
+        out.write(bytes);
+        out.flush();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return TcpProtocol.readResponse(Unpooled.wrappedBuffer(payload));
+    }
+
+    @Test
+    void testClose() throws Exception {
+        TcpCalculatorClient other = new TcpCalculatorClient("localhost", server.getPort());
+        other.close();
+        assertNotNull(failure(other.apply("+", BigDecimal.ONE, BigDecimal.ONE)));
+        assertEquals(0, other.getPendingCount());
+    }
+}